@@ -0,0 +1,65 @@
+package benchmark;
+
+import model.AttractionMatrix;
+import model.Particle;
+import model.Simulation;
+import model.Vector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Measures AttractionMatrix.calcAttractionVector in isolation, over a fixed batch of particle pairs
+public class AttractionVectorBenchmark implements Benchmark {
+    private static final int BATCH = 1024;
+
+    private final int numTypes;
+    private final double range;
+    private Particle[] particles;
+    private AttractionMatrix attractionMatrix;
+
+    // EFFECTS: instantiates the benchmark for a matrix with the given number of types and range
+    public AttractionVectorBenchmark(int numTypes, double range) {
+        this.numTypes = numTypes;
+        this.range = range;
+    }
+
+    @Override
+    public String getName() {
+        return "AttractionMatrix.calcAttractionVector";
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("batch", String.valueOf(BATCH));
+        params.put("types", String.valueOf(this.numTypes));
+        params.put("range", String.valueOf(this.range));
+        return params;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: places BATCH + 1 particles in a small square, so that most consecutive pairs interact
+    @Override
+    public void setup() {
+        Simulation simulation = Worlds.create(BATCH + 1, this.numTypes, this.range, 42);
+        List<Particle> all = simulation.getParticles();
+        this.particles = new Particle[BATCH + 1];
+        for (int i = 0; i <= BATCH; i++) {
+            Vector pos = all.get(i).getPos();
+            Vector scaled = new Vector(pos.getX() * this.range / Worlds.WIDTH, pos.getY() * this.range / Worlds.WIDTH);
+            this.particles[i] = new Particle(scaled, all.get(i).getType());
+        }
+        this.attractionMatrix = simulation.getAttractionMatrix();
+    }
+
+    // EFFECTS: computes the attraction vectors of BATCH consecutive pairs
+    @Override
+    public double run() {
+        double sum = 0;
+        for (int i = 0; i < BATCH; i++) {
+            sum += this.attractionMatrix.calcAttractionVector(this.particles[i], this.particles[i + 1]).getX();
+        }
+        return sum;
+    }
+}
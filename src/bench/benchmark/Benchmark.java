@@ -0,0 +1,26 @@
+package benchmark;
+
+import java.util.Map;
+
+// Represents a single benchmarked operation, together with the parameters it was set up with
+public interface Benchmark {
+    // EFFECTS: returns the name of the benchmark, e.g. "Simulation.update"
+    String getName();
+
+    // EFFECTS: returns the parameters of the benchmark, by name
+    Map<String, String> getParams();
+
+    // MODIFIES: this
+    // EFFECTS: prepares the state used by run(); called once before any iteration
+    void setup() throws Exception;
+
+    // MODIFIES: this
+    // EFFECTS: performs the operation once, returning a value that depends on its result so that the
+    //          operation can not be optimized away
+    double run() throws Exception;
+
+    // MODIFIES: this
+    // EFFECTS: releases any resources acquired by setup()
+    default void tearDown() throws Exception {
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import persistence.Writable;
+
+import java.util.List;
+import java.util.Map;
+
+// Represents the measured throughput of one benchmark, in operations per second. The JSON form follows
+// the layout of JMH's JSON result format, so results can be compared with the usual tools.
+public class BenchmarkResult implements Writable {
+    private static final double T_95 = 1.96;
+
+    private final String name;
+    private final Map<String, String> params;
+    private final List<Double> iterations;
+
+    // EFFECTS: instantiates the result of a benchmark with the throughput of each measured iteration
+    public BenchmarkResult(String name, Map<String, String> params, List<Double> iterations) {
+        this.name = name;
+        this.params = params;
+        this.iterations = iterations;
+    }
+
+    // EFFECTS: returns the mean throughput over all iterations
+    public double getScore() {
+        double sum = 0;
+        for (double iteration : this.iterations) {
+            sum += iteration;
+        }
+        return this.iterations.isEmpty() ? 0 : sum / this.iterations.size();
+    }
+
+    // EFFECTS: returns the half-width of the (normal approximation) 95% confidence interval of the score
+    public double getScoreError() {
+        int n = this.iterations.size();
+        if (n < 2) {
+            return 0;
+        }
+        double mean = getScore();
+        double squares = 0;
+        for (double iteration : this.iterations) {
+            squares += (iteration - mean) * (iteration - mean);
+        }
+        return T_95 * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+    }
+
+    // EFFECTS: converts a BenchmarkResult to a JSON object
+    @Override
+    public JSONObject toJson() {
+        JSONObject primaryMetric = new JSONObject();
+        primaryMetric.put("score", getScore());
+        primaryMetric.put("scoreError", getScoreError());
+        primaryMetric.put("scoreUnit", "ops/s");
+        primaryMetric.put("rawData", new JSONArray().put(new JSONArray(this.iterations)));
+
+        JSONObject json = new JSONObject();
+        json.put("benchmark", this.name);
+        json.put("mode", "thrpt");
+        json.put("measurementIterations", this.iterations.size());
+        json.put("params", new JSONObject(this.params));
+        json.put("primaryMetric", primaryMetric);
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s %-45s %14.3f +- %.3f ops/s",
+                this.name, this.params, getScore(), getScoreError());
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Map<String, String> getParams() {
+        return this.params;
+    }
+
+    public List<Double> getIterations() {
+        return this.iterations;
+    }
+}
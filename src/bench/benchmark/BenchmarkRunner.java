@@ -0,0 +1,173 @@
+package benchmark;
+
+import model.ForceKernel;
+import model.PairEvaluation;
+import model.Precision;
+import org.json.JSONArray;
+import ui.RasterRenderer;
+import ui.ShapeRenderer;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs the simulation benchmarks and writes their results as JSON. Each benchmark is warmed up for a
+// few iterations, then measured over several timed iterations.
+//
+// Usage: BenchmarkRunner [--out FILE] [--filter REGEX] [--warmup N] [--iterations N] [--time MILLIS]
+//                        [--particles N,N,...] [--types N,N,...] [--ranges R,R,...]
+public class BenchmarkRunner {
+    private static volatile double sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+
+    // EFFECTS: instantiates a runner with the given number of warmup and measurement iterations, each
+    //          lasting (at least) the given number of milliseconds
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    // EFFECTS: runs the benchmark and returns its measured throughput
+    public BenchmarkResult run(Benchmark benchmark) throws Exception {
+        benchmark.setup();
+        try {
+            for (int i = 0; i < this.warmupIterations; i++) {
+                runIteration(benchmark);
+            }
+            List<Double> iterations = new ArrayList<>();
+            for (int i = 0; i < this.measurementIterations; i++) {
+                iterations.add(runIteration(benchmark));
+            }
+            return new BenchmarkResult(benchmark.getName(), benchmark.getParams(), iterations);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    // EFFECTS: runs the benchmark repeatedly for one iteration and returns the number of operations
+    //          per second. Always runs the operation at least once, however slow it is.
+    private double runIteration(Benchmark benchmark) throws Exception {
+        long deadline = System.nanoTime() + this.iterationMillis * 1_000_000;
+        long start = System.nanoTime();
+        long ops = 0;
+        double result = 0;
+        long now;
+        do {
+            result += benchmark.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        sink = result;
+        return ops / ((now - start) / 1e9);
+    }
+
+    // EFFECTS: returns every benchmark of the suite with the given parameters
+    public static List<Benchmark> suite(int[] particles, int[] types, double[] ranges) {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (int n : particles) {
+            for (int t : types) {
+                for (double range : ranges) {
+                    benchmarks.add(new UpdateBenchmark(n, t, range));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.SYMMETRIC));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.ORDERED, Precision.FLOAT));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.SYMMETRIC, Precision.FLOAT));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.ORDERED, Precision.DOUBLE,
+                            ForceKernel.BATCHED));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.SYMMETRIC, Precision.DOUBLE,
+                            ForceKernel.BATCHED));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.ORDERED, Precision.DOUBLE,
+                            ForceKernel.SCALAR, ReorderReport.DEFAULT_INTERVAL));
+                    benchmarks.add(new UpdateBenchmark(n, t, range, PairEvaluation.SYMMETRIC, Precision.DOUBLE,
+                            ForceKernel.SCALAR, ReorderReport.DEFAULT_INTERVAL));
+                }
+            }
+        }
+        for (int t : types) {
+            for (double range : ranges) {
+                benchmarks.add(new AttractionVectorBenchmark(t, range));
+            }
+        }
+        for (int n : particles) {
+            benchmarks.add(new SerializationBenchmark(SerializationBenchmark.TO_JSON, n));
+            benchmarks.add(new SerializationBenchmark(SerializationBenchmark.FROM_JSON, n));
+            benchmarks.add(new SerializationBenchmark(SerializationBenchmark.FILE_ROUND_TRIP, n));
+        }
+        for (int n : particles) {
+            benchmarks.add(new RenderBenchmark(new ShapeRenderer(), n));
+            benchmarks.add(new RenderBenchmark(new RasterRenderer(), n));
+        }
+        return benchmarks;
+    }
+
+    // EFFECTS: runs the benchmarks whose name matches the filter, printing each result as it finishes,
+    //          and writes all the results to the output file as a JSON array
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Integer.parseInt(options.getOrDefault("warmup", "3")),
+                Integer.parseInt(options.getOrDefault("iterations", "5")),
+                Long.parseLong(options.getOrDefault("time", "1000")));
+        List<Benchmark> benchmarks = suite(
+                parseInts(options.getOrDefault("particles", "1000,10000,100000")),
+                parseInts(options.getOrDefault("types", "3,8,32")),
+                parseDoubles(options.getOrDefault("ranges", "25,50,100")));
+
+        String filter = options.getOrDefault("filter", ".*");
+        JSONArray results = new JSONArray();
+        for (Benchmark benchmark : benchmarks) {
+            if (benchmark.getName().matches(filter)) {
+                BenchmarkResult result = runner.run(benchmark);
+                System.out.println(result);
+                results.put(result.toJson());
+            }
+        }
+        writeResults(options.getOrDefault("out", "benchmark-results.json"), results);
+    }
+
+    // EFFECTS: writes the results to the given file
+    private static void writeResults(String filename, JSONArray results) throws FileNotFoundException {
+        PrintWriter writer = new PrintWriter(filename);
+        writer.print(results.toString(2));
+        writer.close();
+        System.out.println("Results written to " + filename);
+    }
+
+    // EFFECTS: parses "--name value" pairs into a map from name to value
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    // EFFECTS: parses a comma-separated list of integers
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    // EFFECTS: parses a comma-separated list of doubles
+    private static double[] parseDoubles(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+package benchmark;
+
+import model.BoundaryMode;
+import model.ParticleStore;
+import model.Precision;
+import model.Simulation;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+// Reports how far a simulation stepped in single precision drifts from the same simulation stepped in
+// double precision. Both start from the same random world; at every power of two and every interval steps,
+// the report prints the RMS and maximum distance between corresponding particles, the RMS difference of
+// their velocities, and the mean speed in each precision.
+//
+// Particle life is chaotic, so any difference eventually grows until individual particles are unrelated.
+// As a baseline, the report also runs the world in double precision from its positions rounded to floats,
+// which is all the single precision run differs by at the start: while its RMS distance grows as fast, the
+// extra rounding of every float step is not what makes the runs diverge. The mean speeds show whether the
+// runs still behave alike once they have.
+//
+// Usage: PrecisionDriftReport [--particles N] [--types N] [--range R] [--steps N] [--interval N]
+//                             [--boundary OPEN|WRAP|REFLECT] [--seed N] [--out FILE.csv]
+public class PrecisionDriftReport {
+    private static final String HEADER = "step,rmsPositionError,maxPositionError,rmsVelocityError,"
+            + "rmsPositionErrorRoundedStart,meanSpeedDouble,meanSpeedFloat";
+
+    private final Simulation reference;
+    private final Simulation single;
+    private final Simulation roundedStart;
+
+    // EFFECTS: instantiates the report for three copies of the same random world: the reference, one stepped
+    //          in single precision, and one starting from positions rounded to floats
+    public PrecisionDriftReport(int numParticles, int numTypes, double range, BoundaryMode boundaryMode,
+                                long seed) {
+        this.reference = Worlds.create(numParticles, numTypes, range, seed);
+        this.single = Worlds.create(numParticles, numTypes, range, seed);
+        this.roundedStart = Worlds.create(numParticles, numTypes, range, seed);
+        this.reference.setBoundaryMode(boundaryMode);
+        this.single.setBoundaryMode(boundaryMode);
+        this.roundedStart.setBoundaryMode(boundaryMode);
+        this.single.setPrecision(Precision.FLOAT);
+
+        ParticleStore store = this.roundedStart.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            store.getPosX()[i] = (float) store.getPosX()[i];
+            store.getPosY()[i] = (float) store.getPosY()[i];
+        }
+        store.invalidateViews();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: steps the simulations the given number of times, and writes a CSV row of the drift at every
+    //          power of two and every interval steps
+    public void run(int steps, int interval, PrintWriter out) {
+        out.println(HEADER);
+        for (int step = 1; step <= steps; step++) {
+            this.reference.update();
+            this.single.update();
+            this.roundedStart.update();
+            if ((step & (step - 1)) == 0 || step % interval == 0) {
+                out.println(step + "," + row());
+                out.flush();
+            }
+        }
+    }
+
+    // EFFECTS: returns the drift from the reference as comma-separated values
+    private String row() {
+        double[] distances = distances(this.single);
+        double max = 0;
+        for (double distance : distances) {
+            max = Math.max(max, distance);
+        }
+        return String.format("%.6g,%.6g,%.6g,%.6g,%.6g,%.6g", rms(distances), max, rmsVelocityError(),
+                rms(distances(this.roundedStart)), meanSpeed(this.reference), meanSpeed(this.single));
+    }
+
+    // EFFECTS: returns the distance of every particle of the simulation from the same particle of the
+    //          reference, across the edges in wrap mode
+    private double[] distances(Simulation simulation) {
+        double[] refX = this.reference.getParticleStore().getPosX();
+        double[] refY = this.reference.getParticleStore().getPosY();
+        double[] posX = simulation.getParticleStore().getPosX();
+        double[] posY = simulation.getParticleStore().getPosY();
+        double[] distances = new double[this.reference.getParticles().size()];
+        for (int i = 0; i < distances.length; i++) {
+            double dx = posX[i] - refX[i];
+            double dy = posY[i] - refY[i];
+            if (this.reference.getBoundaryMode() == BoundaryMode.WRAP) {
+                dx = BoundaryMode.minimumImage(dx, this.reference.getWidth());
+                dy = BoundaryMode.minimumImage(dy, this.reference.getHeight());
+            }
+            distances[i] = Math.sqrt(dx * dx + dy * dy);
+        }
+        return distances;
+    }
+
+    // EFFECTS: returns the root mean square of the values
+    private static double rms(double[] values) {
+        double sumSq = 0;
+        for (double value : values) {
+            sumSq += value * value;
+        }
+        return Math.sqrt(sumSq / values.length);
+    }
+
+    // EFFECTS: returns the RMS difference between the velocities of corresponding particles
+    private double rmsVelocityError() {
+        double[] refX = this.reference.getParticleStore().getVelX();
+        double[] refY = this.reference.getParticleStore().getVelY();
+        double[] velX = this.single.getParticleStore().getVelX();
+        double[] velY = this.single.getParticleStore().getVelY();
+        int n = this.reference.getParticles().size();
+        double sumSq = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = velX[i] - refX[i];
+            double dy = velY[i] - refY[i];
+            sumSq += dx * dx + dy * dy;
+        }
+        return Math.sqrt(sumSq / n);
+    }
+
+    // EFFECTS: returns the mean speed of the particles of the simulation
+    private static double meanSpeed(Simulation simulation) {
+        double[] velX = simulation.getParticleStore().getVelX();
+        double[] velY = simulation.getParticleStore().getVelY();
+        int n = simulation.getParticles().size();
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += Math.sqrt(velX[i] * velX[i] + velY[i] * velY[i]);
+        }
+        return sum / n;
+    }
+
+    // EFFECTS: runs the report and prints it, also writing it to the output file if one is given
+    public static void main(String[] args) throws FileNotFoundException {
+        Map<String, String> options = BenchmarkRunner.parseOptions(args);
+        PrecisionDriftReport report = new PrecisionDriftReport(
+                Integer.parseInt(options.getOrDefault("particles", "2000")),
+                Integer.parseInt(options.getOrDefault("types", "8")),
+                Double.parseDouble(options.getOrDefault("range", "50")),
+                BoundaryMode.valueOf(options.getOrDefault("boundary", "WRAP")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        int steps = Integer.parseInt(options.getOrDefault("steps", "5000"));
+        int interval = Integer.parseInt(options.getOrDefault("interval", "250"));
+        PrintWriter out = options.containsKey("out")
+                ? new PrintWriter(options.get("out"))
+                : new PrintWriter(System.out);
+        report.run(steps, interval, out);
+        out.close();
+        if (options.containsKey("out")) {
+            System.out.println("Report written to " + options.get("out"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import model.RenderBuffer;
+import model.RenderSnapshot;
+import ui.ParticleRenderer;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Measures drawing one frame of a world with a particle renderer, onto an off-screen image the size of
+// the GUI's graphics panel
+public class RenderBenchmark implements Benchmark {
+    private final ParticleRenderer renderer;
+    private final int numParticles;
+    private RenderSnapshot snapshot;
+    private BufferedImage target;
+    private Graphics2D graphics;
+
+    // EFFECTS: instantiates the benchmark of the renderer on a world with the given number of particles
+    public RenderBenchmark(ParticleRenderer renderer, int numParticles) {
+        this.renderer = renderer;
+        this.numParticles = numParticles;
+    }
+
+    @Override
+    public String getName() {
+        return "ParticleRenderer.render";
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("renderer", this.renderer.toString());
+        params.put("particles", String.valueOf(this.numParticles));
+        return params;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates the world, takes a render snapshot of it, and creates the off-screen target
+    @Override
+    public void setup() {
+        RenderBuffer renderBuffer = new RenderBuffer();
+        renderBuffer.publish(Worlds.create(this.numParticles, 8, 50, 42));
+        this.snapshot = renderBuffer.acquire();
+        this.target = new BufferedImage(Worlds.WIDTH, Worlds.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        this.graphics = this.target.createGraphics();
+    }
+
+    // EFFECTS: draws one frame
+    @Override
+    public double run() {
+        this.renderer.render(this.graphics, this.snapshot, Worlds.WIDTH, Worlds.HEIGHT);
+        return this.target.getRGB(Worlds.WIDTH / 2, Worlds.HEIGHT / 2);
+    }
+
+    // EFFECTS: releases the graphics context
+    @Override
+    public void tearDown() {
+        this.graphics.dispose();
+    }
+}
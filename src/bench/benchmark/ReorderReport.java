@@ -0,0 +1,129 @@
+package benchmark;
+
+import model.BoundaryMode;
+import model.ParticleStore;
+import model.Simulation;
+import model.SpatialGrid;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+// Reports what reordering the particles along the Morton curve gains. Two copies of the same random world
+// are stepped side by side, one never reordered and one reordered every interval steps. After every report
+// interval, the report prints the throughput of each copy over the steps since the last row, and how many
+// cache lines the force loop moves between per particle in each.
+//
+// Java cannot read the hardware cache-miss counters, so the report counts cache line transitions instead:
+// the force loop visits the neighbors of every particle in storage order, cell by cell, and every time the
+// next neighbor's position lies on another 64-byte line than the last one read, the line may have to be
+// fetched. The count is the same for any machine, and tracks the misses of a cache too small to hold the
+// neighborhood of a particle. For the real counters, run the Simulation.update benchmarks of BenchmarkRunner
+// with and without a reorder interval under a profiler such as perf stat.
+//
+// Usage: ReorderReport [--particles N] [--types N] [--range R] [--steps N] [--interval N]
+//                      [--reorder-interval N] [--boundary OPEN|WRAP|REFLECT] [--seed N] [--out FILE.csv]
+public class ReorderReport {
+    public static final int DEFAULT_INTERVAL = 100;
+    private static final int DOUBLES_PER_LINE = 64 / Double.BYTES;
+    private static final String HEADER = "step,stepsPerSecondUnordered,stepsPerSecondReordered,throughputDelta,"
+            + "lineTransitionsUnordered,lineTransitionsReordered,lineTransitionDelta";
+
+    private final Simulation unordered;
+    private final Simulation reordered;
+    private final SpatialGrid grid;
+
+    // REQUIRES: reorderInterval >= 0
+    // EFFECTS: instantiates the report for two copies of the same random world, the second reordered every
+    //          reorderInterval steps
+    public ReorderReport(int numParticles, int numTypes, double range, BoundaryMode boundaryMode,
+                         int reorderInterval, long seed) {
+        this.unordered = Worlds.create(numParticles, numTypes, range, seed);
+        this.reordered = Worlds.create(numParticles, numTypes, range, seed);
+        this.unordered.setBoundaryMode(boundaryMode);
+        this.reordered.setBoundaryMode(boundaryMode);
+        this.reordered.setReorderInterval(reorderInterval);
+        this.grid = new SpatialGrid();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: steps both simulations the given number of times, and writes a CSV row comparing them every
+    //          interval steps
+    public void run(int steps, int interval, PrintWriter out) {
+        out.println(HEADER);
+        for (int step = interval; step <= steps; step += interval) {
+            double unorderedRate = time(this.unordered, interval);
+            double reorderedRate = time(this.reordered, interval);
+            double unorderedLines = lineTransitions(this.unordered);
+            double reorderedLines = lineTransitions(this.reordered);
+            out.println(String.format("%d,%.2f,%.2f,%+.1f%%,%.2f,%.2f,%+.1f%%", step, unorderedRate,
+                    reorderedRate, percentChange(unorderedRate, reorderedRate), unorderedLines, reorderedLines,
+                    percentChange(unorderedLines, reorderedLines)));
+            out.flush();
+        }
+    }
+
+    // MODIFIES: simulation
+    // EFFECTS: steps the simulation the given number of times and returns the number of steps per second
+    private static double time(Simulation simulation, int steps) {
+        long start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            simulation.update();
+        }
+        return steps / ((System.nanoTime() - start) / 1e9);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the mean number of cache line transitions per particle when every particle reads the
+    //          positions of the particles in the 3x3 block of grid cells around it
+    private double lineTransitions(Simulation simulation) {
+        ParticleStore store = simulation.getParticleStore();
+        int n = store.size();
+        this.grid.build(store.getPosX(), store.getPosY(), n, simulation.getAttractionMatrix().getRange());
+        int[] cellParticles = this.grid.getCellParticles();
+        long transitions = 0;
+        for (int i = 0; i < n; i++) {
+            int column = this.grid.columnOf(store.getPosX()[i]);
+            int row = this.grid.rowOf(store.getPosY()[i]);
+            int minColumn = Math.max(column - 1, 0);
+            int maxColumn = Math.min(column + 1, this.grid.getColumns() - 1);
+            int lastLine = i / DOUBLES_PER_LINE;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, this.grid.getRows() - 1); r++) {
+                int end = this.grid.getCellEnd(this.grid.cellIndex(maxColumn, r));
+                for (int k = this.grid.getCellStart(this.grid.cellIndex(minColumn, r)); k < end; k++) {
+                    int line = cellParticles[k] / DOUBLES_PER_LINE;
+                    transitions += line != lastLine ? 1 : 0;
+                    lastLine = line;
+                }
+            }
+        }
+        return n == 0 ? 0 : (double) transitions / n;
+    }
+
+    // EFFECTS: returns the change from before to after, in percent of before
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : 100 * (after - before) / before;
+    }
+
+    // EFFECTS: runs the report and prints it, also writing it to the output file if one is given
+    public static void main(String[] args) throws FileNotFoundException {
+        Map<String, String> options = BenchmarkRunner.parseOptions(args);
+        ReorderReport report = new ReorderReport(
+                Integer.parseInt(options.getOrDefault("particles", "20000")),
+                Integer.parseInt(options.getOrDefault("types", "8")),
+                Double.parseDouble(options.getOrDefault("range", "25")),
+                BoundaryMode.valueOf(options.getOrDefault("boundary", "WRAP")),
+                Integer.parseInt(options.getOrDefault("reorder-interval", String.valueOf(DEFAULT_INTERVAL))),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        int steps = Integer.parseInt(options.getOrDefault("steps", "2000"));
+        int interval = Integer.parseInt(options.getOrDefault("interval", "200"));
+        PrintWriter out = options.containsKey("out")
+                ? new PrintWriter(options.get("out"))
+                : new PrintWriter(System.out);
+        report.run(steps, interval, out);
+        out.close();
+        if (options.containsKey("out")) {
+            System.out.println("Report written to " + options.get("out"));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import model.Simulation;
+import org.json.JSONObject;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Measures converting a simulation to and from JSON, in memory and through the persistence classes
+public class SerializationBenchmark implements Benchmark {
+    public static final String TO_JSON = "toJson";
+    public static final String FROM_JSON = "fromJson";
+    public static final String FILE_ROUND_TRIP = "fileRoundTrip";
+
+    private final String operation;
+    private final int numParticles;
+    private Simulation simulation;
+    private JSONObject json;
+    private File file;
+
+    // REQUIRES: operation is one of TO_JSON, FROM_JSON, FILE_ROUND_TRIP
+    // EFFECTS: instantiates the benchmark of the given operation on a world with the given size
+    public SerializationBenchmark(String operation, int numParticles) {
+        this.operation = operation;
+        this.numParticles = numParticles;
+    }
+
+    @Override
+    public String getName() {
+        return "Simulation." + this.operation;
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("particles", String.valueOf(this.numParticles));
+        return params;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates the world, its JSON form, and a temporary file for the round trip
+    @Override
+    public void setup() throws Exception {
+        this.simulation = Worlds.create(this.numParticles, 3, 50, 42);
+        this.json = this.simulation.toJson();
+        this.file = File.createTempFile("benchmark", ".json");
+        this.file.deleteOnExit();
+    }
+
+    // EFFECTS: performs the operation once
+    @Override
+    public double run() throws Exception {
+        if (this.operation.equals(TO_JSON)) {
+            return this.simulation.toJson().length();
+        } else if (this.operation.equals(FROM_JSON)) {
+            return Simulation.fromJson(this.json).getParticles().size();
+        } else {
+            JsonWriter writer = new JsonWriter(this.file.getPath());
+            writer.write(this.simulation.toJson());
+            writer.close();
+            JsonReader reader = new JsonReader(this.file.getPath());
+            Simulation loaded = Simulation.fromJson(reader.read());
+            reader.close();
+            return loaded.getParticles().size();
+        }
+    }
+
+    // EFFECTS: deletes the temporary file
+    @Override
+    public void tearDown() {
+        this.file.delete();
+    }
+}
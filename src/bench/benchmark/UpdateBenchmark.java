@@ -0,0 +1,97 @@
+package benchmark;
+
+import model.ForceKernel;
+import model.PairEvaluation;
+import model.Precision;
+import model.Simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Measures one step of Simulation.update() on a random world
+public class UpdateBenchmark implements Benchmark {
+    private final int numParticles;
+    private final int numTypes;
+    private final double range;
+    private final PairEvaluation pairEvaluation;
+    private final Precision precision;
+    private final ForceKernel forceKernel;
+    private final int reorderInterval;
+    private Simulation simulation;
+
+    // EFFECTS: instantiates the benchmark for a world with the given size, number of types, and range
+    public UpdateBenchmark(int numParticles, int numTypes, double range) {
+        this(numParticles, numTypes, range, PairEvaluation.ORDERED);
+    }
+
+    // EFFECTS: instantiates the benchmark for a world with the given size, number of types, and range, whose
+    //          pairs are evaluated in the given way
+    public UpdateBenchmark(int numParticles, int numTypes, double range, PairEvaluation pairEvaluation) {
+        this(numParticles, numTypes, range, pairEvaluation, Precision.DOUBLE);
+    }
+
+    // EFFECTS: instantiates the benchmark for a world with the given size, number of types, and range, whose
+    //          pairs are evaluated in the given way and in the given precision
+    public UpdateBenchmark(int numParticles, int numTypes, double range, PairEvaluation pairEvaluation,
+                           Precision precision) {
+        this(numParticles, numTypes, range, pairEvaluation, precision, ForceKernel.SCALAR);
+    }
+
+    // EFFECTS: instantiates the benchmark for a world with the given size, number of types, and range, whose
+    //          pairs are evaluated in the given way, precision and force kernel
+    public UpdateBenchmark(int numParticles, int numTypes, double range, PairEvaluation pairEvaluation,
+                           Precision precision, ForceKernel forceKernel) {
+        this(numParticles, numTypes, range, pairEvaluation, precision, forceKernel, 0);
+    }
+
+    // EFFECTS: instantiates the benchmark for a world with the given size, number of types, and range, whose
+    //          pairs are evaluated in the given way, precision and force kernel, and whose particles are
+    //          reordered along the Morton curve every reorderInterval steps (0 for never)
+    public UpdateBenchmark(int numParticles, int numTypes, double range, PairEvaluation pairEvaluation,
+                           Precision precision, ForceKernel forceKernel, int reorderInterval) {
+        this.numParticles = numParticles;
+        this.numTypes = numTypes;
+        this.range = range;
+        this.pairEvaluation = pairEvaluation;
+        this.precision = precision;
+        this.forceKernel = forceKernel;
+        this.reorderInterval = reorderInterval;
+    }
+
+    @Override
+    public String getName() {
+        return "Simulation.update";
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("particles", String.valueOf(this.numParticles));
+        params.put("types", String.valueOf(this.numTypes));
+        params.put("range", String.valueOf(this.range));
+        params.put("pairEvaluation", this.pairEvaluation.name());
+        params.put("precision", this.precision.name());
+        params.put("forceKernel", this.forceKernel.name());
+        params.put("reorderInterval", String.valueOf(this.reorderInterval));
+        return params;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: generates the world
+    @Override
+    public void setup() {
+        this.simulation = Worlds.create(this.numParticles, this.numTypes, this.range, 42);
+        this.simulation.setPairEvaluation(this.pairEvaluation);
+        this.simulation.setPrecision(this.precision);
+        this.simulation.setForceKernel(this.forceKernel);
+        this.simulation.setReorderInterval(this.reorderInterval);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: advances the world by one frame
+    @Override
+    public double run() {
+        this.simulation.update();
+        return this.simulation.getParticles().size();
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import model.AttractionMatrix;
+import model.Particle;
+import model.ParticleType;
+import model.Simulation;
+import model.Vector;
+
+import java.awt.Color;
+import java.util.Random;
+
+// Builds reproducible random worlds for the benchmarks
+public class Worlds {
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+
+    private Worlds() {
+    }
+
+    // REQUIRES: numParticles >= 0, numTypes > 0, range > 0
+    // EFFECTS: returns a WIDTH x HEIGHT simulation with the given number of particles spread uniformly
+    //          over the given number of types, random attractions, and the given range
+    public static Simulation create(int numParticles, int numTypes, double range, long seed) {
+        Random random = new Random(seed);
+        Simulation simulation = new Simulation(WIDTH, HEIGHT);
+        for (int i = 0; i < numTypes; i++) {
+            simulation.addParticleType().setColor(new Color(random.nextInt(0x1000000)));
+        }
+        AttractionMatrix attractionMatrix = simulation.getAttractionMatrix();
+        attractionMatrix.setRange(range);
+        for (int i = 0; i < numTypes; i++) {
+            for (int j = 0; j < numTypes; j++) {
+                attractionMatrix.setAttraction(i, j, random.nextDouble() * 2 - 1);
+            }
+        }
+        for (int i = 0; i < numParticles; i++) {
+            Vector pos = new Vector(random.nextDouble() * WIDTH, random.nextDouble() * HEIGHT);
+            ParticleType type = simulation.getParticleTypes().get(random.nextInt(numTypes));
+            simulation.getParticles().add(new Particle(pos, type));
+        }
+        return simulation;
+    }
+}
@@ -12,6 +12,10 @@ public class AttractionMatrix implements Writable {
     private double beta;
     private double range;
 
+    // 0 when forces are always evaluated analytically
+    private int forceTableResolution;
+    private ForceTable forceTable;
+
     // EFFECTS: Instantiates an empty attraction matrix, with a defined friction, beta, and range.
     public AttractionMatrix(double friction, double beta, double range) {
         this.attractions = new double[0][0];
@@ -52,16 +56,108 @@ public class AttractionMatrix implements Writable {
 
     // EFFECTS: Returns the vector at which particle p acts due to particle q.
     public Vector calcAttractionVector(Particle p, Particle q) {
+        return this.calcAttractionVector(p, q, q.getPos().sub(p.getPos()));
+    }
+
+    // REQUIRES: width, height > 0
+    // EFFECTS: Returns the vector at which particle p acts due to the periodic image of particle q nearest to
+    //          it, in a world that wraps around at the given width and height.
+    public Vector calcAttractionVector(Particle p, Particle q, double width, double height) {
         Vector delta = q.getPos().sub(p.getPos());
-        double dist = delta.mag();
+        delta = new Vector(BoundaryMode.minimumImage(delta.getX(), width),
+                BoundaryMode.minimumImage(delta.getY(), height));
+        return this.calcAttractionVector(p, q, delta);
+    }
+
+    // EFFECTS: Returns the vector at which particle p acts due to particle q, displaced by delta from p.
+    private Vector calcAttractionVector(Particle p, Particle q, Vector delta) {
+        double scale = this.calcForceScale(p.getType().getID(), q.getType().getID(), delta.mag());
+        if (scale != 0) {
+            return delta.mul(scale);
+        } else {
+            return new Vector();
+        }
+    }
+
+    // EFFECTS: Returns the factor by which the displacement from a particle of type typeP to a particle
+    //          of type typeQ that is dist units away is multiplied to get the vector at which the latter
+    //          acts on the former.
+    public double calcForceScale(int typeP, int typeQ, double dist) {
         // dist > 0 avoids / by 0; dist <= this.range skips a particle that exerts a zero force.
         if (dist > 0 && dist <= this.range) {
-            double attraction = this.getAttraction(p.getType().getID(), q.getType().getID());
-            double force = this.calcForce(dist / this.range, attraction);
-            return delta.mul(force / dist);
+            double force = calcForce(dist / this.range, this.attractions[typeP][typeQ], this.beta);
+            return force / dist;
         } else {
-            return new Vector();
+            return 0;
+        }
+    }
+
+    // EFFECTS: calcForceScale() in single precision.
+    public float calcForceScaleFloat(int typeP, int typeQ, float dist) {
+        float range = (float) this.range;
+        if (dist > 0 && dist <= range) {
+            float force = calcForceFloat(dist / range, (float) this.attractions[typeP][typeQ], (float) this.beta);
+            return force / dist;
+        } else {
+            return 0;
+        }
+    }
+
+    // EFFECTS: Returns calcForceScale(typeP, typeQ, sqrt(distSq)). When a force table is enabled, pairs that
+    //          are not very close are looked up in the table instead, and pairs out of range are rejected
+    //          without taking the square root.
+    public double calcForceScaleSq(int typeP, int typeQ, double distSq) {
+        ForceTable table = this.forceTable;
+        if (table != null && distSq >= table.getInnerDistSq()) {
+            if (distSq > table.getRangeSq()) {
+                return 0;
+            }
+            return table.lookup(distSq, this.attractions[typeP][typeQ]);
+        }
+        return this.calcForceScale(typeP, typeQ, Math.sqrt(distSq));
+    }
+
+    // EFFECTS: calcForceScaleSq() in single precision. A force table is still sampled in double precision;
+    //          its result is rounded to a float.
+    public float calcForceScaleSqFloat(int typeP, int typeQ, float distSq) {
+        ForceTable table = this.forceTable;
+        if (table != null && distSq >= table.getInnerDistSq()) {
+            if (distSq > table.getRangeSq()) {
+                return 0;
+            }
+            return (float) table.lookup(distSq, this.attractions[typeP][typeQ]);
+        }
+        return this.calcForceScaleFloat(typeP, typeQ, (float) Math.sqrt(distSq));
+    }
+
+    // EFFECTS: Returns whether calcForceScaleSq looks forces up in a table rather than evaluating the formula
+    public boolean hasForceTable() {
+        return this.forceTable != null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Switches between evaluating the force formula analytically (resolution 0) and looking it up in
+    //          a table sampled at the given number of squared distances. Higher resolutions are more accurate
+    //          but use more memory; the table takes 16 bytes per sample.
+    public void setForceTableResolution(int resolution) {
+        if (resolution != 0 && resolution <= ForceTable.INNER_STEPS) {
+            throw new IllegalArgumentException("Force table resolution must be 0 or more than "
+                    + ForceTable.INNER_STEPS);
+        }
+        this.forceTableResolution = resolution;
+        rebuildForceTable();
+    }
+
+    // EFFECTS: Returns a copy of the attractions and parameters of this matrix, which always evaluates
+    //          forces analytically
+    public AttractionMatrix copy() {
+        AttractionMatrix copy = new AttractionMatrix(this.friction, this.beta, this.range);
+        double[][] attractions = new double[this.attractions.length][];
+        for (int i = 0; i < attractions.length; i++) {
+            attractions[i] = this.attractions[i].clone();
         }
+        copy.setAttractions(attractions);
+        return copy;
     }
 
     // EFFECTS: converts an AttractionMatrix to a JSON object
@@ -117,6 +213,10 @@ public class AttractionMatrix implements Writable {
         return this.range;
     }
 
+    public int getForceTableResolution() {
+        return this.forceTableResolution;
+    }
+
     // REQUIRES: Must have some number of rows and columns
     public void setAttractions(double[][] attractions) {
         this.attractions = attractions;
@@ -132,20 +232,42 @@ public class AttractionMatrix implements Writable {
 
     public void setBeta(double beta) {
         this.beta = beta;
+        rebuildForceTable();
     }
 
     public void setRange(double range) {
         this.range = range;
+        rebuildForceTable();
     }
 
     // EFFECTS: Calculates the attraction force by a particle with a given attraction value and
-    //          that is d units away.
-    private double calcForce(double d, double attraction) {
+    //          that is d units away (as a fraction of the range).
+    static double calcForce(double d, double attraction, double beta) {
         // Formula taken from https://www.youtube.com/watch?v=scvuli-zcRc
-        if (d < this.beta) {
-            return d / this.beta - 1;
+        if (d < beta) {
+            return d / beta - 1;
+        } else {
+            return attraction * (1 - Math.abs(2 * d - 1 - beta) / (1 - beta));
+        }
+    }
+
+    // EFFECTS: calcForce() in single precision.
+    static float calcForceFloat(float d, float attraction, float beta) {
+        if (d < beta) {
+            return d / beta - 1;
+        } else {
+            return attraction * (1 - Math.abs(2 * d - 1 - beta) / (1 - beta));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Resamples the force table for the current beta and range, if it is enabled. The attractions
+    //          are applied on lookup, so changing them does not require a rebuild.
+    private void rebuildForceTable() {
+        if (this.forceTableResolution > 0 && this.range > 0) {
+            this.forceTable = new ForceTable(this.forceTableResolution, this.beta, this.range);
         } else {
-            return attraction * (1 - Math.abs(2 * d - 1 - this.beta) / (1 - this.beta));
+            this.forceTable = null;
         }
     }
 }
@@ -0,0 +1,53 @@
+package model;
+
+// Represents what happens to particles at the edges of a simulation's width and height
+public enum BoundaryMode {
+    // The world is unbounded; particles may drift arbitrarily far from the visible area
+    OPEN,
+    // The world is a torus: particles leaving one edge re-enter at the opposite edge, and distances are
+    // measured to the nearest periodic image of a particle
+    WRAP,
+    // Particles bounce off the edges, reversing the velocity component normal to the edge
+    REFLECT;
+
+    // REQUIRES: period > 0
+    // EFFECTS: returns the displacement equivalent to delta modulo period with the smallest magnitude
+    public static double minimumImage(double delta, double period) {
+        double half = period / 2;
+        if (delta > half || delta < -half) {
+            return delta - period * Math.rint(delta / period);
+        }
+        return delta;
+    }
+
+    // REQUIRES: period > 0
+    // EFFECTS: minimumImage() in single precision
+    public static float minimumImageFloat(float delta, float period) {
+        float half = period / 2;
+        if (delta > half || delta < -half) {
+            return delta - period * (float) Math.rint(delta / period);
+        }
+        return delta;
+    }
+
+    // REQUIRES: period > 0
+    // EFFECTS: returns the coordinate equivalent to x modulo period that lies in [0, period)
+    public static double wrap(double x, double period) {
+        if (x >= 0 && x < period) {
+            return x;
+        }
+        double wrapped = x - period * Math.floor(x / period);
+        // Rounding can land a tiny negative x exactly on period
+        return wrapped < period ? wrapped : 0;
+    }
+
+    // REQUIRES: period > 0
+    // EFFECTS: wrap() in single precision
+    public static float wrapFloat(float x, float period) {
+        if (x >= 0 && x < period) {
+            return x;
+        }
+        float wrapped = x - period * (float) Math.floor(x / period);
+        return wrapped >= 0 && wrapped < period ? wrapped : 0;
+    }
+}
@@ -0,0 +1,210 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Represents an ensemble of independent simulations stepped concurrently on a fixed pool of threads, for
+// exploring parameters in one process instead of one process per simulation. Each simulation gets a step
+// budget and is stepped SLICE_STEPS steps at a time: after each slice, a simulation with steps left goes to
+// the back of the queue, so thousands of simulations share a few threads and all make progress together,
+// and a cancelled one stops at the end of its slice. A simulation is only stepped by one thread at a time,
+// and its own step executor should be left serial, since the ensemble already keeps every thread busy.
+public class Ensemble {
+    // Steps a simulation takes before yielding its thread to the next simulation in the queue
+    public static final int SLICE_STEPS = 16;
+
+    private final ExecutorService pool;
+    private final int threads;
+    private final List<Member> members;
+    private final AtomicInteger finished;
+
+    // REQUIRES: threads > 0
+    // EFFECTS: instantiates an empty ensemble running on the given number of threads
+    public Ensemble(int threads) {
+        this.threads = threads;
+        this.members = new ArrayList<>();
+        this.finished = new AtomicInteger();
+        AtomicInteger started = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "ensemble worker " + started.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // EFFECTS: instantiates an empty ensemble with one thread per available processor
+    public Ensemble() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // REQUIRES: steps >= 0, the ensemble has not been closed, and the simulation is not stepped elsewhere
+    //           until its member is done
+    // MODIFIES: this
+    // EFFECTS: adds the simulation to the ensemble with a budget of the given number of steps, queues its
+    //          first slice, and returns its member
+    public synchronized Member submit(Simulation simulation, long steps) {
+        Member member = new Member(simulation, steps);
+        this.members.add(member);
+        schedule(member);
+        return member;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: cancels every member that is not done yet
+    public synchronized void cancelAll() {
+        for (Member member : this.members) {
+            member.cancel();
+        }
+    }
+
+    // EFFECTS: waits until every member submitted so far is done, and returns them in the order they were
+    //          submitted
+    public List<Member> awaitAll() throws InterruptedException {
+        List<Member> submitted = getMembers();
+        for (Member member : submitted) {
+            member.await();
+        }
+        return submitted;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: waits until every member is done, then stops the threads
+    public void close() throws InterruptedException {
+        awaitAll();
+        this.pool.shutdown();
+        this.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: cancels every member, waits for the slices being run to end, then stops the threads
+    public void shutdown() throws InterruptedException {
+        cancelAll();
+        close();
+    }
+
+    // MODIFIES: member
+    // EFFECTS: queues the next slice of the member, or marks it done if the threads were stopped
+    private void schedule(Member member) {
+        try {
+            this.pool.execute(() -> runSlice(member));
+        } catch (RejectedExecutionException e) {
+            member.cancel();
+            finish(member);
+        }
+    }
+
+    // MODIFIES: member
+    // EFFECTS: steps the simulation of the member until it has taken SLICE_STEPS more steps, used up its
+    //          budget or been cancelled, then queues its next slice if it has steps left, or marks it done.
+    //          Anything thrown by a step, errors included, is kept as the member's failure, and ends it, so
+    //          that waiting for the member never hangs.
+    private void runSlice(Member member) {
+        try {
+            long end = Math.min(member.stepBudget, member.stepsTaken + SLICE_STEPS);
+            while (member.stepsTaken < end && !member.cancelled) {
+                member.simulation.update();
+                member.stepsTaken++;
+            }
+        } catch (Throwable e) {
+            member.failure = e;
+        }
+        if (member.stepsTaken < member.stepBudget && !member.cancelled && member.failure == null) {
+            schedule(member);
+        } else {
+            finish(member);
+        }
+    }
+
+    // MODIFIES: this, member
+    // EFFECTS: marks the member done and counts it
+    private void finish(Member member) {
+        this.finished.incrementAndGet();
+        member.done.countDown();
+    }
+
+    // EFFECTS: returns the members submitted so far, in the order they were submitted
+    public synchronized List<Member> getMembers() {
+        return new ArrayList<>(this.members);
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    // EFFECTS: returns the number of members that are done
+    public int getFinished() {
+        return this.finished.get();
+    }
+
+    // Represents one simulation of an ensemble, with its step budget and how far it has got. Its progress
+    // may be read from any thread; its simulation should only be read once it is done.
+    public static class Member {
+        private final Simulation simulation;
+        private final long stepBudget;
+        private final CountDownLatch done;
+        private volatile long stepsTaken;
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+
+        // EFFECTS: instantiates a member that has not taken any of its steps
+        private Member(Simulation simulation, long stepBudget) {
+            this.simulation = simulation;
+            this.stepBudget = stepBudget;
+            this.done = new CountDownLatch(1);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: asks the member to stop; it is done once the slice being run, if any, ends. Has no effect
+        //          on a member that is already done.
+        public void cancel() {
+            if (!isDone()) {
+                this.cancelled = true;
+            }
+        }
+
+        // EFFECTS: waits until the member is done
+        public void await() throws InterruptedException {
+            this.done.await();
+        }
+
+        // EFFECTS: waits until the member is done or the timeout elapses, and returns true if it is done
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return this.done.await(timeout, unit);
+        }
+
+        // EFFECTS: returns true if the member has used up its budget, been cancelled or failed, and will
+        //          not be stepped again
+        public boolean isDone() {
+            return this.done.getCount() == 0;
+        }
+
+        // EFFECTS: returns true if the member was cancelled before it used up its budget
+        public boolean isCancelled() {
+            return this.cancelled && this.stepsTaken < this.stepBudget;
+        }
+
+        public Simulation getSimulation() {
+            return this.simulation;
+        }
+
+        public long getStepBudget() {
+            return this.stepBudget;
+        }
+
+        // EFFECTS: returns the number of steps the simulation has taken so far
+        public long getStepsTaken() {
+            return this.stepsTaken;
+        }
+
+        // EFFECTS: returns the exception or error that a step of the simulation threw, or null if none has
+        public Throwable getFailure() {
+            return this.failure;
+        }
+    }
+}
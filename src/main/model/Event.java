@@ -10,15 +10,38 @@ public class Event {
     private static final int HASH_CONSTANT = 13;
     private Date dateLogged;
     private String description;
+    private EventLevel level;
 
     /**
-     * Creates an event with the given description
+     * Creates an INFO event with the given description
      * and the current date/time stamp.
      * @param description  a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(description, EventLevel.INFO);
+    }
+
+    /**
+     * Creates an event with the given description and level
+     * and the current date/time stamp.
+     * @param description  a description of the event
+     * @param level  the importance of the event
+     */
+    public Event(String description, EventLevel level) {
+        this(description, level, Calendar.getInstance().getTime());
+    }
+
+    /**
+     * Creates an event with the given description, level,
+     * and date/time stamp.
+     * @param description  a description of the event
+     * @param level  the importance of the event
+     * @param dateLogged  when the event happened
+     */
+    Event(String description, EventLevel level, Date dateLogged) {
+        this.dateLogged = dateLogged;
         this.description = description;
+        this.level = level;
     }
 
     /**
@@ -37,6 +60,14 @@ public class Event {
         return description;
     }
 
+    /**
+     * Gets the level of this event.
+     * @return  the importance of the event
+     */
+    public EventLevel getLevel() {
+        return level;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null) {
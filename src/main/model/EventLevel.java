@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * Represents how important an event is. The event log can be
+ * told to drop events below a given level.
+ */
+public enum EventLevel {
+    /** Fine-grained events that may happen many times per second, such as adding a single particle */
+    DEBUG,
+    /** Events that a user triggered or should know about */
+    INFO
+}
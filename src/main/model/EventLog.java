@@ -1,59 +1,234 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Represents a log of alarm system events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ *
+ * The log keeps at most a fixed number of the most recent events,
+ * in a ring buffer, and may be appended to from any thread. By
+ * default, a run of consecutive events with the same description
+ * is kept as one entry with a repeat count, so that e.g. adding a
+ * million particles one at a time takes a single entry.
  */
 public class EventLog implements Iterable<Event> {
+    /** the number of events kept by default */
+    public static final int DEFAULT_CAPACITY = 10000;
+
     /** the only EventLog in the system (Singleton Design Pattern) */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    private static final EventLog theLog = new EventLog();
+
+    // The entries are events[(start + k) % capacity] for k in [0, size); counts[i] is how many times
+    // events[i] happened in a row
+    private Event[] events;
+    private int[] counts;
+    private int start;
+    private int size;
+    private volatile boolean enabled;
+    private volatile EventLevel minimumLevel;
+    private volatile boolean aggregating;
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<Event>();
+        events = new Event[DEFAULT_CAPACITY];
+        counts = new int[DEFAULT_CAPACITY];
+        enabled = true;
+        minimumLevel = EventLevel.DEBUG;
+        aggregating = true;
     }
 
     /**
-     * Gets instance of EventLog - creates it
-     * if it doesn't already exist.
+     * Gets instance of EventLog.
      * (Singleton Design Pattern)
      * @return  instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
         return theLog;
     }
 
     /**
-     * Adds an event to the event log.
+     * Adds an event to the event log, unless logging is disabled or
+     * the event is below the minimum level. When the log is full, the
+     * oldest event is dropped.
      * @param e the event to be added
      */
-    public void logEvent(Event e) {
-        events.add(e);
+    public synchronized void logEvent(Event e) {
+        if (!isLoggable(e.getLevel()) || repeatLast(e.getDescription(), e.getLevel())) {
+            return;
+        }
+        append(e);
+    }
+
+    /**
+     * Adds an event with the given description and level to the event
+     * log, like logEvent(new Event(description, level)). The Event is
+     * only created if it is kept, so this is cheap to call on hot paths.
+     * @param description  a description of the event
+     * @param level  the importance of the event
+     */
+    public synchronized void logEvent(String description, EventLevel level) {
+        if (!isLoggable(level) || repeatLast(description, level)) {
+            return;
+        }
+        append(new Event(description, level));
     }
 
     /**
      * Clears the event log and logs the event.
      */
-    public void clear() {
-        events.clear();
+    public synchronized void clear() {
+        for (int k = 0; k < size; k++) {
+            events[(start + k) % events.length] = null;
+        }
+        start = 0;
+        size = 0;
         logEvent(new Event("Event log cleared."));
     }
 
+    /**
+     * Returns whether an event of the given level would be kept.
+     * Callers can check this before building an expensive description.
+     * @param level  the importance of an event
+     * @return  true if logging is enabled and the level is at least the minimum level
+     */
+    public boolean isLoggable(EventLevel level) {
+        return enabled && level.compareTo(minimumLevel) >= 0;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the logged events, oldest
+     * first. An event that was repeated has " (xN)" appended to its
+     * description, where N is the number of times it happened in a row.
+     * @return  an iterator over the logged events
+     */
     @Override
-    public Iterator<Event> iterator() {
-        return events.iterator();
+    public synchronized Iterator<Event> iterator() {
+        List<Event> snapshot = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            int index = (start + k) % events.length;
+            Event event = events[index];
+            if (counts[index] > 1) {
+                event = new Event(event.getDescription() + " (x" + counts[index] + ")", event.getLevel(),
+                        event.getDate());
+            }
+            snapshot.add(event);
+        }
+        return snapshot.iterator();
+    }
+
+    /**
+     * Gets the number of entries in the log; repeated events count once.
+     * @return  the number of entries
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of entries kept.
+     * @return  the capacity of the log
+     */
+    public synchronized int getCapacity() {
+        return events.length;
+    }
+
+    /**
+     * Changes the maximum number of entries kept, dropping the oldest
+     * entries if there are more than that.
+     * @param capacity  the new capacity; must be positive
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Event log capacity must be positive");
+        }
+        int kept = Math.min(size, capacity);
+        Event[] newEvents = new Event[capacity];
+        int[] newCounts = new int[capacity];
+        for (int k = 0; k < kept; k++) {
+            int index = (start + size - kept + k) % events.length;
+            newEvents[k] = events[index];
+            newCounts[k] = counts[index];
+        }
+        events = newEvents;
+        counts = newCounts;
+        start = 0;
+        size = kept;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns logging on or off; while it is off, events are dropped.
+     * @param enabled  whether events are logged
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public EventLevel getMinimumLevel() {
+        return minimumLevel;
+    }
+
+    /**
+     * Drops events below the given level from now on.
+     * @param minimumLevel  the least important level that is logged
+     */
+    public void setMinimumLevel(EventLevel minimumLevel) {
+        this.minimumLevel = minimumLevel;
+    }
+
+    public boolean isAggregating() {
+        return aggregating;
+    }
+
+    /**
+     * Turns on or off merging runs of events with the same description.
+     * @param aggregating  whether repeated events share one entry
+     */
+    public void setAggregating(boolean aggregating) {
+        this.aggregating = aggregating;
+    }
+
+    /**
+     * Counts the event as a repeat of the newest entry, if aggregating
+     * and the newest entry has the same description and level.
+     * @return  true if the event was counted as a repeat
+     */
+    private boolean repeatLast(String description, EventLevel level) {
+        if (!aggregating || size == 0) {
+            return false;
+        }
+        int last = (start + size - 1) % events.length;
+        Event event = events[last];
+        if (event.getLevel() != level || !event.getDescription().equals(description)
+                || counts[last] == Integer.MAX_VALUE) {
+            return false;
+        }
+        counts[last]++;
+        return true;
+    }
+
+    /**
+     * Adds a new entry, overwriting the oldest one if the log is full.
+     */
+    private void append(Event e) {
+        int index = (start + size) % events.length;
+        events[index] = e;
+        counts[index] = 1;
+        if (size < events.length) {
+            size++;
+        } else {
+            start = (start + 1) % events.length;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,287 @@
+package model;
+
+// Represents the particles of a simulation in single precision, for the steps of a simulation whose
+// precision is FLOAT. The doubles in the ParticleStore remain the state of record between steps: they are
+// rounded into this state whenever they changed, and the result of every step is copied back. Each method
+// follows the double-precision code in Simulation operation for operation, only in float arithmetic.
+// This state is an extra six floats per particle next to the doubles, plus an O(n) copy back per step: it
+// narrows what the force loop reads, but does not shrink the simulation's footprint.
+public class FloatState {
+    private ParticleStore loadedStore;
+    private long loadedVersion;
+
+    private int size;
+    private float[] posX;
+    private float[] posY;
+    private float[] velX;
+    private float[] velY;
+    private float[] nextVelX;
+    private float[] nextVelY;
+
+    private int[] types;
+    private AttractionMatrix attractionMatrix;
+    // attractions[p * numTypes + q] is the attraction of type p to type q, rounded to a float
+    private float[] attractions;
+    private int numTypes;
+    private float range;
+    private float beta;
+    private boolean periodic;
+    private boolean reflecting;
+    private float width;
+    private float height;
+    private float friction;
+
+    // EFFECTS: instantiates a state that holds no particles
+    public FloatState() {
+        allocate(0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: prepares a step of the particles in the store under the given rules, first loading the
+    //          particles from the store if they changed since the last load or step
+    public void beginStep(ParticleStore store, AttractionMatrix attractionMatrix, BoundaryMode boundaryMode,
+                          double width, double height) {
+        if (this.loadedStore != store || this.loadedVersion != store.getVersion()) {
+            load(store);
+        }
+        this.types = store.getTypes();
+        this.attractionMatrix = attractionMatrix;
+        this.periodic = boundaryMode == BoundaryMode.WRAP;
+        this.reflecting = boundaryMode == BoundaryMode.REFLECT;
+        this.width = (float) width;
+        this.height = (float) height;
+        this.friction = (float) attractionMatrix.getFriction();
+        this.range = (float) attractionMatrix.getRange();
+        this.beta = (float) attractionMatrix.getBeta();
+        loadAttractions(attractionMatrix.getAttractions());
+    }
+
+    // MODIFIES: this, store
+    // EFFECTS: makes the next velocities the current velocities, and copies the positions and velocities back
+    //          into the store the step began with
+    public void endStep(ParticleStore store) {
+        float[] tmpX = this.velX;
+        float[] tmpY = this.velY;
+        this.velX = this.nextVelX;
+        this.velY = this.nextVelY;
+        this.nextVelX = tmpX;
+        this.nextVelY = tmpY;
+
+        for (int i = 0; i < this.size; i++) {
+            store.getPosX()[i] = this.posX[i];
+            store.getPosY()[i] = this.posY[i];
+            store.getVelX()[i] = this.velX[i];
+            store.getVelY()[i] = this.velY[i];
+        }
+        store.invalidateViews();
+        this.loadedVersion = store.getVersion();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the next velocity of the particles in [from, to) to their current velocity
+    public void startVelocities(int from, int to) {
+        System.arraycopy(this.velX, from, this.nextVelX, from, to - from);
+        System.arraycopy(this.velY, from, this.nextVelY, from, to - from);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies friction to the next velocity of the particles in [from, to)
+    public void applyFriction(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.nextVelX[i] *= this.friction;
+            this.nextVelY[i] *= this.friction;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the vector at which particle j acts on particle i to the next velocity of i, and returns
+    //          1 if j is in range, otherwise 0
+    public int accumulatePair(int i, int j) {
+        float dx = displacement(this.posX[j] - this.posX[i], this.width);
+        float dy = displacement(this.posY[j] - this.posY[i], this.height);
+        float scale = forceScale(this.types[i], this.types[j], dx * dx + dy * dy);
+        if (scale != 0) {
+            this.nextVelX[i] += dx * scale;
+            this.nextVelY[i] += dy * scale;
+            return 1;
+        }
+        return 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the vector at which particle j acts on particle i to the next velocity of i and the
+    //          vector at which i acts on j to the next velocity of j, and returns 1 if the pair is in range,
+    //          otherwise 0
+    public int accumulateSymmetricPair(int i, int j) {
+        float dx = displacement(this.posX[j] - this.posX[i], this.width);
+        float dy = displacement(this.posY[j] - this.posY[i], this.height);
+        float distSq = dx * dx + dy * dy;
+        float scaleIJ = forceScale(this.types[i], this.types[j], distSq);
+        float scaleJI = forceScale(this.types[j], this.types[i], distSq);
+        if (scaleIJ != 0 || scaleJI != 0) {
+            this.nextVelX[i] += dx * scaleIJ;
+            this.nextVelY[i] += dy * scaleIJ;
+            this.nextVelX[j] -= dx * scaleJI;
+            this.nextVelY[j] -= dy * scaleJI;
+            return 1;
+        }
+        return 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: accumulatePair(i, j) for every j in neighbors[start .. end - 1], in order, and returns how
+    //          many of them are in range. The position and next velocity of i stay in locals for the whole range.
+    public int accumulateNeighbors(int i, int[] neighbors, int start, int end) {
+        float x = this.posX[i];
+        float y = this.posY[i];
+        int type = this.types[i];
+        float vx = this.nextVelX[i];
+        float vy = this.nextVelY[i];
+        int inRange = 0;
+        for (int k = start; k < end; k++) {
+            int j = neighbors[k];
+            float dx = displacement(this.posX[j] - x, this.width);
+            float dy = displacement(this.posY[j] - y, this.height);
+            float scale = forceScale(type, this.types[j], dx * dx + dy * dy);
+            if (scale != 0) {
+                vx += dx * scale;
+                vy += dy * scale;
+                inRange++;
+            }
+        }
+        this.nextVelX[i] = vx;
+        this.nextVelY[i] = vy;
+        return inRange;
+    }
+
+    // REQUIRES: i is not in neighbors[start .. end - 1]
+    // MODIFIES: this
+    // EFFECTS: accumulateSymmetricPair(i, j) for every j in neighbors[start .. end - 1], in order, and returns
+    //          how many of the pairs are in range
+    public int accumulateSymmetricNeighbors(int i, int[] neighbors, int start, int end) {
+        float x = this.posX[i];
+        float y = this.posY[i];
+        int type = this.types[i];
+        float vx = this.nextVelX[i];
+        float vy = this.nextVelY[i];
+        int inRange = 0;
+        for (int k = start; k < end; k++) {
+            int j = neighbors[k];
+            float dx = displacement(this.posX[j] - x, this.width);
+            float dy = displacement(this.posY[j] - y, this.height);
+            float distSq = dx * dx + dy * dy;
+            float scaleIJ = forceScale(type, this.types[j], distSq);
+            float scaleJI = forceScale(this.types[j], type, distSq);
+            if (scaleIJ != 0 || scaleJI != 0) {
+                vx += dx * scaleIJ;
+                vy += dy * scaleIJ;
+                this.nextVelX[j] -= dx * scaleJI;
+                this.nextVelY[j] -= dy * scaleJI;
+                inRange++;
+            }
+        }
+        this.nextVelX[i] = vx;
+        this.nextVelY[i] = vy;
+        return inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the particles in [from, to) by their current velocity, then applies the boundary mode
+    public void integrate(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.posX[i] += this.velX[i];
+            this.posY[i] += this.velY[i];
+        }
+        if (this.periodic) {
+            for (int i = from; i < to; i++) {
+                this.posX[i] = BoundaryMode.wrapFloat(this.posX[i], this.width);
+                this.posY[i] = BoundaryMode.wrapFloat(this.posY[i], this.height);
+            }
+        } else if (this.reflecting) {
+            for (int i = from; i < to; i++) {
+                this.posX[i] = reflect(this.posX[i], this.width, this.nextVelX, i);
+                this.posY[i] = reflect(this.posY[i], this.height, this.nextVelY, i);
+            }
+        }
+    }
+
+    // EFFECTS: returns the number of particles last loaded
+    public int size() {
+        return this.size;
+    }
+
+    // EFFECTS: returns the displacement d along an axis of the given size, replaced by its minimum image
+    //          in wrap mode
+    private float displacement(float d, float size) {
+        return this.periodic ? BoundaryMode.minimumImageFloat(d, size) : d;
+    }
+
+    // EFFECTS: AttractionMatrix.calcForceScaleSqFloat() under the rules read at the start of the step. Without
+    //          a force table, the formula is evaluated from the cached floats rather than from the matrix.
+    private float forceScale(int typeP, int typeQ, float distSq) {
+        if (this.attractionMatrix.hasForceTable()) {
+            return this.attractionMatrix.calcForceScaleSqFloat(typeP, typeQ, distSq);
+        }
+        float dist = (float) Math.sqrt(distSq);
+        if (dist > 0 && dist <= this.range) {
+            float attraction = this.attractions[typeP * this.numTypes + typeQ];
+            return AttractionMatrix.calcForceFloat(dist / this.range, attraction, this.beta) / dist;
+        }
+        return 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: rounds the attraction matrix into the flat attractions array
+    private void loadAttractions(double[][] matrix) {
+        this.numTypes = matrix.length;
+        if (this.attractions == null || this.attractions.length < this.numTypes * this.numTypes) {
+            this.attractions = new float[this.numTypes * this.numTypes];
+        }
+        for (int p = 0; p < this.numTypes; p++) {
+            for (int q = 0; q < this.numTypes; q++) {
+                this.attractions[p * this.numTypes + q] = (float) matrix[p][q];
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: rounds the positions and velocities of the particles in the store to floats
+    private void load(ParticleStore store) {
+        this.size = store.size();
+        if (this.posX.length < this.size) {
+            allocate(this.size + this.size / 2);
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.posX[i] = (float) store.getPosX()[i];
+            this.posY[i] = (float) store.getPosY()[i];
+            this.velX[i] = (float) store.getVelX()[i];
+            this.velY[i] = (float) store.getVelY()[i];
+        }
+        this.loadedStore = store;
+        this.loadedVersion = store.getVersion();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates empty arrays with the given capacity
+    private void allocate(int capacity) {
+        this.posX = new float[capacity];
+        this.posY = new float[capacity];
+        this.velX = new float[capacity];
+        this.velY = new float[capacity];
+        this.nextVelX = new float[capacity];
+        this.nextVelY = new float[capacity];
+    }
+
+    // MODIFIES: nextVel
+    // EFFECTS: mirrors a coordinate that left [0, size) back inside, reversing nextVel[i] when it does
+    private static float reflect(float x, float size, float[] nextVel, int i) {
+        if (x < 0) {
+            nextVel[i] = -nextVel[i];
+            return Math.min(-x, size);
+        } else if (x > size) {
+            nextVel[i] = -nextVel[i];
+            return Math.max(2 * size - x, 0);
+        }
+        return x;
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+// Represents how a simulation evaluates the force formula over the neighbors that its neighbor search finds
+public enum ForceKernel {
+    // Evaluates one pair at a time, skipping the formula for pairs out of range; the reference for tests
+    SCALAR,
+    // Gathers the neighbors of a particle into contiguous arrays and evaluates the formula over all of them
+    // without branches, so that the JIT compiler can use SIMD instructions. The results are identical to
+    // SCALAR. Only used for grid searches in DOUBLE precision without a force table; SCALAR otherwise.
+    BATCHED
+}
@@ -0,0 +1,62 @@
+package model;
+
+// Represents the attraction force function of an AttractionMatrix, divided by distance and sampled at evenly
+// spaced squared distances, so that a pair within range can be evaluated without a square root or a
+// division. The force of a pair is split into a repulsive part that is the same for every pair of types and
+// an attractive part that is proportional to the pair's attraction, so a single table serves every pair.
+public class ForceTable {
+    // Near zero distance the force over distance grows like 1 / distance, which interpolates poorly; squared
+    // distances under this many table steps are left to the analytic formula.
+    public static final int INNER_STEPS = 16;
+
+    private final int resolution;
+    private final double rangeSq;
+    private final double stepsPerDistSq;
+    private final double innerDistSq;
+    private final double[] repulsion;
+    private final double[] attraction;
+
+    // REQUIRES: resolution > INNER_STEPS, range > 0
+    // EFFECTS: samples the force function with the given beta and range at resolution + 1 evenly spaced
+    //          squared distances between 0 and range * range
+    public ForceTable(int resolution, double beta, double range) {
+        this.resolution = resolution;
+        this.rangeSq = range * range;
+        this.stepsPerDistSq = resolution / this.rangeSq;
+        this.innerDistSq = INNER_STEPS / this.stepsPerDistSq;
+        // One extra sample past the range, so that interpolating at exactly the range stays in bounds
+        this.repulsion = new double[resolution + 2];
+        this.attraction = new double[resolution + 2];
+        for (int k = 1; k <= resolution; k++) {
+            double dist = Math.sqrt(k / this.stepsPerDistSq);
+            double repulsive = AttractionMatrix.calcForce(dist / range, 0, beta);
+            double attractive = AttractionMatrix.calcForce(dist / range, 1, beta) - repulsive;
+            this.repulsion[k] = repulsive / dist;
+            this.attraction[k] = attractive / dist;
+        }
+    }
+
+    // REQUIRES: getInnerDistSq() <= distSq <= getRangeSq()
+    // EFFECTS: returns the interpolated force over distance of a pair with the given attraction that is
+    //          sqrt(distSq) units apart
+    public double lookup(double distSq, double attraction) {
+        double x = distSq * this.stepsPerDistSq;
+        int k = (int) x;
+        double frac = x - k;
+        double lower = this.repulsion[k] + attraction * this.attraction[k];
+        double upper = this.repulsion[k + 1] + attraction * this.attraction[k + 1];
+        return lower + frac * (upper - lower);
+    }
+
+    public int getResolution() {
+        return this.resolution;
+    }
+
+    public double getRangeSq() {
+        return this.rangeSq;
+    }
+
+    public double getInnerDistSq() {
+        return this.innerDistSq;
+    }
+}
@@ -0,0 +1,105 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents a sorter that orders particles along a Morton (Z-order) curve over the world. The world is
+// divided into a 2^16 x 2^16 lattice, and each particle's key interleaves the bits of its lattice column and
+// row, so particles that are close in space get close keys. Laying the particles out in key order keeps the
+// neighbors of a particle close to it in memory. The keys are sorted with a stable radix sort into arrays
+// that are kept between sorts, so sorting does not allocate once the arrays are large enough.
+public class MortonOrder {
+    private static final int BITS = 16;
+    private static final int LATTICE = 1 << BITS;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private int[] keys;
+    private int[] order;
+    private int[] sortedKeys;
+    private int[] sortedOrder;
+    private final int[] counts;
+
+    // EFFECTS: instantiates a sorter with no particles
+    public MortonOrder() {
+        allocate(0);
+        this.counts = new int[RADIX];
+    }
+
+    // REQUIRES: width, height > 0, n <= posX.length, n <= posY.length
+    // MODIFIES: this
+    // EFFECTS: returns the indices of the first n particles of the position arrays in Morton order over the
+    //          world [0, width) x [0, height); particles with equal keys keep their relative order. Only the
+    //          first n entries of the returned array are meaningful, and it is reused by the next sort.
+    //          Positions outside the world are clamped to its edges.
+    public int[] sort(double[] posX, double[] posY, int n, double width, double height) {
+        if (this.keys.length < n) {
+            allocate(n + n / 2);
+        }
+        for (int i = 0; i < n; i++) {
+            this.keys[i] = key(posX[i], posY[i], width, height);
+            this.order[i] = i;
+        }
+        for (int shift = 0; shift < 2 * BITS; shift += RADIX_BITS) {
+            sortByDigit(n, shift);
+        }
+        return this.order;
+    }
+
+    // REQUIRES: width, height > 0
+    // EFFECTS: returns the Morton key of the point (x, y) in the world [0, width) x [0, height)
+    public static int key(double x, double y, double width, double height) {
+        return interleave(latticeCoordinate(x, width)) | interleave(latticeCoordinate(y, height)) << 1;
+    }
+
+    // EFFECTS: returns the lattice coordinate of x along an axis of the given size, clamped to the lattice
+    private static int latticeCoordinate(double x, double size) {
+        int coordinate = (int) (x / size * LATTICE);
+        return Math.max(0, Math.min(coordinate, LATTICE - 1));
+    }
+
+    // REQUIRES: 0 <= value < 2^16
+    // EFFECTS: returns value with a zero bit inserted above each of its bits
+    static int interleave(int value) {
+        int bits = value;
+        bits = (bits | bits << 8) & 0x00FF00FF;
+        bits = (bits | bits << 4) & 0x0F0F0F0F;
+        bits = (bits | bits << 2) & 0x33333333;
+        bits = (bits | bits << 1) & 0x55555555;
+        return bits;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stably sorts the first n keys, and the indices with them, by the digit at the given shift
+    private void sortByDigit(int n, int shift) {
+        Arrays.fill(this.counts, 0);
+        for (int i = 0; i < n; i++) {
+            this.counts[this.keys[i] >>> shift & (RADIX - 1)]++;
+        }
+        int start = 0;
+        for (int digit = 0; digit < RADIX; digit++) {
+            int count = this.counts[digit];
+            this.counts[digit] = start;
+            start += count;
+        }
+        for (int i = 0; i < n; i++) {
+            int position = this.counts[this.keys[i] >>> shift & (RADIX - 1)]++;
+            this.sortedKeys[position] = this.keys[i];
+            this.sortedOrder[position] = this.order[i];
+        }
+        int[] keys = this.keys;
+        this.keys = this.sortedKeys;
+        this.sortedKeys = keys;
+        int[] order = this.order;
+        this.order = this.sortedOrder;
+        this.sortedOrder = order;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates the arrays with the given capacity
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.order = new int[capacity];
+        this.sortedKeys = new int[capacity];
+        this.sortedOrder = new int[capacity];
+    }
+}
@@ -0,0 +1,16 @@
+package model;
+
+// Represents the strategy a simulation uses to find the particles that act on each particle
+public enum NeighborSearch {
+    // Tests every ordered pair of particles; kept as the reference for correctness tests
+    BRUTE_FORCE,
+    // Buckets the particles into a uniform grid of range-sized cells and only tests nearby cells
+    GRID,
+    // Splits the world into an adaptive quadtree by occupancy and only tests leaves within range
+    QUADTREE,
+    // Uses the quadtree while the particles crowd into few cells of the grid, and the grid otherwise
+    ADAPTIVE,
+    // Lists the particles within range plus a skin of each particle from the grid, and reuses the lists
+    // until the particles have moved far enough for a pair to have closed the skin
+    VERLET
+}
@@ -0,0 +1,11 @@
+package model;
+
+// Represents how a simulation evaluates the forces between the pairs of particles that its neighbor
+// search finds
+public enum PairEvaluation {
+    // Visits every ordered pair (p, q) and computes the force of q on p; the reference for correctness tests
+    ORDERED,
+    // Visits every unordered pair once, computing the distance a single time and applying the attraction in
+    // both directions. Each pair updates both of its particles, so this step always runs on one thread.
+    SYMMETRIC
+}
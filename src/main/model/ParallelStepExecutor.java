@@ -0,0 +1,80 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Represents a step executor that splits the particles into chunks and runs them on a fork/join pool.
+// Each particle's work is done in the same order as on a single thread, so the results are identical.
+public class ParallelStepExecutor implements StepExecutor {
+    // Ranges smaller than this are not worth handing to another thread
+    private static final int MIN_CHUNK_SIZE = 256;
+    // Number of chunks per thread, so that threads finishing early can steal the remaining work
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int threads;
+
+    // REQUIRES: threads > 0
+    // EFFECTS: instantiates a parallel executor running on the given number of threads
+    public ParallelStepExecutor(int threads) {
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    // EFFECTS: instantiates a parallel executor with one thread per available processor
+    public ParallelStepExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // EFFECTS: runs the task over [0, n) in chunks on the pool, and waits for every chunk to finish
+    @Override
+    public void execute(int n, RangeTask task) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, n / (this.threads * CHUNKS_PER_THREAD) + 1);
+        if (n <= chunkSize) {
+            task.run(0, n);
+        } else {
+            this.pool.invoke(new Chunk(task, 0, n, chunkSize));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shuts down the worker threads
+    @Override
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    // Represents a range of indices that is split in half until it is at most one chunk long
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        // EFFECTS: instantiates the work for [from, to)
+        Chunk(RangeTask task, int from, int to, int chunkSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        // EFFECTS: runs the range directly if it is small enough, otherwise splits it in two
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.chunkSize) {
+                this.task.run(this.from, this.to);
+            } else {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new Chunk(this.task, this.from, mid, this.chunkSize),
+                        new Chunk(this.task, mid, this.to, this.chunkSize));
+            }
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+// Represents the state of every particle in a simulation, stored as parallel primitive arrays so that
+// the simulation can update particles in place without allocating. Particle objects are only created
+// as read-only views of a slot, on demand, and are cached until the slot changes. Every particle added gets
+// an ID that stays with it while its slot moves, so a particle can be followed across reorder().
+public class ParticleStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private double[] posX;
+    private double[] posY;
+    private double[] velX;
+    private double[] velY;
+    private double[] nextVelX;
+    private double[] nextVelY;
+    private int[] types;
+    private ParticleType[] typeRefs;
+    private Particle[] views;
+    private int[] ids;
+    private int nextId;
+    private long version;
+    private long reorders;
+    // Scratch space for reorder(); the next velocity arrays serve for the doubles
+    private int[] intScratch;
+    private ParticleType[] typeScratch;
+
+    private final List<Particle> listView;
+
+    // EFFECTS: instantiates an empty particle store
+    public ParticleStore() {
+        this.size = 0;
+        allocate(INITIAL_CAPACITY);
+        this.intScratch = new int[0];
+        this.typeScratch = new ParticleType[0];
+        this.listView = new ListView();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a particle to the end of the store
+    public void add(Particle particle) {
+        add(this.size, particle);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends every particle of the collection to the end of the store, in iteration order,
+    //          growing the arrays at most once
+    public void addAll(Collection<? extends Particle> particles) {
+        ensureCapacity(this.size + particles.size());
+        for (Particle particle : particles) {
+            add(this.size, particle);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a particle with the given state to the end of the store, without creating a
+    //          Particle object for it
+    public void add(double x, double y, double vx, double vy, ParticleType type) {
+        ensureCapacity(this.size + 1);
+        this.posX[this.size] = x;
+        this.posY[this.size] = y;
+        this.velX[this.size] = vx;
+        this.velY[this.size] = vy;
+        this.typeRefs[this.size] = type;
+        this.types[this.size] = type.getID();
+        this.views[this.size] = null;
+        this.ids[this.size] = this.nextId++;
+        this.size++;
+        this.version++;
+    }
+
+    // REQUIRES: 0 <= index <= size()
+    // MODIFIES: this
+    // EFFECTS: inserts a particle at the given index, shifting the subsequent particles up by one
+    public void add(int index, Particle particle) {
+        ensureCapacity(this.size + 1);
+        shift(index, index + 1, this.size - index);
+        this.size++;
+        this.ids[index] = this.nextId++;
+        set(index, particle);
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // MODIFIES: this
+    // EFFECTS: overwrites the particle at the given index, which keeps the ID of the particle it replaces
+    public void set(int index, Particle particle) {
+        this.posX[index] = particle.getPos().getX();
+        this.posY[index] = particle.getPos().getY();
+        this.velX[index] = particle.getVel().getX();
+        this.velY[index] = particle.getVel().getY();
+        this.typeRefs[index] = particle.getType();
+        this.types[index] = particle.getType().getID();
+        this.views[index] = particle;
+        this.version++;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // MODIFIES: this
+    // EFFECTS: removes the particle at the given index, shifting the subsequent particles down by one,
+    //          and returns a view of the removed particle
+    public Particle remove(int index) {
+        Particle removed = get(index);
+        shift(index + 1, index, this.size - index - 1);
+        this.size--;
+        this.typeRefs[this.size] = null;
+        this.views[this.size] = null;
+        this.version++;
+        return removed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every particle whose index satisfies the predicate, in one pass that keeps the
+    //          remaining particles in order, and returns the number removed. The predicate sees the
+    //          indices from before the removal, in increasing order.
+    public int removeWhere(IntPredicate predicate) {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (predicate.test(i)) {
+                continue;
+            }
+            if (kept != i) {
+                shift(i, kept, 1);
+            }
+            kept++;
+        }
+        int removed = this.size - kept;
+        Arrays.fill(this.typeRefs, kept, this.size, null);
+        Arrays.fill(this.views, kept, this.size, null);
+        this.size = kept;
+        this.version++;
+        return removed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes every particle
+    public void clear() {
+        Arrays.fill(this.typeRefs, 0, this.size, null);
+        Arrays.fill(this.views, 0, this.size, null);
+        this.size = 0;
+        this.version++;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns a view of the particle at the given index
+    public Particle get(int index) {
+        Particle view = this.views[index];
+        if (view == null) {
+            Vector pos = new Vector(this.posX[index], this.posY[index]);
+            Vector vel = new Vector(this.velX[index], this.velY[index]);
+            view = new Particle(pos, vel, this.typeRefs[index]);
+            this.views[index] = view;
+        }
+        return view;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: discards the cached particle views; must be called after the arrays are modified in place
+    public void invalidateViews() {
+        Arrays.fill(this.views, 0, this.size, null);
+        this.version++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: re-reads the type id of every particle from its particle type
+    public void refreshTypes() {
+        for (int i = 0; i < this.size; i++) {
+            this.types[i] = this.typeRefs[i].getID();
+        }
+    }
+
+    // REQUIRES: order holds a permutation of 0 .. size() - 1 in its first size() entries
+    // MODIFIES: this
+    // EFFECTS: moves the particles so that the particle at index order[k] ends up at index k, each keeping
+    //          its ID. The next velocities are overwritten. Does not allocate once the store has been
+    //          reordered at its current capacity.
+    public void reorder(int[] order) {
+        if (this.intScratch.length < this.posX.length) {
+            this.intScratch = new int[this.posX.length];
+            this.typeScratch = new ParticleType[this.posX.length];
+        }
+        this.posX = permute(this.posX, order);
+        this.posY = permute(this.posY, order);
+        this.velX = permute(this.velX, order);
+        this.velY = permute(this.velY, order);
+        this.ids = permute(this.ids, order);
+        this.types = permute(this.types, order);
+        for (int k = 0; k < this.size; k++) {
+            this.typeScratch[k] = this.typeRefs[order[k]];
+        }
+        ParticleType[] typeRefs = this.typeRefs;
+        this.typeRefs = this.typeScratch;
+        this.typeScratch = typeRefs;
+        Arrays.fill(this.typeScratch, 0, this.size, null);
+        this.reorders++;
+        invalidateViews();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the next velocities the current velocities. The old current velocity arrays are
+    //          reused as the next velocity buffers.
+    public void commitVelocities() {
+        double[] tmpX = this.velX;
+        double[] tmpY = this.velY;
+        this.velX = this.nextVelX;
+        this.velY = this.nextVelY;
+        this.nextVelX = tmpX;
+        this.nextVelY = tmpY;
+        invalidateViews();
+    }
+
+    // EFFECTS: returns a store holding the same particles, each with its particle type replaced by
+    //          typeCopy.apply(type). The arrays are copied in bulk, without creating Particle objects.
+    public ParticleStore copy(UnaryOperator<ParticleType> typeCopy) {
+        ParticleStore copy = new ParticleStore();
+        copy.allocate(Math.max(this.size, INITIAL_CAPACITY));
+        System.arraycopy(this.posX, 0, copy.posX, 0, this.size);
+        System.arraycopy(this.posY, 0, copy.posY, 0, this.size);
+        System.arraycopy(this.velX, 0, copy.velX, 0, this.size);
+        System.arraycopy(this.velY, 0, copy.velY, 0, this.size);
+        System.arraycopy(this.types, 0, copy.types, 0, this.size);
+        System.arraycopy(this.ids, 0, copy.ids, 0, this.size);
+        copy.nextId = this.nextId;
+        for (int i = 0; i < this.size; i++) {
+            copy.typeRefs[i] = typeCopy.apply(this.typeRefs[i]);
+        }
+        copy.size = this.size;
+        return copy;
+    }
+
+    // EFFECTS: returns a live List view of the store; changes to one are reflected in the other
+    public List<Particle> asList() {
+        return this.listView;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // EFFECTS: returns a counter that changes whenever particles are added, removed or replaced, or the
+    //          arrays are modified in place (as reported by invalidateViews())
+    public long getVersion() {
+        return this.version;
+    }
+
+    public double[] getPosX() {
+        return this.posX;
+    }
+
+    public double[] getPosY() {
+        return this.posY;
+    }
+
+    public double[] getVelX() {
+        return this.velX;
+    }
+
+    public double[] getVelY() {
+        return this.velY;
+    }
+
+    public double[] getNextVelX() {
+        return this.nextVelX;
+    }
+
+    public double[] getNextVelY() {
+        return this.nextVelY;
+    }
+
+    public int[] getTypes() {
+        return this.types;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the ID of the particle at the given index, which no other particle of the store has
+    //          had, and which stays with the particle when it is moved by reorder()
+    public int getId(int index) {
+        return this.ids[index];
+    }
+
+    // EFFECTS: returns the index of the particle with the given ID, or -1 if no particle has it
+    public int indexOf(int id) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the number of times reorder() has moved the particles
+    public long getReorders() {
+        return this.reorders;
+    }
+
+    // REQUIRES: 0 <= index < size()
+    // EFFECTS: returns the particle type of the particle at the given index
+    public ParticleType getType(int index) {
+        return this.typeRefs[index];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates empty arrays with the given capacity
+    private void allocate(int capacity) {
+        this.posX = new double[capacity];
+        this.posY = new double[capacity];
+        this.velX = new double[capacity];
+        this.velY = new double[capacity];
+        this.nextVelX = new double[capacity];
+        this.nextVelY = new double[capacity];
+        this.types = new int[capacity];
+        this.typeRefs = new ParticleType[capacity];
+        this.views = new Particle[capacity];
+        this.ids = new int[capacity];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the arrays (at least doubling them) so they can hold the given number of particles
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.posX.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, 2 * this.posX.length);
+        this.posX = Arrays.copyOf(this.posX, newCapacity);
+        this.posY = Arrays.copyOf(this.posY, newCapacity);
+        this.velX = Arrays.copyOf(this.velX, newCapacity);
+        this.velY = Arrays.copyOf(this.velY, newCapacity);
+        this.nextVelX = new double[newCapacity];
+        this.nextVelY = new double[newCapacity];
+        this.types = Arrays.copyOf(this.types, newCapacity);
+        this.typeRefs = Arrays.copyOf(this.typeRefs, newCapacity);
+        this.views = Arrays.copyOf(this.views, newCapacity);
+        this.ids = Arrays.copyOf(this.ids, newCapacity);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves length slots starting at from to start at to
+    private void shift(int from, int to, int length) {
+        System.arraycopy(this.posX, from, this.posX, to, length);
+        System.arraycopy(this.posY, from, this.posY, to, length);
+        System.arraycopy(this.velX, from, this.velX, to, length);
+        System.arraycopy(this.velY, from, this.velY, to, length);
+        System.arraycopy(this.types, from, this.types, to, length);
+        System.arraycopy(this.typeRefs, from, this.typeRefs, to, length);
+        System.arraycopy(this.views, from, this.views, to, length);
+        System.arraycopy(this.ids, from, this.ids, to, length);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns values permuted by order into the next x velocity array, which takes the place of
+    //          values
+    private double[] permute(double[] values, int[] order) {
+        double[] permuted = this.nextVelX;
+        for (int k = 0; k < this.size; k++) {
+            permuted[k] = values[order[k]];
+        }
+        this.nextVelX = values;
+        return permuted;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns values permuted by order into the int scratch array, which takes the place of values
+    private int[] permute(int[] values, int[] order) {
+        int[] permuted = this.intScratch;
+        for (int k = 0; k < this.size; k++) {
+            permuted[k] = values[order[k]];
+        }
+        this.intScratch = values;
+        return permuted;
+    }
+
+    // Represents the particle store as a List of particle views
+    private class ListView extends AbstractList<Particle> {
+        @Override
+        public Particle get(int index) {
+            checkIndex(index, size);
+            return ParticleStore.this.get(index);
+        }
+
+        @Override
+        public Particle set(int index, Particle particle) {
+            checkIndex(index, size);
+            Particle old = ParticleStore.this.get(index);
+            ParticleStore.this.set(index, particle);
+            return old;
+        }
+
+        @Override
+        public void add(int index, Particle particle) {
+            checkIndex(index, size + 1);
+            ParticleStore.this.add(index, particle);
+            modCount++;
+        }
+
+        @Override
+        public Particle remove(int index) {
+            checkIndex(index, size);
+            modCount++;
+            return ParticleStore.this.remove(index);
+        }
+
+        @Override
+        public void clear() {
+            ParticleStore.this.clear();
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // EFFECTS: throws IndexOutOfBoundsException if index is not in [0, bound)
+        private void checkIndex(int index, int bound) {
+            if (index < 0 || index >= bound) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package model;
+
+// Represents the floating point precision in which a simulation steps its particles
+public enum Precision {
+    // Positions, velocities and forces are doubles; the reference for correctness tests
+    DOUBLE,
+    // Positions, velocities and forces are floats during a step, which halves the bytes the force loop
+    // reads per neighbor. Between steps the particles are still available as doubles, holding the float
+    // values. The float arrays are kept on top of the doubles, so FLOAT takes more memory per particle, not
+    // less, and every step ends by copying the floats back into the doubles.
+    FLOAT
+}
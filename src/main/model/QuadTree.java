@@ -0,0 +1,357 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents an adaptive quadtree over the particles of a simulation, for worlds where they gather in dense
+// clumps. A node is split into four quadrants while it holds more than LEAF_CAPACITY particles and is
+// wider than a quarter of the attraction range, so the leaves are small where particles are dense and large
+// where they are sparse. Like the cells of SpatialGrid, the particles of every node occupy one contiguous
+// range of the tree ordering. Each leaf lists the ranges of the tree ordering held by the leaves within
+// range of it, so that a particle only tests the particles of those leaves, whose boxes follow the circle
+// of the range much more closely than the 3x3 block of cells around a dense cell. A periodic tree covers a
+// fixed world, and measures distances between leaves across its edges.
+//
+// The tree is rebuilt from scratch at every build, into arrays that are kept between builds, so rebuilding
+// it every step does not allocate once the arrays are large enough.
+public class QuadTree {
+    public static final int LEAF_CAPACITY = 16;
+    // Leaves are no smaller than the range divided by this, so identical positions do not split forever
+    private static final double MIN_SIZE_DIVISOR = 4;
+
+    private boolean periodic;
+    private double width;
+    private double height;
+    // The particle indices in tree order, and scratch space to split a node's range of it
+    private int[] particles;
+    private int[] scratch;
+    // The leaf holding each particle
+    private int[] particleLeaves;
+
+    // The box of every node, the range of the tree ordering it holds, and its first child (or -1 if a leaf)
+    private int nodeCount;
+    private double[] nodeMinX;
+    private double[] nodeMinY;
+    private double[] nodeMaxX;
+    private double[] nodeMaxY;
+    private int[] nodeStart;
+    private int[] nodeEnd;
+    private int[] nodeChild;
+
+    // The nodes of the non-empty leaves, and for each leaf, the positions [neighborStart[l],
+    // neighborStart[l + 1]) of rangeStart and rangeEnd holding the ranges of the leaves within range of it
+    private int leafCount;
+    private int[] leafNodes;
+    private int[] neighborStart;
+    private int rangeCount;
+    private int[] rangeStart;
+    private int[] rangeEnd;
+    private int[] stack;
+    // Particles in each quadrant of the node being split, and the next position for each
+    private final int[] quadrantCounts;
+    private final int[] quadrantNext;
+
+    // EFFECTS: instantiates an empty tree
+    public QuadTree() {
+        this.particles = new int[0];
+        this.scratch = new int[0];
+        this.particleLeaves = new int[0];
+        allocateNodes(16);
+        this.leafNodes = new int[16];
+        this.neighborStart = new int[17];
+        this.rangeStart = new int[64];
+        this.rangeEnd = new int[64];
+        this.stack = new int[64];
+        this.quadrantCounts = new int[4];
+        this.quadrantNext = new int[4];
+    }
+
+    // REQUIRES: range > 0
+    // MODIFIES: this
+    // EFFECTS: rebuilds the tree over the bounding box of the first n particles of the position arrays, and
+    //          lists for every leaf the leaves within range of it
+    public void build(double[] posX, double[] posY, int n, double range) {
+        this.periodic = false;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, posX[i]);
+            minY = Math.min(minY, posY[i]);
+            maxX = Math.max(maxX, posX[i]);
+            maxY = Math.max(maxY, posY[i]);
+        }
+        if (n == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        buildTree(posX, posY, n, minX, minY, maxX, maxY, range);
+    }
+
+    // REQUIRES: width, height, range > 0, and the first n particles lie in [0, width) x [0, height)
+    // MODIFIES: this
+    // EFFECTS: rebuilds the tree over the world [0, width) x [0, height), and lists for every leaf the leaves
+    //          within range of it, measuring distances across the edges of the world
+    public void buildPeriodic(double[] posX, double[] posY, int n, double width, double height, double range) {
+        this.periodic = true;
+        this.width = width;
+        this.height = height;
+        buildTree(posX, posY, n, 0, 0, width, height, range);
+    }
+
+    // REQUIRES: 0 <= i < the number of particles of the last build
+    // EFFECTS: returns the leaf holding particle i
+    public int getLeaf(int i) {
+        return this.particleLeaves[i];
+    }
+
+    // EFFECTS: returns the number of non-empty leaves
+    public int getLeafCount() {
+        return this.leafCount;
+    }
+
+    // REQUIRES: 0 <= leaf < getLeafCount()
+    // EFFECTS: returns the first position (inclusive) in the tree ordering belonging to the leaf
+    public int getLeafStart(int leaf) {
+        return this.nodeStart[this.leafNodes[leaf]];
+    }
+
+    // REQUIRES: 0 <= leaf < getLeafCount()
+    // EFFECTS: returns the last position (exclusive) in the tree ordering belonging to the leaf
+    public int getLeafEnd(int leaf) {
+        return this.nodeEnd[this.leafNodes[leaf]];
+    }
+
+    // REQUIRES: 0 <= leaf <= getLeafCount()
+    // EFFECTS: returns the first of the neighbor ranges of the leaf; they are the ranges from
+    //          getNeighborStart(leaf) to getNeighborStart(leaf + 1) - 1
+    public int getNeighborStart(int leaf) {
+        return this.neighborStart[leaf];
+    }
+
+    // EFFECTS: returns the first position (inclusive) in the tree ordering of the given neighbor range. The
+    //          neighbor ranges of a leaf cover every particle within range of its box, in increasing order.
+    public int getRangeStart(int range) {
+        return this.rangeStart[range];
+    }
+
+    // EFFECTS: returns the last position (exclusive) in the tree ordering of the given neighbor range
+    public int getRangeEnd(int range) {
+        return this.rangeEnd[range];
+    }
+
+    // EFFECTS: returns the particle indices in tree order: ordered by leaf, and by index within a leaf
+    public int[] getParticles() {
+        return this.particles;
+    }
+
+    // EFFECTS: returns the number of nodes, including internal and empty ones
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    // EFFECTS: returns the total number of neighbor ranges over all leaves
+    public int getRangeCount() {
+        return this.rangeCount;
+    }
+
+    public boolean isPeriodic() {
+        return this.periodic;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: splits the box by occupancy into the tree, then lists the neighbors of every leaf
+    private void buildTree(double[] posX, double[] posY, int n, double minX, double minY, double maxX,
+                           double maxY, double range) {
+        if (this.particles.length < n) {
+            this.particles = new int[n + n / 2];
+            this.scratch = new int[n + n / 2];
+            this.particleLeaves = new int[n + n / 2];
+        }
+        for (int i = 0; i < n; i++) {
+            this.particles[i] = i;
+        }
+        this.nodeCount = 0;
+        this.leafCount = 0;
+        addNode(minX, minY, maxX, maxY, 0, n);
+        double minSize = range / MIN_SIZE_DIVISOR;
+        // Nodes are appended as they are split, so this visits every node once, parents before children
+        for (int node = 0; node < this.nodeCount; node++) {
+            boolean large = this.nodeMaxX[node] - this.nodeMinX[node] > minSize
+                    || this.nodeMaxY[node] - this.nodeMinY[node] > minSize;
+            if (this.nodeEnd[node] - this.nodeStart[node] > LEAF_CAPACITY && large) {
+                split(node, posX, posY);
+            } else if (this.nodeEnd[node] > this.nodeStart[node]) {
+                addLeaf(node);
+            }
+        }
+        listNeighbors(range);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: partitions the range of the node among four children, one per quadrant of its box, keeping
+    //          the particles of each quadrant in order
+    private void split(int node, double[] posX, double[] posY) {
+        double midX = (this.nodeMinX[node] + this.nodeMaxX[node]) / 2;
+        double midY = (this.nodeMinY[node] + this.nodeMaxY[node]) / 2;
+        int start = this.nodeStart[node];
+        int end = this.nodeEnd[node];
+        int[] counts = this.quadrantCounts;
+        int[] next = this.quadrantNext;
+        Arrays.fill(counts, 0);
+        for (int k = start; k < end; k++) {
+            counts[quadrant(posX[this.particles[k]], posY[this.particles[k]], midX, midY)]++;
+        }
+        next[0] = start;
+        for (int q = 1; q < 4; q++) {
+            next[q] = next[q - 1] + counts[q - 1];
+        }
+        this.nodeChild[node] = this.nodeCount;
+        for (int q = 0; q < 4; q++) {
+            addNode((q & 1) == 0 ? this.nodeMinX[node] : midX, (q & 2) == 0 ? this.nodeMinY[node] : midY,
+                    (q & 1) == 0 ? midX : this.nodeMaxX[node], (q & 2) == 0 ? midY : this.nodeMaxY[node],
+                    next[q], next[q] + counts[q]);
+        }
+        for (int k = start; k < end; k++) {
+            int i = this.particles[k];
+            this.scratch[next[quadrant(posX[i], posY[i], midX, midY)]++] = i;
+        }
+        System.arraycopy(this.scratch, start, this.particles, start, end - start);
+    }
+
+    // EFFECTS: returns the quadrant of (x, y) around the midpoint: bit 0 is set right of it, bit 1 below it
+    private static int quadrant(double x, double y, double midX, double midY) {
+        return (x >= midX ? 1 : 0) | (y >= midY ? 2 : 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a node with the given box and range of the tree ordering, as a leaf
+    private void addNode(double minX, double minY, double maxX, double maxY, int start, int end) {
+        if (this.nodeCount == this.nodeStart.length) {
+            growNodes(2 * this.nodeCount);
+        }
+        this.nodeMinX[this.nodeCount] = minX;
+        this.nodeMinY[this.nodeCount] = minY;
+        this.nodeMaxX[this.nodeCount] = maxX;
+        this.nodeMaxY[this.nodeCount] = maxY;
+        this.nodeStart[this.nodeCount] = start;
+        this.nodeEnd[this.nodeCount] = end;
+        this.nodeChild[this.nodeCount] = -1;
+        this.nodeCount++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the node the next non-empty leaf, and records it as the leaf of its particles
+    private void addLeaf(int node) {
+        if (this.leafCount == this.leafNodes.length) {
+            this.leafNodes = Arrays.copyOf(this.leafNodes, 2 * this.leafCount);
+        }
+        for (int k = this.nodeStart[node]; k < this.nodeEnd[node]; k++) {
+            this.particleLeaves[this.particles[k]] = this.leafCount;
+        }
+        this.leafNodes[this.leafCount++] = node;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lists the ranges of the leaves within range of every leaf, merging ranges that follow on
+    //          from each other
+    private void listNeighbors(double range) {
+        if (this.neighborStart.length < this.leafCount + 1) {
+            this.neighborStart = new int[2 * this.leafCount + 1];
+        }
+        this.rangeCount = 0;
+        for (int leaf = 0; leaf < this.leafCount; leaf++) {
+            this.neighborStart[leaf] = this.rangeCount;
+            listNeighbors(this.leafNodes[leaf], range * range);
+        }
+        this.neighborStart[this.leafCount] = this.rangeCount;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the ranges of the leaves within range of the given leaf node, walking the tree depth
+    //          first so that the ranges come in increasing order
+    private void listNeighbors(int leafNode, double rangeSq) {
+        int first = this.rangeCount;
+        int top = 0;
+        this.stack[top++] = 0;
+        while (top > 0) {
+            int node = this.stack[--top];
+            if (this.nodeEnd[node] == this.nodeStart[node] || gapSq(leafNode, node) > rangeSq) {
+                continue;
+            }
+            int child = this.nodeChild[node];
+            if (child < 0) {
+                addRange(this.nodeStart[node], this.nodeEnd[node], first);
+                continue;
+            }
+            if (top + 4 > this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, 2 * this.stack.length);
+            }
+            for (int q = 3; q >= 0; q--) {
+                this.stack[top++] = child + q;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a neighbor range, extending the last one instead if it is one of the ranges of the same
+    //          leaf, from position first on, and ends where this one starts
+    private void addRange(int start, int end, int first) {
+        if (this.rangeCount > first && this.rangeEnd[this.rangeCount - 1] == start) {
+            this.rangeEnd[this.rangeCount - 1] = end;
+            return;
+        }
+        if (this.rangeCount == this.rangeStart.length) {
+            this.rangeStart = Arrays.copyOf(this.rangeStart, 2 * this.rangeCount);
+            this.rangeEnd = Arrays.copyOf(this.rangeEnd, 2 * this.rangeCount);
+        }
+        this.rangeStart[this.rangeCount] = start;
+        this.rangeEnd[this.rangeCount] = end;
+        this.rangeCount++;
+    }
+
+    // EFFECTS: returns the squared distance between the boxes of two nodes, across the edges of the world if
+    //          the tree is periodic
+    private double gapSq(int a, int b) {
+        double dx = gap(this.nodeMinX[a], this.nodeMaxX[a], this.nodeMinX[b], this.nodeMaxX[b], this.width);
+        double dy = gap(this.nodeMinY[a], this.nodeMaxY[a], this.nodeMinY[b], this.nodeMaxY[b], this.height);
+        return dx * dx + dy * dy;
+    }
+
+    // EFFECTS: returns the distance between the intervals [min1, max1] and [min2, max2], or the shortest
+    //          distance between their periodic images along an axis of the given size if the tree is periodic
+    private double gap(double min1, double max1, double min2, double max2, double size) {
+        double gap = Math.max(0, Math.max(min2 - max1, min1 - max2));
+        if (this.periodic) {
+            gap = Math.min(gap, Math.max(0, Math.max(min2 + size - max1, min1 - max2 - size)));
+            gap = Math.min(gap, Math.max(0, Math.max(min2 - size - max1, min1 - max2 + size)));
+        }
+        return gap;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates the node arrays with the given capacity
+    private void allocateNodes(int capacity) {
+        this.nodeMinX = new double[capacity];
+        this.nodeMinY = new double[capacity];
+        this.nodeMaxX = new double[capacity];
+        this.nodeMaxY = new double[capacity];
+        this.nodeStart = new int[capacity];
+        this.nodeEnd = new int[capacity];
+        this.nodeChild = new int[capacity];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the node arrays to the given capacity, keeping their contents
+    private void growNodes(int capacity) {
+        this.nodeMinX = Arrays.copyOf(this.nodeMinX, capacity);
+        this.nodeMinY = Arrays.copyOf(this.nodeMinY, capacity);
+        this.nodeMaxX = Arrays.copyOf(this.nodeMaxX, capacity);
+        this.nodeMaxY = Arrays.copyOf(this.nodeMaxY, capacity);
+        this.nodeStart = Arrays.copyOf(this.nodeStart, capacity);
+        this.nodeEnd = Arrays.copyOf(this.nodeEnd, capacity);
+        this.nodeChild = Arrays.copyOf(this.nodeChild, capacity);
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+// Represents a meter for how often an event happens per second, such as simulation steps or rendered
+// frames. It is ticked by one thread and may be read from any other.
+public class RateMeter {
+    private static final long WINDOW_NANOS = 500_000_000L;
+
+    private long windowStart;
+    private int ticks;
+    private volatile double rate;
+
+    // EFFECTS: instantiates a meter that has not seen any ticks
+    public RateMeter() {
+        this.windowStart = -1;
+        this.ticks = 0;
+        this.rate = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records one event now
+    public void tick() {
+        this.tick(System.nanoTime());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records one event at the given System.nanoTime(). The first event starts the first window;
+    //          the rate is recomputed every half second from the events in the window that just ended.
+    public void tick(long now) {
+        if (this.windowStart < 0) {
+            this.windowStart = now;
+            return;
+        }
+        this.ticks++;
+        long elapsed = now - this.windowStart;
+        if (elapsed >= WINDOW_NANOS) {
+            this.rate = this.ticks * 1e9 / elapsed;
+            this.windowStart = now;
+            this.ticks = 0;
+        }
+    }
+
+    // EFFECTS: returns the number of events per second over the last completed window
+    public double getRate() {
+        return this.rate;
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Represents the hand-off of render snapshots from one simulation thread to one rendering thread, without
+// locks. The writer fills its back snapshot and swaps it with the published one; the reader swaps its front
+// snapshot for the published one when that is newer. Each snapshot is owned by exactly one of the back,
+// published, and front slots at a time, so neither thread ever waits for the other or sees a snapshot
+// being overwritten, and no snapshot is allocated after the first few publications.
+public class RenderBuffer {
+    // Only touched by the writer
+    private RenderSnapshot back;
+    private long published;
+    // Shared between the writer and the reader
+    private final AtomicReference<RenderSnapshot> ready;
+    // Only touched by the reader
+    private RenderSnapshot front;
+
+    // EFFECTS: instantiates a buffer whose reader sees an empty snapshot until the first publication
+    public RenderBuffer() {
+        this.back = new RenderSnapshot();
+        this.published = 0;
+        this.ready = new AtomicReference<>(new RenderSnapshot());
+        this.front = new RenderSnapshot();
+    }
+
+    // REQUIRES: only called from the writer thread
+    // MODIFIES: this
+    // EFFECTS: copies the current state of the simulation and makes it the latest snapshot
+    public void publish(Simulation simulation) {
+        this.back.fill(simulation, ++this.published);
+        this.back = this.ready.getAndSet(this.back);
+    }
+
+    // REQUIRES: only called from the writer thread
+    // MODIFIES: this
+    // EFFECTS: copies a recorded frame and makes it the latest snapshot
+    public void publish(TrajectoryFrame frame) {
+        this.back.fill(frame, ++this.published);
+        this.back = this.ready.getAndSet(this.back);
+    }
+
+    // REQUIRES: only called from the reader thread
+    // MODIFIES: this
+    // EFFECTS: returns the latest published snapshot. It is not modified until the next call of acquire(),
+    //          after which it must no longer be read.
+    public RenderSnapshot acquire() {
+        RenderSnapshot latest = this.ready.get();
+        // The step read here may be stale if the writer takes latest meanwhile, but then the swap fails
+        if (latest.getStep() > this.front.getStep() && this.ready.compareAndSet(latest, this.front)) {
+            this.front = latest;
+        }
+        return this.front;
+    }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents what a renderer needs to draw one step of a simulation: the position, color and type id of
+// every particle, copied out of the simulation so that it can be read while the simulation keeps running.
+// A snapshot is only written by RenderBuffer, and never while a reader holds it.
+public class RenderSnapshot {
+    private float[] posX;
+    private float[] posY;
+    private int[] colors;
+    private int[] typeIds;
+    private int size;
+    private double width;
+    private double height;
+    private long step;
+
+    // EFFECTS: instantiates an empty snapshot that precedes every published step
+    public RenderSnapshot() {
+        this.posX = new float[0];
+        this.posY = new float[0];
+        this.colors = new int[0];
+        this.typeIds = new int[0];
+        this.size = 0;
+        this.step = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: copies the current state of the simulation into this snapshot, labelling it with the given
+    //          step number. The arrays are only reallocated when the particles no longer fit.
+    void fill(Simulation simulation, long step) {
+        ParticleStore store = simulation.getParticleStore();
+        int n = store.size();
+        ensureCapacity(n);
+        double[] storeX = store.getPosX();
+        double[] storeY = store.getPosY();
+        System.arraycopy(store.getTypes(), 0, this.typeIds, 0, n);
+        for (int i = 0; i < n; i++) {
+            this.posX[i] = (float) storeX[i];
+            this.posY[i] = (float) storeY[i];
+            this.colors[i] = store.getType(i).getColor().getRGB();
+        }
+        this.size = n;
+        this.width = simulation.getWidth();
+        this.height = simulation.getHeight();
+        this.step = step;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: copies a recorded frame into this snapshot, labelling it with the given step number. Frames
+    //          only record colors, so every type id is 0.
+    void fill(TrajectoryFrame frame, long step) {
+        int n = frame.size();
+        ensureCapacity(n);
+        double[] frameX = frame.getPosX();
+        double[] frameY = frame.getPosY();
+        for (int i = 0; i < n; i++) {
+            this.posX[i] = (float) frameX[i];
+            this.posY[i] = (float) frameY[i];
+        }
+        System.arraycopy(frame.getColors(), 0, this.colors, 0, n);
+        Arrays.fill(this.typeIds, 0, n, 0);
+        this.size = n;
+        this.width = frame.getWidth();
+        this.height = frame.getHeight();
+        this.step = step;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reallocates the arrays if they cannot hold n particles
+    private void ensureCapacity(int n) {
+        if (this.posX.length < n) {
+            int capacity = n + n / 2;
+            this.posX = new float[capacity];
+            this.posY = new float[capacity];
+            this.colors = new int[capacity];
+            this.typeIds = new int[capacity];
+        }
+    }
+
+    // EFFECTS: returns the number of particles in the snapshot
+    public int size() {
+        return this.size;
+    }
+
+    // EFFECTS: returns the x positions; only the first size() entries are meaningful
+    public float[] getPosX() {
+        return this.posX;
+    }
+
+    // EFFECTS: returns the y positions; only the first size() entries are meaningful
+    public float[] getPosY() {
+        return this.posY;
+    }
+
+    // EFFECTS: returns the ARGB colors; only the first size() entries are meaningful
+    public int[] getColors() {
+        return this.colors;
+    }
+
+    // EFFECTS: returns the ids of the particle types; only the first size() entries are meaningful
+    public int[] getTypeIds() {
+        return this.typeIds;
+    }
+
+    public double getWidth() {
+        return this.width;
+    }
+
+    public double getHeight() {
+        return this.height;
+    }
+
+    // EFFECTS: returns the number of the publication this snapshot holds; later publications have larger
+    //          numbers, and an empty initial snapshot has 0
+    public long getStep() {
+        return this.step;
+    }
+}
@@ -0,0 +1,59 @@
+package model;
+
+// Represents a pseudo-random number generator whose whole state is a single long, its seed. Two generators
+// with the same seed produce the same sequence, and a generator's current seed can be saved and restored to
+// resume its sequence exactly. Uses the SplitMix64 algorithm, the one behind java.util.SplittableRandom.
+// Not thread-safe; each simulation owns one, used from the thread that owns the simulation.
+public class SeededRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+
+    // EFFECTS: instantiates a generator with the given seed
+    public SeededRandom(long seed) {
+        this.seed = seed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next pseudo-random long; all 2^64 values are equally likely
+    public long nextLong() {
+        this.seed += GOLDEN_GAMMA;
+        long z = this.seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next pseudo-random double, uniformly distributed in [0, 1)
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    // REQUIRES: bound > 0
+    // MODIFIES: this
+    // EFFECTS: returns the next pseudo-random int, uniformly distributed in [0, bound)
+    public int nextInt(int bound) {
+        // Rejects the top partial copy of [0, bound) in the range of 31-bit values, so that every result is
+        // equally likely
+        int limit = Integer.MAX_VALUE - Integer.MAX_VALUE % bound;
+        int value = (int) (nextLong() >>> 33);
+        while (value >= limit) {
+            value = (int) (nextLong() >>> 33);
+        }
+        return value % bound;
+    }
+
+    // EFFECTS: returns the seed of the rest of the sequence: a generator with this seed produces the same
+    //          values as this one from now on
+    public long getSeed() {
+        return this.seed;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: restarts the sequence from the given seed
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
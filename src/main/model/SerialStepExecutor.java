@@ -0,0 +1,10 @@
+package model;
+
+// Represents a step executor that runs all the work on the calling thread
+public class SerialStepExecutor implements StepExecutor {
+    // EFFECTS: runs the task over [0, n) on the calling thread
+    @Override
+    public void execute(int n, RangeTask task) {
+        task.run(0, n);
+    }
+}
@@ -6,23 +6,99 @@ import persistence.Writable;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 // Represents a simulation which encapsulates the rules of the virtual world.
 public class Simulation implements Writable {
+    // Cell size of the grid built for region queries when particles do not interact
+    private static final double QUERY_CELL_SIZE = 50;
+    // Crowding of the grid at which ADAPTIVE neighbor search moves to the quadtree, and back
+    private static final double TREE_CROWDING = 4 * QuadTree.LEAF_CAPACITY;
+    private static final double GRID_CROWDING = 2 * QuadTree.LEAF_CAPACITY;
+    // Distance beyond the range out to which VERLET neighbor search lists neighbors, unless set otherwise
+    public static final double DEFAULT_VERLET_SKIN = 5;
+
     private double width;
     private double height;
 
-    private List<Particle> particles;
+    private ParticleStore particles;
     private List<ParticleType> particleTypes;
     private AttractionMatrix attractionMatrix;
+    private final SeededRandom random;
+
+    private BoundaryMode boundaryMode;
+    private NeighborSearch neighborSearch;
+    // The neighbor search the current step uses, with ADAPTIVE resolved to GRID or QUADTREE
+    private NeighborSearch stepSearch;
+    private PairEvaluation pairEvaluation;
+    private Precision precision;
+    private final FloatState floats;
+    private ForceKernel forceKernel;
+    private final BatchForceKernel batchKernel;
+    // Whether the current step evaluates forces with the batch kernel
+    private boolean batching;
+    private SpatialGrid grid;
+    private ParticleStore gridStore;
+    private long gridVersion;
+    private double gridCellSize;
+    private final QuadTree tree;
+    private final VerletList verletList;
+    private double verletSkin;
+    private final MortonOrder mortonOrder;
+    // Steps between reorders of the particles along the Morton curve (0 for never), and steps since the last
+    private int reorderInterval;
+    private int stepsSinceReorder;
+    private StepExecutor stepExecutor;
+    private final SimulationMetrics metrics;
+    // Pairs tested and found in range by each particle in the current step
+    private int[] pairsTested;
+    private int[] pairsInRange;
+    private final StepExecutor.RangeTask velocityTask;
+    private final StepExecutor.RangeTask positionTask;
 
     // REQUIRES: width, height > 0
     // EFFECTS: creates a simulation having the specified width and height, with no particles or
-    //          particle types, and an attraction matrix with predefined parameters.
+    //          particle types, and an attraction matrix with predefined parameters. Its random numbers
+    //          come from an arbitrary seed.
     public Simulation(double width, double height) {
+        this(width, height, ThreadLocalRandom.current().nextLong());
+    }
+
+    // REQUIRES: width, height > 0
+    // EFFECTS: creates a simulation like Simulation(width, height), whose random numbers come from the given
+    //          seed. Simulations with the same seed generate the same worlds.
+    public Simulation(double width, double height, long seed) {
         this.width = width;
         this.height = height;
+        this.random = new SeededRandom(seed);
+        this.boundaryMode = BoundaryMode.OPEN;
+        this.neighborSearch = NeighborSearch.GRID;
+        this.stepSearch = NeighborSearch.GRID;
+        this.pairEvaluation = PairEvaluation.ORDERED;
+        this.precision = Precision.DOUBLE;
+        this.floats = new FloatState();
+        this.forceKernel = ForceKernel.SCALAR;
+        this.batchKernel = new BatchForceKernel();
+        this.grid = new SpatialGrid();
+        this.tree = new QuadTree();
+        this.verletList = new VerletList();
+        this.verletSkin = DEFAULT_VERLET_SKIN;
+        this.mortonOrder = new MortonOrder();
+        this.stepExecutor = new SerialStepExecutor();
+        this.metrics = new SimulationMetrics();
+        this.pairsTested = new int[0];
+        this.pairsInRange = new int[0];
+        this.velocityTask = this::computeVelocities;
+        this.positionTask = this::integratePositions;
 
         init();
     }
@@ -30,7 +106,8 @@ public class Simulation implements Writable {
     // REQUIRES: numParticles >= 0
     // MODIFIES: this
     // EFFECTS: Randomly fills the simulation with the specified number of particles, three
-    //          distinct particle types (RED, BLUE, and GREEN), and the corresponding attraction matrix.
+    //          distinct particle types (RED, BLUE, and GREEN), and the corresponding attraction matrix,
+    //          drawing from the simulation's random numbers.
     public void generateRandomWorld(int numParticles) {
         init();
 
@@ -44,15 +121,15 @@ public class Simulation implements Writable {
 
         // Place each of the specified number of particles randomly within the simulation's bounds.
         for (int i = 0; i < numParticles; i++) {
-            Vector pos = new Vector(Math.random() * this.width, Math.random() * this.height);
-            ParticleType type = this.particleTypes.get((int) (Math.random() * 3));
+            Vector pos = new Vector(this.random.nextDouble() * this.width, this.random.nextDouble() * this.height);
+            ParticleType type = this.particleTypes.get(this.random.nextInt(3));
             this.particles.add(new Particle(pos, type));
         }
 
         // Define each particle's attraction rules (randomly)
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                double attraction = Math.random() * 2 - 1;
+                double attraction = this.random.nextDouble() * 2 - 1;
                 this.attractionMatrix.setAttraction(i, j, attraction);
             }
         }
@@ -60,26 +137,696 @@ public class Simulation implements Writable {
 
     // MODIFIES: this
     // EFFECTS: Updates the simulation by one frame, according to each particle's attraction to one
-    //          another.
+    //          another. Particles are updated in place, without allocating. Each phase of the step is
+    //          recorded in the metrics.
     public void update() {
-        List<Particle> newParticles = new ArrayList<>();
-        for (Particle p : this.particles) {
-            Vector newVel = p.getVel();
-            for (Particle q : this.particles) {
-                Vector attractionVector = this.attractionMatrix.calcAttractionVector(p, q);
-                newVel = newVel.add(attractionVector);
+        this.metrics.startStep();
+        prepareStep();
+        this.metrics.endNeighborSearch();
+
+        resetPairCounts();
+        if (this.pairEvaluation == PairEvaluation.SYMMETRIC) {
+            computeVelocitiesSymmetric();
+        } else {
+            this.stepExecutor.execute(this.particles.size(), this.velocityTask);
+        }
+        this.metrics.endForces(sum(this.pairsTested), sum(this.pairsInRange));
+
+        this.stepExecutor.execute(this.particles.size(), this.positionTask);
+        if (this.precision == Precision.FLOAT) {
+            this.floats.endStep(this.particles);
+        } else {
+            this.particles.commitVelocities();
+        }
+        this.metrics.endStep(this.particles.getTypes(), this.particles.size(), this.particleTypes.size());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Wraps the particles into the world in wrap mode, reorders them when the reorder interval is up,
+    //          brings the grid or quadtree up to date when it is used, in single precision rounds the particles
+    //          to floats if they changed since the last step, and decides whether the batch kernel can be used.
+    private void prepareStep() {
+        if (this.boundaryMode == BoundaryMode.WRAP) {
+            // Particles may have been placed outside the world since the last step
+            wrapPositions();
+        }
+        if (this.reorderInterval > 0 && ++this.stepsSinceReorder >= this.reorderInterval) {
+            reorderParticles();
+        }
+        double range = this.attractionMatrix.getRange();
+        if (range > 0) {
+            prepareNeighborSearch(range);
+        }
+        if (this.precision == Precision.FLOAT) {
+            this.floats.beginStep(this.particles, this.attractionMatrix, this.boundaryMode, this.width, this.height);
+        }
+        this.batching = this.forceKernel == ForceKernel.BATCHED && this.precision == Precision.DOUBLE
+                && !this.attractionMatrix.hasForceTable();
+        if (this.batching) {
+            this.batchKernel.beginStep(this.particles, this.attractionMatrix, this.boundaryMode, this.width,
+                    this.height);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Decides which neighbor search this step uses, and builds the grid, quadtree or neighbor lists
+    //          it needs. In ADAPTIVE mode the grid is always built, to measure how crowded the cells of the
+    //          particles are: the quadtree, whose leaves split crowded cells, takes over once the crowding
+    //          reaches TREE_CROWDING, and hands back to the grid once it falls to GRID_CROWDING, so crowding
+    //          near either threshold does not switch every step.
+    private void prepareNeighborSearch(double range) {
+        NeighborSearch search = this.neighborSearch;
+        if (search == NeighborSearch.ADAPTIVE) {
+            ensureGrid(range);
+            double crowding = this.grid.getCrowding();
+            boolean useTree = this.stepSearch == NeighborSearch.QUADTREE
+                    ? crowding > GRID_CROWDING
+                    : crowding >= TREE_CROWDING;
+            search = useTree ? NeighborSearch.QUADTREE : NeighborSearch.GRID;
+        }
+        this.stepSearch = search;
+        if (search == NeighborSearch.GRID) {
+            ensureGrid(range);
+        } else if (search == NeighborSearch.VERLET) {
+            prepareVerletList(range);
+        } else if (search == NeighborSearch.QUADTREE) {
+            double[] posX = this.particles.getPosX();
+            double[] posY = this.particles.getPosY();
+            if (this.boundaryMode == BoundaryMode.WRAP) {
+                this.tree.buildPeriodic(posX, posY, this.particles.size(), this.width, this.height, range);
+            } else {
+                this.tree.build(posX, posY, this.particles.size(), range);
             }
-            newVel = newVel.mul(this.attractionMatrix.getFriction());
-            newParticles.add(new Particle(p.getPos().add(p.getVel()), newVel, p.getType()));
         }
-        this.particles = newParticles;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Rebuilds the neighbor lists from a grid with cells (range + skin) / VerletList.CELL_DIVISOR
+    //          wide, unless they are still current: built for the same particles, range, skin and pair
+    //          evaluation, with the two particles that moved farthest since moved less than the skin between
+    //          them. Records the rebuild and the memory of the lists in the metrics.
+    private void prepareVerletList(double range) {
+        boolean half = this.pairEvaluation == PairEvaluation.SYMMETRIC;
+        boolean periodic = this.boundaryMode == BoundaryMode.WRAP;
+        boolean rebuild = !this.verletList.isCurrent(this.particles, range, this.verletSkin, half, periodic,
+                this.width, this.height);
+        if (rebuild) {
+            ensureGrid((range + this.verletSkin) / VerletList.CELL_DIVISOR);
+            this.verletList.build(this.particles, this.grid, range, this.verletSkin, half, this.width,
+                    this.height);
+        }
+        this.metrics.recordNeighborLists(rebuild, this.verletList.getMemoryBytes());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Zeroes the pair counts of every particle, growing the count arrays if needed.
+    private void resetPairCounts() {
+        int n = this.particles.size();
+        if (this.pairsTested.length < n) {
+            this.pairsTested = new int[n + n / 2];
+            this.pairsInRange = new int[n + n / 2];
+        }
+        Arrays.fill(this.pairsTested, 0, n, 0);
+        Arrays.fill(this.pairsInRange, 0, n, 0);
+    }
+
+    // EFFECTS: Returns the sum of the first particles.size() counts.
+    private long sum(int[] counts) {
+        long sum = 0;
+        for (int i = 0; i < this.particles.size(); i++) {
+            sum += counts[i];
+        }
+        return sum;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Buckets the particles into the grid, with cells at least cellSize wide, unless it already holds
+    //          the current particles with that cell size. In wrap mode the grid tiles the world instead of
+    //          covering the particles' bounding box. The grid goes stale at the end of every step, so a grid
+    //          built for a region query is reused by the next step rather than built twice.
+    private void ensureGrid(double cellSize) {
+        boolean periodic = this.boundaryMode == BoundaryMode.WRAP;
+        if (this.gridStore == this.particles && this.gridVersion == this.particles.getVersion()
+                && this.gridCellSize == cellSize && this.grid.isPeriodic() == periodic) {
+            return;
+        }
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        if (periodic) {
+            this.grid.buildPeriodic(posX, posY, this.particles.size(), this.width, this.height, cellSize);
+        } else {
+            this.grid.build(posX, posY, this.particles.size(), cellSize);
+        }
+        this.gridStore = this.particles;
+        this.gridVersion = this.particles.getVersion();
+        this.gridCellSize = cellSize;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Computes the next velocity of the particles in [from, to) from the current state.
+    private void computeVelocities(int from, int to) {
+        boolean interacting = this.attractionMatrix.getRange() > 0;
+        boolean useTree = interacting && this.stepSearch == NeighborSearch.QUADTREE;
+        boolean useLists = interacting && this.stepSearch == NeighborSearch.VERLET;
+        boolean useGrid = interacting && this.stepSearch == NeighborSearch.GRID;
+        boolean periodic = this.boundaryMode == BoundaryMode.WRAP;
+        startVelocities(from, to);
+        for (int i = from; i < to; i++) {
+            if (useTree) {
+                accumulateTreeNeighbors(i);
+            } else if (useLists) {
+                accumulateListNeighbors(i);
+            } else if (useGrid && periodic) {
+                accumulatePeriodicGridNeighbors(i);
+            } else if (useGrid) {
+                accumulateGridNeighbors(i);
+            } else if (interacting) {
+                accumulateAll(i);
+            }
+        }
+        applyFriction(from, to);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the next velocity of the particles in [from, to) to their current velocity.
+    private void startVelocities(int from, int to) {
+        if (this.precision == Precision.FLOAT) {
+            this.floats.startVelocities(from, to);
+            return;
+        }
+        System.arraycopy(this.particles.getVelX(), from, this.particles.getNextVelX(), from, to - from);
+        System.arraycopy(this.particles.getVelY(), from, this.particles.getNextVelY(), from, to - from);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies friction to the next velocity of the particles in [from, to).
+    private void applyFriction(int from, int to) {
+        if (this.precision == Precision.FLOAT) {
+            this.floats.applyFriction(from, to);
+            return;
+        }
+        double[] nextVelX = this.particles.getNextVelX();
+        double[] nextVelY = this.particles.getNextVelY();
+        double friction = this.attractionMatrix.getFriction();
+        for (int i = from; i < to; i++) {
+            nextVelX[i] *= friction;
+            nextVelY[i] *= friction;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Computes the next velocity of every particle from the current state, visiting each unordered
+    //          pair of neighbors once.
+    private void computeVelocitiesSymmetric() {
+        startVelocities(0, this.particles.size());
+        if (this.attractionMatrix.getRange() > 0) {
+            if (this.stepSearch == NeighborSearch.QUADTREE) {
+                accumulateTreePairs();
+            } else if (this.stepSearch == NeighborSearch.VERLET) {
+                accumulateListPairs();
+            } else if (this.stepSearch == NeighborSearch.GRID && this.boundaryMode != BoundaryMode.WRAP) {
+                accumulateGridPairs();
+            } else if (this.stepSearch == NeighborSearch.GRID && this.grid.getColumns() >= 3
+                    && this.grid.getRows() >= 3) {
+                accumulatePeriodicGridPairs();
+            } else {
+                // A periodic grid less than three cells across would reach some cells from both sides
+                accumulateAllPairs();
+            }
+        }
+        applyFriction(0, this.particles.size());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces of every unordered pair of particles.
+    private void accumulateAllPairs() {
+        int n = this.particles.size();
+        for (int i = 0; i < n; i++) {
+            int inRange = 0;
+            for (int j = i + 1; j < n; j++) {
+                inRange += this.precision == Precision.FLOAT
+                        ? this.floats.accumulateSymmetricPair(i, j) : accumulateSymmetricPair(i, j);
+            }
+            this.pairsTested[i] = n - 1 - i;
+            this.pairsInRange[i] = inRange;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces of every unordered pair of particles in the same or adjacent cells. Each
+    //          particle is paired with the particles after it in its own cell, the cell to its right, and the
+    //          three cells below, so no pair is visited twice.
+    private void accumulateGridPairs() {
+        int[] cellParticles = this.grid.getCellParticles();
+        int columns = this.grid.getColumns();
+        int rows = this.grid.getRows();
+        for (int k = 0; k < this.particles.size(); k++) {
+            int i = cellParticles[k];
+            int column = this.grid.columnOf(this.particles.getPosX()[i]);
+            int row = this.grid.rowOf(this.particles.getPosY()[i]);
+            // The rest of the cell and the cell to the right are contiguous in the cell ordering
+            int end = this.grid.getCellEnd(this.grid.cellIndex(Math.min(column + 1, columns - 1), row));
+            accumulatePairsInRange(i, cellParticles, k + 1, end);
+            if (row + 1 < rows) {
+                accumulatePairsInRange(i, cellParticles,
+                        this.grid.getCellStart(this.grid.cellIndex(Math.max(column - 1, 0), row + 1)),
+                        this.grid.getCellEnd(this.grid.cellIndex(Math.min(column + 1, columns - 1), row + 1)));
+            }
+        }
+    }
+
+    // REQUIRES: the grid is at least three cells across in both directions
+    // MODIFIES: this
+    // EFFECTS: Applies the forces of every unordered pair of particles in the same or adjacent cells, wrapping
+    //          around the edges of the world, using the same half of the neighboring cells as
+    //          accumulateGridPairs().
+    private void accumulatePeriodicGridPairs() {
+        int[] cellParticles = this.grid.getCellParticles();
+        int columns = this.grid.getColumns();
+        int rows = this.grid.getRows();
+        for (int k = 0; k < this.particles.size(); k++) {
+            int i = cellParticles[k];
+            int column = this.grid.columnOf(this.particles.getPosX()[i]);
+            int row = this.grid.rowOf(this.particles.getPosY()[i]);
+            accumulatePairsInRange(i, cellParticles, k + 1, this.grid.getCellEnd(this.grid.cellIndex(column, row)));
+            accumulatePairsInCell(i, this.grid.cellIndex((column + 1) % columns, row));
+            int below = (row + 1) % rows;
+            for (int dc = columns - 1; dc <= columns + 1; dc++) {
+                accumulatePairsInCell(i, this.grid.cellIndex((column + dc) % columns, below));
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces between particle i and every particle in the cell.
+    private void accumulatePairsInCell(int i, int cell) {
+        accumulatePairsInRange(i, this.grid.getCellParticles(), this.grid.getCellStart(cell),
+                this.grid.getCellEnd(cell));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces of every unordered pair of particles in leaves of the quadtree within range
+    //          of each other. Each particle is paired with the particles after it in the tree ordering: the
+    //          rest of its own leaf, and the neighbor ranges of its leaf past the end of the leaf.
+    private void accumulateTreePairs() {
+        int[] treeParticles = this.tree.getParticles();
+        for (int leaf = 0; leaf < this.tree.getLeafCount(); leaf++) {
+            int leafEnd = this.tree.getLeafEnd(leaf);
+            for (int k = this.tree.getLeafStart(leaf); k < leafEnd; k++) {
+                int i = treeParticles[k];
+                accumulatePairsInRange(i, treeParticles, k + 1, leafEnd);
+                for (int r = this.tree.getNeighborStart(leaf); r < this.tree.getNeighborStart(leaf + 1); r++) {
+                    int start = Math.max(this.tree.getRangeStart(r), leafEnd);
+                    if (start < this.tree.getRangeEnd(r)) {
+                        accumulatePairsInRange(i, treeParticles, start, this.tree.getRangeEnd(r));
+                    }
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces of every unordered pair of particles in the neighbor lists, which list each
+    //          pair once, with the particle before the other in the store.
+    private void accumulateListPairs() {
+        int[] neighbors = this.verletList.getNeighbors();
+        for (int i = 0; i < this.particles.size(); i++) {
+            accumulatePairsInRange(i, neighbors, this.verletList.getListStart(i), this.verletList.getListStart(i + 1));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies the forces between particle i and the particles neighbors[start .. end - 1], and adds
+    //          them to the pair counts of i.
+    private void accumulatePairsInRange(int i, int[] neighbors, int start, int end) {
+        int inRange = 0;
+        if (this.precision == Precision.FLOAT) {
+            inRange = this.floats.accumulateSymmetricNeighbors(i, neighbors, start, end);
+        } else if (this.batching) {
+            inRange = this.batchKernel.accumulateSymmetricNeighbors(i, neighbors, start, end);
+        } else {
+            for (int k = start; k < end; k++) {
+                inRange += accumulateSymmetricPair(i, neighbors[k]);
+            }
+        }
+        this.pairsTested[i] += end - start;
+        this.pairsInRange[i] += inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the vector at which particle j acts on particle i to the next velocity of i, and the
+    //          vector at which i acts on j to the next velocity of j. Each vector is exactly the one
+    //          accumulatePair would compute; the distance is only computed once for both. Returns 1 if
+    //          the pair is in range (either particle acts on the other), otherwise 0.
+    private int accumulateSymmetricPair(int i, int j) {
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        int[] types = this.particles.getTypes();
+        double dx = displacement(posX[j] - posX[i], this.width);
+        double dy = displacement(posY[j] - posY[i], this.height);
+        double distSq = dx * dx + dy * dy;
+        double scaleIJ;
+        double scaleJI;
+        if (this.attractionMatrix.hasForceTable()) {
+            scaleIJ = this.attractionMatrix.calcForceScaleSq(types[i], types[j], distSq);
+            scaleJI = this.attractionMatrix.calcForceScaleSq(types[j], types[i], distSq);
+        } else {
+            double dist = Math.sqrt(distSq);
+            scaleIJ = this.attractionMatrix.calcForceScale(types[i], types[j], dist);
+            scaleJI = this.attractionMatrix.calcForceScale(types[j], types[i], dist);
+        }
+        if (scaleIJ != 0 || scaleJI != 0) {
+            this.particles.getNextVelX()[i] += dx * scaleIJ;
+            this.particles.getNextVelY()[i] += dy * scaleIJ;
+            this.particles.getNextVelX()[j] -= dx * scaleJI;
+            this.particles.getNextVelY()[j] -= dy * scaleJI;
+            return 1;
+        }
+        return 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the attraction vectors of every particle acting on particle i to its next velocity.
+    private void accumulateAll(int i) {
+        int n = this.particles.size();
+        int inRange = 0;
+        for (int j = 0; j < n; j++) {
+            inRange += accumulatePair(i, j);
+        }
+        this.pairsTested[i] = n;
+        this.pairsInRange[i] = inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the attraction vectors of every particle in the 3x3 block of cells around particle i
+    //          to its next velocity.
+    private void accumulateGridNeighbors(int i) {
+        int column = this.grid.columnOf(this.particles.getPosX()[i]);
+        int row = this.grid.rowOf(this.particles.getPosY()[i]);
+        int minColumn = Math.max(column - 1, 0);
+        int maxColumn = Math.min(column + 1, this.grid.getColumns() - 1);
+        int maxRow = Math.min(row + 1, this.grid.getRows() - 1);
+        int[] cellParticles = this.grid.getCellParticles();
+        int inRange = 0;
+        for (int r = Math.max(row - 1, 0); r <= maxRow; r++) {
+            // The cells of one row are contiguous in the cell ordering
+            int start = this.grid.getCellStart(this.grid.cellIndex(minColumn, r));
+            int end = this.grid.getCellEnd(this.grid.cellIndex(maxColumn, r));
+            inRange += accumulateNeighbors(i, cellParticles, start, end);
+            this.pairsTested[i] += end - start;
+        }
+        this.pairsInRange[i] = inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the attraction vectors of every particle in the 3x3 block of cells around particle i,
+    //          wrapping around the edges of the world, to its next velocity.
+    private void accumulatePeriodicGridNeighbors(int i) {
+        int columns = this.grid.getColumns();
+        int rows = this.grid.getRows();
+        int column = this.grid.columnOf(this.particles.getPosX()[i]);
+        int row = this.grid.rowOf(this.particles.getPosY()[i]);
+        // With fewer than three columns or rows the wrapped block would visit a cell twice
+        int columnSpan = Math.min(columns, 3);
+        int rowSpan = Math.min(rows, 3);
+        int[] cellParticles = this.grid.getCellParticles();
+        int inRange = 0;
+        for (int dr = 0; dr < rowSpan; dr++) {
+            int r = Math.floorMod(row - 1 + dr, rows);
+            for (int dc = 0; dc < columnSpan; dc++) {
+                int cell = this.grid.cellIndex(Math.floorMod(column - 1 + dc, columns), r);
+                int start = this.grid.getCellStart(cell);
+                int end = this.grid.getCellEnd(cell);
+                inRange += accumulateNeighbors(i, cellParticles, start, end);
+                this.pairsTested[i] += end - start;
+            }
+        }
+        this.pairsInRange[i] = inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the attraction vectors of every particle in the leaves of the quadtree within range of the
+    //          leaf of particle i to its next velocity.
+    private void accumulateTreeNeighbors(int i) {
+        int leaf = this.tree.getLeaf(i);
+        int[] treeParticles = this.tree.getParticles();
+        int inRange = 0;
+        for (int r = this.tree.getNeighborStart(leaf); r < this.tree.getNeighborStart(leaf + 1); r++) {
+            int start = this.tree.getRangeStart(r);
+            int end = this.tree.getRangeEnd(r);
+            inRange += accumulateNeighbors(i, treeParticles, start, end);
+            this.pairsTested[i] += end - start;
+        }
+        this.pairsInRange[i] = inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the attraction vectors of every particle in the neighbor list of particle i to its next
+    //          velocity.
+    private void accumulateListNeighbors(int i) {
+        int start = this.verletList.getListStart(i);
+        int end = this.verletList.getListStart(i + 1);
+        this.pairsInRange[i] = accumulateNeighbors(i, this.verletList.getNeighbors(), start, end);
+        this.pairsTested[i] = end - start;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Applies accumulatePair(i, j) for every j in neighbors[start .. end - 1], and returns how many
+    //          of them are in range. In FLOAT precision or with the batch kernel, the whole range is handed
+    //          over at once.
+    private int accumulateNeighbors(int i, int[] neighbors, int start, int end) {
+        if (this.precision == Precision.FLOAT) {
+            return this.floats.accumulateNeighbors(i, neighbors, start, end);
+        } else if (this.batching) {
+            return this.batchKernel.accumulateNeighbors(i, neighbors, start, end);
+        }
+        int inRange = 0;
+        for (int k = start; k < end; k++) {
+            inRange += accumulatePair(i, neighbors[k]);
+        }
+        return inRange;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the vector at which particle j acts on particle i to the next velocity of i, and returns
+    //          1 if j is in range (it acts on i), otherwise 0. In wrap mode, j acts from its periodic image
+    //          nearest to i.
+    private int accumulatePair(int i, int j) {
+        if (this.precision == Precision.FLOAT) {
+            return this.floats.accumulatePair(i, j);
+        }
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        int[] types = this.particles.getTypes();
+        double dx = displacement(posX[j] - posX[i], this.width);
+        double dy = displacement(posY[j] - posY[i], this.height);
+        double scale = this.attractionMatrix.calcForceScaleSq(types[i], types[j], dx * dx + dy * dy);
+        if (scale != 0) {
+            this.particles.getNextVelX()[i] += dx * scale;
+            this.particles.getNextVelY()[i] += dy * scale;
+            return 1;
+        }
+        return 0;
+    }
+
+    // EFFECTS: Returns the displacement d along an axis of the given size, replaced by its minimum image in
+    //          wrap mode.
+    private double displacement(double d, double size) {
+        return this.boundaryMode == BoundaryMode.WRAP ? BoundaryMode.minimumImage(d, size) : d;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves the particles in [from, to) by their current velocity, then applies the boundary mode.
+    private void integratePositions(int from, int to) {
+        if (this.precision == Precision.FLOAT) {
+            this.floats.integrate(from, to);
+            return;
+        }
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        double[] velX = this.particles.getVelX();
+        double[] velY = this.particles.getVelY();
+        for (int i = from; i < to; i++) {
+            posX[i] += velX[i];
+            posY[i] += velY[i];
+        }
+        if (this.boundaryMode == BoundaryMode.WRAP) {
+            for (int i = from; i < to; i++) {
+                posX[i] = BoundaryMode.wrap(posX[i], this.width);
+                posY[i] = BoundaryMode.wrap(posY[i], this.height);
+            }
+        } else if (this.boundaryMode == BoundaryMode.REFLECT) {
+            for (int i = from; i < to; i++) {
+                posX[i] = reflect(posX[i], this.width, this.particles.getNextVelX(), i);
+                posY[i] = reflect(posY[i], this.height, this.particles.getNextVelY(), i);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Mirrors a coordinate that left [0, size) back inside, reversing nextVel[i] when it does.
+    //          A particle moving more than size in one step is clamped to the edge.
+    private static double reflect(double x, double size, double[] nextVel, int i) {
+        if (x < 0) {
+            nextVel[i] = -nextVel[i];
+            return Math.min(-x, size);
+        } else if (x > size) {
+            nextVel[i] = -nextVel[i];
+            return Math.max(2 * size - x, 0);
+        }
+        return x;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves every particle into [0, width) x [0, height) by whole periods.
+    private void wrapPositions() {
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        boolean moved = false;
+        for (int i = 0; i < this.particles.size(); i++) {
+            double x = BoundaryMode.wrap(posX[i], this.width);
+            double y = BoundaryMode.wrap(posY[i], this.height);
+            moved |= x != posX[i] || y != posY[i];
+            posX[i] = x;
+            posY[i] = y;
+        }
+        if (moved) {
+            this.particles.invalidateViews();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves the particles in the store into Morton order over the world, so that particles near each
+    //          other in space are near each other in memory and the force loops read their neighbors from
+    //          fewer cache lines. Each particle keeps its ID (see ParticleStore.getId); only the indices of
+    //          the particles in getParticles() change. Does not allocate once the particles have been
+    //          reordered at their current number.
+    public void reorderParticles() {
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        this.particles.reorder(this.mortonOrder.sort(posX, posY, this.particles.size(), this.width, this.height));
+        this.stepsSinceReorder = 0;
     }
 
     // MODIFIES: this
     // EFFECTS: Adds a particle to the simulation.
     public void addParticle(Particle particle) {
         this.particles.add(particle);
-        EventLog.getInstance().logEvent(new Event("Added a particle"));
+        EventLog.getInstance().logEvent("Added a particle", EventLevel.DEBUG);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds every particle of the collection to the simulation, in order, logging a single event.
+    public void addParticles(Collection<? extends Particle> particles) {
+        this.particles.addAll(particles);
+        if (!particles.isEmpty()) {
+            EventLog.getInstance().logEvent(new Event("Added " + particles.size() + " particles"));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes every particle that satisfies the predicate in a single pass, keeping the others in
+    //          order, and returns the number removed.
+    public int removeParticles(Predicate<Particle> predicate) {
+        return logRemoval(this.particles.removeWhere(i -> predicate.test(this.particles.get(i))));
+    }
+
+    // REQUIRES: radius >= 0
+    // MODIFIES: this
+    // EFFECTS: Removes every particle within radius of (x, y), as found by findParticlesInCircle(), and
+    //          returns the number removed.
+    public int removeParticlesInCircle(double x, double y, double radius) {
+        return removeParticlesAt(findParticlesInCircle(x, y, radius));
+    }
+
+    // REQUIRES: minX <= maxX, minY <= maxY
+    // MODIFIES: this
+    // EFFECTS: Removes every particle in the rectangle, as found by findParticlesInRect(), and returns the
+    //          number removed.
+    public int removeParticlesInRect(double minX, double minY, double maxX, double maxY) {
+        return removeParticlesAt(findParticlesInRect(minX, minY, maxX, maxY));
+    }
+
+    // REQUIRES: radius >= 0
+    // MODIFIES: this
+    // EFFECTS: Returns the indices, in increasing order, of the particles within radius of (x, y). In wrap
+    //          mode the circle wraps around the edges of the world. Only the grid cells overlapping the
+    //          circle are searched.
+    public int[] findParticlesInCircle(double x, double y, double radius) {
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        boolean periodic = this.boundaryMode == BoundaryMode.WRAP;
+        IntStream.Builder found = IntStream.builder();
+        queryGrid().forEachCandidate(x - radius, y - radius, x + radius, y + radius, i -> {
+            double dx = periodic ? BoundaryMode.minimumImage(posX[i] - x, this.width) : posX[i] - x;
+            double dy = periodic ? BoundaryMode.minimumImage(posY[i] - y, this.height) : posY[i] - y;
+            if (dx * dx + dy * dy <= radius * radius) {
+                found.accept(i);
+            }
+        });
+        return sorted(found);
+    }
+
+    // REQUIRES: minX <= maxX, minY <= maxY
+    // MODIFIES: this
+    // EFFECTS: Returns the indices, in increasing order, of the particles in [minX, maxX] x [minY, maxY]. In
+    //          wrap mode the rectangle wraps around the edges of the world. Only the grid cells overlapping
+    //          the rectangle are searched.
+    public int[] findParticlesInRect(double minX, double minY, double maxX, double maxY) {
+        double[] posX = this.particles.getPosX();
+        double[] posY = this.particles.getPosY();
+        IntStream.Builder found = IntStream.builder();
+        queryGrid().forEachCandidate(minX, minY, maxX, maxY, i -> {
+            if (inSpan(posX[i], minX, maxX, this.width) && inSpan(posY[i], minY, maxY, this.height)) {
+                found.accept(i);
+            }
+        });
+        return sorted(found);
+    }
+
+    // EFFECTS: Returns whether the coordinate lies in [min, max]; in wrap mode the span wraps around a world
+    //          of the given size
+    private boolean inSpan(double coordinate, double min, double max, double size) {
+        if (this.boundaryMode == BoundaryMode.WRAP) {
+            return BoundaryMode.wrap(coordinate - min, size) <= max - min;
+        }
+        return coordinate >= min && coordinate <= max;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Returns the grid, brought up to date with the cell size the next step will use
+    private SpatialGrid queryGrid() {
+        double range = this.attractionMatrix.getRange();
+        ensureGrid(range > 0 ? range : QUERY_CELL_SIZE);
+        return this.grid;
+    }
+
+    // EFFECTS: Returns the indices collected by the builder, sorted
+    private static int[] sorted(IntStream.Builder indices) {
+        int[] result = indices.build().toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Removes the particles at the given indices in a single pass and returns the number removed
+    private int removeParticlesAt(int[] indices) {
+        if (indices.length == 0) {
+            return 0;
+        }
+        boolean[] removed = new boolean[this.particles.size()];
+        for (int i : indices) {
+            removed[i] = true;
+        }
+        return logRemoval(this.particles.removeWhere(i -> removed[i]));
+    }
+
+    // EFFECTS: Logs the removal of the given number of particles, if any, and returns that number
+    private static int logRemoval(int count) {
+        if (count > 0) {
+            EventLog.getInstance().logEvent(new Event("Removed " + count + " particles"));
+        }
+        return count;
     }
 
     // MODIFIES: this
@@ -98,27 +845,40 @@ public class Simulation implements Writable {
     // EFFECTS: Removes a particle type from the simulation, updates the particle ids and attraction matrix.
     public void removeParticleType(int index) {
         // Remove all particles that are associated with the removed type
-        ParticleType removedType = this.particleTypes.remove(index);
-        for (int i = this.particles.size() - 1; i >= 0; i--) {
-            if (this.particles.get(i).getType().getID() == removedType.getID()) {
-                this.particles.remove(i);
-            }
-        }
+        int removedId = this.particleTypes.remove(index).getID();
+        this.particles.removeWhere(i -> this.particles.getType(i).getID() == removedId);
 
         this.attractionMatrix.removeType(index);
+        renumberParticleTypes();
 
-        // Redistribute particle type ids
-        int id = 0;
-        for (ParticleType type : this.particleTypes) {
-            for (Particle particle : particles) {
-                if (particle.getType().getID() == type.getID()) {
-                    particle.getType().setID(id);
-                }
-            }
-            type.setID(id++);
+        EventLog.getInstance().logEvent(new Event("Removed a particle type"));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Gives the particle types the ids 0, 1, 2, ... in list order, and moves every particle to the
+    //          new id of its type, in one pass over the particles. Particles may hold their own copy of a
+    //          particle type (as loaded from a file); copies are matched to a type by their old id.
+    public void renumberParticleTypes() {
+        Set<ParticleType> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(this.particleTypes);
+        int maxId = -1;
+        for (int i = 0; i < this.particles.size(); i++) {
+            distinct.add(this.particles.getType(i));
+        }
+        for (ParticleType type : distinct) {
+            maxId = Math.max(maxId, type.getID());
         }
 
-        EventLog.getInstance().logEvent(new Event("Removed a particle type"));
+        // Ids that belong to no particle type are left unchanged
+        int[] newIds = new int[maxId + 1];
+        Arrays.setAll(newIds, id -> id);
+        for (int i = 0; i < this.particleTypes.size(); i++) {
+            newIds[this.particleTypes.get(i).getID()] = i;
+        }
+        for (ParticleType type : distinct) {
+            type.setID(newIds[type.getID()]);
+        }
+        this.particles.refreshTypes();
     }
 
     // EFFECTS: converts a Simulation to a JSON object
@@ -127,8 +887,9 @@ public class Simulation implements Writable {
         JSONObject json = new JSONObject();
         json.put("width", this.width);
         json.put("height", this.height);
+        json.put("boundaryMode", this.boundaryMode.name());
         JSONArray particlesArray = new JSONArray();
-        for (Particle particle : this.particles) {
+        for (Particle particle : this.particles.asList()) {
             particlesArray.put(particle.toJson());
         }
         JSONArray particleTypesArray = new JSONArray();
@@ -138,9 +899,29 @@ public class Simulation implements Writable {
         json.put("particles", particlesArray);
         json.put("particleTypes", particleTypesArray);
         json.put("attractionMatrix", this.attractionMatrix.toJson());
+        json.put("seed", this.random.getSeed());
         return json;
     }
 
+    // EFFECTS: Returns a copy of everything a save file holds: the dimensions, boundary mode, seed, particle
+    //          types, attraction matrix and particles. The copy shares nothing that changes with this
+    //          simulation, so it can be written on another thread while this one keeps stepping. The
+    //          particle arrays are copied in bulk, which takes a small fraction of a step.
+    public Simulation snapshot() {
+        Simulation copy = new Simulation(this.width, this.height, this.random.getSeed());
+        Map<ParticleType, ParticleType> typeCopies = new IdentityHashMap<>();
+        for (ParticleType type : this.particleTypes) {
+            ParticleType typeCopy = new ParticleType(type.getColor(), type.getID());
+            typeCopies.put(type, typeCopy);
+            copy.particleTypes.add(typeCopy);
+        }
+        copy.particles = this.particles.copy(
+                type -> typeCopies.computeIfAbsent(type, t -> new ParticleType(t.getColor(), t.getID())));
+        copy.attractionMatrix = this.attractionMatrix.copy();
+        copy.boundaryMode = this.boundaryMode;
+        return copy;
+    }
+
     // EFFECTS: converts a JSON object to a Simulation
     public static Simulation fromJson(JSONObject json) {
         double width = json.getDouble("width");
@@ -159,13 +940,19 @@ public class Simulation implements Writable {
         simulation.setParticles(particles);
         simulation.setParticleTypes(particleTypes);
         simulation.setAttractionMatrix(attractionMatrix);
+        // Files written before boundary modes existed have open boundaries
+        simulation.setBoundaryMode(json.optEnum(BoundaryMode.class, "boundaryMode", BoundaryMode.OPEN));
+        // Files written before seeds were saved keep the arbitrary seed of the new simulation
+        if (json.has("seed")) {
+            simulation.setSeed(json.getLong("seed"));
+        }
         return simulation;
     }
 
     // MODIFIES: this
     // EFFECTS: Initializes the member variables
     private void init() {
-        this.particles = new ArrayList<>();
+        this.particles = new ParticleStore();
         this.particleTypes = new ArrayList<>();
         this.attractionMatrix = new AttractionMatrix(0.7, 0.4, 50);
     }
@@ -178,7 +965,16 @@ public class Simulation implements Writable {
         return this.height;
     }
 
+    // EFFECTS: Returns a live view of the particles; the Particle objects it holds are snapshots that
+    //          do not change when the simulation is updated. With a reorder interval, update() may also
+    //          change the order of the particles; between updates the indices stay put, and a particle can
+    //          be followed across updates by its ID in getParticleStore().
     public List<Particle> getParticles() {
+        return this.particles.asList();
+    }
+
+    // EFFECTS: Returns the primitive-array storage behind getParticles(), for bulk readers and writers
+    public ParticleStore getParticleStore() {
         return this.particles;
     }
 
@@ -190,8 +986,83 @@ public class Simulation implements Writable {
         return this.attractionMatrix;
     }
 
+    public BoundaryMode getBoundaryMode() {
+        return this.boundaryMode;
+    }
+
+    public NeighborSearch getNeighborSearch() {
+        return this.neighborSearch;
+    }
+
+    // EFFECTS: Returns the neighbor search the last step used: the neighbor search, or in ADAPTIVE mode the
+    //          one it picked, GRID or QUADTREE
+    public NeighborSearch getActiveNeighborSearch() {
+        return this.stepSearch;
+    }
+
+    public PairEvaluation getPairEvaluation() {
+        return this.pairEvaluation;
+    }
+
+    public Precision getPrecision() {
+        return this.precision;
+    }
+
+    public ForceKernel getForceKernel() {
+        return this.forceKernel;
+    }
+
+    // EFFECTS: Returns the random numbers of this simulation, which anything that randomizes it should draw
+    //          from so that a world is reproducible from the seed
+    public SeededRandom getRandom() {
+        return this.random;
+    }
+
+    // EFFECTS: Returns the current seed of the simulation's random numbers. A simulation saved with it draws
+    //          the same random numbers after it is loaded as this one does from now on.
+    public long getSeed() {
+        return this.random.getSeed();
+    }
+
+    public StepExecutor getStepExecutor() {
+        return this.stepExecutor;
+    }
+
+    // EFFECTS: Returns the number of steps between reorders of the particles, or 0 if they are never
+    //          reordered
+    public int getReorderInterval() {
+        return this.reorderInterval;
+    }
+
+    // EFFECTS: Returns the distance beyond the range out to which VERLET neighbor search lists neighbors
+    public double getVerletSkin() {
+        return this.verletSkin;
+    }
+
+    // EFFECTS: Returns the counters and timers of the steps of this simulation; they may be read from any
+    //          thread.
+    public SimulationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    // REQUIRES: width > 0
+    public void setWidth(double width) {
+        this.width = width;
+        this.gridStore = null;
+    }
+
+    // REQUIRES: height > 0
+    public void setHeight(double height) {
+        this.height = height;
+        this.gridStore = null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Replaces the particles of the simulation with the given particles
     public void setParticles(List<Particle> particles) {
-        this.particles = particles;
+        List<Particle> copy = new ArrayList<>(particles);
+        this.particles.clear();
+        this.particles.addAll(copy);
     }
 
     public void setParticleTypes(List<ParticleType> particleTypes) {
@@ -201,4 +1072,58 @@ public class Simulation implements Writable {
     public void setAttractionMatrix(AttractionMatrix attractionMatrix) {
         this.attractionMatrix = attractionMatrix;
     }
+
+    public void setBoundaryMode(BoundaryMode boundaryMode) {
+        this.boundaryMode = boundaryMode;
+    }
+
+    public void setNeighborSearch(NeighborSearch neighborSearch) {
+        this.neighborSearch = neighborSearch;
+    }
+
+    public void setPairEvaluation(PairEvaluation pairEvaluation) {
+        this.pairEvaluation = pairEvaluation;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the precision of the following steps. Switching to FLOAT rounds the particles to floats
+    //          at the start of the next step.
+    public void setPrecision(Precision precision) {
+        this.precision = precision;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Restarts the simulation's random numbers from the given seed
+    public void setSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    // REQUIRES: reorderInterval >= 0
+    // MODIFIES: this
+    // EFFECTS: Sets the simulation to reorder its particles with reorderParticles() at the start of every
+    //          reorderInterval-th step from now on, or never if reorderInterval is 0
+    public void setReorderInterval(int reorderInterval) {
+        this.reorderInterval = reorderInterval;
+        this.stepsSinceReorder = 0;
+    }
+
+    // REQUIRES: verletSkin >= 0
+    // MODIFIES: this
+    // EFFECTS: Sets the distance beyond the range out to which VERLET neighbor search lists neighbors. A wider
+    //          skin rebuilds the lists less often, but lists more pairs that are out of range.
+    public void setVerletSkin(double verletSkin) {
+        this.verletSkin = verletSkin;
+    }
+
+    public void setForceKernel(ForceKernel forceKernel) {
+        this.forceKernel = forceKernel;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the executor that runs the per-particle work of each step (e.g. a
+    //          ParallelStepExecutor to use several cores). The caller remains responsible for shutting
+    //          down the previous executor.
+    public void setStepExecutor(StepExecutor stepExecutor) {
+        this.stepExecutor = stepExecutor;
+    }
 }
@@ -0,0 +1,251 @@
+package model;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+// Represents the counters and timers of the steps of a simulation: how many pairs of particles were
+// tested and found in range, how long the neighbor search, force and integration phases took, how much
+// the stepping thread allocated, whether neighbor lists were rebuilt and how much memory they hold, and how
+// many particles there are of each type. The thread stepping the
+// simulation marks the end of each phase; any other thread may read the metrics of the last completed
+// step, or their totals over every step so far.
+public class SimulationMetrics implements SimulationMetricsMBean {
+    public static final String OBJECT_NAME = "model:type=SimulationMetrics";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // The counters of one step
+    public enum Counter {
+        PAIRS_TESTED, PAIRS_IN_RANGE, NEIGHBOR_SEARCH_NANOS, FORCE_NANOS, INTEGRATION_NANOS, ALLOCATED_BYTES,
+        NEIGHBOR_LIST_BUILDS, NEIGHBOR_LIST_BYTES
+    }
+
+    // The step in progress, only accessed by the stepping thread
+    private final long[] current;
+    private long phaseStart;
+    private long allocatedAtStart;
+    private int[] currentPerType;
+
+    // The last completed step and the totals, guarded by this
+    private final long[] last;
+    private final long[] total;
+    private long steps;
+    private int particles;
+    private int[] lastPerType;
+
+    // EFFECTS: instantiates metrics that have not seen any steps
+    public SimulationMetrics() {
+        this.current = new long[Counter.values().length];
+        this.last = new long[Counter.values().length];
+        this.total = new long[Counter.values().length];
+        this.currentPerType = new int[0];
+        this.lastPerType = new int[0];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the start of a step, and of its neighbor search
+    public void startStep() {
+        this.current[Counter.NEIGHBOR_LIST_BUILDS.ordinal()] = 0;
+        this.current[Counter.NEIGHBOR_LIST_BYTES.ordinal()] = 0;
+        this.allocatedAtStart = allocatedBytes();
+        this.phaseStart = System.nanoTime();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the end of the neighbor search, and the start of the force computation
+    public void endNeighborSearch() {
+        this.current[Counter.NEIGHBOR_SEARCH_NANOS.ordinal()] = endPhase();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records that the step in progress uses neighbor lists holding the given number of bytes, and
+    //          whether it rebuilt them
+    public void recordNeighborLists(boolean rebuilt, long bytes) {
+        this.current[Counter.NEIGHBOR_LIST_BUILDS.ordinal()] = rebuilt ? 1 : 0;
+        this.current[Counter.NEIGHBOR_LIST_BYTES.ordinal()] = bytes;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the end of the force computation, which tested the given number of pairs of particles
+    //          and found the given number of them in range, and the start of the integration
+    public void endForces(long pairsTested, long pairsInRange) {
+        this.current[Counter.FORCE_NANOS.ordinal()] = endPhase();
+        this.current[Counter.PAIRS_TESTED.ordinal()] = pairsTested;
+        this.current[Counter.PAIRS_IN_RANGE.ordinal()] = pairsInRange;
+    }
+
+    // REQUIRES: types has at least n elements
+    // MODIFIES: this
+    // EFFECTS: marks the end of the integration and of the step, counting the first n particles of the type
+    //          id array by type. Ids outside [0, numTypes) are not counted.
+    public void endStep(int[] types, int n, int numTypes) {
+        this.current[Counter.INTEGRATION_NANOS.ordinal()] = endPhase();
+        this.current[Counter.ALLOCATED_BYTES.ordinal()] = Math.max(0, allocatedBytes() - this.allocatedAtStart);
+        if (this.currentPerType.length != numTypes) {
+            this.currentPerType = new int[numTypes];
+        }
+        Arrays.fill(this.currentPerType, 0);
+        for (int i = 0; i < n; i++) {
+            if (types[i] >= 0 && types[i] < numTypes) {
+                this.currentPerType[types[i]]++;
+            }
+        }
+        publish(n);
+    }
+
+    // EFFECTS: returns the counter of the last completed step
+    public synchronized long getLast(Counter counter) {
+        return this.last[counter.ordinal()];
+    }
+
+    // EFFECTS: returns the sum of the counter over every completed step
+    public synchronized long getTotal(Counter counter) {
+        return this.total[counter.ordinal()];
+    }
+
+    // MODIFIES: the platform MBean server
+    // EFFECTS: registers these metrics with the platform MBean server under OBJECT_NAME, replacing the
+    //          metrics registered there before
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        synchronized (SimulationMetrics.class) {
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getSteps() {
+        return this.steps;
+    }
+
+    @Override
+    public synchronized int getParticles() {
+        return this.particles;
+    }
+
+    @Override
+    public long getPairsTested() {
+        return getLast(Counter.PAIRS_TESTED);
+    }
+
+    @Override
+    public long getPairsInRange() {
+        return getLast(Counter.PAIRS_IN_RANGE);
+    }
+
+    @Override
+    public long getNeighborSearchNanos() {
+        return getLast(Counter.NEIGHBOR_SEARCH_NANOS);
+    }
+
+    @Override
+    public long getForceNanos() {
+        return getLast(Counter.FORCE_NANOS);
+    }
+
+    @Override
+    public long getIntegrationNanos() {
+        return getLast(Counter.INTEGRATION_NANOS);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return getLast(Counter.ALLOCATED_BYTES);
+    }
+
+    @Override
+    public long getNeighborListBuilds() {
+        return getLast(Counter.NEIGHBOR_LIST_BUILDS);
+    }
+
+    @Override
+    public long getNeighborListBytes() {
+        return getLast(Counter.NEIGHBOR_LIST_BYTES);
+    }
+
+    @Override
+    public long getTotalPairsTested() {
+        return getTotal(Counter.PAIRS_TESTED);
+    }
+
+    @Override
+    public long getTotalPairsInRange() {
+        return getTotal(Counter.PAIRS_IN_RANGE);
+    }
+
+    @Override
+    public long getTotalNeighborSearchNanos() {
+        return getTotal(Counter.NEIGHBOR_SEARCH_NANOS);
+    }
+
+    @Override
+    public long getTotalForceNanos() {
+        return getTotal(Counter.FORCE_NANOS);
+    }
+
+    @Override
+    public long getTotalIntegrationNanos() {
+        return getTotal(Counter.INTEGRATION_NANOS);
+    }
+
+    @Override
+    public long getTotalAllocatedBytes() {
+        return getTotal(Counter.ALLOCATED_BYTES);
+    }
+
+    @Override
+    public long getTotalNeighborListBuilds() {
+        return getTotal(Counter.NEIGHBOR_LIST_BUILDS);
+    }
+
+    // EFFECTS: returns the number of particles of each type id in the last completed step
+    @Override
+    public synchronized int[] getParticlesPerType() {
+        return this.lastPerType.clone();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes the step in progress the last completed step, and adds it to the totals
+    private synchronized void publish(int n) {
+        for (int c = 0; c < this.current.length; c++) {
+            this.last[c] = this.current[c];
+            this.total[c] += this.current[c];
+        }
+        if (this.lastPerType.length != this.currentPerType.length) {
+            this.lastPerType = new int[this.currentPerType.length];
+        }
+        System.arraycopy(this.currentPerType, 0, this.lastPerType, 0, this.currentPerType.length);
+        this.particles = n;
+        this.steps++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the time since the current phase started, and starts the next phase
+    private long endPhase() {
+        long now = System.nanoTime();
+        long elapsed = now - this.phaseStart;
+        this.phaseStart = now;
+        return elapsed;
+    }
+
+    // EFFECTS: returns the number of bytes the current thread has allocated so far, or 0 if the JVM cannot
+    //          tell. Work handed to other threads (e.g. by a ParallelStepExecutor) is not included.
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
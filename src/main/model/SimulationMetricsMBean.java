@@ -0,0 +1,41 @@
+package model;
+
+// Represents the management interface through which SimulationMetrics are published over JMX. Each
+// getter without "Total" reports the last completed step.
+public interface SimulationMetricsMBean {
+    long getSteps();
+
+    int getParticles();
+
+    long getPairsTested();
+
+    long getPairsInRange();
+
+    long getNeighborSearchNanos();
+
+    long getForceNanos();
+
+    long getIntegrationNanos();
+
+    long getAllocatedBytes();
+
+    long getNeighborListBuilds();
+
+    long getNeighborListBytes();
+
+    long getTotalPairsTested();
+
+    long getTotalPairsInRange();
+
+    long getTotalNeighborSearchNanos();
+
+    long getTotalForceNanos();
+
+    long getTotalIntegrationNanos();
+
+    long getTotalAllocatedBytes();
+
+    long getTotalNeighborListBuilds();
+
+    int[] getParticlesPerType();
+}
@@ -0,0 +1,282 @@
+package model;
+
+import java.util.function.IntConsumer;
+
+// Represents a uniform grid (cell list) over the particles of a simulation. Each cell is at least
+// as wide as the attraction range, so every particle that can exert a force on a given particle
+// lies in the 3x3 block of cells surrounding it. A periodic grid tiles a fixed world exactly, and
+// that block wraps around its edges.
+public class SpatialGrid {
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    private double cellWidth;
+    private double cellHeight;
+    private int columns;
+    private int rows;
+    private boolean periodic;
+
+    // cellStart[c] .. cellStart[c + 1] - 1 are the positions in cellParticles belonging to cell c
+    private int[] cellStart;
+    private int[] cellParticles;
+    private int[] particleCells;
+
+    // EFFECTS: instantiates an empty grid
+    public SpatialGrid() {
+        this.cellStart = new int[1];
+        this.cellParticles = new int[0];
+        this.particleCells = new int[0];
+        this.cellWidth = 1;
+        this.cellHeight = 1;
+        this.columns = 0;
+        this.rows = 0;
+    }
+
+    // REQUIRES: minCellSize > 0
+    // MODIFIES: this
+    // EFFECTS: rebuilds the grid so that it covers the first n particles of the position arrays, with
+    //          cells at least minCellSize units wide. The cell size is grown when needed to keep the number
+    //          of cells proportional to the number of particles.
+    public void build(double[] posX, double[] posY, int n, double minCellSize) {
+        this.periodic = false;
+        computeBounds(posX, posY, n);
+        fitCells(n, minCellSize);
+
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            this.particleCells[i] = cellOf(posX[i], posY[i]);
+        }
+        countingSort(n);
+    }
+
+    // REQUIRES: width, height, minCellSize > 0, and the first n particles lie in [0, width) x [0, height)
+    // MODIFIES: this
+    // EFFECTS: rebuilds the grid so that it tiles [0, width) x [0, height) with cells at least minCellSize
+    //          units wide and high. The layout only depends on the world size and n, so the number of
+    //          cells stays fixed however the particles move.
+    public void buildPeriodic(double[] posX, double[] posY, int n, double width, double height,
+                              double minCellSize) {
+        this.periodic = true;
+        this.minX = 0;
+        this.minY = 0;
+        this.maxX = width;
+        this.maxY = height;
+        this.columns = Math.max(1, (int) (width / minCellSize));
+        this.rows = Math.max(1, (int) (height / minCellSize));
+        double maxCells = Math.max(16, 2.0 * n);
+        if ((double) this.columns * this.rows > maxCells) {
+            double shrink = Math.sqrt((double) this.columns * this.rows / maxCells);
+            this.columns = Math.max(1, (int) (this.columns / shrink));
+            this.rows = Math.max(1, (int) (this.rows / shrink));
+        }
+        this.cellWidth = width / this.columns;
+        this.cellHeight = height / this.rows;
+
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            this.particleCells[i] = cellOf(posX[i], posY[i]);
+        }
+        countingSort(n);
+    }
+
+    // EFFECTS: calls action with the index of every particle in a cell that overlaps the box [minX, maxX] x
+    //          [minY, maxY], and possibly some others. On a periodic grid, the box wraps around the edges.
+    public void forEachCandidate(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        if (this.periodic) {
+            forEachPeriodicCandidate(minX, minY, maxX, maxY, action);
+            return;
+        }
+        int minColumn = columnOf(minX);
+        int maxColumn = columnOf(maxX);
+        for (int row = rowOf(minY); row <= rowOf(maxY); row++) {
+            // The cells of one row are contiguous in the cell ordering
+            int end = getCellEnd(cellIndex(maxColumn, row));
+            for (int k = getCellStart(cellIndex(minColumn, row)); k < end; k++) {
+                action.accept(this.cellParticles[k]);
+            }
+        }
+    }
+
+    // EFFECTS: returns the column containing the x coordinate, clamped to the grid
+    public int columnOf(double x) {
+        return clamp((int) ((x - this.minX) / this.cellWidth), this.columns);
+    }
+
+    // EFFECTS: returns the row containing the y coordinate, clamped to the grid
+    public int rowOf(double y) {
+        return clamp((int) ((y - this.minY) / this.cellHeight), this.rows);
+    }
+
+    // REQUIRES: 0 <= column < getColumns(), 0 <= row < getRows()
+    // EFFECTS: returns the index of the cell at the given column and row
+    public int cellIndex(int column, int row) {
+        return row * this.columns + column;
+    }
+
+    // EFFECTS: returns the first position (inclusive) in the cell ordering belonging to the cell
+    public int getCellStart(int cell) {
+        return this.cellStart[cell];
+    }
+
+    // EFFECTS: returns the last position (exclusive) in the cell ordering belonging to the cell
+    public int getCellEnd(int cell) {
+        return this.cellStart[cell + 1];
+    }
+
+    // EFFECTS: returns the index of the particle at the given position in the cell ordering
+    public int getParticle(int position) {
+        return this.cellParticles[position];
+    }
+
+    // EFFECTS: returns the particle indices, ordered by cell. Since cells are numbered row by row,
+    //          horizontally adjacent cells occupy one contiguous range of this array.
+    public int[] getCellParticles() {
+        return this.cellParticles;
+    }
+
+    // EFFECTS: returns how crowded the cells are where the particles are: the mean number of particles in the
+    //          cell of a particle. Particles spread evenly give the mean occupancy of a cell, and the more the
+    //          occupancy skews toward a few full cells, the higher it grows. Returns 0 if the grid holds no
+    //          particles.
+    public double getCrowding() {
+        int numCells = this.columns * this.rows;
+        int n = this.cellStart[numCells];
+        if (n == 0) {
+            return 0;
+        }
+        double sumSq = 0;
+        for (int c = 0; c < numCells; c++) {
+            double count = this.cellStart[c + 1] - this.cellStart[c];
+            sumSq += count * count;
+        }
+        return sumSq / n;
+    }
+
+    // EFFECTS: returns the shorter side of a cell, which is at least the minimum cell size of the last build
+    public double getCellSize() {
+        return Math.min(this.cellWidth, this.cellHeight);
+    }
+
+    public double getCellWidth() {
+        return this.cellWidth;
+    }
+
+    public double getCellHeight() {
+        return this.cellHeight;
+    }
+
+    public int getColumns() {
+        return this.columns;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public boolean isPeriodic() {
+        return this.periodic;
+    }
+
+    // EFFECTS: forEachCandidate() for a periodic grid
+    private void forEachPeriodicCandidate(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        int firstColumn = (int) Math.floor(minX / this.cellWidth);
+        int lastColumn = Math.min((int) Math.floor(maxX / this.cellWidth), firstColumn + this.columns - 1);
+        int firstRow = (int) Math.floor(minY / this.cellHeight);
+        int lastRow = Math.min((int) Math.floor(maxY / this.cellHeight), firstRow + this.rows - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = cellIndex(Math.floorMod(column, this.columns), Math.floorMod(row, this.rows));
+                for (int k = getCellStart(cell); k < getCellEnd(cell); k++) {
+                    action.accept(this.cellParticles[k]);
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: computes the bounding box of the particles
+    private void computeBounds(double[] posX, double[] posY, int n) {
+        this.minX = Double.POSITIVE_INFINITY;
+        this.minY = Double.POSITIVE_INFINITY;
+        this.maxX = Double.NEGATIVE_INFINITY;
+        this.maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            this.minX = Math.min(this.minX, posX[i]);
+            this.minY = Math.min(this.minY, posY[i]);
+            this.maxX = Math.max(this.maxX, posX[i]);
+            this.maxY = Math.max(this.maxY, posY[i]);
+        }
+        if (n == 0) {
+            this.minX = 0;
+            this.minY = 0;
+            this.maxX = 0;
+            this.maxY = 0;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: picks the cell size and grid dimensions to cover the bounding box
+    private void fitCells(int n, double minCellSize) {
+        double extentX = this.maxX - this.minX;
+        double extentY = this.maxY - this.minY;
+        double maxCells = Math.max(16, 2.0 * n);
+        double cellSize = minCellSize;
+        double cells = (Math.floor(extentX / cellSize) + 1) * (Math.floor(extentY / cellSize) + 1);
+        if (cells > maxCells) {
+            cellSize *= Math.sqrt(cells / maxCells);
+        }
+        this.cellWidth = cellSize;
+        this.cellHeight = cellSize;
+        this.columns = (int) (extentX / cellSize) + 1;
+        this.rows = (int) (extentY / cellSize) + 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the backing arrays (with room to spare, so that rebuilding the grid every step
+    //          rarely allocates) so they can index n particles and the current cells
+    private void ensureCapacity(int n) {
+        int numCells = this.columns * this.rows;
+        if (this.cellStart.length < numCells + 1) {
+            this.cellStart = new int[2 * numCells + 1];
+        }
+        if (this.cellParticles.length < n) {
+            this.cellParticles = new int[n + n / 2];
+            this.particleCells = new int[n + n / 2];
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: orders the particle indices by cell (and by index within a cell)
+    private void countingSort(int n) {
+        int numCells = this.columns * this.rows;
+        for (int c = 0; c <= numCells; c++) {
+            this.cellStart[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            this.cellStart[this.particleCells[i] + 1]++;
+        }
+        for (int c = 0; c < numCells; c++) {
+            this.cellStart[c + 1] += this.cellStart[c];
+        }
+        for (int i = 0; i < n; i++) {
+            int cell = this.particleCells[i];
+            this.cellParticles[this.cellStart[cell]++] = i;
+        }
+        // The placement pass shifted every start forward by one cell; shift them back.
+        for (int c = numCells; c > 0; c--) {
+            this.cellStart[c] = this.cellStart[c - 1];
+        }
+        this.cellStart[0] = 0;
+    }
+
+    // EFFECTS: returns the cell index containing the point (x, y)
+    private int cellOf(double x, double y) {
+        return cellIndex(columnOf(x), rowOf(y));
+    }
+
+    // EFFECTS: clamps an index to [0, size - 1]
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+}
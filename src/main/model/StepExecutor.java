@@ -0,0 +1,20 @@
+package model;
+
+// Represents a strategy for running the per-particle work of a simulation step. The work for each
+// particle only writes to that particle's own slots, so the range may be split arbitrarily.
+public interface StepExecutor {
+    // EFFECTS: runs the task over every index in [0, n), possibly as several concurrently running
+    //          chunks, and returns once all of them have finished
+    void execute(int n, RangeTask task);
+
+    // MODIFIES: this
+    // EFFECTS: releases any threads held by the executor
+    default void shutdown() {
+    }
+
+    // Represents work to be done for every index in [from, to)
+    interface RangeTask {
+        // EFFECTS: does the work for every index in [from, to)
+        void run(int from, int to);
+    }
+}
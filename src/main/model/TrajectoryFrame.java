@@ -0,0 +1,107 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents one recorded step of a simulation, as read back from a trajectory: the position, color and
+// (if they were recorded) velocity of every particle, stored as parallel arrays like ParticleStore. A
+// frame is reused from one step to the next, so its arrays only grow.
+public class TrajectoryFrame {
+    private int size;
+    private double[] posX;
+    private double[] posY;
+    private double[] velX;
+    private double[] velY;
+    private int[] colors;
+    private boolean hasVelocities;
+    private double width;
+    private double height;
+    private long step;
+
+    // EFFECTS: instantiates an empty frame
+    public TrajectoryFrame() {
+        this.posX = new double[0];
+        this.posY = new double[0];
+        this.velX = new double[0];
+        this.velY = new double[0];
+        this.colors = new int[0];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the number of particles in the frame, growing the arrays if they cannot hold them. The
+    //          entries of the arrays are left as they were.
+    public void resize(int size) {
+        if (this.posX.length < size) {
+            this.posX = Arrays.copyOf(this.posX, size);
+            this.posY = Arrays.copyOf(this.posY, size);
+            this.velX = Arrays.copyOf(this.velX, size);
+            this.velY = Arrays.copyOf(this.velY, size);
+            this.colors = Arrays.copyOf(this.colors, size);
+        }
+        this.size = size;
+    }
+
+    // EFFECTS: returns the number of particles in the frame
+    public int size() {
+        return this.size;
+    }
+
+    // EFFECTS: returns the x positions; only the first size() entries are meaningful
+    public double[] getPosX() {
+        return this.posX;
+    }
+
+    // EFFECTS: returns the y positions; only the first size() entries are meaningful
+    public double[] getPosY() {
+        return this.posY;
+    }
+
+    // EFFECTS: returns the x velocities; only the first size() entries are meaningful, and only if the
+    //          frame has velocities
+    public double[] getVelX() {
+        return this.velX;
+    }
+
+    // EFFECTS: returns the y velocities; only the first size() entries are meaningful, and only if the
+    //          frame has velocities
+    public double[] getVelY() {
+        return this.velY;
+    }
+
+    // EFFECTS: returns the ARGB colors; only the first size() entries are meaningful
+    public int[] getColors() {
+        return this.colors;
+    }
+
+    public boolean hasVelocities() {
+        return this.hasVelocities;
+    }
+
+    public double getWidth() {
+        return this.width;
+    }
+
+    public double getHeight() {
+        return this.height;
+    }
+
+    // EFFECTS: returns the number of the simulation step the frame was recorded after
+    public long getStep() {
+        return this.step;
+    }
+
+    public void setHasVelocities(boolean hasVelocities) {
+        this.hasVelocities = hasVelocities;
+    }
+
+    public void setWidth(double width) {
+        this.width = width;
+    }
+
+    public void setHeight(double height) {
+        this.height = height;
+    }
+
+    public void setStep(long step) {
+        this.step = step;
+    }
+}
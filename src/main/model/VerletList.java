@@ -0,0 +1,264 @@
+package model;
+
+import java.util.Arrays;
+
+// Represents Verlet neighbor lists: for every particle, the particles that were within range + skin of it
+// when the lists were built. As long as the two particles that have moved farthest since then have moved
+// less than skin between them, no pair of particles can have closed from beyond range + skin to within
+// range, so the lists still hold every pair in range and are reused from step to step instead of searching
+// the grid again. The lists are laid out one after the other in a single array, and the arrays are kept
+// between builds, so rebuilding does not allocate once they are large enough.
+public class VerletList {
+    // The lists are built from a grid with cells at least (range + skin) / CELL_DIVISOR wide, searching the
+    // CELL_DIVISOR cells on each side of a particle's cell. Smaller cells fit the circle of the list range
+    // more tightly than a 3x3 block of cells as wide as it, so fewer candidates are tested.
+    public static final int CELL_DIVISOR = 2;
+    private static final int SPAN = 2 * CELL_DIVISOR + 1;
+
+    private int size;
+    private int[] listStart;
+    private int[] neighbors;
+    private double[] builtX;
+    private double[] builtY;
+    private int[] builtIds;
+    private ParticleStore builtStore;
+    private double builtRange;
+    private double builtSkin;
+    private boolean half;
+    private boolean periodic;
+    private double width;
+    private double height;
+    private long builds;
+
+    // EFFECTS: instantiates lists that have never been built
+    public VerletList() {
+        this.listStart = new int[1];
+        this.neighbors = new int[64];
+        this.builtX = new double[0];
+        this.builtY = new double[0];
+        this.builtIds = new int[0];
+    }
+
+    // REQUIRES: range > 0, skin >= 0, and the grid was last built over the particles of the store, with
+    //           cells at least (range + skin) / CELL_DIVISOR wide; in wrap mode, periodically over a
+    //           width x height world
+    // MODIFIES: this
+    // EFFECTS: lists for every particle of the store the other particles within range + skin of it, or if
+    //          half, only those after it in the store, so that each pair is listed once. In a periodic grid,
+    //          distances are measured across the edges of the world.
+    public void build(ParticleStore store, SpatialGrid grid, double range, double skin, boolean half,
+                      double width, double height) {
+        int n = store.size();
+        if (this.builtX.length < n) {
+            allocate(n + n / 2);
+        }
+        this.size = n;
+        this.builtStore = store;
+        this.builtRange = range;
+        this.builtSkin = skin;
+        this.half = half;
+        this.periodic = grid.isPeriodic();
+        this.width = width;
+        this.height = height;
+        System.arraycopy(store.getPosX(), 0, this.builtX, 0, n);
+        System.arraycopy(store.getPosY(), 0, this.builtY, 0, n);
+        for (int i = 0; i < n; i++) {
+            this.builtIds[i] = store.getId(i);
+            this.listStart[i + 1] = listNeighbors(i, grid, (range + skin) * (range + skin), this.listStart[i]);
+        }
+        this.builds++;
+    }
+
+    // EFFECTS: returns true if the lists were built with the given parameters over the same particles of the
+    //          store, in the same slots, and the two particles that have moved farthest since have moved no more
+    //          than skin between them, so that the lists still hold every pair within range. Movement is
+    //          measured across the edges of the world in a periodic world.
+    public boolean isCurrent(ParticleStore store, double range, double skin, boolean half, boolean periodic,
+                             double width, double height) {
+        int n = store.size();
+        if (store != this.builtStore || n != this.size || range != this.builtRange || skin != this.builtSkin
+                || half != this.half || periodic != this.periodic || width != this.width
+                || height != this.height) {
+            return false;
+        }
+        double[] posX = store.getPosX();
+        double[] posY = store.getPosY();
+        // The squares of the two farthest moves
+        double firstSq = 0;
+        double secondSq = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = displacement(posX[i] - this.builtX[i], width);
+            double dy = displacement(posY[i] - this.builtY[i], height);
+            double moveSq = dx * dx + dy * dy;
+            if (moveSq > secondSq) {
+                secondSq = Math.min(moveSq, firstSq);
+                firstSq = Math.max(moveSq, firstSq);
+            }
+            if (firstSq > skin * skin || store.getId(i) != this.builtIds[i]) {
+                return false;
+            }
+        }
+        return Math.sqrt(firstSq) + Math.sqrt(secondSq) <= skin;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forgets the lists, so that the next isCurrent returns false
+    public void clear() {
+        this.builtStore = null;
+    }
+
+    // REQUIRES: 0 <= i <= the number of particles of the last build
+    // EFFECTS: returns the position of the first neighbor of particle i in getNeighbors(); its neighbors are
+    //          the entries from getListStart(i) to getListStart(i + 1) - 1
+    public int getListStart(int i) {
+        return this.listStart[i];
+    }
+
+    // EFFECTS: returns the lists of every particle, one after the other. The array may be longer than the
+    //          lists, and is replaced when a build outgrows it.
+    public int[] getNeighbors() {
+        return this.neighbors;
+    }
+
+    // EFFECTS: returns the number of entries in all the lists of the last build
+    public int getEntryCount() {
+        return this.listStart[this.size];
+    }
+
+    // EFFECTS: returns the number of times the lists were built
+    public long getBuilds() {
+        return this.builds;
+    }
+
+    // EFFECTS: returns the number of bytes held by the arrays of the lists, including their spare capacity
+    public long getMemoryBytes() {
+        return (long) Integer.BYTES * (this.listStart.length + this.neighbors.length + this.builtIds.length)
+                + (long) Double.BYTES * (this.builtX.length + this.builtY.length);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the neighbors of particle i, from the SPAN x SPAN block of grid cells around it, to the
+    //          lists from the given position, and returns the position after them
+    private int listNeighbors(int i, SpatialGrid grid, double listRangeSq, int position) {
+        int column = grid.columnOf(this.builtX[i]);
+        int row = grid.rowOf(this.builtY[i]);
+        if (this.periodic && (grid.getColumns() < SPAN || grid.getRows() < SPAN)) {
+            return listSmallPeriodicNeighbors(i, grid, column, row, listRangeSq, position);
+        }
+        int columns = grid.getColumns();
+        int rows = grid.getRows();
+        int minRow = this.periodic ? row - CELL_DIVISOR : Math.max(row - CELL_DIVISOR, 0);
+        int maxRow = this.periodic ? row + CELL_DIVISOR : Math.min(row + CELL_DIVISOR, rows - 1);
+        int minColumn = this.periodic ? column - CELL_DIVISOR : Math.max(column - CELL_DIVISOR, 0);
+        int maxColumn = this.periodic ? column + CELL_DIVISOR : Math.min(column + CELL_DIVISOR, columns - 1);
+        for (int r = minRow; r <= maxRow; r++) {
+            // A row that wraps around the world holds the images of the particles one world height away
+            double offsetY = r < 0 ? -this.height : r >= rows ? this.height : 0;
+            position = listRow(i, grid, Math.floorMod(r, rows), minColumn, maxColumn, offsetY, listRangeSq,
+                    position);
+        }
+        return position;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the neighbors of particle i in the given row, from the cells in [minColumn, maxColumn]
+    //          with the columns past either edge wrapping around the world, to the lists from the given position,
+    //          and returns the position after them
+    private int listRow(int i, SpatialGrid grid, int row, int minColumn, int maxColumn, double offsetY,
+                        double listRangeSq, int position) {
+        int columns = grid.getColumns();
+        // The cells of one row are contiguous in the cell ordering, up to where the row wraps
+        int first = grid.cellIndex(Math.max(minColumn, 0), row);
+        int last = grid.cellIndex(Math.min(maxColumn, columns - 1), row);
+        position = listCandidates(i, grid, grid.getCellStart(first), grid.getCellEnd(last), 0, offsetY,
+                listRangeSq, position);
+        if (minColumn < 0) {
+            position = listCandidates(i, grid, grid.getCellStart(grid.cellIndex(minColumn + columns, row)),
+                    grid.getCellEnd(grid.cellIndex(columns - 1, row)), -this.width, offsetY, listRangeSq, position);
+        } else if (maxColumn >= columns) {
+            position = listCandidates(i, grid, grid.getCellStart(grid.cellIndex(0, row)),
+                    grid.getCellEnd(grid.cellIndex(maxColumn - columns, row)), this.width, offsetY, listRangeSq,
+                    position);
+        }
+        return position;
+    }
+
+    // REQUIRES: the lists are periodic, and the grid is less than SPAN cells across in some direction
+    // MODIFIES: this
+    // EFFECTS: appends the neighbors of particle i, whose cell is at the given column and row, to the lists
+    //          from the given position, and returns the position after them. Every cell of the block is
+    //          visited once, however small the world, and the candidates are measured from their nearest
+    //          images.
+    private int listSmallPeriodicNeighbors(int i, SpatialGrid grid, int column, int row, double listRangeSq,
+                                           int position) {
+        int columns = grid.getColumns();
+        int rows = grid.getRows();
+        for (int dr = 0; dr < Math.min(rows, SPAN); dr++) {
+            int r = Math.floorMod(row - CELL_DIVISOR + dr, rows);
+            for (int dc = 0; dc < Math.min(columns, SPAN); dc++) {
+                int cell = grid.cellIndex(Math.floorMod(column - CELL_DIVISOR + dc, columns), r);
+                for (int k = grid.getCellStart(cell); k < grid.getCellEnd(cell); k++) {
+                    int j = grid.getParticle(k);
+                    double dx = BoundaryMode.minimumImage(this.builtX[j] - this.builtX[i], this.width);
+                    double dy = BoundaryMode.minimumImage(this.builtY[j] - this.builtY[i], this.height);
+                    if ((this.half ? j > i : j != i) && dx * dx + dy * dy <= listRangeSq) {
+                        position = append(j, position);
+                    }
+                }
+            }
+        }
+        return position;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the particles at positions [start, end) of the grid's cell ordering that are within
+    //          the list range of particle i, when moved by (offsetX, offsetY), to the lists from the given
+    //          position, and returns the position after them. Every candidate is written, and the position only
+    //          advances past those that are kept, so the loop does not branch on the distance.
+    private int listCandidates(int i, SpatialGrid grid, int start, int end, double offsetX, double offsetY,
+                               double listRangeSq, int position) {
+        if (position + end - start > this.neighbors.length) {
+            this.neighbors = Arrays.copyOf(this.neighbors, Math.max(2 * this.neighbors.length,
+                    position + end - start));
+        }
+        int[] cellParticles = grid.getCellParticles();
+        int[] neighbors = this.neighbors;
+        int first = this.half ? i + 1 : 0;
+        double x = this.builtX[i] - offsetX;
+        double y = this.builtY[i] - offsetY;
+        for (int k = start; k < end; k++) {
+            int j = cellParticles[k];
+            double dx = this.builtX[j] - x;
+            double dy = this.builtY[j] - y;
+            neighbors[position] = j;
+            position += j >= first && j != i && dx * dx + dy * dy <= listRangeSq ? 1 : 0;
+        }
+        return position;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends particle j to the lists at the given position, growing them if needed, and returns the
+    //          position after it
+    private int append(int j, int position) {
+        if (position == this.neighbors.length) {
+            this.neighbors = Arrays.copyOf(this.neighbors, 2 * position);
+        }
+        this.neighbors[position] = j;
+        return position + 1;
+    }
+
+    // EFFECTS: returns the displacement d along an axis of the given size, replaced by its minimum image if
+    //          the lists are periodic
+    private double displacement(double d, double size) {
+        return this.periodic ? BoundaryMode.minimumImage(d, size) : d;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates the per-particle arrays with the given capacity
+    private void allocate(int capacity) {
+        this.listStart = new int[capacity + 1];
+        this.builtX = new double[capacity];
+        this.builtY = new double[capacity];
+        this.builtIds = new int[capacity];
+    }
+}
@@ -0,0 +1,153 @@
+package network;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Represents a viewer's decoding of the frames encoded by one FrameEncoder, in the order they were encoded.
+// Each delta frame is added to the positions of the frame before it, so the decoder holds the latest frame.
+public class FrameDecoder {
+    private long frames;
+    private boolean keyFrame;
+    private long step;
+    private double width;
+    private double height;
+    private int size;
+    private int[] typeIds;
+    private int[] quantizedX;
+    private int[] quantizedY;
+
+    // EFFECTS: instantiates a decoder that has not decoded any frame
+    public FrameDecoder() {
+        this.typeIds = new int[0];
+        this.quantizedX = new int[0];
+        this.quantizedY = new int[0];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes the frame in the message, which becomes the latest frame; throws IOException if the
+    //          message is not a frame, or is a delta frame that does not follow a frame of as many particles
+    public void decode(byte[] message) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            boolean key = readKind(buffer);
+            long step = buffer.getLong();
+            double width = buffer.getDouble();
+            double height = buffer.getDouble();
+            int n = getVarInt(buffer);
+            if (key) {
+                readTypes(buffer, n);
+            } else if (this.frames == 0 || n != this.size) {
+                throw new IOException("Delta frame of " + n + " particles without a frame to follow");
+            }
+            readPositions(buffer, this.quantizedX, key);
+            readPositions(buffer, this.quantizedY, key);
+            this.keyFrame = key;
+            this.step = step;
+            this.width = width;
+            this.height = height;
+            this.frames++;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Frame cut off after " + message.length + " bytes");
+        }
+    }
+
+    // EFFECTS: reads the kind of a frame, and returns true if it is a key frame; throws IOException if it is
+    //          neither a key frame nor a delta frame
+    private static boolean readKind(ByteBuffer buffer) throws IOException {
+        byte kind = buffer.get();
+        if (kind != FrameEncoder.KEY_FRAME && kind != FrameEncoder.DELTA_FRAME) {
+            throw new IOException("Unknown frame kind " + kind);
+        }
+        return kind == FrameEncoder.KEY_FRAME;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the particle count and type ids of a key frame
+    private void readTypes(ByteBuffer buffer, int n) throws IOException {
+        if (n < 0 || n > buffer.remaining()) {
+            throw new IOException("Particle count " + n + " out of range");
+        }
+        if (this.typeIds.length < n) {
+            this.typeIds = new int[n];
+            this.quantizedX = new int[n];
+            this.quantizedY = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            this.typeIds[i] = getVarInt(buffer);
+        }
+        this.size = n;
+    }
+
+    // MODIFIES: quantized
+    // EFFECTS: reads the quantized positions along one axis, outright in key frames and added to those of the
+    //          frame before, wrapped to 16 bits, otherwise
+    private void readPositions(ByteBuffer buffer, int[] quantized, boolean key) {
+        for (int i = 0; i < this.size; i++) {
+            if (key) {
+                quantized[i] = Short.toUnsignedInt(buffer.getShort());
+            } else {
+                quantized[i] = (quantized[i] + getVarInt(buffer)) & (FrameEncoder.LEVELS - 1);
+            }
+        }
+    }
+
+    // EFFECTS: reads the next zigzag-encoded variable-length integer from the buffer
+    private static int getVarInt(ByteBuffer buffer) {
+        int bits = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            bits |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    // EFFECTS: returns the number of frames decoded
+    public long getFrames() {
+        return this.frames;
+    }
+
+    // EFFECTS: returns true if the latest frame is a key frame
+    public boolean isKeyFrame() {
+        return this.keyFrame;
+    }
+
+    public long getStep() {
+        return this.step;
+    }
+
+    public double getWidth() {
+        return this.width;
+    }
+
+    public double getHeight() {
+        return this.height;
+    }
+
+    // EFFECTS: returns the number of particles in the latest frame
+    public int size() {
+        return this.size;
+    }
+
+    // REQUIRES: 0 <= i < size()
+    // EFFECTS: returns the type id of particle i
+    public int getTypeId(int i) {
+        return this.typeIds[i];
+    }
+
+    // REQUIRES: 0 <= i < size()
+    // EFFECTS: returns the x position of particle i, at the middle of its quantization step
+    public double getX(int i) {
+        return (this.quantizedX[i] + 0.5) * this.width / FrameEncoder.LEVELS;
+    }
+
+    // REQUIRES: 0 <= i < size()
+    // EFFECTS: returns the y position of particle i, at the middle of its quantization step
+    public double getY(int i) {
+        return (this.quantizedY[i] + 0.5) * this.height / FrameEncoder.LEVELS;
+    }
+}
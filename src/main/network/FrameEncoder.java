@@ -0,0 +1,151 @@
+package network;
+
+import model.RenderSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Represents the encoding of render snapshots into the frames streamed to one viewer. Positions are
+// quantized to LEVELS steps across the width and height of the world, so each fits in 16 bits. A key frame
+// holds every particle's type id and quantized position outright; the frames after it hold only the
+// difference of each position from the last frame this encoder encoded, wrapped to 16 bits, which is small
+// and so takes one or two bytes, even for a particle that wrapped around an edge of the world. Each viewer
+// has its own encoder, so a viewer that skips frames still gets differences from the last frame it was
+// sent. A frame is a delta frame only if the world and the particle count and type ids are the same as in
+// that frame. All values are little-endian, laid out as:
+//   kind (KEY_FRAME or DELTA_FRAME), step number, width, height, particle count;
+//   for key frames, the type id of every particle, then every x and every y as unsigned 16-bit integers;
+//   for delta frames, the difference of every x, then of every y
+// Particle counts, type ids and differences are variable-length integers, as in TrajectoryWriter:
+// zigzag-encoded, seven bits per byte, low bits first.
+public class FrameEncoder {
+    public static final int LEVELS = 1 << 16;
+    static final byte KEY_FRAME = 0;
+    static final byte DELTA_FRAME = 1;
+    // Kind, step number, width, height, and a particle count of at most five bytes
+    static final int HEADER_SIZE = 30;
+    // Longest variable-length encoding of an int
+    private static final int MAX_VAR_INT_SIZE = 5;
+
+    private ByteBuffer buffer;
+    private long frames;
+    private long keyFrames;
+    private int size;
+    private double width;
+    private double height;
+    private int[] typeIds;
+    private int[] quantizedX;
+    private int[] quantizedY;
+
+    // EFFECTS: instantiates an encoder whose first frame is a key frame
+    public FrameEncoder() {
+        this.buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.typeIds = new int[0];
+        this.quantizedX = new int[0];
+        this.quantizedY = new int[0];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the frame holding the snapshot, as a delta from the last frame encoded if it can be
+    public byte[] encode(RenderSnapshot snapshot) {
+        int n = snapshot.size();
+        boolean key = !follows(snapshot);
+        if (key) {
+            capture(snapshot);
+        }
+        this.buffer.clear();
+        ensureCapacity(HEADER_SIZE + n * (key ? MAX_VAR_INT_SIZE + 2 * Short.BYTES : 2 * MAX_VAR_INT_SIZE));
+        this.buffer.put(key ? KEY_FRAME : DELTA_FRAME);
+        this.buffer.putLong(snapshot.getStep());
+        this.buffer.putDouble(this.width);
+        this.buffer.putDouble(this.height);
+        putVarInt(n);
+        if (key) {
+            for (int i = 0; i < n; i++) {
+                putVarInt(this.typeIds[i]);
+            }
+        }
+        putPositions(snapshot.getPosX(), this.quantizedX, this.width, key);
+        putPositions(snapshot.getPosY(), this.quantizedY, this.height, key);
+        this.frames++;
+        this.keyFrames += key ? 1 : 0;
+        return Arrays.copyOf(this.buffer.array(), this.buffer.position());
+    }
+
+    // EFFECTS: returns the number of steps the coordinate lies from the start of an axis of the given size,
+    //          clamped to [0, LEVELS - 1]
+    public static int quantize(double coordinate, double size) {
+        return (int) Math.max(0, Math.min(LEVELS - 1, Math.floor(coordinate / size * LEVELS)));
+    }
+
+    // EFFECTS: returns the number of frames encoded
+    public long getFrames() {
+        return this.frames;
+    }
+
+    // EFFECTS: returns the number of key frames encoded
+    public long getKeyFrames() {
+        return this.keyFrames;
+    }
+
+    // EFFECTS: returns true if the snapshot has the same world and particle types as the last frame encoded,
+    //          so that it can follow it as a delta frame
+    private boolean follows(RenderSnapshot snapshot) {
+        if (this.frames == 0 || snapshot.size() != this.size || snapshot.getWidth() != this.width
+                || snapshot.getHeight() != this.height) {
+            return false;
+        }
+        return Arrays.equals(snapshot.getTypeIds(), 0, this.size, this.typeIds, 0, this.size);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: takes the world and particle types of the snapshot for the frames that follow it
+    private void capture(RenderSnapshot snapshot) {
+        int n = snapshot.size();
+        if (this.typeIds.length < n) {
+            this.typeIds = new int[n + n / 2];
+            this.quantizedX = new int[n + n / 2];
+            this.quantizedY = new int[n + n / 2];
+        }
+        System.arraycopy(snapshot.getTypeIds(), 0, this.typeIds, 0, n);
+        this.size = n;
+        this.width = snapshot.getWidth();
+        this.height = snapshot.getHeight();
+    }
+
+    // MODIFIES: this, quantized
+    // EFFECTS: quantizes the positions along an axis of the given size and writes them, outright in key
+    //          frames and as the wrapped difference from the quantized positions of the last frame otherwise,
+    //          then keeps them in quantized for the next frame
+    private void putPositions(float[] positions, int[] quantized, double size, boolean key) {
+        for (int i = 0; i < this.size; i++) {
+            int q = quantize(positions[i], size);
+            if (key) {
+                this.buffer.putShort((short) q);
+            } else {
+                putVarInt((short) (q - quantized[i]));
+            }
+            quantized[i] = q;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the buffer with a larger one if it cannot hold the given number of bytes
+    private void ensureCapacity(int bytes) {
+        if (this.buffer.capacity() < bytes) {
+            this.buffer = ByteBuffer.allocate(bytes + bytes / 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a zigzag-encoded variable-length integer to the buffer
+    private void putVarInt(int value) {
+        int bits = (value << 1) ^ (value >> 31);
+        while ((bits & ~0x7F) != 0) {
+            this.buffer.put((byte) (bits | 0x80));
+            bits >>>= 7;
+        }
+        this.buffer.put((byte) bits);
+    }
+}
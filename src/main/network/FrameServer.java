@@ -0,0 +1,199 @@
+package network;
+
+import model.Event;
+import model.EventLog;
+import model.RenderBuffer;
+import model.RenderSnapshot;
+import model.Simulation;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Represents an embedded server that streams the steps of a running simulation to viewers, such as a
+// browser, over WebSocket. The thread stepping the simulation publishes each step to a RenderBuffer, which
+// only copies the particles, and only while a viewer is connected. A broadcaster thread picks up the latest
+// snapshot and hands it to every viewer, encoded for that viewer by its own FrameEncoder; a viewer still
+// sending the frame before skips this one. Publishing therefore never waits for the network, however slow
+// the viewers are, and the broadcaster skips the steps published while it was busy.
+public class FrameServer {
+    // Longest the broadcaster waits for a publication before checking for closed connections
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Most viewers connected at once, including those still in their handshake, unless given otherwise
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    private final ServerSocket serverSocket;
+    private final RenderBuffer renderBuffer;
+    private final List<WebSocketConnection> connections;
+    private final int maxConnections;
+    private final int handshakeTimeoutMillis;
+    private final Thread acceptor;
+    private final Thread broadcaster;
+    private volatile boolean closed;
+    private volatile long broadcasts;
+    private volatile long retiredSent;
+    private volatile long retiredDropped;
+    private volatile long refused;
+
+    // REQUIRES: maxConnections > 0, handshakeTimeoutMillis > 0
+    // EFFECTS: instantiates a server listening on the given host and port (0 for any free port), and starts
+    //          accepting viewers, up to maxConnections at once; a viewer that goes quiet for longer than
+    //          handshakeTimeoutMillis during its handshake is disconnected. Throws IOException if the port
+    //          cannot be bound.
+    public FrameServer(String host, int port, int maxConnections, int handshakeTimeoutMillis) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(host));
+        this.renderBuffer = new RenderBuffer();
+        this.connections = new CopyOnWriteArrayList<>();
+        this.maxConnections = maxConnections;
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        this.acceptor = new Thread(this::accept, "frame server acceptor");
+        this.acceptor.setDaemon(true);
+        this.broadcaster = new Thread(this::broadcast, "frame server broadcaster");
+        this.broadcaster.setDaemon(true);
+        this.acceptor.start();
+        this.broadcaster.start();
+        EventLog.getInstance().logEvent(new Event("Streaming frames on port " + getPort()));
+    }
+
+    // EFFECTS: instantiates a server listening on the given host and port, with the default limits
+    public FrameServer(String host, int port) throws IOException {
+        this(host, port, DEFAULT_MAX_CONNECTIONS, WebSocketConnection.DEFAULT_HANDSHAKE_TIMEOUT_MILLIS);
+    }
+
+    // EFFECTS: instantiates a server listening on the given port of the loopback interface only
+    public FrameServer(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    // REQUIRES: only called from the thread stepping the simulation, between two steps
+    // MODIFIES: this
+    // EFFECTS: makes the current state of the simulation the latest frame for the viewers, if any are
+    //          connected, without waiting for them
+    public void publish(Simulation simulation) {
+        if (this.connections.isEmpty()) {
+            return;
+        }
+        this.renderBuffer.publish(simulation);
+        LockSupport.unpark(this.broadcaster);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops accepting viewers, closes every connection and waits for the server's threads to end
+    public void close() throws InterruptedException {
+        this.closed = true;
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+            // Closing the socket is only to end accept()
+        }
+        for (WebSocketConnection connection : this.connections) {
+            connection.close();
+        }
+        LockSupport.unpark(this.broadcaster);
+        this.acceptor.join();
+        this.broadcaster.join();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: accepts viewers until the server is closed, starting the handshake of each, or disconnecting
+    //          it straight away if maxConnections are already connected
+    private void accept() {
+        while (!this.closed) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                retireClosedConnections();
+                if (this.connections.size() >= this.maxConnections) {
+                    this.refused++;
+                    socket.close();
+                    continue;
+                }
+                socket.setTcpNoDelay(true);
+                WebSocketConnection connection = new WebSocketConnection(socket, this.handshakeTimeoutMillis);
+                this.connections.add(connection);
+                connection.start();
+            } catch (IOException e) {
+                if (!this.closed) {
+                    EventLog.getInstance().logEvent(new Event("Failed to accept a viewer: " + e));
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: hands every newly published snapshot to every viewer, and forgets closed connections, until the
+    //          server is closed
+    private void broadcast() {
+        long last = 0;
+        while (!this.closed) {
+            RenderSnapshot snapshot = this.renderBuffer.acquire();
+            if (snapshot.getStep() > last) {
+                last = snapshot.getStep();
+                for (WebSocketConnection connection : this.connections) {
+                    connection.offer(snapshot);
+                }
+                this.broadcasts++;
+            }
+            retireClosedConnections();
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the closed connections, keeping their counts of frames sent and dropped
+    private void retireClosedConnections() {
+        for (WebSocketConnection connection : this.connections) {
+            if (connection.isClosed() && this.connections.remove(connection)) {
+                this.retiredSent += connection.getSent();
+                this.retiredDropped += connection.getDropped();
+            }
+        }
+    }
+
+    // EFFECTS: returns the port the server listens on
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    // EFFECTS: returns the number of viewers connected, past the handshake
+    public int getClientCount() {
+        int count = 0;
+        for (WebSocketConnection connection : this.connections) {
+            count += connection.isOpen() ? 1 : 0;
+        }
+        return count;
+    }
+
+    // EFFECTS: returns the number of viewers disconnected on arrival because the server was full
+    public long getRefused() {
+        return this.refused;
+    }
+
+    // EFFECTS: returns the number of published snapshots handed to the viewers
+    public long getBroadcasts() {
+        return this.broadcasts;
+    }
+
+    // EFFECTS: returns the number of frames sent to every viewer so far, including those disconnected
+    public long getFramesSent() {
+        long sent = this.retiredSent;
+        for (WebSocketConnection connection : this.connections) {
+            sent += connection.getSent();
+        }
+        return sent;
+    }
+
+    // EFFECTS: returns the number of frames every viewer so far skipped because it had not read the one
+    //          before, including those disconnected
+    public long getFramesDropped() {
+        long dropped = this.retiredDropped;
+        for (WebSocketConnection connection : this.connections) {
+            dropped += connection.getDropped();
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,301 @@
+package network;
+
+import model.Event;
+import model.EventLog;
+import model.RenderSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Represents one viewer connected to a FrameServer over the WebSocket protocol (RFC 6455). A reader thread
+// performs the opening handshake, then answers pings and the closing handshake; anything else the viewer
+// sends is ignored. A sender thread writes the frames handed to it by offer(), each as one binary message.
+// At most one frame waits to be sent: while one does, offer() drops the frames after it, so a viewer that
+// reads slowly skips frames instead of holding up the server, and always gets one of the latest.
+public class WebSocketConnection {
+    static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+    // Longest message read from a viewer, which only sends control frames, and longest handshake line
+    private static final int MAX_MESSAGE_SIZE = 1 << 16;
+    private static final int MAX_LINE_LENGTH = 8192;
+    // Longest a viewer may take to send its handshake, unless given otherwise
+    static final int DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 5000;
+
+    private final Socket socket;
+    private final int handshakeTimeoutMillis;
+    private final FrameEncoder encoder;
+    private final BlockingQueue<byte[]> pending;
+    private final Object writeLock;
+    private final Thread reader;
+    private volatile Thread sender;
+    private DataInputStream in;
+    private OutputStream out;
+    private volatile boolean open;
+    private volatile boolean closed;
+    private volatile long sent;
+    private volatile long dropped;
+
+    // REQUIRES: handshakeTimeoutMillis > 0
+    // EFFECTS: instantiates a connection over an accepted socket, which is closed if the viewer goes quiet for
+    //          longer than handshakeTimeoutMillis during its handshake; start() begins the handshake
+    WebSocketConnection(Socket socket, int handshakeTimeoutMillis) {
+        this.socket = socket;
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        this.encoder = new FrameEncoder();
+        this.pending = new ArrayBlockingQueue<>(1);
+        this.writeLock = new Object();
+        this.reader = new Thread(this::read, "frame server reader " + socket.getRemoteSocketAddress());
+        this.reader.setDaemon(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts the reader thread, which opens the connection once the handshake succeeds
+    void start() {
+        this.reader.start();
+    }
+
+    // REQUIRES: only called from one thread
+    // MODIFIES: this
+    // EFFECTS: encodes the snapshot for this viewer and queues it to be sent, and returns true; or, if the
+    //          connection is not open or the last frame queued has not been sent yet, drops it and returns
+    //          false
+    boolean offer(RenderSnapshot snapshot) {
+        if (!isOpen()) {
+            return false;
+        }
+        if (this.pending.remainingCapacity() == 0) {
+            this.dropped++;
+            return false;
+        }
+        this.pending.add(this.encoder.encode(snapshot));
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the socket, which also ends a write blocked on a viewer that stopped reading, and stops
+    //          both threads; does nothing if already closed
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.open = false;
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+            // The socket is unusable either way
+        }
+        if (this.sender != null) {
+            this.sender.interrupt();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: performs the opening handshake, starts the sender and handles the viewer's messages until the
+    //          connection closes. The connection closes if the handshake times out.
+    private void read() {
+        try {
+            this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+            this.out = new BufferedOutputStream(this.socket.getOutputStream());
+            // A viewer that connects and never sends its request would otherwise hold this thread forever
+            this.socket.setSoTimeout(this.handshakeTimeoutMillis);
+            if (handshake()) {
+                // Once open, a viewer may stay silent for as long as it watches
+                this.socket.setSoTimeout(0);
+                this.sender = new Thread(this::send, "frame server sender " + this.socket.getRemoteSocketAddress());
+                this.sender.setDaemon(true);
+                this.open = true;
+                this.sender.start();
+                EventLog.getInstance().logEvent(new Event("Viewer connected from " + getRemoteAddress()));
+                readMessages();
+            }
+        } catch (IOException e) {
+            // The viewer went away or broke the protocol; either way the connection ends
+        } finally {
+            boolean wasOpen = this.open;
+            close();
+            if (wasOpen) {
+                EventLog.getInstance().logEvent(new Event("Viewer disconnected from " + getRemoteAddress()));
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the queued frames one by one until the connection closes
+    private void send() {
+        try {
+            while (!this.closed) {
+                writeMessage(OPCODE_BINARY, this.pending.take());
+                this.sent++;
+            }
+        } catch (IOException | InterruptedException e) {
+            close();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the HTTP request, and answers a WebSocket upgrade by accepting it and returning true, or
+    //          anything else with 400 Bad Request and returning false
+    private boolean handshake() throws IOException {
+        String requestLine = readLine();
+        Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+        }
+        String key = headers.get("sec-websocket-key");
+        if (!requestLine.startsWith("GET ") || !"websocket".equalsIgnoreCase(headers.get("upgrade"))
+                || key == null) {
+            writeAscii("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+            return false;
+        }
+        writeAscii("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n");
+        return true;
+    }
+
+    // EFFECTS: returns the Sec-WebSocket-Accept value that answers the given Sec-WebSocket-Key
+    static String accept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: answers the viewer's pings with pongs, and its close with a close, until it closes; throws
+    //          IOException if it sends an unmasked or oversized frame, or the connection fails
+    private void readMessages() throws IOException {
+        while (!this.closed) {
+            int opcode = this.in.readUnsignedByte() & 0x0F;
+            byte[] payload = readPayload();
+            if (opcode == OPCODE_CLOSE) {
+                // Echoes the status code, if any, as the closing handshake requires
+                writeMessage(OPCODE_CLOSE, payload.length >= 2 ? new byte[]{payload[0], payload[1]} : new byte[0]);
+                return;
+            } else if (opcode == OPCODE_PING) {
+                writeMessage(OPCODE_PONG, payload);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the length, mask and payload of a frame from the viewer, and returns the unmasked
+    //          payload; throws IOException if the frame is not masked or is too long
+    private byte[] readPayload() throws IOException {
+        int second = this.in.readUnsignedByte();
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = this.in.readUnsignedShort();
+        } else if (length == 127) {
+            length = this.in.readLong();
+        }
+        if ((second & 0x80) == 0 || length < 0 || length > MAX_MESSAGE_SIZE) {
+            throw new IOException("Unmasked or oversized frame from " + getRemoteAddress());
+        }
+        byte[] mask = new byte[4];
+        this.in.readFully(mask);
+        byte[] payload = new byte[(int) length];
+        this.in.readFully(payload);
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return payload;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the payload as one unmasked, final frame with the given opcode
+    private void writeMessage(int opcode, byte[] payload) throws IOException {
+        synchronized (this.writeLock) {
+            this.out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                this.out.write(payload.length);
+            } else if (payload.length < 1 << 16) {
+                this.out.write(126);
+                this.out.write(payload.length >>> 8);
+                this.out.write(payload.length);
+            } else {
+                this.out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    this.out.write((int) ((long) payload.length >>> shift));
+                }
+            }
+            this.out.write(payload);
+            this.out.flush();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the text of an HTTP response
+    private void writeAscii(String text) throws IOException {
+        this.out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        this.out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a line of the HTTP request, without its line ending; throws IOException if the
+    //          connection ends first or the line is too long
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = this.in.read(); b != '\n'; b = this.in.read()) {
+            if (b < 0 || line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("Incomplete handshake from " + getRemoteAddress());
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    // EFFECTS: returns the address of the viewer
+    public String getRemoteAddress() {
+        return String.valueOf(this.socket.getRemoteSocketAddress());
+    }
+
+    // EFFECTS: returns true if the handshake succeeded and the connection has not closed since
+    public boolean isOpen() {
+        return this.open && !this.closed;
+    }
+
+    // EFFECTS: returns true if the connection has closed
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    // EFFECTS: returns the number of frames sent to the viewer
+    public long getSent() {
+        return this.sent;
+    }
+
+    // EFFECTS: returns the number of frames dropped because the viewer had not read the one before
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    // EFFECTS: returns the number of key frames encoded for the viewer
+    public long getKeyFrames() {
+        return this.encoder.getKeyFrames();
+    }
+}
@@ -0,0 +1,165 @@
+package persistence;
+
+import model.AttractionMatrix;
+import model.BoundaryMode;
+import model.Event;
+import model.EventLog;
+import model.ParticleStore;
+import model.ParticleType;
+import model.Simulation;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Represents a manager class that can read simulations from binary snapshot files written by BinaryWriter.
+// The file is memory mapped, and the particle arrays are copied straight into the simulation's storage.
+public class BinaryReader {
+    private String filename;
+    private FileChannel channel;
+
+    // EFFECTS: instantiates a binary reader from a source file
+    public BinaryReader(String filename) throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    }
+
+    // EFFECTS: reads the simulation stored in the file; throws IOException if it is not a valid snapshot
+    public Simulation read() throws IOException {
+        ByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            Simulation simulation = readSimulation(buffer);
+            EventLog.getInstance().logEvent(new Event("Loaded data from " + this.filename));
+            return simulation;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated snapshot " + this.filename, e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the reader
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // EFFECTS: decodes every section of the snapshot
+    private Simulation readSimulation(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != BinaryWriter.MAGIC) {
+            throw new IOException(this.filename + " is not a particle life snapshot");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > BinaryWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + this.filename);
+        }
+        Simulation simulation = new Simulation(buffer.getDouble(), buffer.getDouble());
+        if (version >= 2) {
+            simulation.setBoundaryMode(readBoundaryMode(buffer));
+        }
+        if (version >= 3) {
+            simulation.setSeed(buffer.getLong());
+        }
+        int numParticles = readCount(buffer, "particle", 4 * Double.BYTES + Integer.BYTES);
+        int numSimulationTypes = readCount(buffer, "type", Double.BYTES);
+        Map<Integer, ParticleType> typesById = readTypeTable(buffer, numSimulationTypes, simulation);
+        simulation.setAttractionMatrix(readAttractionMatrix(buffer, numSimulationTypes));
+        readParticles(buffer, numParticles, typesById, simulation.getParticleStore());
+        return simulation;
+    }
+
+    // EFFECTS: reads a boundary mode ordinal; throws IOException if it is not one
+    private BoundaryMode readBoundaryMode(ByteBuffer buffer) throws IOException {
+        int ordinal = buffer.getInt();
+        if (ordinal < 0 || ordinal >= BoundaryMode.values().length) {
+            throw new IOException("Unknown boundary mode " + ordinal + " in " + this.filename);
+        }
+        return BoundaryMode.values()[ordinal];
+    }
+
+    // EFFECTS: reads a count of items taking up at least bytesEach bytes each further on in the snapshot;
+    //          throws IOException if it is negative, or if the rest of the snapshot is too short to hold that
+    //          many, so that a corrupt count is never used to size an array
+    private int readCount(ByteBuffer buffer, String item, int bytesEach) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IOException("Invalid " + item + " count " + count + " in " + this.filename);
+        }
+        return count;
+    }
+
+    // MODIFIES: simulation
+    // EFFECTS: reads the type table, sets the simulation's particle types, and returns every type by id
+    private Map<Integer, ParticleType> readTypeTable(ByteBuffer buffer, int numSimulationTypes,
+                                                     Simulation simulation) throws IOException {
+        int tableSize = readCount(buffer, "type table", 2 * Integer.BYTES);
+        Map<Integer, ParticleType> typesById = new HashMap<>();
+        List<ParticleType> particleTypes = new ArrayList<>();
+        for (int i = 0; i < tableSize; i++) {
+            int id = buffer.getInt();
+            ParticleType type = new ParticleType(new Color(buffer.getInt(), true), id);
+            typesById.put(id, type);
+            if (i < numSimulationTypes) {
+                particleTypes.add(type);
+            }
+        }
+        simulation.setParticleTypes(particleTypes);
+        return typesById;
+    }
+
+    // EFFECTS: reads an attraction matrix between the given number of types; throws IOException if the rest
+    //          of the snapshot is too short to hold it
+    private AttractionMatrix readAttractionMatrix(ByteBuffer buffer, int numTypes) throws IOException {
+        AttractionMatrix attractionMatrix = new AttractionMatrix(
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        if ((long) numTypes * numTypes * Double.BYTES > buffer.remaining()) {
+            throw new IOException("Invalid type count " + numTypes + " in " + this.filename);
+        }
+        double[][] attractions = new double[numTypes][numTypes];
+        for (double[] row : attractions) {
+            buffer.asDoubleBuffer().get(row);
+            buffer.position(buffer.position() + numTypes * Double.BYTES);
+        }
+        attractionMatrix.setAttractions(attractions);
+        return attractionMatrix;
+    }
+
+    // MODIFIES: store
+    // EFFECTS: reads the particle arrays into the store
+    private void readParticles(ByteBuffer buffer, int n, Map<Integer, ParticleType> typesById,
+                               ParticleStore store) throws IOException {
+        int start = buffer.position();
+        if ((long) n * (4 * Double.BYTES + Integer.BYTES) > buffer.limit() - start) {
+            throw new BufferUnderflowException();
+        }
+        DoubleBuffer posX = slice(buffer, start).asDoubleBuffer();
+        DoubleBuffer posY = slice(buffer, start + n * Double.BYTES).asDoubleBuffer();
+        DoubleBuffer velX = slice(buffer, start + 2 * n * Double.BYTES).asDoubleBuffer();
+        DoubleBuffer velY = slice(buffer, start + 3 * n * Double.BYTES).asDoubleBuffer();
+        IntBuffer types = slice(buffer, start + 4 * n * Double.BYTES).asIntBuffer();
+        for (int i = 0; i < n; i++) {
+            ParticleType type = typesById.get(types.get(i));
+            if (type == null) {
+                throw new IOException("Unknown particle type " + types.get(i) + " in " + this.filename);
+            }
+            store.add(posX.get(i), posY.get(i), velX.get(i), velY.get(i), type);
+        }
+    }
+
+    // EFFECTS: returns a little-endian view of the buffer starting at the given byte offset
+    private static ByteBuffer slice(ByteBuffer buffer, int offset) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
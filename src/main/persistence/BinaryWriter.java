@@ -0,0 +1,165 @@
+package persistence;
+
+import model.AttractionMatrix;
+import model.Event;
+import model.EventLog;
+import model.ParticleStore;
+import model.ParticleType;
+import model.Simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Represents a manager class that can write simulations to compact binary snapshot files. All values are
+// little-endian, laid out as:
+//   header:     magic "PLSN", version, width, height, boundary mode ordinal, random seed, particle count,
+//               simulation type count, type table size (version 1 files have no boundary mode, and
+//               versions 1 and 2 have no seed)
+//   type table: (id, ARGB color) per type; the simulation's types first, then any other type a particle uses
+//   matrix:     friction, beta, range, then the attractions row by row
+//   particles:  every x position, then every y position, x velocity, y velocity, and finally type id
+public class BinaryWriter {
+    public static final int MAGIC = 0x4E534C50;
+    public static final int VERSION = 3;
+    public static final String EXTENSION = ".plb";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private String filename;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+
+    // EFFECTS: instantiates a binary writer to a destination file
+    public BinaryWriter(String filename) throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a snapshot of the simulation to the file
+    public void write(Simulation simulation) throws IOException {
+        List<ParticleType> typeTable = buildTypeTable(simulation);
+        ParticleStore store = simulation.getParticleStore();
+        putInt(MAGIC);
+        putInt(VERSION);
+        putDouble(simulation.getWidth());
+        putDouble(simulation.getHeight());
+        putInt(simulation.getBoundaryMode().ordinal());
+        putLong(simulation.getSeed());
+        putInt(store.size());
+        putInt(simulation.getParticleTypes().size());
+        putInt(typeTable.size());
+        for (ParticleType type : typeTable) {
+            putInt(type.getID());
+            putInt(type.getColor().getRGB());
+        }
+        writeAttractionMatrix(simulation.getAttractionMatrix());
+        writeParticles(store);
+        flush();
+        EventLog.getInstance().logEvent(new Event("Wrote data to " + this.filename));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forces everything written so far out to the storage device, so that it survives a crash of
+    //          the operating system
+    public void sync() throws IOException {
+        this.channel.force(true);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the writer
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // EFFECTS: returns the simulation's particle types, followed by the particle types of any particles
+    //          whose id is not one of the simulation's
+    private static List<ParticleType> buildTypeTable(Simulation simulation) {
+        List<ParticleType> typeTable = new ArrayList<>(simulation.getParticleTypes());
+        Set<Integer> ids = new HashSet<>();
+        for (ParticleType type : typeTable) {
+            ids.add(type.getID());
+        }
+        ParticleStore store = simulation.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            if (ids.add(store.getTypes()[i])) {
+                typeTable.add(store.getType(i));
+            }
+        }
+        return typeTable;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the parameters and attractions of the matrix
+    private void writeAttractionMatrix(AttractionMatrix attractionMatrix) throws IOException {
+        putDouble(attractionMatrix.getFriction());
+        putDouble(attractionMatrix.getBeta());
+        putDouble(attractionMatrix.getRange());
+        for (double[] row : attractionMatrix.getAttractions()) {
+            for (double attraction : row) {
+                putDouble(attraction);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the particle arrays one after another
+    private void writeParticles(ParticleStore store) throws IOException {
+        int n = store.size();
+        for (double[] array : new double[][]{store.getPosX(), store.getPosY(), store.getVelX(), store.getVelY()}) {
+            for (int i = 0; i < n; i++) {
+                putDouble(array[i]);
+            }
+        }
+        int[] types = store.getTypes();
+        for (int i = 0; i < n; i++) {
+            putInt(types[i]);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends an int to the buffer, flushing it first if it is full
+    private void putInt(int value) throws IOException {
+        if (this.buffer.remaining() < Integer.BYTES) {
+            flush();
+        }
+        this.buffer.putInt(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a long to the buffer, flushing it first if it is full
+    private void putLong(long value) throws IOException {
+        if (this.buffer.remaining() < Long.BYTES) {
+            flush();
+        }
+        this.buffer.putLong(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a double to the buffer, flushing it first if it is full
+    private void putDouble(double value) throws IOException {
+        if (this.buffer.remaining() < Double.BYTES) {
+            flush();
+        }
+        this.buffer.putDouble(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the buffered bytes to the file
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -0,0 +1,211 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.Simulation;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Represents periodic checkpoints of a running simulation, saved as binary snapshots in a directory.
+// Every interval steps, the thread stepping the simulation copies it (see Simulation.snapshot()), which
+// is quick, and a background thread writes the copy. Each checkpoint is written to a temporary file,
+// synced, and atomically renamed to checkpoint-<number>.plb, so a crash never leaves a partial
+// checkpoint behind; only the newest ones are kept. A checkpoint that falls due while the previous one
+// is still being written is skipped rather than making the simulation wait.
+public class Checkpointer {
+    public static final String PREFIX = "checkpoint-";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int interval;
+    private final int retention;
+    private final ExecutorService writer;
+    private long stepsSinceCheckpoint;
+    private long nextNumber;
+    private volatile boolean writing;
+    private volatile long written;
+    private long skipped;
+    private volatile IOException lastFailure;
+
+    // REQUIRES: interval >= 1, retention >= 1
+    // EFFECTS: instantiates a checkpointer that saves a checkpoint every interval steps into the directory
+    //          (creating it if needed), keeping the newest retention checkpoints. Checkpoints are numbered
+    //          on from those already in the directory; temporary files left by a crash are deleted.
+    public Checkpointer(String directory, int interval, int retention) throws IOException {
+        this.directory = Paths.get(directory);
+        this.interval = interval;
+        this.retention = retention;
+        Files.createDirectories(this.directory);
+        deleteTemporaryFiles();
+        List<Path> checkpoints = listCheckpoints(this.directory);
+        this.nextNumber = checkpoints.isEmpty() ? 0 : numberOf(checkpoints.get(checkpoints.size() - 1)) + 1;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // REQUIRES: called from the thread stepping the simulation, between two steps
+    // MODIFIES: this
+    // EFFECTS: counts a completed step, and starts a checkpoint of the simulation if one is due
+    public void stepCompleted(Simulation simulation) {
+        this.stepsSinceCheckpoint++;
+        if (this.stepsSinceCheckpoint >= this.interval) {
+            this.stepsSinceCheckpoint = 0;
+            checkpoint(simulation);
+        }
+    }
+
+    // REQUIRES: called from the thread stepping the simulation, between two steps
+    // MODIFIES: this
+    // EFFECTS: copies the simulation and writes the copy as the next checkpoint in the background, and
+    //          returns true; or, if the previous checkpoint is still being written, skips this one and
+    //          returns false
+    public boolean checkpoint(Simulation simulation) {
+        if (this.writing) {
+            this.skipped++;
+            EventLog.getInstance().logEvent(new Event("Skipped a checkpoint while the last was being written"));
+            return false;
+        }
+        Simulation snapshot = simulation.snapshot();
+        Path target = this.directory.resolve(String.format("%s%06d%s", PREFIX, this.nextNumber,
+                BinaryWriter.EXTENSION));
+        this.nextNumber++;
+        this.writing = true;
+        this.writer.execute(() -> write(snapshot, target));
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: waits for the checkpoint being written, if any, then stops the background thread
+    public void close() throws InterruptedException {
+        this.writer.shutdown();
+        this.writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    // EFFECTS: returns the newest checkpoint in the directory, or null if there is none (or no directory)
+    public static String findLatest(String directory) throws IOException {
+        Path path = Paths.get(directory);
+        if (!Files.isDirectory(path)) {
+            return null;
+        }
+        List<Path> checkpoints = listCheckpoints(path);
+        return checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1).toString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the snapshot to a temporary file, renames it to the target and deletes the checkpoints
+    //          beyond the retention. A failure is recorded and logged, and leaves the older checkpoints.
+    private void write(Simulation snapshot, Path target) {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try {
+            BinaryWriter binaryWriter = new BinaryWriter(temp.toString());
+            try {
+                binaryWriter.write(snapshot);
+                binaryWriter.sync();
+            } finally {
+                binaryWriter.close();
+            }
+            moveAtomically(temp, target);
+            deleteOldCheckpoints();
+            this.written++;
+        } catch (IOException e) {
+            this.lastFailure = e;
+            EventLog.getInstance().logEvent(new Event("Failed to write checkpoint " + target + ": " + e));
+        } finally {
+            this.writing = false;
+        }
+    }
+
+    // EFFECTS: renames source to target, replacing it, in one step if the file system supports it
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // EFFECTS: deletes every checkpoint but the newest retention ones
+    private void deleteOldCheckpoints() throws IOException {
+        List<Path> checkpoints = listCheckpoints(this.directory);
+        for (int i = 0; i < checkpoints.size() - this.retention; i++) {
+            Files.deleteIfExists(checkpoints.get(i));
+        }
+    }
+
+    // EFFECTS: deletes the temporary files of checkpoints that were being written when a run crashed
+    private void deleteTemporaryFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+                PREFIX + "*" + BinaryWriter.EXTENSION + TEMP_SUFFIX)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // EFFECTS: returns the checkpoints in the directory, oldest first
+    private static List<Path> listCheckpoints(Path directory) throws IOException {
+        List<Path> checkpoints = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                PREFIX + "*" + BinaryWriter.EXTENSION)) {
+            for (Path path : stream) {
+                if (numberOf(path) >= 0) {
+                    checkpoints.add(path);
+                }
+            }
+        }
+        checkpoints.sort((p, q) -> Long.compare(numberOf(p), numberOf(q)));
+        return checkpoints;
+    }
+
+    // EFFECTS: returns the number of a checkpoint file, or -1 if its name is not that of a checkpoint
+    private static long numberOf(Path path) {
+        String name = path.getFileName().toString();
+        String number = name.substring(PREFIX.length(), name.length() - BinaryWriter.EXTENSION.length());
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public String getDirectory() {
+        return this.directory.toString();
+    }
+
+    public int getInterval() {
+        return this.interval;
+    }
+
+    public int getRetention() {
+        return this.retention;
+    }
+
+    // EFFECTS: returns the number of checkpoints written so far
+    public long getWritten() {
+        return this.written;
+    }
+
+    // EFFECTS: returns the number of checkpoints skipped because the previous one was still being written
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    // EFFECTS: returns the error of the last checkpoint that failed to be written, or null if none has
+    public IOException getLastFailure() {
+        return this.lastFailure;
+    }
+}
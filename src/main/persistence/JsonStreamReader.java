@@ -0,0 +1,156 @@
+package persistence;
+
+import model.AttractionMatrix;
+import model.BoundaryMode;
+import model.Event;
+import model.EventLog;
+import model.ParticleStore;
+import model.ParticleType;
+import model.Simulation;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Represents a manager class that reads simulations from JSON files token by token. Unlike JsonReader, it
+// never holds the whole file or the whole particles array in memory: each particle is parsed on its own
+// and copied straight into the simulation. The file layout is the one written by Simulation.toJson().
+public class JsonStreamReader {
+    private String filename;
+    private BufferedReader reader;
+    private JSONTokener tokener;
+
+    // EFFECTS: instantiates a streaming JSON reader from a source file
+    public JsonStreamReader(String filename) throws IOException {
+        this.filename = filename;
+        this.reader = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8);
+        this.tokener = new JSONTokener(this.reader);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the simulation stored in the file; throws IOException if it is not valid
+    public Simulation read() throws IOException {
+        try {
+            // The dimensions may come after the particles, so they are filled in as they are read
+            Simulation simulation = new Simulation(Double.NaN, Double.NaN);
+            readSimulation(simulation);
+            EventLog.getInstance().logEvent(new Event("Loaded data from " + this.filename));
+            return simulation;
+        } catch (JSONException | ClassCastException | IllegalArgumentException e) {
+            throw new IOException("Invalid simulation file " + this.filename, e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the reader
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    // MODIFIES: this, simulation
+    // EFFECTS: reads each member of the top-level object into the simulation
+    private void readSimulation(Simulation simulation) {
+        expect('{');
+        List<ParticleType> particleTypes = new ArrayList<>();
+        char next = this.tokener.nextClean();
+        if (next != '}') {
+            this.tokener.back();
+            next = ',';
+        }
+        while (next == ',') {
+            String key = this.tokener.nextValue().toString();
+            expect(':');
+            readMember(key, simulation, particleTypes);
+            next = this.tokener.nextClean();
+            if (next != ',' && next != '}') {
+                throw this.tokener.syntaxError("Expected ',' or '}'");
+            }
+        }
+        if (Double.isNaN(simulation.getWidth()) || Double.isNaN(simulation.getHeight())) {
+            throw new JSONException("Missing width or height");
+        }
+        simulation.setParticleTypes(particleTypes);
+    }
+
+    // MODIFIES: this, simulation, particleTypes
+    // EFFECTS: reads the value of the given member of the top-level object
+    private void readMember(String key, Simulation simulation, List<ParticleType> particleTypes) {
+        if (key.equals("particles")) {
+            readParticles(simulation.getParticleStore());
+            return;
+        }
+        Object value = this.tokener.nextValue();
+        if (key.equals("width")) {
+            simulation.setWidth(((Number) value).doubleValue());
+        } else if (key.equals("height")) {
+            simulation.setHeight(((Number) value).doubleValue());
+        } else if (key.equals("boundaryMode")) {
+            simulation.setBoundaryMode(BoundaryMode.valueOf(value.toString()));
+        } else if (key.equals("seed")) {
+            simulation.setSeed(((Number) value).longValue());
+        } else if (key.equals("attractionMatrix")) {
+            simulation.setAttractionMatrix(AttractionMatrix.fromJson((JSONObject) value));
+        } else if (key.equals("particleTypes")) {
+            for (Object particleType : (JSONArray) value) {
+                particleTypes.add(ParticleType.fromJson((JSONObject) particleType));
+            }
+        }
+    }
+
+    // MODIFIES: this, store
+    // EFFECTS: reads the particles array one particle at a time into the store. Particles with the same
+    //          type share one ParticleType object.
+    private void readParticles(ParticleStore store) {
+        expect('[');
+        Map<Long, ParticleType> types = new HashMap<>();
+        char next = this.tokener.nextClean();
+        while (next != ']') {
+            this.tokener.back();
+            JSONObject particle = (JSONObject) this.tokener.nextValue();
+            JSONObject pos = particle.getJSONObject("pos");
+            JSONObject vel = particle.getJSONObject("vel");
+            store.add(pos.getDouble("dx"), pos.getDouble("dy"), vel.getDouble("dx"), vel.getDouble("dy"),
+                    sharedType(types, particle.getJSONObject("type")));
+            next = this.tokener.nextClean();
+            if (next == ',') {
+                next = this.tokener.nextClean();
+            } else if (next != ']') {
+                throw this.tokener.syntaxError("Expected ',' or ']'");
+            }
+        }
+    }
+
+    // MODIFIES: types
+    // EFFECTS: returns the particle type with the color and id of the JSON object, creating it the first
+    //          time it is seen
+    private static ParticleType sharedType(Map<Long, ParticleType> types, JSONObject json) {
+        int color = json.getInt("color");
+        int id = json.getInt("id");
+        long key = ((long) id << 32) | (color & 0xFFFFFFFFL);
+        ParticleType type = types.get(key);
+        if (type == null) {
+            type = new ParticleType(new Color(color, true), id);
+            types.put(key, type);
+        }
+        return type;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next non-whitespace character, which must be the given one
+    private void expect(char expected) {
+        if (this.tokener.nextClean() != expected) {
+            throw this.tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+}
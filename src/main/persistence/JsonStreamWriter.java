@@ -0,0 +1,87 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.ParticleStore;
+import model.ParticleType;
+import model.Simulation;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Represents a manager class that writes simulations to JSON files incrementally. Unlike JsonWriter, it
+// never builds the JSON form of the whole simulation: particles are written one at a time, straight from
+// the simulation's storage, in the same layout as Simulation.toJson().
+public class JsonStreamWriter {
+    private String filename;
+    private Writer writer;
+
+    // EFFECTS: instantiates a streaming JSON writer to a destination file
+    public JsonStreamWriter(String filename) throws IOException {
+        this.filename = filename;
+        this.writer = new BufferedWriter(Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the simulation to the file
+    public void write(Simulation simulation) throws IOException {
+        this.writer.write("{\"width\":" + number(simulation.getWidth()));
+        this.writer.write(",\"height\":" + number(simulation.getHeight()));
+        this.writer.write(",\"boundaryMode\":" + JSONObject.quote(simulation.getBoundaryMode().name()));
+        JSONArray particleTypesArray = new JSONArray();
+        for (ParticleType particleType : simulation.getParticleTypes()) {
+            particleTypesArray.put(particleType.toJson());
+        }
+        this.writer.write(",\"particleTypes\":" + particleTypesArray);
+        this.writer.write(",\"attractionMatrix\":" + simulation.getAttractionMatrix().toJson());
+        this.writer.write(",\"seed\":" + simulation.getSeed());
+        this.writer.write(",\"particles\":[");
+        writeParticles(simulation.getParticleStore());
+        this.writer.write("]}");
+        this.writer.flush();
+        EventLog.getInstance().logEvent(new Event("Wrote data to " + this.filename));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the writer
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes every particle of the store, separated by commas
+    private void writeParticles(ParticleStore store) throws IOException {
+        for (int i = 0; i < store.size(); i++) {
+            if (i > 0) {
+                this.writer.write(',');
+            }
+            this.writer.write("{\"pos\":");
+            writeVector(store.getPosX()[i], store.getPosY()[i]);
+            this.writer.write(",\"vel\":");
+            writeVector(store.getVelX()[i], store.getVelY()[i]);
+            ParticleType type = store.getType(i);
+            this.writer.write(",\"type\":{\"color\":" + type.getColor().getRGB() + ",\"id\":" + type.getID() + "}}");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a vector in the layout of Vector.toJson()
+    private void writeVector(double dx, double dy) throws IOException {
+        this.writer.write("{\"dx\":");
+        this.writer.write(number(dx));
+        this.writer.write(",\"dy\":");
+        this.writer.write(number(dy));
+        this.writer.write('}');
+    }
+
+    // EFFECTS: formats a number the way JSONObject does; throws JSONException if it is not finite
+    private static String number(double value) {
+        return JSONObject.numberToString(value);
+    }
+}
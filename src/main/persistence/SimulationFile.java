@@ -0,0 +1,63 @@
+package persistence;
+
+import model.Simulation;
+
+import java.io.IOException;
+
+// Represents a simulation save file, whose format is chosen by its extension: files ending in
+// BinaryWriter.EXTENSION are binary snapshots, and every other file is JSON (read and written as a stream).
+public class SimulationFile {
+    private String filename;
+
+    // EFFECTS: instantiates a save file with the given name
+    public SimulationFile(String filename) {
+        this.filename = filename;
+    }
+
+    // EFFECTS: returns true if the file is a binary snapshot
+    public boolean isBinary() {
+        return this.filename.toLowerCase().endsWith(BinaryWriter.EXTENSION);
+    }
+
+    // EFFECTS: writes the simulation to the file
+    public void save(Simulation simulation) throws IOException {
+        if (isBinary()) {
+            BinaryWriter writer = new BinaryWriter(this.filename);
+            try {
+                writer.write(simulation);
+            } finally {
+                writer.close();
+            }
+        } else {
+            JsonStreamWriter writer = new JsonStreamWriter(this.filename);
+            try {
+                writer.write(simulation);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    // EFFECTS: reads the simulation stored in the file
+    public Simulation load() throws IOException {
+        if (isBinary()) {
+            BinaryReader reader = new BinaryReader(this.filename);
+            try {
+                return reader.read();
+            } finally {
+                reader.close();
+            }
+        } else {
+            JsonStreamReader reader = new JsonStreamReader(this.filename);
+            try {
+                return reader.read();
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+}
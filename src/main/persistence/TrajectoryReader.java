@@ -0,0 +1,265 @@
+package persistence;
+
+import model.TrajectoryFrame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Represents a reader that replays a trajectory file written by TrajectoryWriter, frame by frame and in any
+// order. The frames are indexed when the file is opened; a frame after the last complete one, such as one
+// cut off when the recording crashed, is ignored. Reading the frame after the last one read only decodes
+// that frame, while jumping to any other frame decodes forward from the key frame before it.
+public class TrajectoryReader {
+    private final String filename;
+    private final FileChannel channel;
+    private double width;
+    private double height;
+    private double scale;
+    private boolean velocities;
+    private int frameCount;
+    private long[] offsets;
+    private long[] steps;
+    private boolean[] keyFrames;
+    private ByteBuffer buffer;
+
+    // The last frame decoded, or -1, and its contents
+    private int decoded;
+    private int size;
+    private int[] palette;
+    private int[] colors;
+    private long[][] quantized;
+
+    // EFFECTS: instantiates a reader from a source file, reading its header and indexing its frames; throws
+    //          IOException if the file cannot be read or is not a trajectory
+    public TrajectoryReader(String filename) throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(TrajectoryWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            readHeader();
+            indexFrames();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.decoded = -1;
+        this.palette = new int[0];
+        this.colors = new int[0];
+        this.quantized = new long[this.velocities ? 4 : 2][0];
+    }
+
+    // REQUIRES: 0 <= index < getFrameCount()
+    // MODIFIES: this, frame
+    // EFFECTS: reads the frame with the given index into frame; throws IOException if the file is corrupt
+    public void read(int index, TrajectoryFrame frame) throws IOException {
+        int key = index;
+        while (key > 0 && !this.keyFrames[key]) {
+            key--;
+        }
+        int from = this.decoded >= key && this.decoded <= index ? this.decoded + 1 : key;
+        for (int f = from; f <= index; f++) {
+            decode(f);
+        }
+        frame.resize(this.size);
+        double[][] coordinates = {frame.getPosX(), frame.getPosY(), frame.getVelX(), frame.getVelY()};
+        for (int a = 0; a < this.quantized.length; a++) {
+            for (int i = 0; i < this.size; i++) {
+                coordinates[a][i] = this.quantized[a][i] / this.scale;
+            }
+        }
+        System.arraycopy(this.colors, 0, frame.getColors(), 0, this.size);
+        frame.setHasVelocities(this.velocities);
+        frame.setWidth(this.width);
+        frame.setHeight(this.height);
+        frame.setStep(this.steps[index]);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the reader
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // EFFECTS: returns the number of complete frames in the file
+    public int getFrameCount() {
+        return this.frameCount;
+    }
+
+    // REQUIRES: 0 <= index < getFrameCount()
+    // EFFECTS: returns the number of the simulation step the frame was recorded after
+    public long getStep(int index) {
+        return this.steps[index];
+    }
+
+    public double getWidth() {
+        return this.width;
+    }
+
+    public double getHeight() {
+        return this.height;
+    }
+
+    // EFFECTS: returns the scale that coordinates were quantized with, to multiples of 1 / scale
+    public double getScale() {
+        return this.scale;
+    }
+
+    public boolean hasVelocities() {
+        return this.velocities;
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the header; throws IOException if the file is not a trajectory of a known version
+    private void readHeader() throws IOException {
+        readFully(0, TrajectoryWriter.HEADER_SIZE);
+        if (this.buffer.getInt() != TrajectoryWriter.MAGIC) {
+            throw new IOException(this.filename + " is not a trajectory file");
+        }
+        int version = this.buffer.getInt();
+        if (version > TrajectoryWriter.VERSION) {
+            throw new IOException("Unsupported trajectory file version " + version);
+        }
+        this.width = this.buffer.getDouble();
+        this.height = this.buffer.getDouble();
+        this.scale = this.buffer.getDouble();
+        this.velocities = (this.buffer.getInt() & TrajectoryWriter.FLAG_VELOCITIES) != 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the offset, step number and kind of every complete frame; throws IOException if the
+    //          first frame is not a key frame
+    private void indexFrames() throws IOException {
+        int frameHeader = Integer.BYTES + Long.BYTES + 1;
+        long fileSize = this.channel.size();
+        long position = TrajectoryWriter.HEADER_SIZE;
+        this.offsets = new long[16];
+        this.steps = new long[16];
+        this.keyFrames = new boolean[16];
+        while (position + frameHeader <= fileSize) {
+            readFully(position, frameHeader);
+            long end = position + Integer.BYTES + Integer.toUnsignedLong(this.buffer.getInt());
+            if (end > fileSize) {
+                break;
+            }
+            addFrame(position, this.buffer.getLong(), this.buffer.get() == TrajectoryWriter.KEY_FRAME);
+            position = end;
+        }
+        if (this.frameCount > 0 && !this.keyFrames[0]) {
+            throw new IOException(this.filename + " does not start with a key frame");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a frame to the index
+    private void addFrame(long offset, long step, boolean keyFrame) {
+        if (this.frameCount == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, 2 * this.frameCount);
+            this.steps = Arrays.copyOf(this.steps, 2 * this.frameCount);
+            this.keyFrames = Arrays.copyOf(this.keyFrames, 2 * this.frameCount);
+        }
+        this.offsets[this.frameCount] = offset;
+        this.steps[this.frameCount] = step;
+        this.keyFrames[this.frameCount] = keyFrame;
+        this.frameCount++;
+    }
+
+    // REQUIRES: frame index is a key frame, or index - 1 is the last frame decoded
+    // MODIFIES: this
+    // EFFECTS: decodes the frame with the given index on top of the previous one; throws IOException if it
+    //          is corrupt
+    private void decode(int index) throws IOException {
+        this.decoded = -1;
+        long offset = this.offsets[index];
+        readFully(offset, Integer.BYTES);
+        readFully(offset + Integer.BYTES, this.buffer.getInt());
+        try {
+            this.buffer.position(Long.BYTES + 1);
+            int n = (int) getVarLong();
+            if (this.keyFrames[index]) {
+                this.size = n;
+                readPalette();
+            } else if (n != this.size) {
+                throw new IOException("Frame " + index + " of " + this.filename + " changes the particles");
+            }
+            readCoordinates(this.keyFrames[index]);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Frame " + index + " of " + this.filename + " is corrupt");
+        }
+        this.decoded = index;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the palette of a key frame and the color of every particle
+    private void readPalette() throws IOException {
+        int paletteSize = (int) getVarLong();
+        if (this.palette.length < paletteSize) {
+            this.palette = new int[paletteSize];
+        }
+        for (int c = 0; c < paletteSize; c++) {
+            this.palette[c] = this.buffer.getInt();
+        }
+        if (this.colors.length < this.size) {
+            this.colors = new int[this.size];
+            for (int a = 0; a < this.quantized.length; a++) {
+                this.quantized[a] = new long[this.size];
+            }
+        }
+        for (int i = 0; i < this.size; i++) {
+            long index = getVarLong();
+            if (index < 0 || index >= paletteSize) {
+                throw new IOException("Palette index out of range in " + this.filename);
+            }
+            this.colors[i] = this.palette[(int) index];
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads every coordinate, outright in key frames and added to the previous frame's otherwise
+    private void readCoordinates(boolean key) {
+        for (long[] coordinates : this.quantized) {
+            for (int i = 0; i < this.size; i++) {
+                coordinates[i] = key ? getVarLong() : coordinates[i] + getVarLong();
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the next zigzag-encoded variable-length integer from the buffer
+    private long getVarLong() {
+        long bits = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = this.buffer.get();
+            bits |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads length bytes at the given position of the file into the buffer, ready to be read from
+    //          its start; throws IOException if the file ends first
+    private void readFully(long position, int length) throws IOException {
+        if (this.buffer.capacity() < length) {
+            this.buffer = ByteBuffer.allocate(length + length / 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.buffer.clear().limit(length);
+        while (this.buffer.hasRemaining()) {
+            if (this.channel.read(this.buffer, position + this.buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + this.filename);
+            }
+        }
+        this.buffer.flip();
+    }
+}
@@ -0,0 +1,247 @@
+package persistence;
+
+import model.Event;
+import model.EventLog;
+import model.ParticleStore;
+import model.Simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Represents a manager class that records a simulation step by step to a trajectory file, a compact stream
+// of frames that can be replayed without recomputing the physics. Positions (and optionally velocities)
+// are quantized to multiples of 1 / scale. Key frames hold them outright; the frames in between hold only
+// the difference from the previous frame, which is small and so takes one or two bytes. All values are
+// little-endian, laid out as:
+//   header:  magic "PLTR", version, width, height, scale, flags (1 if velocities are recorded), key frame
+//            interval
+//   frames:  byte length of the rest of the frame, step number, kind (KEY_FRAME or DELTA_FRAME), particle
+//            count; for key frames, the palette size, the ARGB colors in it and the palette index of every
+//            particle; then every x, every y, and (if recorded) every x velocity and y velocity
+// Particle counts, palette indices, coordinates and coordinate differences are variable-length integers:
+// zigzag-encoded, seven bits per byte, low bits first. A frame is a delta frame only if the particles and
+// their colors are the same as in the previous frame, in the same order: a frame after the simulation
+// reordered its particles is a key frame.
+public class TrajectoryWriter {
+    public static final int MAGIC = 0x52544C50;
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".plt";
+    public static final double DEFAULT_SCALE = 256;
+    public static final int DEFAULT_KEY_FRAME_INTERVAL = 100;
+    public static final int FLAG_VELOCITIES = 1;
+    static final byte KEY_FRAME = 0;
+    static final byte DELTA_FRAME = 1;
+    static final int HEADER_SIZE = 40;
+    // Length, step number, kind, and a particle count of at most five bytes
+    static final int FRAME_HEADER_SIZE = 18;
+    // Longest variable-length encoding of a long
+    private static final int MAX_VAR_LONG_SIZE = 10;
+
+    private final String filename;
+    private final FileChannel channel;
+    private final double scale;
+    private final boolean velocities;
+    private final int keyFrameInterval;
+    private ByteBuffer buffer;
+    private long frames;
+    private int size;
+    private long reorders;
+    private int[] colors;
+    private int[] previousColors;
+    private long[][] quantized;
+    private long[][] previous;
+
+    // REQUIRES: scale > 0, keyFrameInterval >= 1
+    // EFFECTS: instantiates a writer that records to a new destination file, quantizing coordinates to
+    //          multiples of 1 / scale, recording velocities too if velocities is true, and writing a key
+    //          frame at least every keyFrameInterval frames
+    public TrajectoryWriter(String filename, double scale, boolean velocities, int keyFrameInterval)
+            throws IOException {
+        this.filename = filename;
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.scale = scale;
+        this.velocities = velocities;
+        this.keyFrameInterval = keyFrameInterval;
+        this.buffer = ByteBuffer.allocateDirect(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.colors = new int[0];
+        this.previousColors = new int[0];
+        int arrays = velocities ? 4 : 2;
+        this.quantized = new long[arrays][0];
+        this.previous = new long[arrays][0];
+    }
+
+    // EFFECTS: instantiates a writer with the default scale and key frame interval, without velocities
+    public TrajectoryWriter(String filename) throws IOException {
+        this(filename, DEFAULT_SCALE, false, DEFAULT_KEY_FRAME_INTERVAL);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a frame holding the current state of the simulation; the first frame is preceded by
+    //          the header, which takes the dimensions of the simulation
+    public void write(Simulation simulation) throws IOException {
+        if (this.frames == 0) {
+            writeHeader(simulation);
+        }
+        ParticleStore store = simulation.getParticleStore();
+        boolean key = capture(store);
+        ensureCapacity(FRAME_HEADER_SIZE + (key ? 5 + 9 * this.size : 0)
+                + this.quantized.length * this.size * MAX_VAR_LONG_SIZE);
+        this.buffer.putInt(0);
+        this.buffer.putLong(simulation.getMetrics().getSteps());
+        this.buffer.put(key ? KEY_FRAME : DELTA_FRAME);
+        putVarLong(this.size);
+        if (key) {
+            putPalette();
+        }
+        putCoordinates(key);
+        this.buffer.putInt(0, this.buffer.position() - Integer.BYTES);
+        flush();
+        swapPrevious();
+        this.frames++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the writer
+    public void close() throws IOException {
+        this.channel.close();
+        EventLog.getInstance().logEvent(new Event("Recorded " + this.frames + " frames to " + this.filename));
+    }
+
+    // EFFECTS: returns the number of frames written
+    public long getFrames() {
+        return this.frames;
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the header
+    private void writeHeader(Simulation simulation) throws IOException {
+        this.buffer.putInt(MAGIC);
+        this.buffer.putInt(VERSION);
+        this.buffer.putDouble(simulation.getWidth());
+        this.buffer.putDouble(simulation.getHeight());
+        this.buffer.putDouble(this.scale);
+        this.buffer.putInt(this.velocities ? FLAG_VELOCITIES : 0);
+        this.buffer.putInt(this.keyFrameInterval);
+        flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: quantizes the coordinates and reads the colors of the particles, and returns whether this
+    //          frame must be a key frame
+    private boolean capture(ParticleStore store) {
+        int n = store.size();
+        boolean key = this.frames % this.keyFrameInterval == 0 || n != this.size
+                || store.getReorders() != this.reorders;
+        this.size = n;
+        this.reorders = store.getReorders();
+        if (this.colors.length < n) {
+            grow(n + n / 2);
+        }
+        double[][] coordinates = {store.getPosX(), store.getPosY(), store.getVelX(), store.getVelY()};
+        for (int a = 0; a < this.quantized.length; a++) {
+            for (int i = 0; i < n; i++) {
+                this.quantized[a][i] = Math.round(coordinates[a][i] * this.scale);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            this.colors[i] = store.getType(i).getColor().getRGB();
+            key |= this.colors[i] != this.previousColors[i];
+        }
+        return key;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the distinct colors of the particles, in order of first use, and each particle's
+    //          index among them
+    private void putPalette() {
+        Map<Integer, Integer> palette = new HashMap<>();
+        for (int i = 0; i < this.size; i++) {
+            palette.putIfAbsent(this.colors[i], palette.size());
+        }
+        int[] paletteColors = new int[palette.size()];
+        palette.forEach((color, index) -> paletteColors[index] = color);
+        putVarLong(paletteColors.length);
+        for (int color : paletteColors) {
+            this.buffer.putInt(color);
+        }
+        for (int i = 0; i < this.size; i++) {
+            putVarLong(palette.get(this.colors[i]));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes every quantized coordinate, outright in key frames and as the difference from the
+    //          previous frame otherwise
+    private void putCoordinates(boolean key) {
+        for (int a = 0; a < this.quantized.length; a++) {
+            long[] current = this.quantized[a];
+            long[] last = this.previous[a];
+            for (int i = 0; i < this.size; i++) {
+                putVarLong(key ? current[i] : current[i] - last[i]);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes this frame's colors and coordinates the previous ones, reusing the old arrays
+    private void swapPrevious() {
+        int[] colors = this.previousColors;
+        this.previousColors = this.colors;
+        this.colors = colors;
+        long[][] quantized = this.previous;
+        this.previous = this.quantized;
+        this.quantized = quantized;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the arrays of both frames to the given capacity
+    private void grow(int capacity) {
+        this.colors = new int[capacity];
+        this.previousColors = Arrays.copyOf(this.previousColors, capacity);
+        for (int a = 0; a < this.quantized.length; a++) {
+            this.quantized[a] = new long[capacity];
+            this.previous[a] = Arrays.copyOf(this.previous[a], capacity);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the buffer with a larger one if it cannot hold the given number of bytes
+    private void ensureCapacity(int bytes) {
+        if (this.buffer.capacity() < bytes) {
+            this.buffer = ByteBuffer.allocateDirect(bytes + bytes / 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends a zigzag-encoded variable-length integer to the buffer
+    private void putVarLong(long value) {
+        long bits = (value << 1) ^ (value >> 63);
+        while ((bits & ~0x7FL) != 0) {
+            this.buffer.put((byte) (bits | 0x80));
+            bits >>>= 7;
+        }
+        this.buffer.put((byte) bits);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the buffered bytes to the file
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
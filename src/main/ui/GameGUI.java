@@ -2,6 +2,7 @@ package ui;
 
 import model.Event;
 import model.EventLog;
+import persistence.Checkpointer;
 
 import javax.swing.*;
 import java.awt.*;
@@ -9,11 +10,16 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 
 // ParticleLife GUI application / Game state
 public class GameGUI extends JFrame {
     public static final int GAME_WIDTH = 800;
     public static final int GAME_HEIGHT = 600;
+    // Checkpoints are saved about every 30 seconds at full speed, and the last few are kept
+    private static final String CHECKPOINT_DIRECTORY = "./data/checkpoints";
+    private static final int CHECKPOINT_INTERVAL = 3000;
+    private static final int CHECKPOINT_RETENTION = 3;
 
     private GraphicsPanel gp;
     private OptionPanel op;
@@ -50,14 +56,20 @@ public class GameGUI extends JFrame {
         start();
     }
 
-    // EFFECTS: Runs the game loop
+    // EFFECTS: Runs the game loop: the simulation steps on its own thread, checkpointed in the background,
+    //          while this timer redraws the latest step at about 60 frames per second
     private void start() {
-        new Timer(10, new ActionListener() {
+        try {
+            gp.setCheckpointer(new Checkpointer(CHECKPOINT_DIRECTORY, CHECKPOINT_INTERVAL, CHECKPOINT_RETENTION));
+        } catch (IOException e) {
+            System.out.println("Error: Unable to save checkpoints to " + CHECKPOINT_DIRECTORY);
+        }
+        gp.start();
+        new Timer(16, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent ae) {
                 revalidate();
                 gp.repaint();
-                gp.update();
             }
         }).start();
     }
@@ -2,6 +2,7 @@ package ui;
 
 import model.Particle;
 import model.ParticleType;
+import model.SeededRandom;
 import model.Simulation;
 import model.Vector;
 import persistence.JsonReader;
@@ -109,9 +110,10 @@ public class GameTerminal {
 
         List<ParticleType> particleTypes = this.simulation.getParticleTypes();
 
-        Vector pos = new Vector(Math.random() * GAME_WIDTH, Math.random() * GAME_HEIGHT);
+        SeededRandom random = this.simulation.getRandom();
+        Vector pos = new Vector(random.nextDouble() * GAME_WIDTH, random.nextDouble() * GAME_HEIGHT);
         Vector vel = new Vector();
-        ParticleType type = particleTypes.get((int) (Math.random() * particleTypes.size()));
+        ParticleType type = particleTypes.get(random.nextInt(particleTypes.size()));
         Particle particle = new Particle(pos, vel, type);
 
         this.simulation.addParticle(particle);
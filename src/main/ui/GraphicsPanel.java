@@ -1,19 +1,38 @@
 package ui;
 
+import model.BoundaryMode;
 import model.Particle;
 import model.ParticleType;
+import model.RateMeter;
+import model.RenderBuffer;
 import model.Simulation;
+import model.SimulationMetrics;
 import model.Vector;
+import persistence.Checkpointer;
+import persistence.TrajectoryReader;
+import persistence.TrajectoryWriter;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 import java.util.List;
 
-// Graphics portion of the GUI application
+// Graphics portion of the GUI application. The simulation runs on its own thread (see SimulationLoop);
+// this panel only draws the latest snapshot it published, so a slow step never holds up the GUI. While a
+// recorded trajectory is replayed (see ReplayLoop), the simulation is stopped and the replay is drawn.
 public class GraphicsPanel extends JPanel {
-    private Simulation simulation;
+    private static final double MAX_STEPS_PER_SECOND = 100;
+    private static final double REPLAY_FRAMES_PER_SECOND = 60;
+
+    private final SimulationLoop loop;
+    private ReplayLoop replay;
+    private final RateMeter frameRate;
+    private final ParticleRenderer[] renderers;
+    private ParticleRenderer renderer;
+    private double renderMillis;
+    private boolean showingMetrics;
 
     // EFFECTS: Instantiates the graphics panel with a width and a height
     public GraphicsPanel(int width, int height) {
@@ -21,8 +40,14 @@ public class GraphicsPanel extends JPanel {
         setBackground(Color.BLACK);
         addMouseListener(new GraphicsListener());
 
-        this.simulation = new Simulation(width, height);
-        this.simulation.generateRandomWorld(500);
+        Simulation simulation = new Simulation(width, height);
+        simulation.setBoundaryMode(BoundaryMode.WRAP);
+        simulation.generateRandomWorld(500);
+        this.loop = new SimulationLoop(simulation, MAX_STEPS_PER_SECOND);
+        this.frameRate = new RateMeter();
+        this.renderers = new ParticleRenderer[]{new ShapeRenderer(), new RasterRenderer()};
+        this.renderer = this.renderers[0];
+        this.renderMillis = 0;
     }
 
     // EFFECTS: override paintComponent() which is called every tick
@@ -30,30 +55,134 @@ public class GraphicsPanel extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        drawParticles(g);
+        long start = System.nanoTime();
+        RenderBuffer buffer = this.replay != null ? this.replay.getRenderBuffer() : this.loop.getRenderBuffer();
+        this.renderer.render(g, buffer.acquire(), getWidth(), getHeight());
+        double millis = (System.nanoTime() - start) / 1e6;
+        this.renderMillis += (millis - this.renderMillis) * 0.1;
+        this.frameRate.tick();
+        drawRates(g);
+        if (this.showingMetrics) {
+            drawMetrics(g, getSimulation().getMetrics());
+        }
+    }
+
+    // EFFECTS: draws the simulation steps per second, the rendered frames per second, and the average time
+    //          the renderer takes to draw a frame
+    private void drawRates(Graphics g) {
+        g.setColor(Color.WHITE);
+        if (this.replay != null) {
+            g.drawString(String.format("replay frame %d/%d   %.0f frames/s   %.0f FPS",
+                    this.replay.getPosition() + 1, this.replay.getReader().getFrameCount(),
+                    this.replay.getFramesPerSecond(), this.frameRate.getRate()), 8, 16);
+            return;
+        }
+        g.drawString(String.format("%.0f steps/s   %.0f FPS   %s: %.2f ms/frame", this.loop.getStepsPerSecond(),
+                this.frameRate.getRate(), this.renderer, this.renderMillis), 8, 16);
     }
 
-    // EFFECTS: draws the particles on the screen
-    public void drawParticles(Graphics g) {
-        for (Particle particle : this.simulation.getParticles()) {
-            g.setColor(particle.getType().getColor());
-            Vector pos = particle.getPos();
-            g.fillOval((int) pos.getX() - 2, (int) pos.getY() - 2,4, 4);
+    // EFFECTS: draws the counters and timers of the last simulation step below the rates
+    private void drawMetrics(Graphics g, SimulationMetrics metrics) {
+        g.drawString(String.format("%,d particles   %,d pairs tested   %,d in range", metrics.getParticles(),
+                metrics.getPairsTested(), metrics.getPairsInRange()), 8, 32);
+        g.drawString(String.format("neighbor search %.2f ms   forces %.2f ms   integration %.2f ms",
+                metrics.getNeighborSearchNanos() / 1e6, metrics.getForceNanos() / 1e6,
+                metrics.getIntegrationNanos() / 1e6), 8, 48);
+        g.drawString(String.format("%,d bytes allocated/step", metrics.getAllocatedBytes()), 8, 64);
+        int[] perType = metrics.getParticlesPerType();
+        for (int i = 0; i < perType.length; i++) {
+            g.drawString(String.format("type %d: %,d", i, perType[i]), 8, 80 + 16 * i);
         }
     }
 
     // MODIFIES: this
-    // EFFECTS: updates the simulation
-    public void update() {
-        this.simulation.update();
+    // EFFECTS: starts running the simulation
+    public void start() {
+        this.loop.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: queues a change to the simulation; it runs on the simulation thread between two steps
+    public void submit(Runnable command) {
+        this.loop.submit(command);
     }
 
+    // EFFECTS: returns the simulation; it is updated concurrently, so changes must go through submit()
     public Simulation getSimulation() {
-        return this.simulation;
+        return this.loop.getSimulation();
+    }
+
+    // EFFECTS: returns every renderer the panel can draw with
+    public ParticleRenderer[] getRenderers() {
+        return this.renderers;
+    }
+
+    public ParticleRenderer getRenderer() {
+        return this.renderer;
     }
 
+    public void setRenderer(ParticleRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    public boolean isShowingMetrics() {
+        return this.showingMetrics;
+    }
+
+    public void setShowingMetrics(boolean showingMetrics) {
+        this.showingMetrics = showingMetrics;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the simulation between two steps
     public void setSimulation(Simulation simulation) {
-        this.simulation = simulation;
+        this.loop.setSimulation(simulation);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the simulation and replays the trajectory in its place, from its first frame
+    public void startReplay(TrajectoryReader reader) throws InterruptedException {
+        this.loop.stop();
+        this.replay = new ReplayLoop(reader, REPLAY_FRAMES_PER_SECOND);
+        this.replay.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops the replay, if any, and resumes the simulation
+    public void stopReplay() throws InterruptedException {
+        if (this.replay == null) {
+            return;
+        }
+        try {
+            this.replay.stop();
+        } catch (IOException e) {
+            System.out.println("Error: Unable to close " + this.replay.getReader().getFilename());
+        }
+        this.replay = null;
+        this.loop.start();
+    }
+
+    // EFFECTS: returns the replay being shown, or null if the simulation is
+    public ReplayLoop getReplay() {
+        return this.replay;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts appending every step of the simulation to the recording
+    public void startRecording(TrajectoryWriter recorder) {
+        this.loop.startRecording(recorder);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops recording the simulation and closes the recording
+    public void stopRecording() {
+        this.loop.stopRecording();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: checkpoints the running simulation with the given checkpointer (null for none)
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.loop.setCheckpointer(checkpointer);
     }
 
     // MouseListener class to add and delete particles (left and right click, respectively)
@@ -62,26 +191,35 @@ public class GraphicsPanel extends JPanel {
         // EFFECTS: add/delete particles when mouse is pressed
         @Override
         public void mousePressed(MouseEvent e) {
+            int x = e.getX();
+            int y = e.getY();
             if (e.getButton() == MouseEvent.BUTTON1) {
                 // left click -> add particle
-                List<ParticleType> particleTypes = simulation.getParticleTypes();
-                ParticleType type = particleTypes.get((int) (Math.random() * particleTypes.size()));
-                Vector pos = new Vector(e.getX(), e.getY());
-                Vector vel = new Vector();
-                simulation.addParticle(new Particle(pos, vel, type));
+                submit(() -> addParticleAt(x, y));
             } else {
                 // right click -> remove particle
-                List<Particle> particles = simulation.getParticles();
-                for (int i = particles.size() - 1; i >= 0; i--) {
-                    Vector pos = particles.get(i).getPos();
-                    double deltaX = pos.getX() - e.getX();
-                    double deltaY = pos.getY() - e.getY();
-                    double dist = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-                    if (dist <= 30) {
-                        particles.remove(i);
-                    }
-                }
+                submit(() -> removeParticlesNear(x, y));
             }
         }
+
+        // MODIFIES: this
+        // EFFECTS: adds a particle of a random type at (x, y)
+        private void addParticleAt(int x, int y) {
+            Simulation simulation = getSimulation();
+            List<ParticleType> particleTypes = simulation.getParticleTypes();
+            if (particleTypes.isEmpty()) {
+                return;
+            }
+            ParticleType type = particleTypes.get(simulation.getRandom().nextInt(particleTypes.size()));
+            Vector pos = new Vector(x, y);
+            Vector vel = new Vector();
+            simulation.addParticle(new Particle(pos, vel, type));
+        }
+
+        // MODIFIES: this
+        // EFFECTS: removes every particle within 30 units of (x, y)
+        private void removeParticlesNear(int x, int y) {
+            getSimulation().removeParticlesInCircle(x, y, 30);
+        }
     }
 }
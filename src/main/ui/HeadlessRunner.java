@@ -0,0 +1,299 @@
+package ui;
+
+import model.BoundaryMode;
+import model.ForceKernel;
+import model.NeighborSearch;
+import model.PairEvaluation;
+import model.ParallelStepExecutor;
+import model.Simulation;
+import model.SimulationMetrics;
+import network.FrameServer;
+import persistence.Checkpointer;
+import persistence.SimulationFile;
+import persistence.TrajectoryWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ParticleLife headless application: runs a fixed number of steps as fast as possible, without Swing,
+// and reports the throughput and where the time went. The metrics are registered over JMX while the
+// steps run. Given a checkpoint directory, the run is checkpointed in the background, and --resume DIR
+// picks a run back up from the newest checkpoint in DIR, if there is one, after a crash. A checkpoint
+// does not record how many steps led to it, so a resumed run takes --steps more steps from the
+// checkpoint rather than what the crashed run had left; it goes on checkpointing into DIR unless given
+// another --checkpoint-dir. Given --record, every step is recorded to a trajectory file that the GUI can
+// replay. Given --serve, every step is streamed to the WebSocket viewers connected to that port, which
+// skip steps rather than slow the run. A generated world is seeded with --seed, or randomly otherwise;
+// the seed is printed either way, so that any generated run can be repeated.
+//
+// Usage: HeadlessRunner [--resume DIR] (--load FILE | --generate N [--width W] [--height H] [--seed N])
+//                       --steps N [--out FILE] [--threads N]
+//                       [--neighbor-search GRID|BRUTE_FORCE|QUADTREE|ADAPTIVE|VERLET] [--verlet-skin D]
+//                       [--boundary OPEN|WRAP|REFLECT] [--pair-evaluation ORDERED|SYMMETRIC]
+//                       [--force-kernel SCALAR|BATCHED] [--reorder-interval STEPS]
+//                       [--checkpoint-dir DIR [--checkpoint-interval STEPS] [--checkpoint-keep N]]
+//                       [--record FILE [--record-velocities true|false]]
+//                       [--serve PORT [--serve-host HOST]]
+public class HeadlessRunner {
+    private final Simulation simulation;
+    private final int steps;
+    private final int threads;
+    private Checkpointer checkpointer;
+    private TrajectoryWriter recorder;
+    private FrameServer frameServer;
+
+    // REQUIRES: steps >= 0, threads >= 1
+    // EFFECTS: instantiates a runner that advances the simulation by the given number of steps, using
+    //          the given number of threads
+    public HeadlessRunner(Simulation simulation, int steps, int threads) {
+        this.simulation = simulation;
+        this.steps = steps;
+        this.threads = threads;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: runs every step and prints the number of steps, and of pairs the neighbor search tested and
+    //          found in range, per second. For comparison with all-pairs runs, it also prints the N^2-equivalent
+    //          rate, which counts every ordered pair of particles once per step whether or not it was tested.
+    //          The checkpointer, recording, frame server and step threads are closed even if a step throws.
+    public void run() {
+        if (this.threads > 1) {
+            this.simulation.setStepExecutor(new ParallelStepExecutor(this.threads));
+        }
+        this.simulation.getMetrics().register();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < this.steps; i++) {
+                this.simulation.update();
+                afterStep();
+            }
+            printThroughput((System.nanoTime() - start) / 1e9);
+        } finally {
+            this.simulation.getStepExecutor().shutdown();
+            closeCheckpointer();
+            closeRecorder();
+            closeFrameServer();
+        }
+    }
+
+    // EFFECTS: prints the rates of steps and of pairs over a run of every step that took the given seconds,
+    //          then the metrics per step
+    private void printThroughput(double seconds) {
+        double n = this.simulation.getParticles().size();
+        System.out.printf("Ran %d steps of %d particles in %.3f s%n", this.steps, (int) n, seconds);
+        System.out.printf("%.2f steps/s%n", this.steps / seconds);
+        SimulationMetrics metrics = this.simulation.getMetrics();
+        System.out.printf("%.4g pairs tested/s, %.4g pairs in range/s%n", metrics.getTotalPairsTested() / seconds,
+                metrics.getTotalPairsInRange() / seconds);
+        System.out.printf("%.4g N^2-equivalent particle interactions/s%n", n * n * this.steps / seconds);
+        printMetrics(metrics);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: checkpoints the step, records it and streams it to the viewers, if any of them is set. A
+    //          recording that fails to be written is reported and stopped.
+    private void afterStep() {
+        if (this.frameServer != null) {
+            this.frameServer.publish(this.simulation);
+        }
+        if (this.checkpointer != null) {
+            this.checkpointer.stepCompleted(this.simulation);
+        }
+        if (this.recorder != null) {
+            try {
+                this.recorder.write(this.simulation);
+            } catch (IOException e) {
+                System.out.println("Error: Unable to record to " + this.recorder.getFilename() + ": " + e);
+                this.recorder = null;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: closes the recording, if recording, and prints how many frames it holds
+    private void closeRecorder() {
+        if (this.recorder == null) {
+            return;
+        }
+        try {
+            this.recorder.close();
+            System.out.printf("%d frames recorded to %s%n", this.recorder.getFrames(), this.recorder.getFilename());
+        } catch (IOException e) {
+            System.out.println("Error: Unable to close " + this.recorder.getFilename());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops streaming, if streaming, and prints how many frames the viewers were sent and skipped
+    private void closeFrameServer() {
+        if (this.frameServer == null) {
+            return;
+        }
+        try {
+            this.frameServer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("%d frames streamed to viewers, %d skipped by slow viewers%n",
+                this.frameServer.getFramesSent(), this.frameServer.getFramesDropped());
+    }
+
+    // EFFECTS: prints the average pair counts and phase times per step
+    private void printMetrics(SimulationMetrics metrics) {
+        long steps = Math.max(1, metrics.getSteps());
+        System.out.printf("%.4g pairs tested/step, %.4g in range%n", (double) metrics.getTotalPairsTested() / steps,
+                (double) metrics.getTotalPairsInRange() / steps);
+        System.out.printf("%.3f ms neighbor search, %.3f ms forces, %.3f ms integration per step%n",
+                metrics.getTotalNeighborSearchNanos() / 1e6 / steps, metrics.getTotalForceNanos() / 1e6 / steps,
+                metrics.getTotalIntegrationNanos() / 1e6 / steps);
+        System.out.printf("%.1f bytes allocated/step%n", (double) metrics.getTotalAllocatedBytes() / steps);
+        if (metrics.getTotalNeighborListBuilds() > 0) {
+            System.out.printf("neighbor lists rebuilt every %.2f steps, %.1f MB%n",
+                    (double) steps / metrics.getTotalNeighborListBuilds(), metrics.getNeighborListBytes() / 1e6);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: waits for the last checkpoint to be written, if checkpointing, and prints how many were
+    private void closeCheckpointer() {
+        if (this.checkpointer == null) {
+            return;
+        }
+        try {
+            this.checkpointer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.printf("%d checkpoints written to %s, %d skipped%n", this.checkpointer.getWritten(),
+                this.checkpointer.getDirectory(), this.checkpointer.getSkipped());
+    }
+
+    public Simulation getSimulation() {
+        return this.simulation;
+    }
+
+    public Checkpointer getCheckpointer() {
+        return this.checkpointer;
+    }
+
+    // EFFECTS: sets the checkpointer the simulation is checkpointed by after every step (null for none)
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    public TrajectoryWriter getRecorder() {
+        return this.recorder;
+    }
+
+    // EFFECTS: sets the recording every step is appended to (null for none); run() closes it
+    public void setRecorder(TrajectoryWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    public FrameServer getFrameServer() {
+        return this.frameServer;
+    }
+
+    // EFFECTS: sets the server every step is streamed to (null for none); run() closes it
+    public void setFrameServer(FrameServer frameServer) {
+        this.frameServer = frameServer;
+    }
+
+    // EFFECTS: loads or generates a world, runs it, and saves the final state if an output is given. Files
+    //          are read and written as binary snapshots or JSON depending on their extension.
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        Simulation simulation = createSimulation(options);
+        applyModes(simulation, options);
+
+        HeadlessRunner runner = new HeadlessRunner(simulation,
+                Integer.parseInt(options.getOrDefault("steps", "1000")),
+                Integer.parseInt(options.getOrDefault("threads", "1")));
+        String checkpointDir = options.getOrDefault("checkpoint-dir", options.get("resume"));
+        if (checkpointDir != null) {
+            runner.setCheckpointer(new Checkpointer(checkpointDir,
+                    Integer.parseInt(options.getOrDefault("checkpoint-interval", "1000")),
+                    Integer.parseInt(options.getOrDefault("checkpoint-keep", "3"))));
+        }
+        if (options.containsKey("record")) {
+            runner.setRecorder(new TrajectoryWriter(options.get("record"), TrajectoryWriter.DEFAULT_SCALE,
+                    Boolean.parseBoolean(options.getOrDefault("record-velocities", "false")),
+                    TrajectoryWriter.DEFAULT_KEY_FRAME_INTERVAL));
+        }
+        if (options.containsKey("serve")) {
+            runner.setFrameServer(new FrameServer(options.getOrDefault("serve-host", "localhost"),
+                    Integer.parseInt(options.get("serve"))));
+            System.out.println("Streaming frames on port " + runner.getFrameServer().getPort());
+        }
+        runner.run();
+
+        if (options.containsKey("out")) {
+            new SimulationFile(options.get("out")).save(simulation);
+            System.out.println("Final state written to " + options.get("out"));
+        }
+    }
+
+    // MODIFIES: simulation
+    // EFFECTS: sets the modes of the simulation given by the options
+    private static void applyModes(Simulation simulation, Map<String, String> options) {
+        if (options.containsKey("neighbor-search")) {
+            simulation.setNeighborSearch(NeighborSearch.valueOf(options.get("neighbor-search")));
+        }
+        if (options.containsKey("verlet-skin")) {
+            simulation.setVerletSkin(Double.parseDouble(options.get("verlet-skin")));
+        }
+        if (options.containsKey("boundary")) {
+            simulation.setBoundaryMode(BoundaryMode.valueOf(options.get("boundary")));
+        }
+        if (options.containsKey("pair-evaluation")) {
+            simulation.setPairEvaluation(PairEvaluation.valueOf(options.get("pair-evaluation")));
+        }
+        if (options.containsKey("force-kernel")) {
+            simulation.setForceKernel(ForceKernel.valueOf(options.get("force-kernel")));
+        }
+        if (options.containsKey("reorder-interval")) {
+            simulation.setReorderInterval(Integer.parseInt(options.get("reorder-interval")));
+        }
+    }
+
+    // EFFECTS: loads the newest checkpoint in the directory given by --resume, or else the world given by
+    //          --load, or else generates one with the number of particles given by --generate
+    private static Simulation createSimulation(Map<String, String> options) throws IOException {
+        String checkpoint = options.containsKey("resume") ? Checkpointer.findLatest(options.get("resume")) : null;
+        if (checkpoint != null) {
+            System.out.println("Resuming from " + checkpoint);
+            return new SimulationFile(checkpoint).load();
+        } else if (options.containsKey("load")) {
+            return new SimulationFile(options.get("load")).load();
+        } else if (options.containsKey("generate")) {
+            double width = Double.parseDouble(options.getOrDefault("width", String.valueOf(GameGUI.GAME_WIDTH)));
+            double height = Double.parseDouble(options.getOrDefault("height", String.valueOf(GameGUI.GAME_HEIGHT)));
+            long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed"))
+                    : ThreadLocalRandom.current().nextLong();
+            Simulation simulation = new Simulation(width, height, seed);
+            simulation.generateRandomWorld(Integer.parseInt(options.get("generate")));
+            System.out.printf("Generated %d particles from seed %d%n", simulation.getParticles().size(), seed);
+            return simulation;
+        } else {
+            throw new IllegalArgumentException("Either --load FILE or --generate N is required");
+        }
+    }
+
+    // EFFECTS: parses "--name value" pairs into a map from name to value; throws IllegalArgumentException if
+    //          an option has no value
+    private static Map<String, String> parseOptions(String[] args) {
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing a value for " + args[args.length - 1]);
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
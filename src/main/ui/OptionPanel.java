@@ -1,8 +1,9 @@
 package ui;
 
 import model.*;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import persistence.SimulationFile;
+import persistence.TrajectoryReader;
+import persistence.TrajectoryWriter;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -10,6 +11,8 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 // Options menu of the GUI application
 public class OptionPanel extends JPanel {
@@ -18,6 +21,12 @@ public class OptionPanel extends JPanel {
     private JSlider frictionSlider;
     private JSlider betaSlider;
     private JSlider rangeSlider;
+    private JComboBox<BoundaryMode> boundaryBox;
+    private JComboBox<ParticleRenderer> rendererBox;
+    private JCheckBox metricsBox;
+    private JSlider replaySlider;
+    private boolean updatingReplaySlider;
+    private boolean recording;
 
     // EFFECTS: Instantiates the options panel with buttons
     public OptionPanel(GraphicsPanel gp) {
@@ -27,22 +36,29 @@ public class OptionPanel extends JPanel {
         particleInfoPanel = new JPanel();
         particleInfoPanel.setLayout(new BoxLayout(particleInfoPanel, BoxLayout.Y_AXIS));
 
-        resetOptionPanel();
+        // The simulation loop has not started yet, so the simulation can still be read from this thread
+        Simulation simulation = gp.getSimulation();
+        resetOptionPanel(new ArrayList<>(simulation.getParticleTypes()), simulation.getAttractionMatrix().copy(),
+                simulation.getBoundaryMode());
+        // Moves the replay slider along with the replay
+        new Timer(100, ae -> updateReplaySlider()).start();
     }
 
     // MODIFIES: this
-    // EFFECTS: resets all the options in the panel according to the simulation
-    private void resetOptionPanel() {
+    // EFFECTS: resets all the options in the panel to the given particle types, attraction matrix and boundary
+    //          mode, copied from the simulation on the simulation thread
+    private void resetOptionPanel(List<ParticleType> types, AttractionMatrix attractionMatrix,
+                                  BoundaryMode boundaryMode) {
         removeAll();
 
-        resetParticleInfoPanel();
+        resetParticleInfoPanel(types);
 
         add(new JButton(new ResetAction()));
         add(new JButton(new AddParticleTypeAction()));
         add(new JButton(new SaveSimulationAction()));
         add(new JButton(new LoadSimulationAction()));
+        addTrajectoryControls();
 
-        AttractionMatrix attractionMatrix = gp.getSimulation().getAttractionMatrix();
         frictionSlider = new JSlider(0, 100, (int) (attractionMatrix.getFriction() * 100));
         frictionSlider.addChangeListener(new FrictionListener());
         add(frictionSlider);
@@ -55,14 +71,52 @@ public class OptionPanel extends JPanel {
         rangeSlider.addChangeListener(new RangeListener());
         add(rangeSlider);
 
+        boundaryBox = new JComboBox<>(BoundaryMode.values());
+        boundaryBox.setSelectedItem(boundaryMode);
+        boundaryBox.addActionListener(new BoundaryAction());
+        add(boundaryBox);
+
+        rendererBox = new JComboBox<>(gp.getRenderers());
+        rendererBox.setSelectedItem(gp.getRenderer());
+        rendererBox.addActionListener(new RendererAction());
+        add(rendererBox);
+
+        metricsBox = new JCheckBox(new MetricsAction());
+        metricsBox.setSelected(gp.isShowingMetrics());
+        add(metricsBox);
+
         add(particleInfoPanel);
     }
 
     // MODIFIES: this
-    // EFFECTS: resets all the particle info (a.k.a. ParticleTypePanel)
-    private void resetParticleInfoPanel() {
+    // EFFECTS: adds the buttons that record and replay trajectories, and the slider that scrubs the replay
+    private void addTrajectoryControls() {
+        add(new JButton(new RecordAction()));
+        add(new JButton(new ReplayAction()));
+        replaySlider = new JSlider(0, 0, 0);
+        replaySlider.setEnabled(gp.getReplay() != null);
+        replaySlider.addChangeListener(new ReplaySliderListener());
+        add(replaySlider);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: shows the position of the replay on the replay slider, if replaying
+    private void updateReplaySlider() {
+        ReplayLoop replay = gp.getReplay();
+        if (replay != null && !replaySlider.getValueIsAdjusting()) {
+            updatingReplaySlider = true;
+            replaySlider.setMaximum(Math.max(0, replay.getReader().getFrameCount() - 1));
+            replaySlider.setValue(Math.max(0, replay.getPosition()));
+            updatingReplaySlider = false;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: resets all the particle info (a.k.a. ParticleTypePanel) to the given types, copied from the
+    //          simulation on the simulation thread
+    private void resetParticleInfoPanel(List<ParticleType> types) {
         particleInfoPanel.removeAll();
-        for (ParticleType type : this.gp.getSimulation().getParticleTypes()) {
+        for (ParticleType type : types) {
             particleInfoPanel.add(new ParticleTypePanel(type, particleInfoPanel, gp));
         }
     }
@@ -78,9 +132,12 @@ public class OptionPanel extends JPanel {
         // EFFECTS: resets the simulation with 500 random particles when reset button is pressed
         @Override
         public void actionPerformed(ActionEvent ae) {
-            Simulation simulation = gp.getSimulation();
-            simulation.generateRandomWorld(500);
-            resetParticleInfoPanel();
+            gp.submit(() -> {
+                gp.getSimulation().generateRandomWorld(500);
+                // Copied here, since later commands change the list while the Swing thread would read it
+                List<ParticleType> types = new ArrayList<>(gp.getSimulation().getParticleTypes());
+                SwingUtilities.invokeLater(() -> resetParticleInfoPanel(types));
+            });
         }
     }
 
@@ -95,28 +152,38 @@ public class OptionPanel extends JPanel {
         // EFFECTS: adds a particle type when the add particle type button is pressed
         @Override
         public void actionPerformed(ActionEvent ae) {
+            gp.submit(this::addParticleType);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: adds a particle type with random attractions and 100 random particles to the simulation,
+        //          then shows it in the panel
+        private void addParticleType() {
             Simulation simulation = gp.getSimulation();
             ParticleType type = simulation.addParticleType();
-            type.setColor(new Color((int) (Math.random() * 0x1000000)));
+            SeededRandom random = simulation.getRandom();
+            type.setColor(new Color(random.nextInt(0x1000000)));
 
             int numTypes = simulation.getParticleTypes().size();
             for (int i = 0; i < numTypes; i++) {
-                double attraction1 = Math.random() * 2 - 1;
-                double attraction2 = Math.random() * 2 - 1;
+                double attraction1 = random.nextDouble() * 2 - 1;
+                double attraction2 = random.nextDouble() * 2 - 1;
                 simulation.getAttractionMatrix().setAttraction(i, numTypes - 1, attraction1);
                 simulation.getAttractionMatrix().setAttraction(numTypes - 1, i, attraction2);
             }
 
+            List<Particle> particles = new ArrayList<>();
             for (int i = 0; i < 100; i++) {
                 Vector pos = new Vector(
-                        Math.random() * simulation.getWidth(),
-                        Math.random() * simulation.getHeight()
+                        random.nextDouble() * simulation.getWidth(),
+                        random.nextDouble() * simulation.getHeight()
                 );
                 Vector vel = new Vector();
-                simulation.addParticle(new Particle(pos, vel, type));
+                particles.add(new Particle(pos, vel, type));
             }
+            simulation.addParticles(particles);
 
-            particleInfoPanel.add(new ParticleTypePanel(type, particleInfoPanel, gp));
+            SwingUtilities.invokeLater(() -> particleInfoPanel.add(new ParticleTypePanel(type, particleInfoPanel, gp)));
         }
     }
 
@@ -128,20 +195,114 @@ public class OptionPanel extends JPanel {
         }
 
         // MODIFIES: this
-        // EFFECTS: saves the current simulation to a file when the save simulation button is pressed
+        // EFFECTS: saves the current simulation to a file when the save simulation button is pressed; the
+        //          file is a binary snapshot if its name ends in BinaryWriter.EXTENSION, and JSON otherwise
         @Override
         public void actionPerformed(ActionEvent ae) {
             JFileChooser fileChooser = new JFileChooser();
             if (fileChooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
+                String filename = fileChooser.getSelectedFile().getAbsolutePath();
+                // Copied between two steps, so that the file holds one consistent state, and written on
+                // another thread, so that a large world does not stall the simulation while it is saved
+                gp.submit(() -> {
+                    Simulation snapshot = gp.getSimulation().snapshot();
+                    new Thread(() -> save(snapshot, filename), "save").start();
+                });
+            }
+        }
+
+        // EFFECTS: saves the simulation to the file
+        private void save(Simulation simulation, String filename) {
+            try {
+                new SimulationFile(filename).save(simulation);
+            } catch (IOException e) {
+                System.out.println("Error: Unable to save simulation to " + filename);
+            }
+        }
+    }
+
+    // Action class that implements the record trajectory behaviour
+    private class RecordAction extends AbstractAction {
+        // EFFECTS: Instantiates the record trajectory action, named after what pressing it does
+        public RecordAction() {
+            super(recording ? "Stop Recording" : "Record Trajectory");
+        }
+
+        // MODIFIES: this
+        // EFFECTS: starts recording every step of the simulation to a trajectory file when the record button
+        //          is pressed, or stops recording if it already is
+        @Override
+        public void actionPerformed(ActionEvent ae) {
+            if (recording) {
+                gp.stopRecording();
+                recording = false;
+            } else {
+                JFileChooser fileChooser = new JFileChooser();
+                if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+                    return;
+                }
                 String filename = fileChooser.getSelectedFile().getAbsolutePath();
                 try {
-                    JsonWriter writer = new JsonWriter(filename);
-                    writer.write(gp.getSimulation().toJson());
-                    writer.close();
+                    gp.startRecording(new TrajectoryWriter(filename));
+                    recording = true;
                 } catch (IOException e) {
-                    System.out.println("Error: Unable to save simulation to " + filename);
+                    System.out.println("Error: Unable to record to " + filename);
                 }
             }
+            putValue(NAME, recording ? "Stop Recording" : "Record Trajectory");
+        }
+    }
+
+    // Action class that implements the replay trajectory behaviour
+    private class ReplayAction extends AbstractAction {
+        // EFFECTS: Instantiates the replay trajectory action, named after what pressing it does
+        public ReplayAction() {
+            super(gp.getReplay() != null ? "Stop Replay" : "Replay Trajectory");
+        }
+
+        // MODIFIES: this
+        // EFFECTS: replays a trajectory file in place of the simulation when the replay button is pressed, or
+        //          goes back to the simulation if already replaying
+        @Override
+        public void actionPerformed(ActionEvent ae) {
+            try {
+                if (gp.getReplay() != null) {
+                    gp.stopReplay();
+                } else {
+                    JFileChooser fileChooser = new JFileChooser();
+                    if (fileChooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+                        return;
+                    }
+                    replay(fileChooser.getSelectedFile().getAbsolutePath());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            replaySlider.setEnabled(gp.getReplay() != null);
+            putValue(NAME, gp.getReplay() != null ? "Stop Replay" : "Replay Trajectory");
+        }
+
+        // MODIFIES: this
+        // EFFECTS: starts replaying the trajectory file
+        private void replay(String filename) throws InterruptedException {
+            try {
+                gp.startReplay(new TrajectoryReader(filename));
+            } catch (IOException e) {
+                System.out.println("Error: Unable to replay " + filename);
+            }
+        }
+    }
+
+    // ChangeListener class that implements the replay slider behaviour
+    private class ReplaySliderListener implements ChangeListener {
+        // MODIFIES: this
+        // EFFECTS: moves the replay to the frame the slider is dragged to
+        @Override
+        public void stateChanged(ChangeEvent ce) {
+            ReplayLoop replay = gp.getReplay();
+            if (replay != null && !updatingReplaySlider) {
+                replay.seek(replaySlider.getValue());
+            }
         }
     }
 
@@ -160,10 +321,8 @@ public class OptionPanel extends JPanel {
             if (fileChooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
                 String filename = fileChooser.getSelectedFile().getAbsolutePath();
                 try {
-                    JsonReader reader = new JsonReader(filename);
-                    gp.setSimulation(Simulation.fromJson(reader.read()));
-                    resetOptionPanel();
-                    reader.close();
+                    gp.setSimulation(new SimulationFile(filename).load());
+                    gp.submit(OptionPanel.this::showLoadedSimulation);
                 } catch (IOException e) {
                     System.out.println("Error: Unable to load simulation from " + filename);
                 }
@@ -171,6 +330,17 @@ public class OptionPanel extends JPanel {
         }
     }
 
+    // REQUIRES: called on the simulation thread
+    // EFFECTS: copies the particle types, attraction matrix and boundary mode of the simulation, and resets the
+    //          panel to them on the Swing thread
+    private void showLoadedSimulation() {
+        Simulation simulation = gp.getSimulation();
+        List<ParticleType> types = new ArrayList<>(simulation.getParticleTypes());
+        AttractionMatrix attractionMatrix = simulation.getAttractionMatrix().copy();
+        BoundaryMode boundaryMode = simulation.getBoundaryMode();
+        SwingUtilities.invokeLater(() -> resetOptionPanel(types, attractionMatrix, boundaryMode));
+    }
+
     // Action class that implements modifying the simulation friction parameter
     private class FrictionListener implements ChangeListener {
         // MODIFIES: this
@@ -178,7 +348,7 @@ public class OptionPanel extends JPanel {
         @Override
         public void stateChanged(ChangeEvent e) {
             double friction = frictionSlider.getValue() / 100.0;
-            gp.getSimulation().getAttractionMatrix().setFriction(friction);
+            gp.submit(() -> gp.getSimulation().getAttractionMatrix().setFriction(friction));
         }
     }
 
@@ -189,7 +359,7 @@ public class OptionPanel extends JPanel {
         @Override
         public void stateChanged(ChangeEvent e) {
             double beta = betaSlider.getValue() / 100.0;
-            gp.getSimulation().getAttractionMatrix().setBeta(beta);
+            gp.submit(() -> gp.getSimulation().getAttractionMatrix().setBeta(beta));
         }
     }
 
@@ -200,7 +370,43 @@ public class OptionPanel extends JPanel {
         @Override
         public void stateChanged(ChangeEvent e) {
             double range = rangeSlider.getValue();
-            gp.getSimulation().getAttractionMatrix().setRange(range);
+            gp.submit(() -> gp.getSimulation().getAttractionMatrix().setRange(range));
+        }
+    }
+
+    // Action class that implements changing the simulation boundary mode
+    private class BoundaryAction extends AbstractAction {
+        // MODIFIES: this
+        // EFFECTS: changes how the simulation treats its edges when a boundary mode is selected
+        @Override
+        public void actionPerformed(ActionEvent ae) {
+            BoundaryMode boundaryMode = (BoundaryMode) boundaryBox.getSelectedItem();
+            gp.submit(() -> gp.getSimulation().setBoundaryMode(boundaryMode));
+        }
+    }
+
+    // Action class that implements switching the particle renderer
+    private class RendererAction extends AbstractAction {
+        // MODIFIES: this
+        // EFFECTS: draws the following frames with the selected renderer
+        @Override
+        public void actionPerformed(ActionEvent ae) {
+            gp.setRenderer((ParticleRenderer) rendererBox.getSelectedItem());
+        }
+    }
+
+    // Action class that shows or hides the metrics overlay
+    private class MetricsAction extends AbstractAction {
+        // EFFECTS: Instantiates the show metrics action
+        public MetricsAction() {
+            super("Show Metrics");
+        }
+
+        // MODIFIES: this
+        // EFFECTS: shows the metrics of the simulation steps over the particles while the box is checked
+        @Override
+        public void actionPerformed(ActionEvent ae) {
+            gp.setShowingMetrics(metricsBox.isSelected());
         }
     }
 }
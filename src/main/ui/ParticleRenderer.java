@@ -0,0 +1,12 @@
+package ui;
+
+import model.RenderSnapshot;
+
+import java.awt.*;
+
+// Represents a way of drawing the particles of a render snapshot onto the graphics panel
+public interface ParticleRenderer {
+    // MODIFIES: g
+    // EFFECTS: draws every particle of the snapshot onto a black panel of the given size
+    void render(Graphics g, RenderSnapshot snapshot, int width, int height);
+}
@@ -39,8 +39,8 @@ public class ParticleTypePanel extends JPanel {
         // EFFECTS: deletes the given particle type when the delete particle type button is pressed
         @Override
         public void actionPerformed(ActionEvent ae) {
-            particleInfoPanel.remove(type.getID());
-            gp.getSimulation().removeParticleType(type.getID());
+            particleInfoPanel.remove(ParticleTypePanel.this);
+            gp.submit(() -> gp.getSimulation().removeParticleType(type.getID()));
         }
     }
 }
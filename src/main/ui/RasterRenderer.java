@@ -0,0 +1,87 @@
+package ui;
+
+import model.RenderSnapshot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// Draws the particles by writing their pixels straight into the int[] raster of an off-screen image,
+// then copies the whole image to the screen in one drawImage call. Colors are stored per pixel, so
+// particles of every type are written in a single pass. Color alpha is ignored.
+public class RasterRenderer implements ParticleRenderer {
+    private static final int BACKGROUND = 0xFF000000;
+    // Offsets of the pixels of a 4x4 particle (the 4x4 oval without its corners) from its top-left corner
+    private static final int[] STAMP_X = {1, 2, 0, 1, 2, 3, 0, 1, 2, 3, 1, 2};
+    private static final int[] STAMP_Y = {0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3};
+
+    private BufferedImage image;
+    private int[] pixels;
+
+    // EFFECTS: instantiates a renderer; its image is allocated on the first frame
+    public RasterRenderer() {
+        this.image = null;
+        this.pixels = null;
+    }
+
+    // MODIFIES: this, g
+    // EFFECTS: clears the image, writes the pixels of every particle into it, and draws it
+    @Override
+    public void render(Graphics g, RenderSnapshot snapshot, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        ensureImage(width, height);
+        Arrays.fill(this.pixels, BACKGROUND);
+        float[] posX = snapshot.getPosX();
+        float[] posY = snapshot.getPosY();
+        int[] colors = snapshot.getColors();
+        for (int i = 0; i < snapshot.size(); i++) {
+            int left = (int) posX[i] - 2;
+            int top = (int) posY[i] - 2;
+            int color = colors[i] | BACKGROUND;
+            if (left >= 0 && top >= 0 && left + 3 < width && top + 3 < height) {
+                stamp(left, top, width, color);
+            } else {
+                stampClipped(left, top, width, height, color);
+            }
+        }
+        g.drawImage(this.image, 0, 0, null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a particle whose pixels all lie inside the image
+    private void stamp(int left, int top, int width, int color) {
+        int corner = top * width + left;
+        for (int k = 0; k < STAMP_X.length; k++) {
+            this.pixels[corner + STAMP_Y[k] * width + STAMP_X[k]] = color;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the pixels of a particle that lie inside the image
+    private void stampClipped(int left, int top, int width, int height, int color) {
+        for (int k = 0; k < STAMP_X.length; k++) {
+            int x = left + STAMP_X[k];
+            int y = top + STAMP_Y[k];
+            if (x >= 0 && y >= 0 && x < width && y < height) {
+                this.pixels[y * width + x] = color;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: (re)allocates the image when the panel has changed size
+    private void ensureImage(int width, int height) {
+        if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Raster";
+    }
+}
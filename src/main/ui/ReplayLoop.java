@@ -0,0 +1,159 @@
+package ui;
+
+import model.RateMeter;
+import model.RenderBuffer;
+import model.TrajectoryFrame;
+import persistence.TrajectoryReader;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Plays a recorded trajectory back on its own thread, like SimulationLoop runs a simulation: every frame
+// is read from the file and published to a RenderBuffer for the GUI to draw, without recomputing any
+// physics. Playback can be paused, and moved to any frame while it runs.
+public class ReplayLoop implements Runnable {
+    private final TrajectoryReader reader;
+    private final TrajectoryFrame frame;
+    private final RenderBuffer renderBuffer;
+    private final RateMeter frameRate;
+    private volatile double framesPerSecond;
+    private volatile boolean paused;
+    private volatile boolean running;
+    // The frame last published, and the frame to move to next (or -1)
+    private volatile int position;
+    private final AtomicInteger seekTarget;
+    private Thread thread;
+
+    // REQUIRES: framesPerSecond >= 0
+    // EFFECTS: instantiates a stopped replay of the trajectory, starting at its first frame and playing at
+    //          most framesPerSecond frames per second (0 for as many as possible)
+    public ReplayLoop(TrajectoryReader reader, double framesPerSecond) {
+        this.reader = reader;
+        this.frame = new TrajectoryFrame();
+        this.renderBuffer = new RenderBuffer();
+        this.frameRate = new RateMeter();
+        this.framesPerSecond = framesPerSecond;
+        this.position = -1;
+        this.seekTarget = new AtomicInteger(0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts playing on a new daemon thread
+    public void start() {
+        this.running = true;
+        this.thread = new Thread(this, "replay");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops playing, waits for the thread to finish and closes the trajectory
+    public void stop() throws InterruptedException, IOException {
+        this.running = false;
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+            this.thread.join();
+        }
+        this.reader.close();
+    }
+
+    // EFFECTS: plays frames until stop() is called, pausing at the last frame
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (this.running) {
+            int target = nextPosition();
+            if (target != this.position) {
+                try {
+                    this.reader.read(target, this.frame);
+                } catch (IOException e) {
+                    System.out.println("Error: Unable to replay " + this.reader.getFilename());
+                    this.paused = true;
+                    continue;
+                }
+                this.position = target;
+                this.renderBuffer.publish(this.frame);
+                this.frameRate.tick();
+            }
+            nextFrame = waitForNextFrame(nextFrame);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the frame to show next: the frame moved to, if any, else the next frame unless paused
+    //          or at the end
+    private int nextPosition() {
+        int count = this.reader.getFrameCount();
+        int target = this.seekTarget.getAndSet(-1);
+        if (target >= 0 && count > 0) {
+            return Math.min(target, count - 1);
+        }
+        if (this.paused || this.position + 1 >= count) {
+            return this.position;
+        }
+        return this.position + 1;
+    }
+
+    // EFFECTS: sleeps until one frame period after lastStart, or until a seek, and returns when the next
+    //          frame starts
+    private long waitForNextFrame(long lastStart) {
+        double rate = this.framesPerSecond;
+        long period = rate <= 0 ? 0 : (long) (1e9 / rate);
+        if (this.paused || this.position + 1 >= this.reader.getFrameCount()) {
+            // Nothing to play until a seek or unpause; poll at a modest rate
+            period = Math.max(period, 10_000_000L);
+        }
+        long nextStart = lastStart + period;
+        long now = System.nanoTime();
+        while (now < nextStart && this.running && this.seekTarget.get() < 0) {
+            LockSupport.parkNanos(nextStart - now);
+            now = System.nanoTime();
+        }
+        return Math.max(nextStart, now - period);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves playback to the frame with the given index, clamped to the frames of the trajectory
+    public void seek(int index) {
+        this.seekTarget.set(Math.max(0, index));
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    public RenderBuffer getRenderBuffer() {
+        return this.renderBuffer;
+    }
+
+    public TrajectoryReader getReader() {
+        return this.reader;
+    }
+
+    // EFFECTS: returns the index of the frame last shown, or -1 before the first
+    public int getPosition() {
+        return this.position;
+    }
+
+    // EFFECTS: returns the number of frames shown per second
+    public double getFramesPerSecond() {
+        return this.frameRate.getRate();
+    }
+
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public double getMaxFramesPerSecond() {
+        return this.framesPerSecond;
+    }
+
+    // REQUIRES: framesPerSecond >= 0
+    public void setMaxFramesPerSecond(double framesPerSecond) {
+        this.framesPerSecond = framesPerSecond;
+    }
+}
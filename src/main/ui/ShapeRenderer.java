@@ -0,0 +1,33 @@
+package ui;
+
+import model.RenderSnapshot;
+
+import java.awt.*;
+
+// Draws each particle as a small filled oval through Java2D. Simple, and antialiased when the
+// Graphics is, but each particle costs a full shape fill.
+public class ShapeRenderer implements ParticleRenderer {
+    // MODIFIES: g
+    // EFFECTS: fills a 4x4 oval centred on each particle
+    @Override
+    public void render(Graphics g, RenderSnapshot snapshot, int width, int height) {
+        float[] posX = snapshot.getPosX();
+        float[] posY = snapshot.getPosY();
+        int[] colors = snapshot.getColors();
+        int color = 0;
+        g.setColor(new Color(color, true));
+        for (int i = 0; i < snapshot.size(); i++) {
+            // Consecutive particles are usually the same color, so a Color is only made when it changes
+            if (colors[i] != color) {
+                color = colors[i];
+                g.setColor(new Color(color, true));
+            }
+            g.fillOval((int) posX[i] - 2, (int) posY[i] - 2, 4, 4);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Java2D shapes";
+    }
+}
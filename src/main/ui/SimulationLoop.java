@@ -0,0 +1,227 @@
+package ui;
+
+import model.Event;
+import model.EventLog;
+import model.RateMeter;
+import model.RenderBuffer;
+import model.Simulation;
+import persistence.Checkpointer;
+import persistence.TrajectoryWriter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs a simulation on its own thread, independently of the Swing event dispatch thread. After every
+// step, the particles are published to a RenderBuffer for the GUI to draw. Everything else that changes
+// the simulation is submitted as a command, which the loop runs between two steps. The metrics of the
+// simulation being run are registered over JMX, and it can be checkpointed periodically and recorded
+// step by step.
+public class SimulationLoop implements Runnable {
+    private volatile Simulation simulation;
+    private final RenderBuffer renderBuffer;
+    private final Queue<Runnable> commands;
+    private final RateMeter stepRate;
+    private volatile double maxStepsPerSecond;
+    private volatile boolean running;
+    private volatile Checkpointer checkpointer;
+    private volatile TrajectoryWriter recorder;
+    private Thread thread;
+
+    // REQUIRES: maxStepsPerSecond >= 0
+    // EFFECTS: instantiates a stopped loop over the simulation, running at most maxStepsPerSecond steps per
+    //          second (0 for as many as possible)
+    public SimulationLoop(Simulation simulation, double maxStepsPerSecond) {
+        this.simulation = simulation;
+        this.renderBuffer = new RenderBuffer();
+        this.commands = new ConcurrentLinkedQueue<>();
+        this.stepRate = new RateMeter();
+        this.maxStepsPerSecond = maxStepsPerSecond;
+        this.running = false;
+        this.renderBuffer.publish(simulation);
+        simulation.getMetrics().register();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts stepping the simulation on a new daemon thread
+    public void start() {
+        this.running = true;
+        this.thread = new Thread(this, "simulation");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops stepping the simulation and waits for the current step to finish
+    public void stop() throws InterruptedException {
+        this.running = false;
+        if (this.thread != null) {
+            LockSupport.unpark(this.thread);
+            this.thread.join();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: queues a change to the simulation, to run on the simulation thread before the next step
+    public void submit(Runnable command) {
+        this.commands.add(command);
+    }
+
+    // EFFECTS: runs the loop until stop() is called, or until a step fails
+    @Override
+    public void run() {
+        long nextStep = System.nanoTime();
+        while (this.running) {
+            runCommands();
+            if (!step()) {
+                return;
+            }
+            this.renderBuffer.publish(this.simulation);
+            this.stepRate.tick();
+            afterStep();
+            nextStep = waitForNextStep(nextStep);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: steps the simulation and returns true, or, if the step fails, reports the failure, stops the
+    //          loop and returns false. Unlike a failing command, a failing step leaves the simulation
+    //          half-updated, so the loop does not carry on stepping it.
+    private boolean step() {
+        try {
+            this.simulation.update();
+            return true;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            EventLog.getInstance().logEvent(new Event("Simulation stopped after a failed step: " + e));
+            this.running = false;
+            return false;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: checkpoints the step and appends it to the recording, if either is set. A recording that
+    //          fails to be written is reported and stopped.
+    private void afterStep() {
+        Checkpointer checkpointer = this.checkpointer;
+        if (checkpointer != null) {
+            checkpointer.stepCompleted(this.simulation);
+        }
+        TrajectoryWriter recorder = this.recorder;
+        if (recorder != null) {
+            try {
+                recorder.write(this.simulation);
+            } catch (IOException e) {
+                System.out.println("Error: Unable to record to " + recorder.getFilename());
+                this.recorder = null;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: runs every queued command, in the order they were submitted. A command that fails is
+    //          reported and skipped, like a failing event handler on the Swing thread.
+    private void runCommands() {
+        Runnable command = this.commands.poll();
+        while (command != null) {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            command = this.commands.poll();
+        }
+    }
+
+    // EFFECTS: sleeps until one step period after lastStart, when the last step started, and returns when
+    //          the next step starts. A loop that has fallen more than a period behind does not catch up.
+    private long waitForNextStep(long lastStart) {
+        double rate = this.maxStepsPerSecond;
+        if (rate <= 0) {
+            return System.nanoTime();
+        }
+        long period = (long) (1e9 / rate);
+        long nextStart = lastStart + period;
+        long now = System.nanoTime();
+        while (now < nextStart && this.running) {
+            LockSupport.parkNanos(nextStart - now);
+            now = System.nanoTime();
+        }
+        return Math.max(nextStart, now - period);
+    }
+
+    // EFFECTS: returns the simulation being run. It is updated concurrently, so changes to it must be
+    //          submitted as commands.
+    public Simulation getSimulation() {
+        return this.simulation;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: replaces the simulation being run (and the metrics registered over JMX), between two steps
+    public void setSimulation(Simulation simulation) {
+        submit(() -> {
+            this.simulation = simulation;
+            simulation.getMetrics().register();
+        });
+    }
+
+    public Checkpointer getCheckpointer() {
+        return this.checkpointer;
+    }
+
+    // EFFECTS: sets the checkpointer the simulation is checkpointed by after every step (null for none)
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    public TrajectoryWriter getRecorder() {
+        return this.recorder;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts appending every step to the given recording, between two steps
+    public void startRecording(TrajectoryWriter recorder) {
+        submit(() -> this.recorder = recorder);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops recording and closes the recording, between two steps
+    public void stopRecording() {
+        submit(() -> {
+            TrajectoryWriter recorder = this.recorder;
+            this.recorder = null;
+            if (recorder != null) {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    System.out.println("Error: Unable to close " + recorder.getFilename());
+                }
+            }
+        });
+    }
+
+    public RenderBuffer getRenderBuffer() {
+        return this.renderBuffer;
+    }
+
+    // EFFECTS: returns the number of simulation steps completed per second
+    public double getStepsPerSecond() {
+        return this.stepRate.getRate();
+    }
+
+    // EFFECTS: returns true if the loop is stepping the simulation, and has neither been stopped nor stopped
+    //          itself after a failed step
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    public double getMaxStepsPerSecond() {
+        return this.maxStepsPerSecond;
+    }
+
+    // REQUIRES: maxStepsPerSecond >= 0
+    public void setMaxStepsPerSecond(double maxStepsPerSecond) {
+        this.maxStepsPerSecond = maxStepsPerSecond;
+    }
+}
@@ -29,6 +29,20 @@ public class AttractionMatrixTest {
         assertEquals(this.attractionMatrix.getRange(), 50);
     }
 
+    @Test
+    public void testCopy() {
+        this.attractionMatrix.setForceTableResolution(1024);
+        AttractionMatrix copy = this.attractionMatrix.copy();
+        assertEquals(copy.getFriction(), 0.7);
+        assertEquals(copy.getBeta(), 0.4);
+        assertEquals(copy.getRange(), 50);
+        assertFalse(copy.hasForceTable());
+        assertTrue(copy.toJson().similar(this.attractionMatrix.toJson()));
+
+        copy.setAttraction(0, 0, 1);
+        assertEquals(this.attractionMatrix.getAttraction(0, 0), 0.1);
+    }
+
     @Test
     public void testAddType() {
         this.attractionMatrix.addType();
@@ -90,6 +104,90 @@ public class AttractionMatrixTest {
         assertEquals(res.getY(), 0);
     }
 
+    @Test
+    public void testCalcAttractionVectorWrapped() {
+        Particle p1 = new Particle(new Vector(5, 595), new ParticleType(Color.RED, 0));
+        Particle p2 = new Particle(new Vector(795, 10), new ParticleType(Color.BLUE, 1));
+        Particle p3 = new Particle(new Vector(-5, 610), new ParticleType(Color.BLUE, 1));
+        assertEquals(this.attractionMatrix.calcAttractionVector(p1, p2).mag(), 0);
+
+        Vector wrapped = this.attractionMatrix.calcAttractionVector(p1, p2, 800, 600);
+        Vector direct = this.attractionMatrix.calcAttractionVector(p1, p3);
+        assertEquals(wrapped.getX(), direct.getX(), 1e-12);
+        assertEquals(wrapped.getY(), direct.getY(), 1e-12);
+        assertTrue(wrapped.mag() > 0);
+    }
+
+    @Test
+    public void testCalcForceScaleSqMatchesCalcForceScale() {
+        for (double dist = 0; dist <= 60; dist += 0.25) {
+            assertEquals(this.attractionMatrix.calcForceScaleSq(0, 1, dist * dist),
+                    this.attractionMatrix.calcForceScale(0, 1, dist));
+        }
+    }
+
+    @Test
+    public void testCalcForceScaleFloat() {
+        for (float dist = 0; dist <= 60; dist += 0.25f) {
+            double expected = this.attractionMatrix.calcForceScale(0, 1, dist);
+            assertEquals(this.attractionMatrix.calcForceScaleFloat(0, 1, dist), expected, 1e-6);
+            assertEquals(this.attractionMatrix.calcForceScaleSqFloat(0, 1, dist * dist), expected, 1e-6);
+        }
+        this.attractionMatrix.setForceTableResolution(4096);
+        assertEquals(this.attractionMatrix.calcForceScaleSqFloat(0, 1, 900f),
+                (float) this.attractionMatrix.calcForceScaleSq(0, 1, 900.0));
+        assertEquals(this.attractionMatrix.calcForceScaleSqFloat(0, 1, 1e6f), 0f);
+    }
+
+    @Test
+    public void testForceTableResolution() {
+        assertEquals(this.attractionMatrix.getForceTableResolution(), 0);
+        this.attractionMatrix.setForceTableResolution(1024);
+        assertEquals(this.attractionMatrix.getForceTableResolution(), 1024);
+        assertThrows(IllegalArgumentException.class, () -> this.attractionMatrix.setForceTableResolution(16));
+        assertEquals(this.attractionMatrix.getForceTableResolution(), 1024);
+        this.attractionMatrix.setForceTableResolution(0);
+        assertEquals(this.attractionMatrix.calcForceScaleSq(0, 1, 900), this.attractionMatrix.calcForceScale(0, 1, 30));
+    }
+
+    @Test
+    public void testForceTableFollowsChanges() {
+        AttractionMatrix analytic = new AttractionMatrix(0.7, 0.4, 50);
+        analytic.setAttractions(new double[][] {{0.1, 0.5, -0.3}, {-1, 1, 0.4}, {-0.8, 0, 0.2}});
+        this.attractionMatrix.setForceTableResolution(4096);
+
+        this.attractionMatrix.setAttraction(0, 1, -0.9);
+        analytic.setAttraction(0, 1, -0.9);
+        assertForcesClose(analytic, 1e-3);
+
+        this.attractionMatrix.setBeta(0.2);
+        analytic.setBeta(0.2);
+        assertForcesClose(analytic, 1e-3);
+
+        this.attractionMatrix.setRange(80);
+        analytic.setRange(80);
+        assertForcesClose(analytic, 1e-3);
+
+        this.attractionMatrix.setRange(0);
+        assertEquals(this.attractionMatrix.calcForceScaleSq(0, 1, 1), 0);
+        this.attractionMatrix.setRange(80);
+        assertForcesClose(analytic, 1e-3);
+    }
+
+    // EFFECTS: asserts that, for every pair of types and every distance, the force (scale times distance)
+    //          of this.attractionMatrix is within tolerance of that of the expected matrix
+    private void assertForcesClose(AttractionMatrix expected, double tolerance) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (double dist = 0.01; dist <= 100; dist += 0.01) {
+                    double expectedForce = expected.calcForceScaleSq(i, j, dist * dist) * dist;
+                    double actualForce = this.attractionMatrix.calcForceScaleSq(i, j, dist * dist) * dist;
+                    assertEquals(expectedForce, actualForce, tolerance);
+                }
+            }
+        }
+    }
+
     public void testCalcAttractionVectorInRange() {
         Vector pos1 = new Vector(50, 30);
         Vector vel1 = new Vector(-2, 4);
@@ -0,0 +1,101 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchForceKernelTest {
+    private BatchForceKernel kernel;
+    private ParticleStore store;
+    private AttractionMatrix attractionMatrix;
+
+    @BeforeEach
+    public void runBefore() {
+        this.kernel = new BatchForceKernel();
+        this.store = new ParticleStore();
+        ParticleType red = new ParticleType(Color.RED, 0);
+        ParticleType blue = new ParticleType(Color.BLUE, 1);
+        this.store.add(new Particle(new Vector(1, 50), red));
+        this.store.add(new Particle(new Vector(97, 50), blue));
+        this.store.add(new Particle(new Vector(1, 50), blue));
+        this.store.add(new Particle(new Vector(5, 53), red));
+        this.store.add(new Particle(new Vector(40, 50), red));
+        this.attractionMatrix = new AttractionMatrix(0.5, 0.3, 10);
+        this.attractionMatrix.addType();
+        this.attractionMatrix.addType();
+        this.attractionMatrix.setAttraction(0, 0, 1);
+        this.attractionMatrix.setAttraction(0, 1, -0.5);
+        this.attractionMatrix.setAttraction(1, 0, 0.25);
+    }
+
+    @Test
+    public void testCalcForce() {
+        double[] betas = {0.1, 0.3, 0.5};
+        for (double beta : betas) {
+            for (int k = 0; k <= 1000; k++) {
+                double d = k / 1000.0;
+                assertEquals(BatchForceKernel.calcForce(d, 0.7, beta), AttractionMatrix.calcForce(d, 0.7, beta), 0);
+                assertEquals(BatchForceKernel.calcForce(d, -1, beta), AttractionMatrix.calcForce(d, -1, beta), 0);
+            }
+            assertEquals(BatchForceKernel.calcForce(beta, 1, beta), 0);
+            assertEquals(BatchForceKernel.calcForce(1.5, 1, beta), 0);
+            assertEquals(BatchForceKernel.calcForce(1e9, -1, beta), 0);
+        }
+    }
+
+    @Test
+    public void testAccumulateNeighbors() {
+        this.kernel.beginStep(this.store, this.attractionMatrix, BoundaryMode.WRAP, 100, 100);
+        int[] neighbors = {4, 3, 2, 1, 0};
+        // Particle 2 is at the same position as 0 and particle 4 is out of range
+        assertEquals(this.kernel.accumulateNeighbors(0, neighbors, 0, 5), 2);
+        assertEquals(this.kernel.accumulateNeighbors(4, neighbors, 0, 4), 0);
+
+        double expectedX = 4 * this.attractionMatrix.calcForceScale(0, 0, 5)
+                - 4 * this.attractionMatrix.calcForceScale(0, 1, 4);
+        double expectedY = 3 * this.attractionMatrix.calcForceScale(0, 0, 5);
+        assertEquals(this.store.getNextVelX()[0], expectedX);
+        assertEquals(this.store.getNextVelY()[0], expectedY);
+        assertEquals(this.store.getNextVelX()[4], 0);
+    }
+
+    @Test
+    public void testAccumulateSymmetricNeighbors() {
+        this.kernel.beginStep(this.store, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        int[] neighbors = {1, 2, 3};
+        // Particle 1 is only in range across the edge, which open mode does not wrap around
+        assertEquals(this.kernel.accumulateSymmetricNeighbors(0, neighbors, 0, 3), 1);
+
+        assertEquals(this.store.getNextVelX()[0], 4 * this.attractionMatrix.calcForceScale(0, 0, 5));
+        assertEquals(this.store.getNextVelX()[3], -4 * this.attractionMatrix.calcForceScale(0, 0, 5));
+        assertEquals(this.store.getNextVelY()[3], -3 * this.attractionMatrix.calcForceScale(0, 0, 5));
+        assertEquals(this.store.getNextVelX()[1], 0);
+        assertEquals(this.store.getNextVelX()[2], 0);
+    }
+
+    @Test
+    public void testManyNeighbors() {
+        int numNeighbors = 2 * BatchForceKernel.BLOCK_SIZE + 44;
+        int[] neighbors = new int[numNeighbors];
+        for (int k = 0; k < numNeighbors; k++) {
+            this.store.add(new Particle(new Vector(2 + k * 0.02, 51), this.store.getType(1)));
+            neighbors[k] = 5 + k;
+        }
+        this.kernel.beginStep(this.store, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        assertEquals(this.kernel.accumulateNeighbors(0, neighbors, 0, numNeighbors), numNeighbors);
+
+        double expectedX = 0;
+        double expectedY = 0;
+        for (int k = 0; k < numNeighbors; k++) {
+            double dx = this.store.getPosX()[5 + k] - 1;
+            double scale = this.attractionMatrix.calcForceScale(0, 1, Math.sqrt(dx * dx + 1));
+            expectedX += dx * scale;
+            expectedY += scale;
+        }
+        assertEquals(this.store.getNextVelX()[0], expectedX);
+        assertEquals(this.store.getNextVelY()[0], expectedY);
+    }
+}
@@ -0,0 +1,43 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundaryModeTest {
+    @Test
+    public void testMinimumImage() {
+        assertEquals(BoundaryMode.minimumImage(30, 100), 30);
+        assertEquals(BoundaryMode.minimumImage(-50, 100), -50);
+        assertEquals(BoundaryMode.minimumImage(90, 100), -10);
+        assertEquals(BoundaryMode.minimumImage(-90, 100), 10);
+        assertEquals(BoundaryMode.minimumImage(340, 100), 40);
+        assertEquals(BoundaryMode.minimumImage(-1030, 100), -30);
+    }
+
+    @Test
+    public void testMinimumImageFloat() {
+        assertEquals(BoundaryMode.minimumImageFloat(30f, 100f), 30f);
+        assertEquals(BoundaryMode.minimumImageFloat(90f, 100f), -10f);
+        assertEquals(BoundaryMode.minimumImageFloat(-1030f, 100f), -30f);
+    }
+
+    @Test
+    public void testWrap() {
+        assertEquals(BoundaryMode.wrap(0, 100), 0);
+        assertEquals(BoundaryMode.wrap(99.5, 100), 99.5);
+        assertEquals(BoundaryMode.wrap(100, 100), 0);
+        assertEquals(BoundaryMode.wrap(130, 100), 30);
+        assertEquals(BoundaryMode.wrap(-30, 100), 70);
+        assertEquals(BoundaryMode.wrap(-230, 100), 70);
+        assertEquals(BoundaryMode.wrap(-1e-20, 100), 0);
+    }
+
+    @Test
+    public void testWrapFloat() {
+        assertEquals(BoundaryMode.wrapFloat(99.5f, 100f), 99.5f);
+        assertEquals(BoundaryMode.wrapFloat(100f, 100f), 0f);
+        assertEquals(BoundaryMode.wrapFloat(-30f, 100f), 70f);
+        assertEquals(BoundaryMode.wrapFloat(-1e-10f, 100f), 0f);
+    }
+}
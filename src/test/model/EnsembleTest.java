@@ -0,0 +1,189 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnsembleTest {
+    private Ensemble ensemble;
+
+    @BeforeEach
+    public void runBefore() {
+        this.ensemble = new Ensemble(3);
+    }
+
+    @AfterEach
+    public void runAfter() throws InterruptedException {
+        this.ensemble.shutdown();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.ensemble.getThreads(), 3);
+        assertTrue(this.ensemble.getMembers().isEmpty());
+        assertEquals(this.ensemble.getFinished(), 0);
+        assertEquals(new Ensemble().getThreads(), Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testRunsEveryBudget() throws InterruptedException {
+        for (int i = 0; i < 12; i++) {
+            Simulation simulation = new Simulation(200, 200, i);
+            simulation.getAttractionMatrix().setRange(20 + i);
+            simulation.generateRandomWorld(50);
+            this.ensemble.submit(simulation, 5L * i);
+        }
+        List<Ensemble.Member> members = this.ensemble.awaitAll();
+        assertEquals(members.size(), 12);
+        assertEquals(this.ensemble.getFinished(), 12);
+        for (int i = 0; i < 12; i++) {
+            Ensemble.Member member = members.get(i);
+            assertTrue(member.isDone());
+            assertFalse(member.isCancelled());
+            assertNull(member.getFailure());
+            assertEquals(member.getStepBudget(), 5L * i);
+            assertEquals(member.getStepsTaken(), 5L * i);
+
+            // Each simulation ends where it would have stepped on its own
+            Simulation expected = new Simulation(200, 200, i);
+            expected.getAttractionMatrix().setRange(20 + i);
+            expected.generateRandomWorld(50);
+            for (int step = 0; step < 5 * i; step++) {
+                expected.update();
+            }
+            assertTrue(member.getSimulation().toJson().similar(expected.toJson()));
+        }
+    }
+
+    @Test
+    public void testSlicesTakeTurns() throws InterruptedException {
+        Ensemble single = new Ensemble(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // Holding the only thread until both are queued, so that the order of the slices is fixed
+        Ensemble.Member gate = single.submit(new RecordingSimulation("gate", order, 50), 1);
+        single.submit(new RecordingSimulation("a", order, 0), 2 * Ensemble.SLICE_STEPS);
+        single.submit(new RecordingSimulation("b", order, 0), Ensemble.SLICE_STEPS + 1);
+        single.close();
+        assertTrue(gate.isDone());
+
+        List<String> expected = new ArrayList<>();
+        expected.add("gate");
+        expected.addAll(Collections.nCopies(Ensemble.SLICE_STEPS, "a"));
+        expected.addAll(Collections.nCopies(Ensemble.SLICE_STEPS, "b"));
+        expected.addAll(Collections.nCopies(Ensemble.SLICE_STEPS, "a"));
+        expected.add("b");
+        assertEquals(order, expected);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        Ensemble.Member member = this.ensemble.submit(new RecordingSimulation("a", null, 1), Long.MAX_VALUE);
+        while (member.getStepsTaken() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(member.await(1, TimeUnit.MILLISECONDS));
+        member.cancel();
+        assertTrue(member.await(10, TimeUnit.SECONDS));
+        assertTrue(member.isCancelled());
+        assertTrue(member.getStepsTaken() < member.getStepBudget());
+
+        // Cancelling a member that is done changes nothing
+        Ensemble.Member finished = this.ensemble.submit(new Simulation(100, 100), 3);
+        finished.await();
+        finished.cancel();
+        assertFalse(finished.isCancelled());
+        assertEquals(finished.getStepsTaken(), 3);
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        List<Ensemble.Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(this.ensemble.submit(new RecordingSimulation("a", null, 1), Long.MAX_VALUE));
+        }
+        this.ensemble.shutdown();
+        assertEquals(this.ensemble.getFinished(), 10);
+        for (Ensemble.Member member : members) {
+            assertTrue(member.isDone());
+            assertTrue(member.isCancelled());
+        }
+
+        // Members submitted after the threads are stopped are done straight away
+        Ensemble.Member late = this.ensemble.submit(new Simulation(100, 100), 5);
+        assertTrue(late.isDone());
+        assertTrue(late.isCancelled());
+        assertEquals(late.getStepsTaken(), 0);
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        Simulation failing = new Simulation(100, 100) {
+            @Override
+            public void update() {
+                throw new IllegalStateException("step failed");
+            }
+        };
+        Ensemble.Member failed = this.ensemble.submit(failing, 10);
+        Ensemble.Member other = this.ensemble.submit(new Simulation(100, 100), 10);
+        this.ensemble.awaitAll();
+        assertEquals(failed.getFailure().getMessage(), "step failed");
+        assertEquals(failed.getStepsTaken(), 0);
+        assertFalse(failed.isCancelled());
+        // A failing simulation does not stop the others
+        assertNull(other.getFailure());
+        assertEquals(other.getStepsTaken(), 10);
+    }
+
+    @Test
+    public void testError() throws InterruptedException {
+        Simulation failing = new Simulation(100, 100) {
+            @Override
+            public void update() {
+                throw new StackOverflowError("step overflowed");
+            }
+        };
+        Ensemble.Member failed = this.ensemble.submit(failing, 10);
+        // An error ends the member like an exception does, so waiting for it does not hang
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        assertTrue(failed.getFailure() instanceof StackOverflowError);
+        assertEquals(this.ensemble.getFinished(), 1);
+        this.ensemble.close();
+    }
+
+    // Represents a simulation that records its name in a shared list, if given one, each time it steps,
+    // and sleeps for the given number of milliseconds instead of moving any particles
+    private static class RecordingSimulation extends Simulation {
+        private final String name;
+        private final List<String> order;
+        private final long sleepMillis;
+
+        // EFFECTS: instantiates an empty simulation recording its steps under the given name
+        RecordingSimulation(String name, List<String> order, long sleepMillis) {
+            super(100, 100);
+            this.name = name;
+            this.order = order;
+            this.sleepMillis = sleepMillis;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: records the step and sleeps
+        @Override
+        public void update() {
+            if (this.order != null) {
+                this.order.add(this.name);
+            }
+            try {
+                Thread.sleep(this.sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
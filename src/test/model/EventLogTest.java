@@ -51,4 +51,131 @@ public class EventLogTest {
         assertEquals("Event log cleared.", itr.next().getDescription());
         assertFalse(itr.hasNext());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCapacity() {
+        EventLog el = EventLog.getInstance();
+        try {
+            el.setCapacity(3);
+            assertEquals(3, el.getCapacity());
+            assertEquals(3, el.size());
+            assertEquals(List.of(e1, e2, e3), events());
+
+            Event e4 = new Event("A4");
+            el.logEvent(e4);
+            assertEquals(List.of(e2, e3, e4), events());
+
+            el.setCapacity(2);
+            assertEquals(List.of(e3, e4), events());
+            el.setCapacity(5);
+            Event e5 = new Event("A5");
+            el.logEvent(e5);
+            assertEquals(List.of(e3, e4, e5), events());
+            assertThrows(IllegalArgumentException.class, () -> el.setCapacity(0));
+        } finally {
+            restoreDefaults();
+        }
+    }
+
+    @Test
+    public void testManyEventsStayBounded() {
+        EventLog el = EventLog.getInstance();
+        try {
+            el.setAggregating(false);
+            for (int i = 0; i < 3 * EventLog.DEFAULT_CAPACITY; i++) {
+                el.logEvent(new Event("B" + i));
+            }
+            assertEquals(EventLog.DEFAULT_CAPACITY, el.size());
+            List<Event> l = events();
+            assertEquals("B" + 2 * EventLog.DEFAULT_CAPACITY, l.get(0).getDescription());
+            assertEquals("B" + (3 * EventLog.DEFAULT_CAPACITY - 1), l.get(l.size() - 1).getDescription());
+        } finally {
+            restoreDefaults();
+        }
+    }
+
+    @Test
+    public void testAggregation() {
+        EventLog el = EventLog.getInstance();
+        el.clear();
+        for (int i = 0; i < 100000; i++) {
+            el.logEvent("Added a particle", EventLevel.DEBUG);
+        }
+        el.logEvent(new Event("Added a particle"));
+        el.logEvent(new Event("Added a particle"));
+        el.logEvent("Added a particle", EventLevel.DEBUG);
+
+        List<Event> l = events();
+        assertEquals(4, l.size());
+        assertEquals("Added a particle (x100000)", l.get(1).getDescription());
+        assertEquals(EventLevel.DEBUG, l.get(1).getLevel());
+        assertEquals("Added a particle (x2)", l.get(2).getDescription());
+        assertEquals(EventLevel.INFO, l.get(2).getLevel());
+        assertEquals("Added a particle", l.get(3).getDescription());
+    }
+
+    @Test
+    public void testLevelsAndDisabling() {
+        EventLog el = EventLog.getInstance();
+        try {
+            el.clear();
+            el.setMinimumLevel(EventLevel.INFO);
+            assertFalse(el.isLoggable(EventLevel.DEBUG));
+            assertTrue(el.isLoggable(EventLevel.INFO));
+            el.logEvent("Dropped", EventLevel.DEBUG);
+            el.logEvent(new Event("Dropped too", EventLevel.DEBUG));
+            el.logEvent(new Event("Kept"));
+            assertEquals(2, el.size());
+
+            el.setEnabled(false);
+            assertFalse(el.isEnabled());
+            assertFalse(el.isLoggable(EventLevel.INFO));
+            el.logEvent(new Event("Dropped while disabled"));
+            assertEquals(2, el.size());
+        } finally {
+            restoreDefaults();
+        }
+    }
+
+    @Test
+    public void testConcurrentAppends() throws InterruptedException {
+        EventLog el = EventLog.getInstance();
+        try {
+            el.setAggregating(false);
+            el.clear();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        el.logEvent(new Event("C" + i));
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(4001, el.size());
+        } finally {
+            restoreDefaults();
+        }
+    }
+
+    // EFFECTS: returns the events in the log
+    private static List<Event> events() {
+        List<Event> l = new ArrayList<Event>();
+        for (Event next : EventLog.getInstance()) {
+            l.add(next);
+        }
+        return l;
+    }
+
+    // EFFECTS: restores the default settings of the shared event log
+    private static void restoreDefaults() {
+        EventLog el = EventLog.getInstance();
+        el.setCapacity(EventLog.DEFAULT_CAPACITY);
+        el.setEnabled(true);
+        el.setMinimumLevel(EventLevel.DEBUG);
+        el.setAggregating(true);
+    }
+}
@@ -35,4 +35,10 @@ public class EventTest {
     public void testToString() {
         assertEquals(d.toString() + "\n" + "Sensor open at door", e.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLevel() {
+        assertEquals(EventLevel.INFO, e.getLevel());
+        assertEquals(EventLevel.DEBUG, new Event("Added a particle", EventLevel.DEBUG).getLevel());
+    }
+}
@@ -0,0 +1,138 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FloatStateTest {
+    private FloatState state;
+    private ParticleStore store;
+    private AttractionMatrix attractionMatrix;
+
+    @BeforeEach
+    public void runBefore() {
+        this.state = new FloatState();
+        this.store = new ParticleStore();
+        ParticleType type = new ParticleType(Color.RED, 0);
+        this.store.add(new Particle(new Vector(0.1, 50), new Vector(2, -1), type));
+        this.store.add(new Particle(new Vector(99.5, 50), new Vector(1, 0), type));
+        this.attractionMatrix = new AttractionMatrix(0.5, 0.3, 10);
+        this.attractionMatrix.addType();
+        this.attractionMatrix.setAttraction(0, 0, 1);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.state.size(), 0);
+    }
+
+    @Test
+    public void testStep() {
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.WRAP, 100, 100);
+        assertEquals(this.state.size(), 2);
+        this.state.startVelocities(0, 2);
+        // The particles are 0.6 apart across the edge
+        assertEquals(this.state.accumulatePair(0, 1), 1);
+        assertEquals(this.state.accumulatePair(1, 0), 1);
+        assertEquals(this.state.accumulatePair(0, 0), 0);
+        this.state.applyFriction(0, 2);
+        this.state.integrate(0, 2);
+        this.state.endStep(this.store);
+
+        assertEquals(this.store.getPosX()[0], 2.1f);
+        assertEquals(this.store.getPosY()[0], 49);
+        assertEquals(this.store.getPosX()[1], 0.5f, 1e-5);
+        float expectedVelX = (2 - 0.6f * this.attractionMatrix.calcForceScaleFloat(0, 0, 0.6f)) * 0.5f;
+        assertEquals(this.store.getVelX()[0], expectedVelX, 1e-6);
+        assertEquals(this.store.getVelX()[0], (float) this.store.getVelX()[0]);
+        // Within beta the particles repel, so particle 1 is pushed away from particle 0 just past the edge
+        assertTrue(this.store.getVelX()[1] < 0.5);
+    }
+
+    @Test
+    public void testSymmetricPair() {
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.WRAP, 100, 100);
+        this.state.startVelocities(0, 2);
+        assertEquals(this.state.accumulateSymmetricPair(0, 1), 1);
+        this.state.endStep(this.store);
+
+        FloatState ordered = new FloatState();
+        ParticleStore copy = new ParticleStore();
+        copy.addAll(this.store.asList());
+        ordered.beginStep(copy, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        assertEquals(ordered.accumulateSymmetricPair(0, 1), 0);
+    }
+
+    @Test
+    public void testNeighborsMatchPairs() {
+        ParticleType type = this.store.getType(0);
+        this.store.add(new Particle(new Vector(96, 53), new Vector(0, 1), type));
+        this.store.add(new Particle(new Vector(4, 45), new Vector(-1, 0), type));
+        ParticleStore copy = new ParticleStore();
+        copy.addAll(this.store.asList());
+        FloatState pairs = new FloatState();
+        pairs.beginStep(copy, this.attractionMatrix, BoundaryMode.WRAP, 100, 100);
+        pairs.startVelocities(0, 4);
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.WRAP, 100, 100);
+        this.state.startVelocities(0, 4);
+
+        int[] neighbors = {3, 0, 1, 2};
+        assertEquals(this.state.accumulateNeighbors(0, neighbors, 0, 4), 3);
+        assertEquals(this.state.accumulateSymmetricNeighbors(1, neighbors, 0, 1), 1);
+        assertEquals(this.state.accumulateSymmetricNeighbors(2, neighbors, 0, 3), 2);
+        for (int j : neighbors) {
+            pairs.accumulatePair(0, j);
+        }
+        pairs.accumulateSymmetricPair(1, 3);
+        pairs.accumulateSymmetricPair(2, 3);
+        pairs.accumulateSymmetricPair(2, 0);
+        pairs.accumulateSymmetricPair(2, 1);
+        this.state.endStep(this.store);
+        pairs.endStep(copy);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(this.store.getVelX()[i], copy.getVelX()[i]);
+            assertEquals(this.store.getVelY()[i], copy.getVelY()[i]);
+        }
+    }
+
+    @Test
+    public void testReflect() {
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.REFLECT, 100, 100);
+        this.state.startVelocities(0, 2);
+        this.state.integrate(0, 2);
+        this.state.endStep(this.store);
+        assertEquals(this.store.getPosX()[1], 99.5f);
+        assertEquals(this.store.getVelX()[1], -1);
+        assertEquals(this.store.getVelX()[0], 2);
+    }
+
+    @Test
+    public void testReloadsChangedStore() {
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        this.state.startVelocities(0, 2);
+        this.state.integrate(0, 2);
+        this.state.endStep(this.store);
+        assertEquals(this.store.getPosX()[0], 2.1f);
+
+        // Unchanged since the last step, so the float state carries on from where it was
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        this.state.startVelocities(0, 2);
+        this.state.integrate(0, 2);
+        this.state.endStep(this.store);
+        assertEquals(this.store.getPosX()[0], 2.1f + 2);
+
+        this.store.getPosX()[0] = 10;
+        this.store.invalidateViews();
+        this.store.add(new Particle(new Vector(1, 1), this.store.getType(0)));
+        this.state.beginStep(this.store, this.attractionMatrix, BoundaryMode.OPEN, 100, 100);
+        assertEquals(this.state.size(), 3);
+        this.state.startVelocities(0, 3);
+        this.state.integrate(0, 3);
+        this.state.endStep(this.store);
+        assertEquals(this.store.getPosX()[0], 12);
+        assertEquals(this.store.getPosX()[2], 1);
+    }
+}
@@ -0,0 +1,45 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForceTableTest {
+    @Test
+    public void testConstructor() {
+        ForceTable table = new ForceTable(1024, 0.4, 50);
+        assertEquals(table.getResolution(), 1024);
+        assertEquals(table.getRangeSq(), 2500);
+        assertEquals(table.getInnerDistSq(), 2500.0 * ForceTable.INNER_STEPS / 1024);
+    }
+
+    @Test
+    public void testLookupAtSamples() {
+        ForceTable table = new ForceTable(100, 0.4, 10);
+        for (int k = ForceTable.INNER_STEPS; k <= 100; k++) {
+            double dist = Math.sqrt(k);
+            for (double attraction : new double[]{-1, -0.3, 0, 0.5, 1}) {
+                double expected = AttractionMatrix.calcForce(dist / 10, attraction, 0.4) / dist;
+                assertEquals(expected, table.lookup(k, attraction), 1e-12);
+            }
+        }
+        assertEquals(table.lookup(100, 1), 0, 1e-12);
+    }
+
+    @Test
+    public void testAccuracyImprovesWithResolution() {
+        double previousError = Double.POSITIVE_INFINITY;
+        for (int resolution : new int[]{64, 256, 1024, 4096}) {
+            ForceTable table = new ForceTable(resolution, 0.4, 50);
+            double maxError = 0;
+            for (double dist = Math.sqrt(table.getInnerDistSq()); dist <= 50; dist += 0.001) {
+                double expected = AttractionMatrix.calcForce(dist / 50, 0.7, 0.4);
+                double actual = table.lookup(dist * dist, 0.7) * dist;
+                maxError = Math.max(maxError, Math.abs(expected - actual));
+            }
+            assertTrue(maxError < previousError);
+            assertTrue(maxError < 4.0 / resolution, resolution + ": " + maxError);
+            previousError = maxError;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MortonOrderTest {
+    private MortonOrder mortonOrder;
+
+    @BeforeEach
+    public void runBefore() {
+        this.mortonOrder = new MortonOrder();
+    }
+
+    @Test
+    public void testInterleave() {
+        assertEquals(MortonOrder.interleave(0), 0);
+        assertEquals(MortonOrder.interleave(1), 1);
+        assertEquals(MortonOrder.interleave(0b11), 0b101);
+        assertEquals(MortonOrder.interleave(0xFFFF), 0x55555555);
+    }
+
+    @Test
+    public void testKey() {
+        // The four quadrants of the world, in Z order; keys compare as unsigned integers
+        assertEquals(MortonOrder.key(0, 0, 100, 50), 0);
+        assertTrue(Integer.compareUnsigned(MortonOrder.key(99, 24, 100, 50), MortonOrder.key(0, 25, 100, 50)) < 0);
+        assertTrue(Integer.compareUnsigned(MortonOrder.key(49, 49, 100, 50), MortonOrder.key(99, 49, 100, 50)) < 0);
+        assertEquals(MortonOrder.key(99.9999, 49.9999, 100, 50), 0xFFFFFFFF);
+        // Points outside the world are clamped to its edges
+        assertEquals(MortonOrder.key(-5, -1e9, 100, 50), 0);
+        assertEquals(MortonOrder.key(1e9, 50, 100, 50), 0xFFFFFFFF);
+        assertEquals(MortonOrder.key(-5, 25, 100, 50), MortonOrder.key(0, 25, 100, 50));
+    }
+
+    @Test
+    public void testSort() {
+        double[] posX = {75, 25, 75, 25, 10};
+        double[] posY = {75, 75, 25, 25, 10};
+        int[] order = this.mortonOrder.sort(posX, posY, 5, 100, 100);
+        assertArrayEquals(new int[]{4, 3, 2, 1, 0}, Arrays.copyOf(order, 5));
+    }
+
+    @Test
+    public void testSortIsStable() {
+        double[] posX = {1, 60, 1, 60, 1};
+        double[] posY = {1, 60, 1, 60, 1};
+        int[] order = this.mortonOrder.sort(posX, posY, 5, 100, 100);
+        assertArrayEquals(new int[]{0, 2, 4, 1, 3}, Arrays.copyOf(order, 5));
+    }
+
+    @Test
+    public void testSortRandom() {
+        Random random = new Random(210);
+        int n = 5000;
+        double[] posX = new double[n + 10];
+        double[] posY = new double[n + 10];
+        for (int i = 0; i < n; i++) {
+            posX[i] = random.nextDouble() * 800;
+            posY[i] = random.nextDouble() * 600;
+        }
+        // Sorting fewer particles than before reuses the arrays
+        this.mortonOrder.sort(posX, posY, n, 800, 600);
+        int[] order = this.mortonOrder.sort(posX, posY, n - 1, 800, 600);
+        boolean[] seen = new boolean[n - 1];
+        for (int k = 0; k < n - 1; k++) {
+            assertFalse(seen[order[k]]);
+            seen[order[k]] = true;
+            if (k > 0) {
+                int previous = MortonOrder.key(posX[order[k - 1]], posY[order[k - 1]], 800, 600);
+                int current = MortonOrder.key(posX[order[k]], posY[order[k]], 800, 600);
+                assertTrue(Integer.compareUnsigned(previous, current) <= 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSortEmpty() {
+        assertNotNull(this.mortonOrder.sort(new double[0], new double[0], 0, 10, 10));
+    }
+}
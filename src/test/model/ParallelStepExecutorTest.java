@@ -0,0 +1,82 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelStepExecutorTest {
+    private ParallelStepExecutor executor;
+
+    @BeforeEach
+    public void runBefore() {
+        this.executor = new ParallelStepExecutor(4);
+    }
+
+    @AfterEach
+    public void runAfter() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.executor.getThreads(), 4);
+        ParallelStepExecutor defaultExecutor = new ParallelStepExecutor();
+        assertEquals(defaultExecutor.getThreads(), Runtime.getRuntime().availableProcessors());
+        defaultExecutor.shutdown();
+    }
+
+    @Test
+    public void testExecuteVisitsEveryIndexOnce() {
+        for (int n : new int[]{0, 1, 255, 256, 257, 10000}) {
+            AtomicIntegerArray visits = new AtomicIntegerArray(n);
+            this.executor.execute(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    visits.incrementAndGet(i);
+                }
+            });
+            for (int i = 0; i < n; i++) {
+                assertEquals(visits.get(i), 1);
+            }
+        }
+    }
+
+    @Test
+    public void testSerialExecutor() {
+        int[] range = new int[2];
+        new SerialStepExecutor().execute(42, (from, to) -> {
+            range[0] = from;
+            range[1] = to;
+        });
+        assertEquals(range[0], 0);
+        assertEquals(range[1], 42);
+    }
+
+    @Test
+    public void testParallelUpdateMatchesSerial() {
+        for (NeighborSearch neighborSearch : NeighborSearch.values()) {
+            Simulation serial = new Simulation(800, 600);
+            serial.generateRandomWorld(3000);
+            serial.setNeighborSearch(neighborSearch);
+            Simulation parallel = Simulation.fromJson(serial.toJson());
+            parallel.setNeighborSearch(neighborSearch);
+            parallel.setStepExecutor(this.executor);
+
+            for (int step = 0; step < 10; step++) {
+                serial.update();
+                parallel.update();
+            }
+            for (int i = 0; i < serial.getParticles().size(); i++) {
+                Particle e = serial.getParticles().get(i);
+                Particle a = parallel.getParticles().get(i);
+                assertEquals(e.getPos().getX(), a.getPos().getX());
+                assertEquals(e.getPos().getY(), a.getPos().getY());
+                assertEquals(e.getVel().getX(), a.getVel().getX());
+                assertEquals(e.getVel().getY(), a.getVel().getY());
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParticleStoreTest {
+    private ParticleStore store;
+    private ParticleType type1;
+    private ParticleType type2;
+    private Particle p1;
+    private Particle p2;
+    private Particle p3;
+
+    @BeforeEach
+    public void runBefore() {
+        this.store = new ParticleStore();
+        this.type1 = new ParticleType(Color.RED, 0);
+        this.type2 = new ParticleType(Color.BLUE, 1);
+        this.p1 = new Particle(new Vector(1, 2), new Vector(3, 4), this.type1);
+        this.p2 = new Particle(new Vector(5, 6), new Vector(7, 8), this.type2);
+        this.p3 = new Particle(new Vector(9, 10), new Vector(11, 12), this.type1);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.store.size(), 0);
+        assertTrue(this.store.asList().isEmpty());
+    }
+
+    @Test
+    public void testAdd() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(1, this.p3);
+
+        assertEquals(this.store.size(), 3);
+        assertSame(this.store.get(0), this.p1);
+        assertSame(this.store.get(1), this.p3);
+        assertSame(this.store.get(2), this.p2);
+        assertEquals(this.store.getPosX()[1], 9);
+        assertEquals(this.store.getPosY()[2], 6);
+        assertEquals(this.store.getVelX()[0], 3);
+        assertEquals(this.store.getVelY()[0], 4);
+        assertEquals(this.store.getTypes()[2], 1);
+    }
+
+    @Test
+    public void testAddGrowsCapacity() {
+        for (int i = 0; i < 100; i++) {
+            this.store.add(new Particle(new Vector(i, -i), this.type2));
+        }
+        assertEquals(this.store.size(), 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(this.store.getPosX()[i], i);
+            assertEquals(this.store.get(i).getPos().getY(), -i);
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(this.p3);
+
+        assertSame(this.store.remove(1), this.p2);
+        assertEquals(this.store.size(), 2);
+        assertSame(this.store.get(1), this.p3);
+        assertEquals(this.store.getPosX()[1], 9);
+
+        this.store.clear();
+        assertEquals(this.store.size(), 0);
+    }
+
+    @Test
+    public void testAddAll() {
+        this.store.add(this.p1);
+        this.store.addAll(List.of(this.p2, this.p3));
+        assertEquals(this.store.size(), 3);
+        assertSame(this.store.get(1), this.p2);
+        assertSame(this.store.get(2), this.p3);
+        assertEquals(this.store.getTypes()[1], 1);
+    }
+
+    @Test
+    public void testCopy() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(this.p3);
+        ParticleType copy1 = new ParticleType(Color.RED, 0);
+        ParticleStore copy = this.store.copy(type -> type == this.type1 ? copy1 : type);
+
+        assertEquals(copy.size(), 3);
+        assertEquals(copy.getPosX()[2], 9);
+        assertEquals(copy.getPosY()[1], 6);
+        assertEquals(copy.getVelX()[0], 3);
+        assertEquals(copy.getVelY()[2], 12);
+        assertEquals(copy.getTypes()[1], 1);
+        assertSame(copy.getType(0), copy1);
+        assertSame(copy.getType(1), this.type2);
+
+        // The copy does not share its arrays
+        this.store.getPosX()[0] = -1;
+        assertEquals(copy.getPosX()[0], 1);
+        assertEquals(copy.get(0).getPos().getX(), 1);
+        copy.add(this.p1);
+        assertEquals(this.store.size(), 3);
+
+        // The copy keeps the IDs, and does not hand them out again
+        assertEquals(copy.getId(2), this.store.getId(2));
+        assertEquals(copy.indexOf(copy.getId(3)), 3);
+        assertEquals(this.store.indexOf(copy.getId(3)), -1);
+    }
+
+    @Test
+    public void testIds() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(0, this.p3);
+        this.store.add(1, 2, 3, 4, this.type2);
+        int id1 = this.store.getId(1);
+        int id3 = this.store.getId(0);
+        assertEquals(this.store.indexOf(id3), 0);
+        assertEquals(this.store.indexOf(id1), 1);
+        assertNotEquals(id1, this.store.getId(2));
+        assertNotEquals(this.store.getId(2), this.store.getId(3));
+
+        // Overwriting a particle keeps its ID, removing one frees nothing for reuse
+        this.store.set(0, this.p2);
+        assertEquals(this.store.getId(0), id3);
+        this.store.remove(0);
+        assertEquals(this.store.indexOf(id3), -1);
+        assertEquals(this.store.indexOf(id1), 0);
+        this.store.add(this.p3);
+        assertNotEquals(this.store.getId(3), id3);
+        this.store.removeWhere(i -> i == 1);
+        assertEquals(this.store.indexOf(id1), 0);
+        assertEquals(this.store.indexOf(-1), -1);
+    }
+
+    @Test
+    public void testReorder() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(this.p3);
+        int[] ids = {this.store.getId(0), this.store.getId(1), this.store.getId(2)};
+        Particle view = this.store.get(0);
+        long version = this.store.getVersion();
+        this.store.reorder(new int[]{2, 0, 1, 99});
+
+        assertEquals(this.store.size(), 3);
+        assertEquals(this.store.getReorders(), 1);
+        assertNotEquals(this.store.getVersion(), version);
+        assertArrayEquals(new int[]{ids[2], ids[0], ids[1]},
+                new int[]{this.store.getId(0), this.store.getId(1), this.store.getId(2)});
+        assertEquals(this.store.getPosX()[0], 9);
+        assertEquals(this.store.getPosY()[1], 2);
+        assertEquals(this.store.getVelX()[2], 7);
+        assertEquals(this.store.getVelY()[0], 12);
+        assertEquals(this.store.getTypes()[2], 1);
+        assertSame(this.store.getType(2), this.type2);
+        Particle moved = this.store.get(1);
+        assertNotSame(moved, view);
+        assertEquals(moved.getPos().getX(), 1);
+        assertEquals(moved.getVel().getY(), 4);
+        assertSame(moved.getType(), this.type1);
+    }
+
+    @Test
+    public void testReorderAfterGrowing() {
+        this.store.add(this.p1);
+        this.store.reorder(new int[]{0});
+        for (int i = 0; i < 100; i++) {
+            this.store.add(i, -i, 0, 0, this.type2);
+        }
+        int[] reversed = new int[101];
+        for (int k = 0; k < 101; k++) {
+            reversed[k] = 100 - k;
+        }
+        int lastId = this.store.getId(100);
+        this.store.reorder(reversed);
+        assertEquals(this.store.getId(0), lastId);
+        assertEquals(this.store.getPosX()[0], 99);
+        assertEquals(this.store.getPosY()[100], 2);
+        assertSame(this.store.getType(100), this.type1);
+        assertEquals(this.store.getReorders(), 2);
+    }
+
+    @Test
+    public void testRemoveWhere() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.store.add(this.p3);
+        this.store.add(this.p1);
+
+        assertEquals(this.store.removeWhere(i -> i == 0 || this.store.getType(i) == this.type2), 2);
+        assertEquals(this.store.size(), 2);
+        assertSame(this.store.get(0), this.p3);
+        assertSame(this.store.get(1), this.p1);
+        assertEquals(this.store.getPosX()[0], 9);
+        assertEquals(this.store.getVelY()[1], 4);
+
+        assertEquals(this.store.removeWhere(i -> false), 0);
+        assertEquals(this.store.size(), 2);
+        assertEquals(this.store.removeWhere(i -> true), 2);
+        assertEquals(this.store.size(), 0);
+    }
+
+    @Test
+    public void testVersion() {
+        long version = this.store.getVersion();
+        this.store.add(this.p1);
+        assertNotEquals(this.store.getVersion(), version);
+
+        version = this.store.getVersion();
+        this.store.get(0);
+        assertEquals(this.store.getVersion(), version);
+        this.store.invalidateViews();
+        assertNotEquals(this.store.getVersion(), version);
+
+        version = this.store.getVersion();
+        this.store.removeWhere(i -> true);
+        assertNotEquals(this.store.getVersion(), version);
+    }
+
+    @Test
+    public void testViewsAfterInPlaceUpdate() {
+        this.store.add(this.p1);
+        this.store.getPosX()[0] = 100;
+        this.store.getNextVelX()[0] = 50;
+        this.store.getNextVelY()[0] = 60;
+        this.store.commitVelocities();
+
+        Particle view = this.store.get(0);
+        assertNotSame(view, this.p1);
+        assertSame(view, this.store.get(0));
+        assertEquals(view.getPos().getX(), 100);
+        assertEquals(view.getPos().getY(), 2);
+        assertEquals(view.getVel().getX(), 50);
+        assertEquals(view.getVel().getY(), 60);
+        assertSame(view.getType(), this.type1);
+
+        // Snapshots handed out earlier are unaffected
+        assertEquals(this.p1.getPos().getX(), 1);
+        assertEquals(this.p1.getVel().getX(), 3);
+    }
+
+    @Test
+    public void testRefreshTypes() {
+        this.store.add(this.p1);
+        this.store.add(this.p2);
+        this.type2.setID(5);
+        assertEquals(this.store.getTypes()[1], 1);
+        this.store.refreshTypes();
+        assertEquals(this.store.getTypes()[1], 5);
+    }
+
+    @Test
+    public void testListView() {
+        List<Particle> list = this.store.asList();
+        list.add(this.p1);
+        list.add(this.p2);
+        assertEquals(this.store.size(), 2);
+        assertSame(list.set(0, this.p3), this.p1);
+        assertSame(this.store.get(0), this.p3);
+        assertTrue(list.contains(this.p2));
+        assertSame(list.remove(1), this.p2);
+        assertEquals(list.size(), 1);
+
+        try {
+            list.get(1);
+            fail("Should throw IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // fallthrough
+        }
+        list.clear();
+        assertTrue(this.store.asList().isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuadTreeTest {
+    private QuadTree tree;
+
+    @BeforeEach
+    public void runBefore() {
+        this.tree = new QuadTree();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.tree.getLeafCount(), 0);
+        assertEquals(this.tree.getNodeCount(), 0);
+    }
+
+    @Test
+    public void testBuildEmpty() {
+        this.tree.build(new double[0], new double[0], 0, 50);
+        assertEquals(this.tree.getNodeCount(), 1);
+        assertEquals(this.tree.getLeafCount(), 0);
+        assertEquals(this.tree.getRangeCount(), 0);
+    }
+
+    @Test
+    public void testBuildSingleLeaf() {
+        double[] posX = {10, 700, 20, 300};
+        double[] posY = {10, 500, 400, 20};
+        this.tree.build(posX, posY, 4, 50);
+        assertFalse(this.tree.isPeriodic());
+        assertEquals(this.tree.getNodeCount(), 1);
+        assertEquals(this.tree.getLeafCount(), 1);
+        assertEquals(this.tree.getLeafStart(0), 0);
+        assertEquals(this.tree.getLeafEnd(0), 4);
+        assertEquals(this.tree.getLeaf(3), 0);
+        // The leaf is its own neighbor
+        assertEquals(this.tree.getNeighborStart(1) - this.tree.getNeighborStart(0), 1);
+        assertEquals(this.tree.getRangeStart(0), 0);
+        assertEquals(this.tree.getRangeEnd(0), 4);
+    }
+
+    @Test
+    public void testBuildSplitsByOccupancy() {
+        Random random = new Random(210);
+        int n = 1000;
+        double[] posX = new double[n];
+        double[] posY = new double[n];
+        // A dense clump in one corner, and a few particles spread over the rest
+        for (int i = 0; i < n; i++) {
+            boolean clumped = i % 10 != 0;
+            posX[i] = clumped ? 100 + random.nextDouble() * 100 : random.nextDouble() * 800;
+            posY[i] = clumped ? 100 + random.nextDouble() * 100 : random.nextDouble() * 600;
+        }
+        this.tree.build(posX, posY, n, 50);
+        assertLeavesPartitionParticles(n);
+        assertFullLeavesCannotSplit(posX, posY, 50);
+        assertTrue(this.tree.getLeafCount() > n / QuadTree.LEAF_CAPACITY);
+        assertNeighborsCoverRange(posX, posY, n, 50, 0, 0);
+    }
+
+    @Test
+    public void testBuildStopsAtMinimumSize() {
+        int n = 100;
+        double[] posX = new double[n];
+        double[] posY = new double[n];
+        for (int i = 0; i < n; i++) {
+            posX[i] = i < 50 ? 300 : 300 + i * 1e-9;
+            posY[i] = 200;
+        }
+        posX[0] = 0;
+        posY[0] = 0;
+        this.tree.build(posX, posY, n, 50);
+        assertLeavesPartitionParticles(n);
+        // The coincident particles share one leaf rather than splitting without end
+        assertEquals(this.tree.getLeaf(1), this.tree.getLeaf(99));
+        assertTrue(this.tree.getNodeCount() < 100);
+    }
+
+    @Test
+    public void testBuildPeriodic() {
+        Random random = new Random(5);
+        int n = 2000;
+        double[] posX = new double[n];
+        double[] posY = new double[n];
+        for (int i = 0; i < n; i++) {
+            // Clumps straddling the edges and corners of the world
+            posX[i] = (random.nextDouble() * 40 - 20 + (i % 2) * 400 + 800) % 800;
+            posY[i] = (random.nextDouble() * 40 - 20 + (i % 3) * 300 + 600) % 600;
+        }
+        this.tree.buildPeriodic(posX, posY, n, 800, 600, 30);
+        assertTrue(this.tree.isPeriodic());
+        assertLeavesPartitionParticles(n);
+        assertNeighborsCoverRange(posX, posY, n, 30, 800, 600);
+
+        // Rebuilding over the bounding box only, the tree is not periodic again
+        this.tree.build(posX, posY, n, 30);
+        assertFalse(this.tree.isPeriodic());
+        assertNeighborsCoverRange(posX, posY, n, 30, 0, 0);
+    }
+
+    @Test
+    public void testRebuildWithFewerParticles() {
+        Random random = new Random(7);
+        double[] posX = new double[500];
+        double[] posY = new double[500];
+        for (int i = 0; i < 500; i++) {
+            posX[i] = random.nextDouble() * 100;
+            posY[i] = random.nextDouble() * 100;
+        }
+        this.tree.build(posX, posY, 500, 10);
+        this.tree.build(posX, posY, 20, 10);
+        assertLeavesPartitionParticles(20);
+        assertNeighborsCoverRange(posX, posY, 20, 10, 0, 0);
+    }
+
+    // EFFECTS: asserts that the particles of every leaf holding more than LEAF_CAPACITY of them lie within a
+    //          box no wider or taller than the smallest node a tree over the given range splits
+    private void assertFullLeavesCannotSplit(double[] posX, double[] posY, double range) {
+        int[] particles = this.tree.getParticles();
+        for (int leaf = 0; leaf < this.tree.getLeafCount(); leaf++) {
+            if (this.tree.getLeafEnd(leaf) - this.tree.getLeafStart(leaf) > QuadTree.LEAF_CAPACITY) {
+                double minX = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (int k = this.tree.getLeafStart(leaf); k < this.tree.getLeafEnd(leaf); k++) {
+                    minX = Math.min(minX, posX[particles[k]]);
+                    maxX = Math.max(maxX, posX[particles[k]]);
+                    minY = Math.min(minY, posY[particles[k]]);
+                    maxY = Math.max(maxY, posY[particles[k]]);
+                }
+                assertTrue(maxX - minX <= range / 4 && maxY - minY <= range / 4);
+            }
+        }
+    }
+
+    // EFFECTS: asserts that the leaves hold every one of the n particles once, in contiguous ranges of the
+    //          tree ordering, and that each particle's leaf holds it
+    private void assertLeavesPartitionParticles(int n) {
+        int[] particles = this.tree.getParticles();
+        boolean[] seen = new boolean[n];
+        int position = 0;
+        for (int leaf = 0; leaf < this.tree.getLeafCount(); leaf++) {
+            assertTrue(this.tree.getLeafEnd(leaf) > this.tree.getLeafStart(leaf));
+            for (int k = this.tree.getLeafStart(leaf); k < this.tree.getLeafEnd(leaf); k++) {
+                assertFalse(seen[particles[k]]);
+                seen[particles[k]] = true;
+                assertEquals(this.tree.getLeaf(particles[k]), leaf);
+                position++;
+            }
+        }
+        assertEquals(position, n);
+    }
+
+    // EFFECTS: asserts that the neighbor ranges of the leaf of every particle are increasing, do not overlap,
+    //          and hold every particle within range of it; across the edges of a width x height world if
+    //          width > 0
+    private void assertNeighborsCoverRange(double[] posX, double[] posY, int n, double range, double width,
+                                           double height) {
+        int[] particles = this.tree.getParticles();
+        int[] positions = new int[n];
+        for (int k = 0; k < n; k++) {
+            positions[particles[k]] = k;
+        }
+        for (int i = 0; i < n; i++) {
+            int leaf = this.tree.getLeaf(i);
+            boolean[] covered = new boolean[n];
+            int last = 0;
+            for (int r = this.tree.getNeighborStart(leaf); r < this.tree.getNeighborStart(leaf + 1); r++) {
+                assertTrue(this.tree.getRangeStart(r) >= last);
+                assertTrue(this.tree.getRangeEnd(r) > this.tree.getRangeStart(r));
+                last = this.tree.getRangeEnd(r);
+                for (int k = this.tree.getRangeStart(r); k < this.tree.getRangeEnd(r); k++) {
+                    covered[k] = true;
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                double dx = posX[j] - posX[i];
+                double dy = posY[j] - posY[i];
+                if (width > 0) {
+                    dx = BoundaryMode.minimumImage(dx, width);
+                    dy = BoundaryMode.minimumImage(dy, height);
+                }
+                if (dx * dx + dy * dy <= range * range) {
+                    assertTrue(covered[positions[j]], "particle " + j + " missing near " + i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateMeterTest {
+    @Test
+    public void testConstructor() {
+        assertEquals(new RateMeter().getRate(), 0);
+    }
+
+    @Test
+    public void testRate() {
+        RateMeter rateMeter = new RateMeter();
+        long start = 1_000_000_000L;
+        for (int i = 0; i <= 49; i++) {
+            rateMeter.tick(start + i * 10_000_000L);
+        }
+        assertEquals(rateMeter.getRate(), 0);
+        rateMeter.tick(start + 500_000_000L);
+        assertEquals(rateMeter.getRate(), 100, 1e-9);
+
+        for (int i = 1; i <= 10; i++) {
+            rateMeter.tick(start + 500_000_000L + i * 50_000_000L);
+        }
+        assertEquals(rateMeter.getRate(), 20, 1e-9);
+    }
+
+    @Test
+    public void testTickNow() {
+        RateMeter rateMeter = new RateMeter();
+        long end = System.nanoTime() + 600_000_000L;
+        while (System.nanoTime() < end) {
+            rateMeter.tick();
+        }
+        assertTrue(rateMeter.getRate() > 0);
+    }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderBufferTest {
+    private RenderBuffer renderBuffer;
+    private Simulation simulation;
+
+    @BeforeEach
+    public void runBefore() {
+        this.renderBuffer = new RenderBuffer();
+        this.simulation = new Simulation(800, 600);
+        this.simulation.generateRandomWorld(50);
+    }
+
+    @Test
+    public void testAcquireBeforePublish() {
+        RenderSnapshot snapshot = this.renderBuffer.acquire();
+        assertEquals(snapshot.size(), 0);
+        assertEquals(snapshot.getStep(), 0);
+        assertSame(this.renderBuffer.acquire(), snapshot);
+    }
+
+    @Test
+    public void testAcquireLatest() {
+        this.renderBuffer.publish(this.simulation);
+        RenderSnapshot first = this.renderBuffer.acquire();
+        assertEquals(first.getStep(), 1);
+        assertEquals(first.size(), 50);
+        assertEquals(first.getPosX()[0], (float) this.simulation.getParticles().get(0).getPos().getX());
+        assertSame(this.renderBuffer.acquire(), first);
+
+        this.simulation.update();
+        this.renderBuffer.publish(this.simulation);
+        this.simulation.update();
+        this.renderBuffer.publish(this.simulation);
+        RenderSnapshot third = this.renderBuffer.acquire();
+        assertEquals(third.getStep(), 3);
+        assertEquals(third.getPosX()[0], (float) this.simulation.getParticles().get(0).getPos().getX());
+    }
+
+    @Test
+    public void testPublishFrame() {
+        TrajectoryFrame frame = new TrajectoryFrame();
+        frame.resize(2);
+        frame.getPosX()[1] = 4.5;
+        frame.getPosY()[1] = 7;
+        frame.getColors()[1] = 0xFF123456;
+        frame.setWidth(300);
+        frame.setHeight(200);
+        this.renderBuffer.publish(frame);
+        RenderSnapshot snapshot = this.renderBuffer.acquire();
+        assertEquals(snapshot.getStep(), 1);
+        assertEquals(snapshot.size(), 2);
+        assertEquals(snapshot.getPosX()[1], 4.5f);
+        assertEquals(snapshot.getPosY()[1], 7f);
+        assertEquals(snapshot.getColors()[1], 0xFF123456);
+        assertEquals(snapshot.getWidth(), 300);
+        assertEquals(snapshot.getHeight(), 200);
+    }
+
+    @Test
+    public void testPublishNeverOverwritesAcquired() {
+        this.renderBuffer.publish(this.simulation);
+        RenderSnapshot held = this.renderBuffer.acquire();
+        float x = held.getPosX()[0];
+        ParticleType type = this.simulation.getParticleTypes().get(0);
+        for (int i = 0; i < 10; i++) {
+            this.simulation.getParticles().set(0, new Particle(new Vector(i, i), type));
+            this.renderBuffer.publish(this.simulation);
+            assertEquals(held.getStep(), 1);
+            assertEquals(held.getPosX()[0], x);
+        }
+        assertEquals(this.renderBuffer.acquire().getStep(), 11);
+    }
+
+    @Test
+    public void testConcurrentPublishAndAcquire() throws InterruptedException {
+        // Every particle of a published step is at the same x, so a torn snapshot would have mixed values
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = new Thread(() -> {
+            for (int step = 0; step < 20000; step++) {
+                double[] posX = this.simulation.getParticleStore().getPosX();
+                for (int i = 0; i < this.simulation.getParticles().size(); i++) {
+                    posX[i] = step;
+                }
+                this.renderBuffer.publish(this.simulation);
+            }
+            done.set(true);
+        });
+        writer.start();
+        long lastStep = 0;
+        while (!done.get()) {
+            RenderSnapshot snapshot = this.renderBuffer.acquire();
+            assertTrue(snapshot.getStep() >= lastStep);
+            lastStep = snapshot.getStep();
+            for (int i = 1; i < snapshot.size(); i++) {
+                assertEquals(snapshot.getPosX()[i], snapshot.getPosX()[0]);
+            }
+        }
+        writer.join();
+        assertEquals(this.renderBuffer.acquire().getStep(), 20000);
+    }
+}
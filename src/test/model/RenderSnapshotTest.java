@@ -0,0 +1,58 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderSnapshotTest {
+    @Test
+    public void testConstructor() {
+        RenderSnapshot snapshot = new RenderSnapshot();
+        assertEquals(snapshot.size(), 0);
+        assertEquals(snapshot.getStep(), 0);
+    }
+
+    @Test
+    public void testFill() {
+        Simulation simulation = new Simulation(800, 600);
+        ParticleType red = simulation.addParticleType();
+        red.setColor(Color.RED);
+        simulation.addParticle(new Particle(new Vector(1.5, 2.5), red));
+        simulation.addParticle(new Particle(new Vector(700, 500), new ParticleType(Color.BLUE, 1)));
+
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.fill(simulation, 7);
+        assertEquals(snapshot.size(), 2);
+        assertEquals(snapshot.getStep(), 7);
+        assertEquals(snapshot.getWidth(), 800);
+        assertEquals(snapshot.getHeight(), 600);
+        assertEquals(snapshot.getPosX()[0], 1.5f);
+        assertEquals(snapshot.getPosY()[0], 2.5f);
+        assertEquals(snapshot.getPosX()[1], 700f);
+        assertEquals(snapshot.getColors()[0], Color.RED.getRGB());
+        assertEquals(snapshot.getColors()[1], Color.BLUE.getRGB());
+        assertEquals(snapshot.getTypeIds()[0], red.getID());
+        assertEquals(snapshot.getTypeIds()[1], 1);
+    }
+
+    @Test
+    public void testFillReusesArrays() {
+        Simulation simulation = new Simulation(800, 600);
+        simulation.generateRandomWorld(100);
+        RenderSnapshot snapshot = new RenderSnapshot();
+        snapshot.fill(simulation, 1);
+        float[] posX = snapshot.getPosX();
+
+        simulation.getParticles().remove(0);
+        snapshot.fill(simulation, 2);
+        assertSame(snapshot.getPosX(), posX);
+        assertEquals(snapshot.size(), 99);
+
+        simulation.generateRandomWorld(1000);
+        snapshot.fill(simulation, 3);
+        assertEquals(snapshot.size(), 1000);
+        assertTrue(snapshot.getPosX().length >= 1000);
+    }
+}
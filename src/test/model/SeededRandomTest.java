@@ -0,0 +1,76 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeededRandomTest {
+    @Test
+    public void testSameSeedSameSequence() {
+        SeededRandom first = new SeededRandom(42);
+        SeededRandom second = new SeededRandom(42);
+        SeededRandom other = new SeededRandom(43);
+        boolean differs = false;
+        for (int i = 0; i < 100; i++) {
+            long value = first.nextLong();
+            assertEquals(second.nextLong(), value);
+            differs |= other.nextLong() != value;
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testMatchesSplittableRandom() {
+        SeededRandom random = new SeededRandom(-7);
+        SplittableRandom reference = new SplittableRandom(-7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextLong(), reference.nextLong());
+        }
+    }
+
+    @Test
+    public void testNextDouble() {
+        SeededRandom random = new SeededRandom(1);
+        double sum = 0;
+        for (int i = 0; i < 10000; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+            sum += value;
+        }
+        assertEquals(sum / 10000, 0.5, 0.02);
+    }
+
+    @Test
+    public void testNextInt() {
+        SeededRandom random = new SeededRandom(2);
+        int[] counts = new int[3];
+        for (int i = 0; i < 3000; i++) {
+            counts[random.nextInt(3)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random.nextInt(1), 0);
+            int value = random.nextInt(Integer.MAX_VALUE);
+            assertTrue(value >= 0);
+        }
+    }
+
+    @Test
+    public void testSetSeedResumesSequence() {
+        SeededRandom random = new SeededRandom(5);
+        assertEquals(random.getSeed(), 5);
+        random.nextLong();
+        random.nextDouble();
+        long seed = random.getSeed();
+        long expected = random.nextLong();
+
+        SeededRandom resumed = new SeededRandom(0);
+        resumed.setSeed(seed);
+        assertEquals(resumed.getSeed(), seed);
+        assertEquals(resumed.nextLong(), expected);
+    }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationMetricsTest {
+    private SimulationMetrics metrics;
+
+    @BeforeEach
+    public void runBefore() {
+        this.metrics = new SimulationMetrics();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.metrics.getSteps(), 0);
+        assertEquals(this.metrics.getParticles(), 0);
+        for (SimulationMetrics.Counter counter : SimulationMetrics.Counter.values()) {
+            assertEquals(this.metrics.getLast(counter), 0);
+            assertEquals(this.metrics.getTotal(counter), 0);
+        }
+        assertEquals(this.metrics.getParticlesPerType().length, 0);
+    }
+
+    @Test
+    public void testStep() {
+        step(new int[]{0, 2, 2, 1, 2, 7}, 5, 3, 100, 40);
+        assertEquals(this.metrics.getSteps(), 1);
+        assertEquals(this.metrics.getParticles(), 5);
+        assertEquals(this.metrics.getPairsTested(), 100);
+        assertEquals(this.metrics.getPairsInRange(), 40);
+        assertArrayEquals(this.metrics.getParticlesPerType(), new int[]{1, 1, 3});
+        assertTrue(this.metrics.getNeighborSearchNanos() >= 0);
+        assertTrue(this.metrics.getForceNanos() >= 0);
+        assertTrue(this.metrics.getIntegrationNanos() >= 0);
+        assertTrue(this.metrics.getAllocatedBytes() >= 0);
+
+        // Ids outside the types are not counted
+        step(new int[]{1, 1, 7, -1}, 4, 2, 50, 10);
+        assertEquals(this.metrics.getSteps(), 2);
+        assertEquals(this.metrics.getParticles(), 4);
+        assertEquals(this.metrics.getPairsTested(), 50);
+        assertEquals(this.metrics.getTotalPairsTested(), 150);
+        assertEquals(this.metrics.getTotalPairsInRange(), 50);
+        assertArrayEquals(this.metrics.getParticlesPerType(), new int[]{0, 2});
+        assertTrue(this.metrics.getTotalForceNanos() >= this.metrics.getForceNanos());
+        assertTrue(this.metrics.getTotalNeighborSearchNanos() >= this.metrics.getNeighborSearchNanos());
+        assertTrue(this.metrics.getTotalIntegrationNanos() >= this.metrics.getIntegrationNanos());
+        assertTrue(this.metrics.getTotalAllocatedBytes() >= this.metrics.getAllocatedBytes());
+    }
+
+    @Test
+    public void testStepTimesPhases() throws InterruptedException {
+        this.metrics.startStep();
+        this.metrics.endNeighborSearch();
+        this.metrics.endForces(0, 0);
+        Thread.sleep(20);
+        this.metrics.endStep(new int[0], 0, 0);
+        assertTrue(this.metrics.getIntegrationNanos() >= 20_000_000L);
+        assertTrue(this.metrics.getForceNanos() < this.metrics.getIntegrationNanos());
+    }
+
+    @Test
+    public void testRecordNeighborLists() {
+        this.metrics.startStep();
+        this.metrics.recordNeighborLists(true, 1000);
+        this.metrics.endNeighborSearch();
+        this.metrics.endForces(0, 0);
+        this.metrics.endStep(new int[0], 0, 0);
+        assertEquals(this.metrics.getNeighborListBuilds(), 1);
+        assertEquals(this.metrics.getNeighborListBytes(), 1000);
+
+        // A step that does not record lists uses none
+        step(new int[0], 0, 0, 0, 0);
+        assertEquals(this.metrics.getNeighborListBuilds(), 0);
+        assertEquals(this.metrics.getNeighborListBytes(), 0);
+        assertEquals(this.metrics.getTotalNeighborListBuilds(), 1);
+    }
+
+    @Test
+    public void testParticlesPerTypeIsACopy() {
+        step(new int[]{0}, 1, 1, 0, 0);
+        this.metrics.getParticlesPerType()[0] = 5;
+        assertEquals(this.metrics.getParticlesPerType()[0], 1);
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SimulationMetrics.OBJECT_NAME);
+        try {
+            this.metrics.register();
+            step(new int[]{0, 0}, 2, 1, 4, 2);
+            assertEquals(server.getAttribute(name, "PairsTested"), 4L);
+            assertEquals(server.getAttribute(name, "Steps"), 1L);
+
+            // Registering other metrics replaces them
+            new SimulationMetrics().register();
+            assertEquals(server.getAttribute(name, "Steps"), 0L);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records a step that tested and found the given number of pairs
+    private void step(int[] types, int n, int numTypes, long pairsTested, long pairsInRange) {
+        this.metrics.startStep();
+        this.metrics.endNeighborSearch();
+        this.metrics.endForces(pairsTested, pairsInRange);
+        this.metrics.endStep(types, n, numTypes);
+    }
+}
@@ -2,9 +2,16 @@ package model;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.json.JSONObject;
+
+import com.sun.management.ThreadMXBean;
 
 import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,6 +84,9 @@ public class SimulationTest {
 
     @Test
     public void testUpdateMultipleParticles() {
+        // The expected values below sum the attractions in list order, which only the reference
+        // (brute force) neighbor search guarantees bit for bit.
+        this.simulation.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
         for (int iter = 0; iter < 1000; iter++) {
             this.simulation.generateRandomWorld(3);
             this.simulation.getAttractionMatrix().setFriction(1.0);
@@ -130,6 +140,820 @@ public class SimulationTest {
         }
     }
 
+    @Test
+    public void testDefaultNeighborSearch() {
+        assertEquals(this.simulation.getNeighborSearch(), NeighborSearch.GRID);
+        assertTrue(this.simulation.getStepExecutor() instanceof SerialStepExecutor);
+    }
+
+    @Test
+    public void testUpdateGridMatchesBruteForce() {
+        for (int iter = 0; iter < 20; iter++) {
+            this.simulation.generateRandomWorld(300);
+            this.simulation.getAttractionMatrix().setRange(iter % 4 == 0 ? 0 : 10 + iter * 15);
+            Simulation reference = copyOf(this.simulation);
+            reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+
+            for (int step = 0; step < 5; step++) {
+                this.simulation.update();
+                reference.update();
+            }
+            assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+        }
+    }
+
+    @Test
+    public void testDefaultBoundaryMode() {
+        assertEquals(this.simulation.getBoundaryMode(), BoundaryMode.OPEN);
+        this.simulation.addParticleType();
+        this.simulation.addParticle(new Particle(new Vector(795, 300), new Vector(10, 0),
+                this.simulation.getParticleTypes().get(0)));
+        this.simulation.update();
+        assertEquals(this.simulation.getParticles().get(0).getPos().getX(), 805);
+    }
+
+    @Test
+    public void testUpdateWrap() {
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        ParticleType type = this.simulation.addParticleType();
+        this.simulation.addParticle(new Particle(new Vector(795, 5), new Vector(10, -10), type));
+        this.simulation.addParticle(new Particle(new Vector(-850, 1250), new Vector(), type));
+        this.simulation.getAttractionMatrix().setRange(0);
+        this.simulation.update();
+
+        assertEquals(this.simulation.getParticles().get(0).getPos().getX(), 5);
+        assertEquals(this.simulation.getParticles().get(0).getPos().getY(), 595);
+        assertEquals(this.simulation.getParticles().get(0).getVel().getX(), 7);
+        assertEquals(this.simulation.getParticles().get(1).getPos().getX(), 750);
+        assertEquals(this.simulation.getParticles().get(1).getPos().getY(), 50);
+    }
+
+    @Test
+    public void testUpdateWrapActsAcrossEdges() {
+        ParticleType type = this.simulation.addParticleType();
+        this.simulation.getAttractionMatrix().setAttraction(0, 0, 1);
+        this.simulation.addParticle(new Particle(new Vector(790, 595), type));
+        this.simulation.addParticle(new Particle(new Vector(10, 5), type));
+        Simulation reference = new Simulation(800, 600);
+        reference.addParticleType();
+        reference.getAttractionMatrix().setAttraction(0, 0, 1);
+        reference.addParticle(new Particle(new Vector(790, 595), type));
+        reference.addParticle(new Particle(new Vector(810, 605), type));
+
+        for (NeighborSearch neighborSearch : NeighborSearch.values()) {
+            Simulation wrapped = copyOf(this.simulation);
+            wrapped.setBoundaryMode(BoundaryMode.WRAP);
+            wrapped.setNeighborSearch(neighborSearch);
+            wrapped.update();
+            Simulation open = copyOf(reference);
+            open.update();
+            assertNotEquals(open.getParticles().get(0).getVel().getX(), 0);
+            assertParticlesClose(open.getParticles().subList(0, 1), wrapped.getParticles().subList(0, 1));
+            assertEquals(wrapped.getParticles().get(1).getVel().getX(),
+                    open.getParticles().get(1).getVel().getX(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testUpdateWrapGridMatchesBruteForce() {
+        for (int iter = 0; iter < 20; iter++) {
+            // Small worlds leave the grid with fewer than three cells across
+            Simulation world = new Simulation(iter % 2 == 0 ? 800 : 120, iter % 3 == 0 ? 600 : 90);
+            world.setBoundaryMode(BoundaryMode.WRAP);
+            world.generateRandomWorld(300);
+            world.getAttractionMatrix().setRange(10 + iter * 2);
+            Simulation reference = copyOf(world);
+            reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+
+            for (int step = 0; step < 5; step++) {
+                world.update();
+                reference.update();
+            }
+            assertParticlesClose(reference.getParticles(), world.getParticles());
+            for (Particle particle : world.getParticles()) {
+                assertTrue(particle.getPos().getX() >= 0 && particle.getPos().getX() < world.getWidth());
+                assertTrue(particle.getPos().getY() >= 0 && particle.getPos().getY() < world.getHeight());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateReflect() {
+        this.simulation.setBoundaryMode(BoundaryMode.REFLECT);
+        ParticleType type = this.simulation.addParticleType();
+        this.simulation.addParticle(new Particle(new Vector(795, 5), new Vector(10, -10), type));
+        this.simulation.addParticle(new Particle(new Vector(400, 300), new Vector(-5000, 0), type));
+        this.simulation.getAttractionMatrix().setRange(0);
+        this.simulation.update();
+
+        Particle bounced = this.simulation.getParticles().get(0);
+        assertEquals(bounced.getPos().getX(), 795);
+        assertEquals(bounced.getPos().getY(), 5);
+        assertEquals(bounced.getVel().getX(), -7);
+        assertEquals(bounced.getVel().getY(), 7);
+        assertEquals(this.simulation.getParticles().get(1).getPos().getX(), 800);
+    }
+
+    @Test
+    public void testBoundaryModeJson() {
+        this.simulation.setBoundaryMode(BoundaryMode.REFLECT);
+        JSONObject json = this.simulation.toJson();
+        assertEquals(json.getString("boundaryMode"), "REFLECT");
+        assertEquals(Simulation.fromJson(json).getBoundaryMode(), BoundaryMode.REFLECT);
+        json.remove("boundaryMode");
+        assertEquals(Simulation.fromJson(json).getBoundaryMode(), BoundaryMode.OPEN);
+    }
+
+    @Test
+    public void testSameSeedSameWorld() {
+        Simulation first = new Simulation(800, 600, 210);
+        Simulation second = new Simulation(800, 600, 210);
+        assertEquals(first.getSeed(), 210);
+        first.generateRandomWorld(200);
+        second.generateRandomWorld(200);
+        assertTrue(first.toJson().similar(second.toJson()));
+        for (int step = 0; step < 5; step++) {
+            first.update();
+            second.update();
+        }
+        assertParticlesClose(first.getParticles(), second.getParticles(), 0);
+
+        Simulation other = new Simulation(800, 600, 211);
+        other.generateRandomWorld(200);
+        assertNotEquals(other.getParticles().get(0).getPos().getX(), second.getParticles().get(0).getPos().getX());
+    }
+
+    @Test
+    public void testSetSeed() {
+        this.simulation.setSeed(7);
+        this.simulation.generateRandomWorld(50);
+        JSONObject world = this.simulation.toJson();
+        this.simulation.setSeed(7);
+        this.simulation.generateRandomWorld(50);
+        world.put("seed", this.simulation.getSeed());
+        assertTrue(this.simulation.toJson().similar(world));
+    }
+
+    @Test
+    public void testSeedJson() {
+        this.simulation.setSeed(99);
+        this.simulation.generateRandomWorld(20);
+        Simulation loaded = copyOf(this.simulation);
+        assertEquals(loaded.getSeed(), this.simulation.getSeed());
+        this.simulation.generateRandomWorld(20);
+        loaded.generateRandomWorld(20);
+        assertTrue(loaded.toJson().similar(this.simulation.toJson()));
+
+        // Files without a seed still load
+        JSONObject json = this.simulation.toJson();
+        json.remove("seed");
+        assertEquals(Simulation.fromJson(json).getParticles().size(), 20);
+    }
+
+    @Test
+    public void testSnapshot() {
+        this.simulation.generateRandomWorld(100);
+        this.simulation.setBoundaryMode(BoundaryMode.REFLECT);
+        this.simulation.update();
+        ParticleType unlisted = new ParticleType(Color.CYAN, 9);
+        this.simulation.addParticle(new Particle(new Vector(1, 2), unlisted));
+        Simulation snapshot = this.simulation.snapshot();
+        assertTrue(snapshot.toJson().similar(this.simulation.toJson()));
+        assertEquals(snapshot.getSeed(), this.simulation.getSeed());
+
+        // Particle types are copied, including those only a particle refers to
+        assertNotSame(snapshot.getParticleTypes().get(0), this.simulation.getParticleTypes().get(0));
+        assertSame(snapshot.getParticles().get(0).getType(), snapshot.getParticleTypes().get(
+                this.simulation.getParticleTypes().indexOf(this.simulation.getParticles().get(0).getType())));
+        assertNotSame(snapshot.getParticleStore().getType(100), unlisted);
+        assertEquals(snapshot.getParticleStore().getType(100).getID(), 9);
+
+        // The snapshot does not change with the simulation
+        JSONObject json = snapshot.toJson();
+        this.simulation.removeParticles(p -> p.getType() == unlisted);
+        this.simulation.update();
+        this.simulation.getParticleTypes().get(0).setColor(Color.WHITE);
+        this.simulation.getAttractionMatrix().setAttraction(0, 0, 0.5);
+        assertTrue(snapshot.toJson().similar(json));
+    }
+
+    @Test
+    public void testDefaultPairEvaluation() {
+        assertEquals(this.simulation.getPairEvaluation(), PairEvaluation.ORDERED);
+    }
+
+    @Test
+    public void testUpdateSymmetricMatchesOrdered() {
+        int iter = 0;
+        for (BoundaryMode boundaryMode : BoundaryMode.values()) {
+            for (NeighborSearch neighborSearch : NeighborSearch.values()) {
+                for (double[] size : new double[][]{{800, 600}, {120, 90}, {40, 30}}) {
+                    Simulation world = new Simulation(size[0], size[1]);
+                    world.setBoundaryMode(boundaryMode);
+                    world.generateRandomWorld(300);
+                    world.getAttractionMatrix().setRange(iter++ % 5 == 0 ? 0 : 25);
+                    Simulation reference = copyOf(world);
+                    reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+                    world.setNeighborSearch(neighborSearch);
+                    world.setPairEvaluation(PairEvaluation.SYMMETRIC);
+
+                    for (int step = 0; step < 5; step++) {
+                        world.update();
+                        reference.update();
+                    }
+                    assertParticlesClose(reference.getParticles(), world.getParticles());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateSymmetricWithForceTable() {
+        this.simulation.generateRandomWorld(500);
+        this.simulation.getAttractionMatrix().setForceTableResolution(1024);
+        Simulation reference = copyOf(this.simulation);
+        reference.getAttractionMatrix().setForceTableResolution(1024);
+        this.simulation.setPairEvaluation(PairEvaluation.SYMMETRIC);
+
+        this.simulation.update();
+        reference.update();
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+    }
+
+    @Test
+    public void testUpdateSymmetricWithParallelExecutor() {
+        this.simulation.generateRandomWorld(1000);
+        Simulation reference = copyOf(this.simulation);
+        this.simulation.setPairEvaluation(PairEvaluation.SYMMETRIC);
+        this.simulation.setStepExecutor(new ParallelStepExecutor(4));
+
+        this.simulation.update();
+        reference.update();
+        this.simulation.getStepExecutor().shutdown();
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+    }
+
+    @Test
+    public void testUpdateWithForceTable() {
+        this.simulation.generateRandomWorld(1000);
+        Simulation reference = copyOf(this.simulation);
+        this.simulation.getAttractionMatrix().setForceTableResolution(4096);
+
+        this.simulation.update();
+        reference.update();
+        List<Particle> expected = reference.getParticles();
+        List<Particle> actual = this.simulation.getParticles();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getVel().getX(), actual.get(i).getVel().getX(), 0.05);
+            assertEquals(expected.get(i).getVel().getY(), actual.get(i).getVel().getY(), 0.05);
+        }
+    }
+
+    @Test
+    public void testUpdateGridParticlesOutsideBounds() {
+        ParticleType type = this.simulation.addParticleType();
+        this.simulation.getAttractionMatrix().setAttraction(0, 0, 1);
+        this.simulation.addParticle(new Particle(new Vector(-5000, -5000), type));
+        this.simulation.addParticle(new Particle(new Vector(-4970, -5000), type));
+        this.simulation.addParticle(new Particle(new Vector(90000, 70000), type));
+        this.simulation.addParticle(new Particle(new Vector(90010, 70010), type));
+        Simulation reference = copyOf(this.simulation);
+        reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+
+        this.simulation.update();
+        reference.update();
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+        assertTrue(this.simulation.getParticles().get(0).getVel().getX() > 0);
+    }
+
+    @Test
+    public void testUpdateDoesNotAllocate() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (Precision precision : Precision.values()) {
+            for (PairEvaluation pairEvaluation : PairEvaluation.values()) {
+                for (NeighborSearch neighborSearch : NeighborSearch.values()) {
+                    this.simulation.setPrecision(precision);
+                    this.simulation.setPairEvaluation(pairEvaluation);
+                    this.simulation.setNeighborSearch(neighborSearch);
+                    // A fixed seed, so that no cluster forms late and grows the buffers after the warm-up
+                    this.simulation.setSeed(210);
+                    this.simulation.generateRandomWorld(1000);
+                    // Warm up so that any lazily grown buffers reach their steady-state size
+                    for (int step = 0; step < 20; step++) {
+                        this.simulation.update();
+                    }
+
+                    long before = threadBean.getThreadAllocatedBytes(threadId);
+                    for (int step = 0; step < 50; step++) {
+                        this.simulation.update();
+                    }
+                    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+                    assertTrue(allocated < 1024, precision + " " + pairEvaluation + " " + neighborSearch
+                            + " allocated " + allocated);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultPrecision() {
+        assertEquals(this.simulation.getPrecision(), Precision.DOUBLE);
+    }
+
+    @Test
+    public void testUpdateFloatMatchesDouble() {
+        // The worlds diverge chaotically in rare close encounters, so a fixed seed keeps the test deterministic
+        this.simulation.setSeed(210);
+        for (BoundaryMode mode : BoundaryMode.values()) {
+            for (PairEvaluation evaluation : PairEvaluation.values()) {
+                this.simulation.generateRandomWorld(400);
+                this.simulation.setBoundaryMode(mode);
+                this.simulation.setPairEvaluation(evaluation);
+                Simulation single = copyOf(this.simulation);
+                single.setBoundaryMode(mode);
+                single.setPairEvaluation(evaluation);
+                single.setPrecision(Precision.FLOAT);
+
+                for (int step = 0; step < 5; step++) {
+                    this.simulation.update();
+                    single.update();
+                }
+                assertParticlesClose(this.simulation.getParticles(), single.getParticles(), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateFloatStoresFloats() {
+        this.simulation.generateRandomWorld(300);
+        this.simulation.setPrecision(Precision.FLOAT);
+        for (int step = 0; step < 3; step++) {
+            this.simulation.update();
+        }
+        ParticleStore store = this.simulation.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(store.getPosX()[i], (float) store.getPosX()[i]);
+            assertEquals(store.getPosY()[i], (float) store.getPosY()[i]);
+            assertEquals(store.getVelX()[i], (float) store.getVelX()[i]);
+            assertEquals(store.getVelY()[i], (float) store.getVelY()[i]);
+        }
+        assertEquals(this.simulation.getMetrics().getParticles(), 300);
+    }
+
+    @Test
+    public void testUpdateFloatSeesChangesBetweenSteps() {
+        this.simulation.generateRandomWorld(200);
+        this.simulation.setPrecision(Precision.FLOAT);
+        this.simulation.update();
+
+        // Particles added or removed between steps take part in the next one
+        ParticleType type = this.simulation.getParticleTypes().get(0);
+        this.simulation.removeParticles(p -> p.getType() != type);
+        this.simulation.addParticle(new Particle(new Vector(400, 300), new Vector(2, 0), type));
+        Simulation reference = copyOf(this.simulation);
+        reference.setPrecision(Precision.FLOAT);
+        this.simulation.update();
+        reference.update();
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles(), 0);
+
+        // Switching back continues from the float state
+        this.simulation.setPrecision(Precision.DOUBLE);
+        reference.setPrecision(Precision.DOUBLE);
+        this.simulation.update();
+        reference.update();
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles(), 0);
+    }
+
+    @Test
+    public void testUpdateFloatGridMatchesBruteForce() {
+        this.simulation.generateRandomWorld(400);
+        this.simulation.setPrecision(Precision.FLOAT);
+        Simulation reference = copyOf(this.simulation);
+        reference.setPrecision(Precision.FLOAT);
+        reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+        for (int step = 0; step < 5; step++) {
+            this.simulation.update();
+            reference.update();
+        }
+        // Neighbors are summed in a different order, which rounds differently in single precision
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles(), 1e-3);
+    }
+
+    @Test
+    public void testDefaultForceKernel() {
+        assertEquals(this.simulation.getForceKernel(), ForceKernel.SCALAR);
+    }
+
+    @Test
+    public void testUpdateBatchedMatchesScalar() {
+        for (BoundaryMode mode : BoundaryMode.values()) {
+            for (PairEvaluation evaluation : PairEvaluation.values()) {
+                this.simulation.generateRandomWorld(400);
+                this.simulation.setBoundaryMode(mode);
+                this.simulation.setPairEvaluation(evaluation);
+                Simulation batched = copyOf(this.simulation);
+                batched.setBoundaryMode(mode);
+                batched.setPairEvaluation(evaluation);
+                batched.setForceKernel(ForceKernel.BATCHED);
+
+                for (int step = 0; step < 5; step++) {
+                    this.simulation.update();
+                    batched.update();
+                }
+                // Identical operations in the same order, so identical results
+                assertParticlesClose(this.simulation.getParticles(), batched.getParticles(), 0);
+                assertEquals(this.simulation.getMetrics().getPairsInRange(), batched.getMetrics().getPairsInRange());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateBatchedParallel() {
+        this.simulation.generateRandomWorld(2000);
+        Simulation batched = copyOf(this.simulation);
+        batched.setForceKernel(ForceKernel.BATCHED);
+        batched.setStepExecutor(new ParallelStepExecutor(4));
+        for (int step = 0; step < 3; step++) {
+            this.simulation.update();
+            batched.update();
+        }
+        batched.getStepExecutor().shutdown();
+        assertParticlesClose(this.simulation.getParticles(), batched.getParticles(), 0);
+    }
+
+    @Test
+    public void testUpdateBatchedFallsBackToScalar() {
+        this.simulation.generateRandomWorld(300);
+        this.simulation.getAttractionMatrix().setForceTableResolution(1024);
+        Simulation batched = copyOf(this.simulation);
+        batched.getAttractionMatrix().setForceTableResolution(1024);
+        batched.setForceKernel(ForceKernel.BATCHED);
+        Simulation single = copyOf(this.simulation);
+        single.setPrecision(Precision.FLOAT);
+        Simulation singleBatched = copyOf(this.simulation);
+        singleBatched.setPrecision(Precision.FLOAT);
+        singleBatched.setForceKernel(ForceKernel.BATCHED);
+        for (int step = 0; step < 3; step++) {
+            this.simulation.update();
+            batched.update();
+            single.update();
+            singleBatched.update();
+        }
+        assertParticlesClose(this.simulation.getParticles(), batched.getParticles(), 0);
+        assertParticlesClose(single.getParticles(), singleBatched.getParticles(), 0);
+    }
+
+    @Test
+    public void testUpdateBatchedDoesNotAllocate() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        this.simulation.setForceKernel(ForceKernel.BATCHED);
+        for (PairEvaluation pairEvaluation : PairEvaluation.values()) {
+            this.simulation.setPairEvaluation(pairEvaluation);
+            this.simulation.setSeed(210);
+            this.simulation.generateRandomWorld(1000);
+            for (int step = 0; step < 20; step++) {
+                this.simulation.update();
+            }
+
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int step = 0; step < 50; step++) {
+                this.simulation.update();
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+            assertTrue(allocated < 1024, pairEvaluation + " allocated " + allocated);
+        }
+    }
+
+    @Test
+    public void testUpdateQuadTreeMatchesBruteForce() {
+        for (BoundaryMode boundaryMode : BoundaryMode.values()) {
+            for (PairEvaluation pairEvaluation : PairEvaluation.values()) {
+                this.simulation.generateRandomWorld(400);
+                this.simulation.setBoundaryMode(boundaryMode);
+                clump(this.simulation, 4, 15);
+                Simulation reference = copyOf(this.simulation);
+                reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+                this.simulation.setNeighborSearch(NeighborSearch.QUADTREE);
+                this.simulation.setPairEvaluation(pairEvaluation);
+
+                for (int step = 0; step < 5; step++) {
+                    this.simulation.update();
+                    reference.update();
+                }
+                assertEquals(this.simulation.getActiveNeighborSearch(), NeighborSearch.QUADTREE);
+                assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateQuadTreeWithKernels() {
+        this.simulation.setSeed(210);
+        this.simulation.generateRandomWorld(400);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        clump(this.simulation, 3, 20);
+        Simulation reference = copyOf(this.simulation);
+        Simulation batched = copyOf(this.simulation);
+        reference.setBoundaryMode(BoundaryMode.WRAP);
+        batched.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.setPrecision(Precision.FLOAT);
+        for (Simulation simulation : new Simulation[]{this.simulation, batched}) {
+            simulation.setNeighborSearch(NeighborSearch.QUADTREE);
+            simulation.setPairEvaluation(PairEvaluation.SYMMETRIC);
+        }
+        batched.setForceKernel(ForceKernel.BATCHED);
+        for (int step = 0; step < 3; step++) {
+            this.simulation.update();
+            batched.update();
+            reference.update();
+        }
+        assertParticlesClose(reference.getParticles(), batched.getParticles());
+        assertParticlesClose(reference.getParticles(), this.simulation.getParticles(), 1e-2);
+    }
+
+    @Test
+    public void testAdaptiveNeighborSearch() {
+        this.simulation.setSeed(210);
+        this.simulation.generateRandomWorld(2000);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.setNeighborSearch(NeighborSearch.ADAPTIVE);
+        assertEquals(this.simulation.getActiveNeighborSearch(), NeighborSearch.GRID);
+        this.simulation.update();
+        assertEquals(this.simulation.getActiveNeighborSearch(), NeighborSearch.GRID);
+
+        // Crowded into clumps, the particles move to the quadtree, which tests fewer pairs than the grid
+        clump(this.simulation, 2, 150);
+        Simulation grid = copyOf(this.simulation);
+        grid.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.update();
+        grid.update();
+        assertEquals(this.simulation.getActiveNeighborSearch(), NeighborSearch.QUADTREE);
+        assertEquals(grid.getActiveNeighborSearch(), NeighborSearch.GRID);
+        assertTrue(this.simulation.getMetrics().getPairsTested() < grid.getMetrics().getPairsTested());
+        assertEquals(this.simulation.getMetrics().getPairsInRange(), grid.getMetrics().getPairsInRange());
+        assertParticlesClose(grid.getParticles(), this.simulation.getParticles());
+
+        // Spread out again, they move back to the grid
+        ParticleStore store = this.simulation.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            store.getPosX()[i] = this.simulation.getRandom().nextDouble() * 800;
+            store.getPosY()[i] = this.simulation.getRandom().nextDouble() * 600;
+        }
+        store.invalidateViews();
+        this.simulation.update();
+        assertEquals(this.simulation.getActiveNeighborSearch(), NeighborSearch.GRID);
+    }
+
+    @Test
+    public void testVerletSkin() {
+        assertEquals(this.simulation.getVerletSkin(), Simulation.DEFAULT_VERLET_SKIN);
+        this.simulation.setVerletSkin(4);
+        assertEquals(this.simulation.getVerletSkin(), 4);
+    }
+
+    @Test
+    public void testUpdateVerletMatchesBruteForce() {
+        for (BoundaryMode boundaryMode : BoundaryMode.values()) {
+            for (PairEvaluation pairEvaluation : PairEvaluation.values()) {
+                Simulation world = new Simulation(800, 600, 210);
+                world.generateRandomWorld(400);
+                world.setBoundaryMode(boundaryMode);
+                Simulation reference = copyOf(world);
+                reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+                reference.setPairEvaluation(pairEvaluation);
+                world.setNeighborSearch(NeighborSearch.VERLET);
+                world.setPairEvaluation(pairEvaluation);
+
+                for (int step = 0; step < 10; step++) {
+                    world.update();
+                    reference.update();
+                    assertEquals(world.getMetrics().getPairsInRange(), reference.getMetrics().getPairsInRange());
+                }
+                assertParticlesClose(reference.getParticles(), world.getParticles());
+                // The lists were reused while the particles moved less than the skin
+                assertTrue(world.getMetrics().getTotalNeighborListBuilds() < 10);
+                assertTrue(world.getMetrics().getNeighborListBytes() > 0);
+                assertEquals(reference.getMetrics().getTotalNeighborListBuilds(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateVerletRebuildsLists() {
+        this.simulation.setSeed(210);
+        this.simulation.generateRandomWorld(300);
+        this.simulation.setNeighborSearch(NeighborSearch.VERLET);
+        assertListsRebuilt(true);
+        assertListsRebuilt(false);
+
+        // Adding, removing, moving or reordering particles rebuilds the lists
+        ParticleType type = this.simulation.getParticleTypes().get(0);
+        this.simulation.addParticle(new Particle(new Vector(400, 300), type));
+        assertListsRebuilt(true);
+        assertListsRebuilt(false);
+        this.simulation.removeParticlesInCircle(400, 300, 50);
+        assertListsRebuilt(true);
+        double[] posX = this.simulation.getParticleStore().getPosX();
+        posX[0] += posX[0] < this.simulation.getWidth() / 2 ? 2 * this.simulation.getVerletSkin()
+                : -2 * this.simulation.getVerletSkin();
+        this.simulation.getParticleStore().invalidateViews();
+        assertListsRebuilt(true);
+        this.simulation.reorderParticles();
+        assertListsRebuilt(true);
+
+        // So does changing the range, skin or pair evaluation the lists were built for
+        this.simulation.getAttractionMatrix().setRange(30);
+        assertListsRebuilt(true);
+        this.simulation.setVerletSkin(20);
+        assertListsRebuilt(true);
+        this.simulation.setPairEvaluation(PairEvaluation.SYMMETRIC);
+        assertListsRebuilt(true);
+        assertListsRebuilt(false);
+    }
+
+    @Test
+    public void testDefaultReorderInterval() {
+        assertEquals(this.simulation.getReorderInterval(), 0);
+        this.simulation.generateRandomWorld(100);
+        for (int step = 0; step < 10; step++) {
+            this.simulation.update();
+        }
+        assertEquals(this.simulation.getParticleStore().getReorders(), 0);
+    }
+
+    @Test
+    public void testReorderParticles() {
+        this.simulation.generateRandomWorld(500);
+        ParticleStore store = this.simulation.getParticleStore();
+        Set<Particle> before = new HashSet<>(this.simulation.getParticles());
+        int firstId = store.getId(0);
+        this.simulation.reorderParticles();
+
+        assertEquals(store.getReorders(), 1);
+        assertEquals(new HashSet<>(this.simulation.getParticles()).size(), 500);
+        assertNotEquals(store.getId(0), firstId);
+        int last = 0;
+        for (int i = 0; i < store.size(); i++) {
+            int key = MortonOrder.key(store.getPosX()[i], store.getPosY()[i], 800, 600);
+            assertTrue(Integer.compareUnsigned(last, key) <= 0);
+            last = key;
+            // Every particle is still there, with the same state
+            Particle particle = this.simulation.getParticles().get(i);
+            assertTrue(before.stream().anyMatch(p -> p.getPos().getX() == particle.getPos().getX()
+                    && p.getPos().getY() == particle.getPos().getY() && p.getType() == particle.getType()));
+        }
+    }
+
+    @Test
+    public void testUpdateReorderedMatchesUnordered() {
+        for (Precision precision : Precision.values()) {
+            for (PairEvaluation pairEvaluation : PairEvaluation.values()) {
+                this.simulation.setSeed(210);
+                this.simulation.generateRandomWorld(500);
+                this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+                Simulation reordered = this.simulation.snapshot();
+                for (Simulation simulation : new Simulation[]{this.simulation, reordered}) {
+                    simulation.setPrecision(precision);
+                    simulation.setPairEvaluation(pairEvaluation);
+                }
+                reordered.setReorderInterval(3);
+                for (int step = 0; step < 10; step++) {
+                    this.simulation.update();
+                    reordered.update();
+                }
+                assertEquals(reordered.getParticleStore().getReorders(), 3);
+                assertSameParticlesById(this.simulation.getParticleStore(), reordered.getParticleStore(),
+                        precision == Precision.FLOAT ? 1e-3 : 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testSetReorderInterval() {
+        this.simulation.generateRandomWorld(100);
+        this.simulation.setReorderInterval(4);
+        assertEquals(this.simulation.getReorderInterval(), 4);
+        for (int step = 0; step < 3; step++) {
+            this.simulation.update();
+        }
+        assertEquals(this.simulation.getParticleStore().getReorders(), 0);
+        this.simulation.update();
+        assertEquals(this.simulation.getParticleStore().getReorders(), 1);
+        // Setting the interval starts counting again
+        this.simulation.update();
+        this.simulation.setReorderInterval(2);
+        this.simulation.update();
+        assertEquals(this.simulation.getParticleStore().getReorders(), 1);
+        this.simulation.update();
+        assertEquals(this.simulation.getParticleStore().getReorders(), 2);
+        this.simulation.setReorderInterval(0);
+        this.simulation.update();
+        this.simulation.update();
+        assertEquals(this.simulation.getParticleStore().getReorders(), 2);
+    }
+
+    @Test
+    public void testUpdateReorderedDoesNotAllocate() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        this.simulation.setSeed(210);
+        this.simulation.generateRandomWorld(1000);
+        this.simulation.setReorderInterval(5);
+        for (int step = 0; step < 20; step++) {
+            this.simulation.update();
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int step = 0; step < 50; step++) {
+            this.simulation.update();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(allocated < 1024, "allocated " + allocated);
+        assertEquals(this.simulation.getParticleStore().getReorders(), 14);
+    }
+
+    @Test
+    public void testUpdateMetrics() {
+        this.simulation.generateRandomWorld(300);
+        this.simulation.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+        Simulation symmetric = copyOf(this.simulation);
+        symmetric.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+        symmetric.setPairEvaluation(PairEvaluation.SYMMETRIC);
+        Simulation grid = copyOf(this.simulation);
+        this.simulation.update();
+        symmetric.update();
+        grid.update();
+
+        SimulationMetrics metrics = this.simulation.getMetrics();
+        assertEquals(metrics.getSteps(), 1);
+        assertEquals(metrics.getParticles(), 300);
+        assertEquals(metrics.getPairsTested(), 300 * 300);
+        assertTrue(metrics.getPairsInRange() > 0);
+        assertTrue(metrics.getForceNanos() > 0);
+        assertEquals(symmetric.getMetrics().getPairsTested(), 300 * 299 / 2);
+        // Every pair in range acts both ways, so the symmetric evaluation counts each one once
+        assertEquals(symmetric.getMetrics().getPairsInRange() * 2, metrics.getPairsInRange());
+        // The grid only tests neighbors, and finds every pair in range
+        assertTrue(grid.getMetrics().getPairsTested() < 300 * 300);
+        assertEquals(grid.getMetrics().getPairsInRange(), metrics.getPairsInRange());
+
+        int[] perType = metrics.getParticlesPerType();
+        assertEquals(perType.length, 3);
+        assertEquals(perType[0] + perType[1] + perType[2], 300);
+    }
+
+    @Test
+    public void testUpdateMetricsGridModes() {
+        for (BoundaryMode mode : BoundaryMode.values()) {
+            for (PairEvaluation evaluation : PairEvaluation.values()) {
+                this.simulation.generateRandomWorld(400);
+                this.simulation.setBoundaryMode(mode);
+                this.simulation.setPairEvaluation(evaluation);
+                Simulation reference = copyOf(this.simulation);
+                reference.setBoundaryMode(mode);
+                reference.setPairEvaluation(evaluation);
+                reference.setNeighborSearch(NeighborSearch.BRUTE_FORCE);
+                this.simulation.update();
+                reference.update();
+                assertEquals(this.simulation.getMetrics().getPairsInRange(),
+                        reference.getMetrics().getPairsInRange());
+            }
+        }
+        this.simulation.getAttractionMatrix().setRange(0);
+        this.simulation.update();
+        assertEquals(this.simulation.getMetrics().getPairsTested(), 0);
+        assertEquals(this.simulation.getMetrics().getPairsInRange(), 0);
+    }
+
+    @Test
+    public void testUpdateKeepsParticleSnapshots() {
+        ParticleType type = this.simulation.addParticleType();
+        Particle p1 = new Particle(new Vector(10, 20), new Vector(1, 1), type);
+        this.simulation.addParticle(p1);
+        List<Particle> particles = this.simulation.getParticles();
+
+        this.simulation.update();
+        assertEquals(p1.getPos().getX(), 10);
+        assertEquals(particles.get(0).getPos().getX(), 11);
+        assertEquals(particles.get(0).getType(), type);
+        assertSame(particles.get(0), particles.get(0));
+    }
+
+    @Test
+    public void testSetParticles() {
+        ParticleType type = this.simulation.addParticleType();
+        List<Particle> particles = new ArrayList<>();
+        particles.add(new Particle(new Vector(1, 2), type));
+        particles.add(new Particle(new Vector(3, 4), type));
+        this.simulation.setParticles(particles);
+        assertEquals(this.simulation.getParticles(), particles);
+
+        this.simulation.setParticles(this.simulation.getParticles());
+        assertEquals(this.simulation.getParticles(), particles);
+    }
+
     @Test
     public void testAddParticle() {
         Vector pos1 = new Vector(50, 30);
@@ -208,4 +1032,238 @@ public class SimulationTest {
         assertEquals(this.simulation.getAttractionMatrix().getAttractions().length, 0);
         assertEquals(this.simulation.getParticles().size(), 100 - countType2 - countType1 - countType3);
     }
+
+    @Test
+    public void testRemoveParticleTypeWithLoadedParticles() {
+        this.simulation.generateRandomWorld(100);
+        // Loaded particles hold their own copy of their particle type
+        Simulation loaded = copyOf(this.simulation);
+        loaded.removeParticleType(0);
+
+        for (Particle p : loaded.getParticles()) {
+            int id = p.getType().getID();
+            assertTrue(id == 0 || id == 1);
+            assertEquals(p.getType().getColor(), loaded.getParticleTypes().get(id).getColor());
+        }
+        for (int i = 0; i < loaded.getParticles().size(); i++) {
+            assertEquals(loaded.getParticleStore().getTypes()[i], loaded.getParticles().get(i).getType().getID());
+        }
+    }
+
+    @Test
+    public void testRenumberParticleTypes() {
+        ParticleType type1 = new ParticleType(Color.RED, 4);
+        ParticleType type2 = new ParticleType(Color.BLUE, 7);
+        ParticleType copy = new ParticleType(Color.BLUE, 7);
+        ParticleType orphan = new ParticleType(Color.GREEN, 9);
+        this.simulation.setParticleTypes(new ArrayList<>(List.of(type1, type2)));
+        this.simulation.addParticles(List.of(new Particle(new Vector(), type2), new Particle(new Vector(), copy),
+                new Particle(new Vector(), type1), new Particle(new Vector(), orphan)));
+
+        this.simulation.renumberParticleTypes();
+        assertEquals(type1.getID(), 0);
+        assertEquals(type2.getID(), 1);
+        assertEquals(copy.getID(), 1);
+        assertEquals(orphan.getID(), 9);
+        int[] types = this.simulation.getParticleStore().getTypes();
+        assertEquals(types[0], 1);
+        assertEquals(types[1], 1);
+        assertEquals(types[2], 0);
+    }
+
+    @Test
+    public void testAddParticles() {
+        ParticleType type = new ParticleType(Color.RED, 0);
+        Particle p1 = new Particle(new Vector(1, 2), type);
+        Particle p2 = new Particle(new Vector(3, 4), type);
+        this.simulation.addParticle(p1);
+        this.simulation.addParticles(List.of(p2, p1));
+        assertEquals(this.simulation.getParticles(), List.of(p1, p2, p1));
+
+        Event last = null;
+        for (Event e : EventLog.getInstance()) {
+            last = e;
+        }
+        assertEquals(last.getDescription(), "Added 2 particles");
+        assertEquals(last.getLevel(), EventLevel.INFO);
+    }
+
+    @Test
+    public void testRemoveParticles() {
+        this.simulation.generateRandomWorld(200);
+        List<Particle> expected = new ArrayList<>();
+        for (Particle p : this.simulation.getParticles()) {
+            if (p.getType().getID() != 1) {
+                expected.add(p);
+            }
+        }
+
+        int removed = this.simulation.removeParticles(p -> p.getType().getID() == 1);
+        assertEquals(removed, 200 - expected.size());
+        assertEquals(this.simulation.getParticles(), expected);
+        assertEquals(this.simulation.removeParticles(p -> false), 0);
+    }
+
+    @Test
+    public void testFindParticlesInRegionMatchesLinearScan() {
+        for (BoundaryMode mode : new BoundaryMode[]{BoundaryMode.OPEN, BoundaryMode.WRAP}) {
+            this.simulation.generateRandomWorld(2000);
+            this.simulation.setBoundaryMode(mode);
+            for (int iter = 0; iter < 20; iter++) {
+                this.simulation.getAttractionMatrix().setRange(iter % 5 == 0 ? 0 : 10 + iter * 10);
+                double x = iter * 47 % 800;
+                double y = iter * 31 % 600;
+                double r = 5 + iter * 7;
+                assertArrayEquals(this.simulation.findParticlesInCircle(x, y, r), inCircle(x, y, r, mode));
+                assertArrayEquals(this.simulation.findParticlesInRect(x - r, y, x + r, y + 2 * r),
+                        inRect(x - r, y, x + r, y + 2 * r, mode));
+                this.simulation.update();
+            }
+        }
+    }
+
+    @Test
+    public void testFindParticlesInCircleWrapsAcrossEdges() {
+        ParticleType type = new ParticleType(Color.RED, 0);
+        this.simulation.addParticles(List.of(new Particle(new Vector(795, 300), type),
+                new Particle(new Vector(5, 300), type), new Particle(new Vector(400, 300), type)));
+        assertArrayEquals(this.simulation.findParticlesInCircle(2, 300, 10), new int[]{1});
+        assertArrayEquals(this.simulation.findParticlesInRect(-10, 290, 10, 310), new int[]{1});
+
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        assertArrayEquals(this.simulation.findParticlesInCircle(2, 300, 10), new int[]{0, 1});
+        assertArrayEquals(this.simulation.findParticlesInRect(-10, 290, 10, 310), new int[]{0, 1});
+        assertArrayEquals(this.simulation.findParticlesInRect(-1000, 0, 1000, 600), new int[]{0, 1, 2});
+    }
+
+    @Test
+    public void testRemoveParticlesInRegion() {
+        ParticleType type = new ParticleType(Color.RED, 0);
+        Particle p1 = new Particle(new Vector(100, 100), type);
+        Particle p2 = new Particle(new Vector(110, 100), type);
+        Particle p3 = new Particle(new Vector(500, 400), type);
+        Particle p4 = new Particle(new Vector(520, 420), type);
+        this.simulation.addParticles(List.of(p1, p2, p3, p4));
+
+        assertEquals(this.simulation.removeParticlesInCircle(100, 100, 10), 2);
+        assertEquals(this.simulation.getParticles(), List.of(p3, p4));
+        assertEquals(this.simulation.removeParticlesInCircle(100, 100, 10), 0);
+        assertEquals(this.simulation.removeParticlesInRect(510, 0, 800, 600), 1);
+        assertEquals(this.simulation.getParticles(), List.of(p3));
+    }
+
+    @Test
+    public void testQueriesBetweenStepsDoNotChangeUpdate() {
+        for (BoundaryMode mode : new BoundaryMode[]{BoundaryMode.OPEN, BoundaryMode.WRAP}) {
+            this.simulation.generateRandomWorld(500);
+            this.simulation.setBoundaryMode(mode);
+            Simulation reference = copyOf(this.simulation);
+            reference.setBoundaryMode(mode);
+            for (int step = 0; step < 10; step++) {
+                this.simulation.findParticlesInCircle(400, 300, 100);
+                this.simulation.update();
+                reference.update();
+            }
+            assertParticlesClose(reference.getParticles(), this.simulation.getParticles());
+
+            // A query after particles were moved sees their new positions
+            this.simulation.getParticles().set(0, new Particle(new Vector(1, 1), new ParticleType(Color.RED, 0)));
+            assertArrayEquals(this.simulation.findParticlesInCircle(1, 1, 0), new int[]{0});
+        }
+    }
+
+    // EFFECTS: returns the indices of the particles within r of (x, y), found by testing every particle
+    private int[] inCircle(double x, double y, double r, BoundaryMode mode) {
+        List<Integer> result = new ArrayList<>();
+        List<Particle> particles = this.simulation.getParticles();
+        for (int i = 0; i < particles.size(); i++) {
+            double dx = particles.get(i).getPos().getX() - x;
+            double dy = particles.get(i).getPos().getY() - y;
+            if (mode == BoundaryMode.WRAP) {
+                dx = BoundaryMode.minimumImage(dx, 800);
+                dy = BoundaryMode.minimumImage(dy, 600);
+            }
+            if (dx * dx + dy * dy <= r * r) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // EFFECTS: returns the indices of the particles in the rectangle, found by testing every particle
+    private int[] inRect(double minX, double minY, double maxX, double maxY, BoundaryMode mode) {
+        List<Integer> result = new ArrayList<>();
+        List<Particle> particles = this.simulation.getParticles();
+        for (int i = 0; i < particles.size(); i++) {
+            double x = particles.get(i).getPos().getX();
+            double y = particles.get(i).getPos().getY();
+            if (mode == BoundaryMode.WRAP) {
+                x = BoundaryMode.wrap(x - minX, 800) + minX;
+                y = BoundaryMode.wrap(y - minY, 600) + minY;
+            }
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // EFFECTS: returns an independent copy of the simulation
+    private static Simulation copyOf(Simulation simulation) {
+        return Simulation.fromJson(simulation.toJson());
+    }
+
+    // EFFECTS: asserts that both lists hold the same particles, up to floating point rounding
+    private static void assertParticlesClose(List<Particle> expected, List<Particle> actual) {
+        assertParticlesClose(expected, actual, 1e-9);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: steps the simulation, and asserts whether the step rebuilt the neighbor lists
+    private void assertListsRebuilt(boolean rebuilt) {
+        this.simulation.update();
+        assertEquals(this.simulation.getMetrics().getNeighborListBuilds(), rebuilt ? 1 : 0);
+    }
+
+    // MODIFIES: simulation
+    // EFFECTS: moves every particle of the simulation into one of the given number of square clumps of the
+    //          given radius, spread across the world
+    private static void clump(Simulation simulation, int clumps, double radius) {
+        ParticleStore store = simulation.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            int c = i % clumps;
+            store.getPosX()[i] = (c + 0.5) * simulation.getWidth() / clumps + (i * 0.618034 % 1 - 0.5) * radius;
+            store.getPosY()[i] = (c + 0.5) * simulation.getHeight() / clumps + (i * 0.414214 % 1 - 0.5) * radius;
+        }
+        store.invalidateViews();
+    }
+
+    // EFFECTS: asserts that both stores hold the same particles under the same IDs, in any order, up to the
+    //          given tolerance
+    private static void assertSameParticlesById(ParticleStore expected, ParticleStore actual, double tolerance) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            int j = actual.indexOf(expected.getId(i));
+            assertTrue(j >= 0);
+            assertEquals(expected.getPosX()[i], actual.getPosX()[j], tolerance);
+            assertEquals(expected.getPosY()[i], actual.getPosY()[j], tolerance);
+            assertEquals(expected.getVelX()[i], actual.getVelX()[j], tolerance);
+            assertEquals(expected.getVelY()[i], actual.getVelY()[j], tolerance);
+            assertEquals(expected.getTypes()[i], actual.getTypes()[j]);
+        }
+    }
+
+    // EFFECTS: asserts that both lists hold the same particles, up to the given tolerance
+    private static void assertParticlesClose(List<Particle> expected, List<Particle> actual, double tolerance) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Particle e = expected.get(i);
+            Particle a = actual.get(i);
+            assertEquals(e.getPos().getX(), a.getPos().getX(), tolerance);
+            assertEquals(e.getPos().getY(), a.getPos().getY(), tolerance);
+            assertEquals(e.getVel().getX(), a.getVel().getX(), tolerance);
+            assertEquals(e.getVel().getY(), a.getVel().getY(), tolerance);
+            assertEquals(e.getType().getID(), a.getType().getID());
+        }
+    }
 }
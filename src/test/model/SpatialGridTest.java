@@ -0,0 +1,175 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialGridTest {
+    private SpatialGrid grid;
+
+    @BeforeEach
+    public void runBefore() {
+        this.grid = new SpatialGrid();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.grid.getColumns(), 0);
+        assertEquals(this.grid.getRows(), 0);
+    }
+
+    @Test
+    public void testBuildEmpty() {
+        this.grid.build(new double[0], new double[0], 0, 50);
+        assertEquals(this.grid.getColumns(), 1);
+        assertEquals(this.grid.getRows(), 1);
+        assertEquals(this.grid.getCellStart(0), 0);
+        assertEquals(this.grid.getCellEnd(0), 0);
+    }
+
+    @Test
+    public void testBuild() {
+        double[] posX = {10, 160, 20, 40, 999};
+        double[] posY = {10, 10, 120, 30, 999};
+        this.grid.build(posX, posY, 4, 50);
+
+        assertEquals(this.grid.getCellSize(), 50);
+        assertEquals(this.grid.getColumns(), 4);
+        assertEquals(this.grid.getRows(), 3);
+        assertEquals(this.grid.columnOf(160), 3);
+        assertEquals(this.grid.rowOf(120), 2);
+        assertEquals(this.grid.columnOf(-1000), 0);
+        assertEquals(this.grid.rowOf(1000), 2);
+
+        int origin = this.grid.cellIndex(0, 0);
+        assertEquals(this.grid.getCellEnd(origin) - this.grid.getCellStart(origin), 2);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(origin)), 0);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(origin) + 1), 3);
+
+        int right = this.grid.cellIndex(3, 0);
+        assertEquals(this.grid.getCellEnd(right) - this.grid.getCellStart(right), 1);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(right)), 1);
+
+        int bottom = this.grid.cellIndex(0, 2);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(bottom)), 2);
+        assertEquals(this.grid.getCellEnd(this.grid.cellIndex(3, 2)), 4);
+
+        int[] cellParticles = this.grid.getCellParticles();
+        assertEquals(cellParticles[this.grid.getCellStart(origin)], 0);
+    }
+
+    @Test
+    public void testCrowding() {
+        assertEquals(this.grid.getCrowding(), 0);
+        this.grid.build(new double[]{10, 60, 10, 60}, new double[]{10, 10, 60, 60}, 4, 50);
+        assertEquals(this.grid.getColumns() * this.grid.getRows(), 4);
+        assertEquals(this.grid.getCrowding(), 1);
+        // Three particles share a cell: the cell of a particle holds (3 * 3 + 1) / 4 particles on average
+        this.grid.build(new double[]{10, 11, 12, 60}, new double[]{10, 10, 10, 60}, 4, 50);
+        assertEquals(this.grid.getCrowding(), 2.5);
+        this.grid.build(new double[0], new double[0], 0, 50);
+        assertEquals(this.grid.getCrowding(), 0);
+    }
+
+    @Test
+    public void testBuildCapsNumberOfCells() {
+        double[] posX = {0, 1e6};
+        double[] posY = {0, 1e6};
+        this.grid.build(posX, posY, 2, 1);
+
+        assertTrue(this.grid.getCellSize() > 1);
+        assertTrue(this.grid.getColumns() * this.grid.getRows() <= 64);
+        int last = this.grid.cellIndex(this.grid.getColumns() - 1, this.grid.getRows() - 1);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(last)), 1);
+    }
+
+    @Test
+    public void testBuildPeriodic() {
+        double[] posX = {10, 790, 400, 790};
+        double[] posY = {10, 590, 300, 10};
+        this.grid.buildPeriodic(posX, posY, 4, 800, 600, 70);
+
+        // 11 x 8 cells of 70 units would be more than 16, so they are merged into 4 x 3
+        assertEquals(this.grid.getColumns(), 4);
+        assertEquals(this.grid.getRows(), 3);
+        assertEquals(this.grid.getCellWidth(), 200);
+        assertEquals(this.grid.getCellHeight(), 200);
+        assertEquals(this.grid.getCellSize(), 200);
+        assertEquals(this.grid.columnOf(790), 3);
+        assertEquals(this.grid.rowOf(590), 2);
+
+        int corner = this.grid.cellIndex(3, 0);
+        assertEquals(this.grid.getCellEnd(corner) - this.grid.getCellStart(corner), 1);
+        assertEquals(this.grid.getParticle(this.grid.getCellStart(corner)), 3);
+    }
+
+    @Test
+    public void testBuildPeriodicLayoutIsFixed() {
+        double[] posX = new double[100];
+        double[] posY = new double[100];
+        this.grid.buildPeriodic(posX, posY, 100, 800, 600, 50);
+        assertEquals(this.grid.getColumns(), 16);
+        assertEquals(this.grid.getRows(), 12);
+        for (int i = 0; i < 100; i++) {
+            posX[i] = i * 7.9;
+            posY[i] = 599.9 - i;
+        }
+        this.grid.buildPeriodic(posX, posY, 100, 800, 600, 50);
+        assertEquals(this.grid.getColumns(), 16);
+        assertEquals(this.grid.getRows(), 12);
+        assertEquals(this.grid.getCellEnd(this.grid.cellIndex(15, 11)), 100);
+    }
+
+    @Test
+    public void testForEachCandidate() {
+        double[] posX = {10, 160, 20, 40, 110};
+        double[] posY = {10, 10, 120, 30, 60};
+        this.grid.build(posX, posY, 5, 50);
+        assertFalse(this.grid.isPeriodic());
+
+        // Cells (0, 0) to (1, 1)
+        assertEquals(candidates(20, 20, 60, 60), List.of(0, 3));
+        // Cells (2, 0) to (3, 2)
+        assertEquals(candidates(110, 10, 170, 120), List.of(1, 4));
+        // A box beyond the grid is clamped to its edge cells
+        assertEquals(candidates(-500, 110, -400, 500), List.of(2));
+    }
+
+    @Test
+    public void testForEachCandidatePeriodic() {
+        double[] posX = {10, 790, 400, 790};
+        double[] posY = {10, 590, 300, 10};
+        this.grid.buildPeriodic(posX, posY, 4, 800, 600, 200);
+        assertTrue(this.grid.isPeriodic());
+
+        // A box around the top-left corner wraps to the other three corners
+        List<Integer> corners = candidates(-10, -10, 10, 10);
+        corners.sort(null);
+        assertEquals(corners, List.of(0, 1, 3));
+        assertEquals(candidates(300, 250, 500, 350), List.of(2));
+        // A box wider than the world visits every cell once
+        assertEquals(candidates(-1000, -1000, 1000, 1000).size(), 4);
+    }
+
+    @Test
+    public void testBuildPeriodicCapsNumberOfCells() {
+        this.grid.buildPeriodic(new double[]{0}, new double[]{0}, 1, 1e6, 1e6, 1);
+        assertTrue(this.grid.getColumns() * this.grid.getRows() <= 16);
+        assertTrue(this.grid.getCellSize() >= 1);
+
+        this.grid.buildPeriodic(new double[]{0}, new double[]{0}, 1, 30, 30, 50);
+        assertEquals(this.grid.getColumns(), 1);
+        assertEquals(this.grid.getRows(), 1);
+    }
+
+    // EFFECTS: returns the candidates the grid visits for the box, in the order visited
+    private List<Integer> candidates(double minX, double minY, double maxX, double maxY) {
+        List<Integer> result = new ArrayList<>();
+        this.grid.forEachCandidate(minX, minY, maxX, maxY, result::add);
+        return result;
+    }
+}
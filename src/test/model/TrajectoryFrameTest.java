@@ -0,0 +1,54 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectoryFrameTest {
+    private TrajectoryFrame frame;
+
+    @BeforeEach
+    public void runBefore() {
+        this.frame = new TrajectoryFrame();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.frame.size(), 0);
+        assertFalse(this.frame.hasVelocities());
+        assertEquals(this.frame.getStep(), 0);
+    }
+
+    @Test
+    public void testResize() {
+        this.frame.resize(3);
+        assertEquals(this.frame.size(), 3);
+        this.frame.getPosX()[2] = 5;
+        this.frame.getVelY()[2] = -1;
+        this.frame.getColors()[2] = 7;
+
+        // Growing keeps the entries, and shrinking keeps the arrays
+        this.frame.resize(100);
+        assertEquals(this.frame.getPosX()[2], 5);
+        assertEquals(this.frame.getVelY()[2], -1);
+        assertEquals(this.frame.getColors()[2], 7);
+        double[] posX = this.frame.getPosX();
+        this.frame.resize(10);
+        assertEquals(this.frame.size(), 10);
+        assertSame(this.frame.getPosX(), posX);
+        assertTrue(this.frame.getPosY().length >= 100);
+    }
+
+    @Test
+    public void testSetters() {
+        this.frame.setHasVelocities(true);
+        this.frame.setWidth(10);
+        this.frame.setHeight(20);
+        this.frame.setStep(30);
+        assertTrue(this.frame.hasVelocities());
+        assertEquals(this.frame.getWidth(), 10);
+        assertEquals(this.frame.getHeight(), 20);
+        assertEquals(this.frame.getStep(), 30);
+    }
+}
@@ -0,0 +1,184 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerletListTest {
+    private VerletList lists;
+    private ParticleStore store;
+    private SpatialGrid grid;
+    private ParticleType type;
+
+    @BeforeEach
+    public void runBefore() {
+        this.lists = new VerletList();
+        this.store = new ParticleStore();
+        this.grid = new SpatialGrid();
+        this.type = new ParticleType(null, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.lists.getBuilds(), 0);
+        assertEquals(this.lists.getEntryCount(), 0);
+        assertTrue(this.lists.getMemoryBytes() > 0);
+        assertFalse(this.lists.isCurrent(this.store, 10, 2, false, false, 100, 100));
+    }
+
+    @Test
+    public void testBuild() {
+        this.store.add(10, 10, 0, 0, this.type);
+        this.store.add(21, 10, 0, 0, this.type);
+        this.store.add(10, 23, 0, 0, this.type);
+        this.store.add(90, 90, 0, 0, this.type);
+        build(10, 2, false, false);
+        assertEquals(this.lists.getBuilds(), 1);
+        // Particle 1 is within range + skin of particle 0, and particle 2 of neither
+        assertList(0, 1);
+        assertList(1, 0);
+        assertList(2);
+        assertList(3);
+        assertEquals(this.lists.getEntryCount(), 2);
+
+        // Half lists hold each pair once, from the particle before the other
+        build(13, 0, true, false);
+        assertList(0, 1, 2);
+        assertList(1);
+        assertList(2);
+        assertEquals(this.lists.getBuilds(), 2);
+    }
+
+    @Test
+    public void testBuildPeriodic() {
+        this.store.add(1, 50, 0, 0, this.type);
+        this.store.add(98, 50, 0, 0, this.type);
+        this.store.add(50, 50, 0, 0, this.type);
+        build(5, 1, false, true);
+        assertList(0, 1);
+        assertList(1, 0);
+        assertList(2);
+
+        // Over the bounding box only, the particles across the edge are far apart
+        build(5, 1, false, false);
+        assertList(0);
+        assertList(1);
+    }
+
+    @Test
+    public void testBuildMatchesAllPairs() {
+        Random random = new Random(210);
+        for (int i = 0; i < 1000; i++) {
+            this.store.add(random.nextDouble() * 100, random.nextDouble() * 100, 0, 0, this.type);
+        }
+        for (boolean periodic : new boolean[]{false, true}) {
+            for (boolean half : new boolean[]{false, true}) {
+                build(12, 3, half, periodic);
+                assertListsMatchAllPairs(15, half, periodic);
+                // Cells a quarter of the world wide, too few for the block around a cell not to wrap onto itself
+                build(35, 10, half, periodic);
+                assertListsMatchAllPairs(45, half, periodic);
+            }
+        }
+        // The memory counts the per-particle arrays as well as the lists
+        assertTrue(this.lists.getMemoryBytes() > (long) Integer.BYTES * this.lists.getEntryCount());
+    }
+
+    @Test
+    public void testIsCurrent() {
+        this.store.add(1, 10, 0, 0, this.type);
+        this.store.add(20, 10, 0, 0, this.type);
+        build(10, 4, false, true);
+        assertTrue(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 100));
+        assertFalse(this.lists.isCurrent(this.store, 11, 4, false, true, 100, 100));
+        assertFalse(this.lists.isCurrent(this.store, 10, 5, false, true, 100, 100));
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, true, true, 100, 100));
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, false, 100, 100));
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 50));
+        assertFalse(this.lists.isCurrent(new ParticleStore(), 10, 4, false, true, 100, 100));
+
+        // The two farthest moves may add up to the skin, including moves across the edges of the world
+        this.store.getPosY()[1] = 8;
+        this.store.getPosX()[0] = 99.5;
+        assertTrue(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 100));
+        this.store.getPosX()[0] = 98.9;
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 100));
+        this.store.getPosX()[0] = 1;
+
+        // A particle replaced by another in the same slot stales the lists, even in the same place
+        this.store.remove(1);
+        this.store.add(20, 8, 0, 0, this.type);
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 100));
+        build(10, 4, false, true);
+        this.store.add(20, 8, 0, 0, this.type);
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, true, 100, 100));
+    }
+
+    @Test
+    public void testClear() {
+        this.store.add(10, 10, 0, 0, this.type);
+        build(10, 4, false, false);
+        assertTrue(this.lists.isCurrent(this.store, 10, 4, false, false, 100, 100));
+        this.lists.clear();
+        assertFalse(this.lists.isCurrent(this.store, 10, 4, false, false, 100, 100));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: builds the grid over the store with the smallest cells the lists allow, periodically over a
+    //          100 x 100 world or over the bounding box, then the lists from it
+    private void build(double range, double skin, boolean half, boolean periodic) {
+        double cellSize = (range + skin) / VerletList.CELL_DIVISOR;
+        if (periodic) {
+            this.grid.buildPeriodic(this.store.getPosX(), this.store.getPosY(), this.store.size(), 100, 100,
+                    cellSize);
+        } else {
+            this.grid.build(this.store.getPosX(), this.store.getPosY(), this.store.size(), cellSize);
+        }
+        this.lists.build(this.store, this.grid, range, skin, half, 100, 100);
+    }
+
+    // EFFECTS: asserts that the list of particle i holds exactly the given particles, in any order
+    private void assertList(int i, int... expected) {
+        int start = this.lists.getListStart(i);
+        assertEquals(this.lists.getListStart(i + 1) - start, expected.length);
+        for (int j : expected) {
+            boolean found = false;
+            for (int k = start; k < this.lists.getListStart(i + 1); k++) {
+                found |= this.lists.getNeighbors()[k] == j;
+            }
+            assertTrue(found, "particle " + j + " missing from the list of " + i);
+        }
+    }
+
+    // EFFECTS: asserts that the lists hold every pair of particles of the store within the list range once
+    //          per particle of the pair, or once if half, and no other pairs
+    private void assertListsMatchAllPairs(double listRange, boolean half, boolean periodic) {
+        int n = this.store.size();
+        long pairs = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                pairs += (half ? j > i : j != i) && distanceSq(i, j, periodic) <= listRange * listRange ? 1 : 0;
+            }
+            for (int k = this.lists.getListStart(i); k < this.lists.getListStart(i + 1); k++) {
+                int j = this.lists.getNeighbors()[k];
+                assertTrue((half ? j > i : j != i) && distanceSq(i, j, periodic) <= listRange * listRange);
+            }
+        }
+        assertEquals(this.lists.getEntryCount(), pairs);
+    }
+
+    // EFFECTS: returns the squared distance between particles i and j of the store, across the edges of the
+    //          100 x 100 world if periodic
+    private double distanceSq(int i, int j, boolean periodic) {
+        double dx = this.store.getPosX()[j] - this.store.getPosX()[i];
+        double dy = this.store.getPosY()[j] - this.store.getPosY()[i];
+        if (periodic) {
+            dx = BoundaryMode.minimumImage(dx, 100);
+            dy = BoundaryMode.minimumImage(dy, 100);
+        }
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,92 @@
+package network;
+
+import model.BoundaryMode;
+import model.ParticleStore;
+import model.RenderBuffer;
+import model.RenderSnapshot;
+import model.Simulation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameDecoderTest {
+    private FrameEncoder encoder;
+    private FrameDecoder decoder;
+    private Simulation simulation;
+    private RenderBuffer renderBuffer;
+
+    @BeforeEach
+    public void runBefore() {
+        this.encoder = new FrameEncoder();
+        this.decoder = new FrameDecoder();
+        this.simulation = new Simulation(800, 600, 5);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.generateRandomWorld(500);
+        this.renderBuffer = new RenderBuffer();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.decoder.getFrames(), 0);
+        assertEquals(this.decoder.size(), 0);
+    }
+
+    @Test
+    public void testDecodeSteps() throws IOException {
+        for (int step = 0; step < 20; step++) {
+            this.decoder.decode(this.encoder.encode(snapshot()));
+            assertEquals(this.decoder.isKeyFrame(), step == 0);
+            assertEquals(this.decoder.getStep(), step + 1);
+            assertEquals(this.decoder.getWidth(), 800);
+            assertEquals(this.decoder.getHeight(), 600);
+            assertMatchesSimulation();
+            this.simulation.update();
+        }
+        assertEquals(this.decoder.getFrames(), 20);
+
+        // A key frame of fewer particles follows
+        this.simulation.getParticleStore().remove(0);
+        this.decoder.decode(this.encoder.encode(snapshot()));
+        assertTrue(this.decoder.isKeyFrame());
+        assertMatchesSimulation();
+    }
+
+    @Test
+    public void testDeltaFrameWithoutKeyFrame() {
+        this.encoder.encode(snapshot());
+        byte[] delta = this.encoder.encode(snapshot());
+        assertThrows(IOException.class, () -> this.decoder.decode(delta));
+    }
+
+    @Test
+    public void testNotAFrame() {
+        assertThrows(IOException.class, () -> this.decoder.decode(new byte[]{7, 1, 2, 3}));
+        byte[] frame = this.encoder.encode(snapshot());
+        assertThrows(IOException.class, () -> this.decoder.decode(Arrays.copyOf(frame, frame.length - 1)));
+        assertThrows(IOException.class, () -> this.decoder.decode(new byte[0]));
+        assertEquals(this.decoder.getFrames(), 0);
+    }
+
+    // EFFECTS: asserts that the latest frame holds every particle of the simulation, each within a
+    //          quantization step of its position
+    private void assertMatchesSimulation() {
+        ParticleStore store = this.simulation.getParticleStore();
+        assertEquals(this.decoder.size(), store.size());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(this.decoder.getTypeId(i), store.getTypes()[i]);
+            assertEquals(this.decoder.getX(i), store.getPosX()[i], 800.0 / FrameEncoder.LEVELS);
+            assertEquals(this.decoder.getY(i), store.getPosY()[i], 600.0 / FrameEncoder.LEVELS);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes the simulation and returns the snapshot of it
+    private RenderSnapshot snapshot() {
+        this.renderBuffer.publish(this.simulation);
+        return this.renderBuffer.acquire();
+    }
+}
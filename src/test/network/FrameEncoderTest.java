@@ -0,0 +1,105 @@
+package network;
+
+import model.Particle;
+import model.ParticleType;
+import model.RenderBuffer;
+import model.RenderSnapshot;
+import model.Simulation;
+import model.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameEncoderTest {
+    // Kind, step number, width and height, before the particle count
+    private static final int FIXED_HEADER = 25;
+
+    private FrameEncoder encoder;
+    private Simulation simulation;
+    private RenderBuffer renderBuffer;
+    private ParticleType red;
+
+    @BeforeEach
+    public void runBefore() {
+        this.encoder = new FrameEncoder();
+        this.simulation = new Simulation(800, 600);
+        this.renderBuffer = new RenderBuffer();
+        this.red = new ParticleType(Color.RED, 3);
+        this.simulation.addParticle(new Particle(new Vector(100, 200), this.red));
+        this.simulation.addParticle(new Particle(new Vector(400, 300), new ParticleType(Color.BLUE, 200)));
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals(this.encoder.getFrames(), 0);
+        assertEquals(this.encoder.getKeyFrames(), 0);
+    }
+
+    @Test
+    public void testQuantize() {
+        assertEquals(FrameEncoder.quantize(0, 800), 0);
+        assertEquals(FrameEncoder.quantize(400, 800), 32768);
+        assertEquals(FrameEncoder.quantize(799.999, 800), 65535);
+        // Coordinates outside the world are clamped to its edges
+        assertEquals(FrameEncoder.quantize(800, 800), 65535);
+        assertEquals(FrameEncoder.quantize(-5, 800), 0);
+    }
+
+    @Test
+    public void testKeyFrame() {
+        byte[] frame = this.encoder.encode(snapshot());
+        assertEquals(frame[0], FrameEncoder.KEY_FRAME);
+        // The count, type ids of one and two bytes, and two 16-bit coordinates per particle
+        assertEquals(frame.length, FIXED_HEADER + 1 + 1 + 2 + 2 * 4);
+        assertEquals(this.encoder.getFrames(), 1);
+        assertEquals(this.encoder.getKeyFrames(), 1);
+    }
+
+    @Test
+    public void testDeltaFrame() {
+        this.encoder.encode(snapshot());
+        this.simulation.getParticleStore().getPosX()[0] += 0.1;
+        this.simulation.getParticleStore().getPosY()[1] -= 0.1;
+        byte[] frame = this.encoder.encode(snapshot());
+        assertEquals(frame[0], FrameEncoder.DELTA_FRAME);
+        // The count, and a one-byte difference per coordinate
+        assertEquals(frame.length, FIXED_HEADER + 1 + 4);
+        assertEquals(this.encoder.getFrames(), 2);
+        assertEquals(this.encoder.getKeyFrames(), 1);
+    }
+
+    @Test
+    public void testDeltaAcrossEdge() {
+        this.simulation.getParticleStore().getPosX()[0] = 799.9;
+        this.encoder.encode(snapshot());
+        // Wrapping around the edge of the world is a small difference
+        this.simulation.getParticleStore().getPosX()[0] = 0.1;
+        byte[] frame = this.encoder.encode(snapshot());
+        assertEquals(frame[0], FrameEncoder.DELTA_FRAME);
+        assertEquals(frame.length, FIXED_HEADER + 1 + 4);
+    }
+
+    @Test
+    public void testKeyFrameWhenParticlesChange() {
+        this.encoder.encode(snapshot());
+        this.simulation.addParticle(new Particle(new Vector(10, 10), this.red));
+        assertEquals(this.encoder.encode(snapshot())[0], FrameEncoder.KEY_FRAME);
+        assertEquals(this.encoder.encode(snapshot())[0], FrameEncoder.DELTA_FRAME);
+
+        // A particle of another type in the same slot
+        this.simulation.getParticleStore().remove(2);
+        this.simulation.addParticle(new Particle(new Vector(10, 10), new ParticleType(Color.GREEN, 4)));
+        assertEquals(this.encoder.encode(snapshot())[0], FrameEncoder.KEY_FRAME);
+        assertEquals(this.encoder.getKeyFrames(), 3);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: publishes the simulation and returns the snapshot of it
+    private RenderSnapshot snapshot() {
+        this.renderBuffer.publish(this.simulation);
+        return this.renderBuffer.acquire();
+    }
+}
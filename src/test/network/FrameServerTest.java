@@ -0,0 +1,244 @@
+package network;
+
+import model.BoundaryMode;
+import model.ParticleStore;
+import model.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameServerTest {
+    private FrameServer server;
+    private Simulation simulation;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        this.server = new FrameServer(0);
+        this.simulation = new Simulation(800, 600, 9);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.generateRandomWorld(300);
+    }
+
+    @AfterEach
+    public void runAfter() throws InterruptedException {
+        this.server.close();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertTrue(this.server.getPort() > 0);
+        assertEquals(this.server.getClientCount(), 0);
+        assertEquals(this.server.getBroadcasts(), 0);
+        assertEquals(this.server.getFramesSent(), 0);
+        assertEquals(this.server.getFramesDropped(), 0);
+        assertEquals(this.server.getRefused(), 0);
+    }
+
+    @Test
+    public void testPublishWithoutViewers() throws InterruptedException {
+        this.server.publish(this.simulation);
+        Thread.sleep(50);
+        assertEquals(this.server.getBroadcasts(), 0);
+    }
+
+    @Test
+    public void testStreamsToViewer() throws Exception {
+        Viewer viewer = connect(true);
+        FrameDecoder decoder = new FrameDecoder();
+        for (int step = 0; step < 5; step++) {
+            this.server.publish(this.simulation);
+            decoder.decode(viewer.next());
+            assertEquals(decoder.isKeyFrame(), step == 0);
+            assertMatchesSimulation(decoder);
+            this.simulation.update();
+        }
+        waitUntil(() -> this.server.getFramesSent() == 5);
+        assertEquals(this.server.getFramesDropped(), 0);
+
+        // Closing the server closes the viewer's connection
+        this.server.close();
+        assertTrue(viewer.closed.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSlowViewerDropsFrames() throws Exception {
+        this.simulation.generateRandomWorld(50000);
+        Viewer slow = connect(false);
+        Viewer fast = connect(true);
+        FrameDecoder decoder = new FrameDecoder();
+        long slowest = 0;
+        for (int step = 0; step < 100 && this.server.getFramesDropped() == 0; step++) {
+            jiggle();
+            long start = System.nanoTime();
+            this.server.publish(this.simulation);
+            slowest = Math.max(slowest, System.nanoTime() - start);
+            decoder.decode(fast.next());
+        }
+        // The slow viewer, which reads nothing, skips frames without holding up the fast one or the publisher
+        assertTrue(this.server.getFramesDropped() > 0);
+        assertMatchesSimulation(decoder);
+        assertTrue(slowest < TimeUnit.SECONDS.toNanos(1));
+        assertNull(slow.messages.poll());
+    }
+
+    @Test
+    public void testViewerCloses() throws Exception {
+        Viewer viewer = connect(true);
+        this.server.publish(this.simulation);
+        viewer.next();
+        viewer.webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(10, TimeUnit.SECONDS);
+        assertTrue(viewer.closed.get(10, TimeUnit.SECONDS));
+        waitUntil(() -> this.server.getClientCount() == 0);
+
+        // The frames sent to it are still counted once it is forgotten
+        Thread.sleep(200);
+        assertEquals(this.server.getFramesSent(), 1);
+        assertEquals(this.server.getBroadcasts(), 1);
+    }
+
+    @Test
+    public void testConnectionLimit() throws Exception {
+        this.server.close();
+        this.server = new FrameServer(InetAddress.getLoopbackAddress().getHostAddress(), 0, 2, 10000);
+        Viewer first = connect(true);
+        // A connection still in its handshake takes up a place too
+        Socket pending = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        Socket refused = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        refused.setSoTimeout(10000);
+        assertEquals(refused.getInputStream().read(), -1);
+        assertEquals(this.server.getRefused(), 1);
+        refused.close();
+
+        // Once a viewer leaves, another may take its place
+        pending.close();
+        first.webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(10, TimeUnit.SECONDS);
+        waitUntil(() -> this.server.getClientCount() == 0);
+        connect(true);
+        assertEquals(this.server.getRefused(), 1);
+    }
+
+    // EFFECTS: connects a viewer to the server, reading the frames sent to it if reading, and waits until the
+    //          server has it
+    private Viewer connect(boolean reading) throws InterruptedException, ExecutionException, TimeoutException {
+        int clients = this.server.getClientCount();
+        Viewer viewer = new Viewer(reading);
+        viewer.webSocket = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(URI.create("ws://localhost:" + this.server.getPort() + "/"), viewer)
+                .get(10, TimeUnit.SECONDS);
+        waitUntil(() -> this.server.getClientCount() == clients + 1);
+        return viewer;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves every particle by a random amount of up to one unit each way
+    private void jiggle() {
+        ParticleStore store = this.simulation.getParticleStore();
+        for (int i = 0; i < store.size(); i++) {
+            store.getPosX()[i] = (store.getPosX()[i] + Math.random() * 2 - 1 + 800) % 800;
+            store.getPosY()[i] = (store.getPosY()[i] + Math.random() * 2 - 1 + 600) % 600;
+        }
+        store.invalidateViews();
+    }
+
+    // EFFECTS: asserts that the latest frame holds every particle of the simulation, each within a
+    //          quantization step of its position
+    private void assertMatchesSimulation(FrameDecoder decoder) {
+        ParticleStore store = this.simulation.getParticleStore();
+        assertEquals(decoder.size(), store.size());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(decoder.getTypeId(i), store.getTypes()[i]);
+            assertEquals(decoder.getX(i), store.getPosX()[i], 800.0 / FrameEncoder.LEVELS);
+            assertEquals(decoder.getY(i), store.getPosY()[i], 600.0 / FrameEncoder.LEVELS);
+        }
+    }
+
+    // EFFECTS: waits up to ten seconds for the condition to hold, and asserts that it does
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    // Represents a viewer that collects the binary messages it reads, and notes when it is closed
+    private static class Viewer implements WebSocket.Listener {
+        private final boolean reading;
+        private final BlockingQueue<byte[]> messages;
+        private final ByteArrayOutputStream parts;
+        private final CompletableFuture<Boolean> closed;
+        private WebSocket webSocket;
+
+        // EFFECTS: instantiates a viewer that reads every message if reading, or none at all
+        Viewer(boolean reading) {
+            this.reading = reading;
+            this.messages = new LinkedBlockingQueue<>();
+            this.parts = new ByteArrayOutputStream();
+            this.closed = new CompletableFuture<>();
+        }
+
+        // EFFECTS: waits up to ten seconds for the next message and returns it
+        byte[] next() throws InterruptedException {
+            byte[] message = this.messages.poll(10, TimeUnit.SECONDS);
+            assertNotNull(message);
+            return message;
+        }
+
+        // MODIFIES: webSocket
+        // EFFECTS: asks for the first message, if reading
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            if (this.reading) {
+                webSocket.request(1);
+            }
+        }
+
+        // MODIFIES: this, webSocket
+        // EFFECTS: gathers the parts of a message, queues it once complete, and asks for the next
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            this.parts.write(bytes, 0, bytes.length);
+            if (last) {
+                this.messages.add(this.parts.toByteArray());
+                this.parts.reset();
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: notes that the connection closed
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            this.closed.complete(true);
+            return null;
+        }
+
+        // MODIFIES: this
+        // EFFECTS: notes that the connection ended without a closing handshake
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            this.closed.complete(true);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package network;
+
+import model.RenderBuffer;
+import model.Simulation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketConnectionTest {
+    private static final String UPGRADE = "GET / HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\n"
+            + "Connection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+            + "Sec-WebSocket-Version: 13\r\n\r\n";
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 500;
+
+    private Socket client;
+    private DataInputStream in;
+    private OutputStream out;
+    private WebSocketConnection connection;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            this.client = new Socket();
+            // A small receive buffer, so that a viewer that stops reading soon holds up the sender
+            this.client.setReceiveBufferSize(4096);
+            this.client.connect(serverSocket.getLocalSocketAddress());
+            Socket socket = serverSocket.accept();
+            socket.setSendBufferSize(4096);
+            this.connection = new WebSocketConnection(socket, HANDSHAKE_TIMEOUT_MILLIS);
+        }
+        this.client.setSoTimeout(10000);
+        this.in = new DataInputStream(this.client.getInputStream());
+        this.out = this.client.getOutputStream();
+        this.connection.start();
+    }
+
+    @AfterEach
+    public void runAfter() throws IOException {
+        this.connection.close();
+        this.client.close();
+    }
+
+    @Test
+    public void testAccept() {
+        // The example of RFC 6455
+        assertEquals(WebSocketConnection.accept("dGhlIHNhbXBsZSBub25jZQ=="), "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=");
+    }
+
+    @Test
+    public void testHandshake() throws IOException, InterruptedException {
+        assertFalse(this.connection.isOpen());
+        send(UPGRADE);
+        assertEquals(readLine(), "HTTP/1.1 101 Switching Protocols");
+        String accept = "";
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            accept = line.startsWith("Sec-WebSocket-Accept: ") ? line : accept;
+        }
+        assertEquals(accept, "Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo=");
+        waitUntilOpen();
+    }
+
+    @Test
+    public void testNotAnUpgrade() throws IOException {
+        send("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertEquals(readLine(), "HTTP/1.1 400 Bad Request");
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            assertFalse(line.startsWith("Upgrade"));
+        }
+        assertEquals(this.in.read(), -1);
+        assertFalse(this.connection.isOpen());
+    }
+
+    @Test
+    public void testHandshakeTimeout() throws IOException, InterruptedException {
+        // A viewer that sends half its request and then nothing is disconnected
+        send("GET / HTTP/1.1\r\n");
+        long start = System.nanoTime();
+        assertEquals(this.in.read(), -1);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        waitUntilClosed();
+        assertFalse(this.connection.isOpen());
+    }
+
+    @Test
+    public void testOpenOutlastsHandshakeTimeout() throws IOException, InterruptedException {
+        openConnection();
+        // An open viewer may stay quiet for longer than the handshake was allowed to take
+        Thread.sleep(3L * HANDSHAKE_TIMEOUT_MILLIS);
+        assertTrue(this.connection.isOpen());
+        sendMasked(WebSocketConnection.OPCODE_PING, new byte[0]);
+        assertEquals(this.in.readUnsignedByte(), 0x80 | WebSocketConnection.OPCODE_PONG);
+        assertEquals(this.in.readUnsignedByte(), 0);
+    }
+
+    @Test
+    public void testOfferSendsFrame() throws IOException, InterruptedException {
+        openConnection();
+        Simulation simulation = new Simulation(800, 600, 2);
+        simulation.generateRandomWorld(50);
+        RenderBuffer renderBuffer = new RenderBuffer();
+        renderBuffer.publish(simulation);
+        assertTrue(this.connection.offer(renderBuffer.acquire()));
+
+        assertEquals(this.in.readUnsignedByte(), 0x80 | WebSocketConnection.OPCODE_BINARY);
+        int length = this.in.readUnsignedByte();
+        assertEquals(length, 126);
+        byte[] frame = new byte[this.in.readUnsignedShort()];
+        this.in.readFully(frame);
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.decode(frame);
+        assertEquals(decoder.size(), 50);
+        assertEquals(this.connection.getKeyFrames(), 1);
+    }
+
+    @Test
+    public void testOfferDropsWhileFramePending() throws InterruptedException, IOException {
+        openConnection();
+        Simulation simulation = new Simulation(800, 600, 2);
+        simulation.generateRandomWorld(50000);
+        RenderBuffer renderBuffer = new RenderBuffer();
+        // The viewer reads nothing, so the first frame fills the socket and the next waits behind it
+        for (int i = 0; i < 100 && this.connection.getDropped() == 0; i++) {
+            renderBuffer.publish(simulation);
+            this.connection.offer(renderBuffer.acquire());
+            Thread.sleep(10);
+        }
+        assertTrue(this.connection.getDropped() > 0);
+        assertEquals(this.connection.getSent(), 0);
+
+        // Closing ends the blocked write
+        this.connection.close();
+        assertTrue(this.connection.isClosed());
+        assertFalse(this.connection.offer(renderBuffer.acquire()));
+    }
+
+    @Test
+    public void testPingAndClose() throws IOException, InterruptedException {
+        openConnection();
+        sendMasked(WebSocketConnection.OPCODE_PING, new byte[]{1, 2, 3});
+        assertEquals(this.in.readUnsignedByte(), 0x80 | WebSocketConnection.OPCODE_PONG);
+        assertEquals(this.in.readUnsignedByte(), 3);
+        assertEquals(this.in.readUnsignedByte(), 1);
+        this.in.skipBytes(2);
+
+        // The close is answered with the same status code, then the connection ends
+        sendMasked(WebSocketConnection.OPCODE_CLOSE, new byte[]{0x03, (byte) 0xE8, 'b', 'y', 'e'});
+        assertEquals(this.in.readUnsignedByte(), 0x80 | WebSocketConnection.OPCODE_CLOSE);
+        assertEquals(this.in.readUnsignedByte(), 2);
+        assertEquals(this.in.readUnsignedShort(), 1000);
+        assertEquals(this.in.read(), -1);
+        waitUntilClosed();
+    }
+
+    @Test
+    public void testUnmaskedFrameCloses() throws IOException, InterruptedException {
+        openConnection();
+        this.out.write(new byte[]{(byte) (0x80 | WebSocketConnection.OPCODE_PING), 0});
+        this.out.flush();
+        assertEquals(this.in.read(), -1);
+        waitUntilClosed();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: performs the handshake, skips the response and waits for the connection to open
+    private void openConnection() throws IOException, InterruptedException {
+        send(UPGRADE);
+        while (!readLine().isEmpty()) {
+            // Skips the response headers
+        }
+        waitUntilOpen();
+    }
+
+    // EFFECTS: waits until the connection is open
+    private void waitUntilOpen() throws InterruptedException {
+        for (int i = 0; i < 1000 && !this.connection.isOpen(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(this.connection.isOpen());
+    }
+
+    // EFFECTS: waits until the connection has closed
+    private void waitUntilClosed() throws InterruptedException {
+        for (int i = 0; i < 1000 && !this.connection.isClosed(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(this.connection.isClosed());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sends the text to the connection
+    private void send(String text) throws IOException {
+        this.out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+        this.out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sends a short payload to the connection as a final frame with the given opcode, masked as a
+    //          client must
+    private void sendMasked(int opcode, byte[] payload) throws IOException {
+        byte[] mask = {0x11, 0x22, 0x33, 0x44};
+        this.out.write(0x80 | opcode);
+        this.out.write(0x80 | payload.length);
+        this.out.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            this.out.write(payload[i] ^ mask[i & 3]);
+        }
+        this.out.flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a line of the HTTP response, without its line ending
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = this.in.read(); b != '\n' && b >= 0; b = this.in.read()) {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
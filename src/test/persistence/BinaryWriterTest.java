@@ -0,0 +1,292 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryWriterTest {
+    @Test
+    public void testFileNotFound() {
+        try {
+            BinaryWriter binaryWriter = new BinaryWriter("./data/noSuchDirectory/file.plb");
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testEmptySimulation() {
+        try {
+            Simulation simulation = new Simulation(800, 600, 0);
+            BinaryWriter binaryWriter = new BinaryWriter("./data/emptyExample.plb");
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            BinaryReader binaryReader = new BinaryReader("./data/emptyExample.plb");
+            simulation = binaryReader.read();
+            binaryReader.close();
+            assertEquals(simulation.getWidth(), 800);
+            assertEquals(simulation.getHeight(), 600);
+            assertEquals(simulation.getParticles().size(), 0);
+            assertEquals(simulation.getParticleTypes().size(), 0);
+            assertEquals(simulation.getAttractionMatrix().getAttractions().length, 0);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testTypicalSimulation() {
+        try {
+            Simulation simulation = new Simulation(1280, 720, 0);
+            simulation.getAttractionMatrix().setFriction(0.9);
+            simulation.getAttractionMatrix().setBeta(0.3);
+            simulation.getAttractionMatrix().setRange(100);
+            simulation.addParticleType().setColor(new Color(4141, true));
+            simulation.addParticleType().setColor(new Color(0, true));
+            simulation.addParticleType().setColor(new Color(-1, true));
+            simulation.getAttractionMatrix().setAttraction(1, 2, -0.25);
+            ParticleType pt1 = simulation.getParticleTypes().get(0);
+            ParticleType pt3 = simulation.getParticleTypes().get(2);
+            simulation.addParticle(new Particle(new Vector(100, 200), new Vector(1, 2), pt1));
+            simulation.addParticle(new Particle(new Vector(0, 350), new Vector(-4, 3), pt3));
+            BinaryWriter binaryWriter = new BinaryWriter("./data/typicalExample.plb");
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            BinaryReader binaryReader = new BinaryReader("./data/typicalExample.plb");
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertEquals(loaded.toJson().toString(), simulation.toJson().toString());
+            assertEquals(loaded.getAttractionMatrix().getAttraction(1, 2), -0.25);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testRandomWorldRoundTrip() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.setBoundaryMode(BoundaryMode.REFLECT);
+            simulation.generateRandomWorld(10000);
+            simulation.update();
+            String filename = tempFilename();
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            BinaryReader binaryReader = new BinaryReader(filename);
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertEquals(loaded.toJson().similar(simulation.toJson()), true);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testParticleWithUnregisteredType() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.addParticle(new Particle(new Vector(1, 2), new ParticleType(Color.ORANGE, 7)));
+            String filename = tempFilename();
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            BinaryReader binaryReader = new BinaryReader(filename);
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertTrue(loaded.getParticleTypes().isEmpty());
+            assertEquals(loaded.getParticles().get(0).getType().getID(), 7);
+            assertEquals(loaded.getParticles().get(0).getType().getColor(), Color.ORANGE);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testTruncatedFile() {
+        String filename = tempFilename();
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(100);
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+            RandomAccessFile file = new RandomAccessFile(filename, "rw");
+            file.setLength(file.length() - 10);
+            file.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+        try {
+            BinaryReader binaryReader = new BinaryReader(filename);
+            binaryReader.read();
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testVersion1Snapshot() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(100);
+            String filename = tempFilename();
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            // Version 1 has no boundary mode or seed, which follow the 24 bytes of magic, version, width and
+            // height
+            byte[] bytes = Files.readAllBytes(Paths.get(filename));
+            ByteBuffer version1 = ByteBuffer.allocate(bytes.length - 12).order(ByteOrder.LITTLE_ENDIAN);
+            version1.put(bytes, 0, 24).put(bytes, 36, bytes.length - 36).putInt(4, 1);
+            Files.write(Paths.get(filename), version1.array());
+
+            BinaryReader binaryReader = new BinaryReader(filename);
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertEquals(loaded.getBoundaryMode(), BoundaryMode.OPEN);
+            loaded.setSeed(simulation.getSeed());
+            assertTrue(loaded.toJson().similar(simulation.toJson()));
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testVersion2Snapshot() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(100);
+            simulation.setBoundaryMode(BoundaryMode.REFLECT);
+            String filename = tempFilename();
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            // Version 2 has no seed, which follows the boundary mode
+            byte[] bytes = Files.readAllBytes(Paths.get(filename));
+            ByteBuffer version2 = ByteBuffer.allocate(bytes.length - 8).order(ByteOrder.LITTLE_ENDIAN);
+            version2.put(bytes, 0, 28).put(bytes, 36, bytes.length - 36).putInt(4, 2);
+            Files.write(Paths.get(filename), version2.array());
+
+            BinaryReader binaryReader = new BinaryReader(filename);
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertEquals(loaded.getBoundaryMode(), BoundaryMode.REFLECT);
+            loaded.setSeed(simulation.getSeed());
+            assertTrue(loaded.toJson().similar(simulation.toJson()));
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testSeed() {
+        try {
+            Simulation simulation = new Simulation(800, 600, 1234);
+            simulation.generateRandomWorld(10);
+            String filename = tempFilename();
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+
+            BinaryReader binaryReader = new BinaryReader(filename);
+            Simulation loaded = binaryReader.read();
+            binaryReader.close();
+            assertEquals(loaded.getSeed(), simulation.getSeed());
+            // The loaded simulation carries on with the same random numbers
+            simulation.generateRandomWorld(10);
+            loaded.generateRandomWorld(10);
+            assertTrue(loaded.toJson().similar(simulation.toJson()));
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testUnknownBoundaryMode() {
+        String filename = tempFilename();
+        try {
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(new Simulation(800, 600));
+            binaryWriter.close();
+            RandomAccessFile file = new RandomAccessFile(filename, "rw");
+            file.seek(24);
+            file.write(7);
+            file.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+        try {
+            BinaryReader binaryReader = new BinaryReader(filename);
+            binaryReader.read();
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testInvalidCounts() {
+        // The particle count, type count and type table size follow the 36 bytes of a version 3 header
+        for (int offset = 36; offset <= 44; offset += 4) {
+            for (int count : new int[]{-1, Integer.MAX_VALUE, 1 << 20}) {
+                assertCountRejected(offset, count);
+            }
+        }
+    }
+
+    // EFFECTS: asserts that a snapshot with the given count written at the given offset fails to be read
+    //          with an IOException
+    private static void assertCountRejected(int offset, int count) {
+        String filename = tempFilename();
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(10);
+            BinaryWriter binaryWriter = new BinaryWriter(filename);
+            binaryWriter.write(simulation);
+            binaryWriter.close();
+            RandomAccessFile file = new RandomAccessFile(filename, "rw");
+            file.seek(offset);
+            file.writeInt(Integer.reverseBytes(count));
+            file.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+        try {
+            BinaryReader binaryReader = new BinaryReader(filename);
+            binaryReader.read();
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    // EFFECTS: returns the name of a new temporary snapshot file, deleted when the tests exit
+    private static String tempFilename() {
+        try {
+            File file = File.createTempFile("BinaryWriterTest", BinaryWriter.EXTENSION);
+            file.deleteOnExit();
+            return file.getPath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
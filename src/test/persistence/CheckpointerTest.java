@@ -0,0 +1,118 @@
+package persistence;
+
+import model.BoundaryMode;
+import model.Simulation;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointerTest {
+    // A new directory for each test, deleted with everything in it afterwards
+    @TempDir
+    Path directory;
+    private Simulation simulation;
+
+    @BeforeEach
+    public void runBefore() throws IOException {
+        this.simulation = new Simulation(800, 600, 3);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.generateRandomWorld(200);
+    }
+
+    @Test
+    public void testCheckpointEveryInterval() throws IOException, InterruptedException {
+        Checkpointer checkpointer = new Checkpointer(this.directory.toString(), 3, 10);
+        for (int step = 0; step < 6; step++) {
+            this.simulation.update();
+            checkpointer.stepCompleted(this.simulation);
+            if (step == 2) {
+                checkpointer.close();
+                checkpointer = new Checkpointer(this.directory.toString(), 3, 10);
+            }
+        }
+        checkpointer.close();
+        assertEquals(checkpointer.getWritten(), 1);
+        assertNull(checkpointer.getLastFailure());
+        assertEquals(listFiles().length, 2);
+        assertTrue(new File(this.directory.toFile(), "checkpoint-000000.plb").exists());
+
+        // The checkpointer numbers on from the checkpoints already there
+        String latest = Checkpointer.findLatest(this.directory.toString());
+        assertTrue(latest.endsWith("checkpoint-000001.plb"));
+        Simulation loaded = new SimulationFile(latest).load();
+        assertTrue(loaded.toJson().similar(this.simulation.toJson()));
+    }
+
+    @Test
+    public void testCheckpointIsConsistent() throws IOException, InterruptedException {
+        Checkpointer checkpointer = new Checkpointer(this.directory.toString(), 1, 1);
+        JSONObject expected = this.simulation.toJson();
+        assertTrue(checkpointer.checkpoint(this.simulation));
+        // Steps taken while the checkpoint is being written do not change it
+        for (int step = 0; step < 5; step++) {
+            this.simulation.update();
+        }
+        checkpointer.close();
+
+        Simulation loaded = new SimulationFile(Checkpointer.findLatest(this.directory.toString())).load();
+        assertTrue(loaded.toJson().similar(expected));
+    }
+
+    @Test
+    public void testRetention() throws IOException, InterruptedException {
+        for (int step = 0; step < 5; step++) {
+            this.simulation.update();
+            Checkpointer checkpointer = new Checkpointer(this.directory.toString(), 1, 2);
+            assertTrue(checkpointer.checkpoint(this.simulation));
+            checkpointer.close();
+        }
+        assertEquals(listFiles().length, 2);
+        assertTrue(Files.exists(this.directory.resolve("checkpoint-000003.plb")));
+        assertTrue(Checkpointer.findLatest(this.directory.toString()).endsWith("checkpoint-000004.plb"));
+    }
+
+    @Test
+    public void testTemporaryFilesDeleted() throws IOException, InterruptedException {
+        Files.write(this.directory.resolve("checkpoint-000007.plb.tmp"), new byte[]{1, 2, 3});
+        Files.write(this.directory.resolve("checkpoint-notes.plb"), new byte[]{1, 2, 3});
+        Checkpointer checkpointer = new Checkpointer(this.directory.toString(), 1, 1);
+        assertFalse(Files.exists(this.directory.resolve("checkpoint-000007.plb.tmp")));
+        assertNull(Checkpointer.findLatest(this.directory.toString()));
+
+        checkpointer.checkpoint(this.simulation);
+        checkpointer.close();
+        assertTrue(Checkpointer.findLatest(this.directory.toString()).endsWith("checkpoint-000000.plb"));
+        // Files that are not checkpoints are left alone
+        assertTrue(Files.exists(this.directory.resolve("checkpoint-notes.plb")));
+    }
+
+    @Test
+    public void testFindLatestNoDirectory() throws IOException {
+        assertNull(Checkpointer.findLatest(this.directory.resolve("missing").toString()));
+    }
+
+    @Test
+    public void testWriteFailure() throws IOException, InterruptedException {
+        Checkpointer checkpointer = new Checkpointer(this.directory.toString(), 1, 1);
+        // A directory in the way of the temporary file makes the write fail
+        Files.createDirectory(this.directory.resolve("checkpoint-000000.plb.tmp"));
+        checkpointer.checkpoint(this.simulation);
+        checkpointer.close();
+        assertEquals(checkpointer.getWritten(), 0);
+        assertNotNull(checkpointer.getLastFailure());
+        assertNull(Checkpointer.findLatest(this.directory.toString()));
+    }
+
+    // EFFECTS: returns the files in the directory
+    private File[] listFiles() {
+        return this.directory.toFile().listFiles();
+    }
+}
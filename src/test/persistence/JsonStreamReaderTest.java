@@ -0,0 +1,146 @@
+package persistence;
+
+import model.AttractionMatrix;
+import model.BoundaryMode;
+import model.Particle;
+import model.ParticleType;
+import model.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStreamReaderTest {
+    @Test
+    public void testFileNotFound() {
+        try {
+            JsonStreamReader jsonReader = new JsonStreamReader("./data/noSuchFile.json");
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testInvalidFile() {
+        for (String contents : new String[]{"", "[]", "{\"width\":800}", "{\"width\":1 \"height\":2}",
+                "{\"width\":1,\"height\":2,\"particles\":[{\"pos\":{}}]}", "{\"particles\":[1 2]}",
+                "{\"width\":1,\"height\":2,\"boundaryMode\":\"SIDEWAYS\"}"}) {
+            try {
+                JsonStreamReader jsonReader = new JsonStreamReader(tempFile(contents));
+                jsonReader.read();
+                fail("Should throw IOException for " + contents);
+            } catch (IOException e) {
+                // fallthrough
+            }
+        }
+    }
+
+    @Test
+    public void testEmptySimulation() {
+        try {
+            JsonStreamReader jsonReader = new JsonStreamReader("./data/emptyExample.json");
+            Simulation simulation = jsonReader.read();
+            jsonReader.close();
+            assertEquals(simulation.getWidth(), 800);
+            assertEquals(simulation.getHeight(), 600);
+            assertEquals(simulation.getBoundaryMode(), BoundaryMode.OPEN);
+            assertEquals(simulation.getParticles().size(), 0);
+            assertEquals(simulation.getParticleTypes().size(), 0);
+            AttractionMatrix attractionMatrix = simulation.getAttractionMatrix();
+            assertEquals(attractionMatrix.getAttractions().length, 0);
+            assertEquals(attractionMatrix.getFriction(), 0.7);
+            assertEquals(attractionMatrix.getBeta(), 0.4);
+            assertEquals(attractionMatrix.getRange(), 50);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testTypicalSimulation() {
+        try {
+            JsonStreamReader jsonReader = new JsonStreamReader("./data/typicalExample.json");
+            Simulation simulation = jsonReader.read();
+            jsonReader.close();
+            assertEquals(simulation.getWidth(), 1280);
+            assertEquals(simulation.getHeight(), 720);
+            List<Particle> particles = simulation.getParticles();
+            assertEquals(particles.size(), 2);
+            assertEquals(particles.get(0).getPos().getX(), 100);
+            assertEquals(particles.get(0).getPos().getY(), 200);
+            assertEquals(particles.get(0).getVel().getX(), 1);
+            assertEquals(particles.get(0).getVel().getY(), 2);
+            assertEquals(particles.get(0).getType().getID(), 0);
+            assertEquals(particles.get(0).getType().getColor().getRGB(), 4141);
+            assertEquals(particles.get(1).getPos().getX(), 0);
+            assertEquals(particles.get(1).getPos().getY(), 350);
+            assertEquals(particles.get(1).getVel().getX(), -4);
+            assertEquals(particles.get(1).getVel().getY(), 3);
+            assertEquals(particles.get(1).getType().getID(), 2);
+            List<ParticleType> particleTypes = simulation.getParticleTypes();
+            assertEquals(particleTypes.size(), 3);
+            assertEquals(particleTypes.get(0).getColor().getRGB(), 4141);
+            assertEquals(particleTypes.get(2).getID(), 2);
+            AttractionMatrix attractionMatrix = simulation.getAttractionMatrix();
+            assertEquals(attractionMatrix.getAttractions().length, 3);
+            assertEquals(attractionMatrix.getFriction(), 0.9);
+            assertEquals(attractionMatrix.getBeta(), 0.3);
+            assertEquals(attractionMatrix.getRange(), 100);
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testSharedParticleTypes() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(200);
+            String filename = tempFile(simulation.toJson().toString());
+            JsonStreamReader jsonReader = new JsonStreamReader(filename);
+            Simulation loaded = jsonReader.read();
+            jsonReader.close();
+
+            assertTrue(loaded.toJson().similar(simulation.toJson()));
+            List<Particle> particles = loaded.getParticles();
+            for (Particle p : particles) {
+                for (Particle q : particles) {
+                    assertEquals(p.getType().getID() == q.getType().getID(), p.getType() == q.getType());
+                }
+            }
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testSeed() {
+        try {
+            JsonStreamReader jsonReader = new JsonStreamReader(tempFile("{\"width\":1,\"height\":2,\"seed\":-12}"));
+            Simulation simulation = jsonReader.read();
+            jsonReader.close();
+            assertEquals(simulation.getSeed(), -12);
+            Simulation expected = new Simulation(1, 2, -12);
+            expected.generateRandomWorld(10);
+            simulation.generateRandomWorld(10);
+            assertTrue(simulation.toJson().similar(expected.toJson()));
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    // EFFECTS: writes the contents to a new temporary file, deleted when the tests exit, and returns its name
+    static String tempFile(String contents) throws IOException {
+        File file = File.createTempFile("JsonStreamTest", ".json");
+        file.deleteOnExit();
+        PrintWriter writer = new PrintWriter(file);
+        writer.print(contents);
+        writer.close();
+        return file.getPath();
+    }
+}
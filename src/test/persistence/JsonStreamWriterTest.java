@@ -0,0 +1,76 @@
+package persistence;
+
+import model.*;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonStreamWriterTest {
+    @Test
+    public void testFileNotFound() {
+        try {
+            JsonStreamWriter jsonWriter = new JsonStreamWriter("./data/noSuchDirectory/file.json");
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testEmptySimulation() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            String filename = JsonStreamReaderTest.tempFile("");
+            JsonStreamWriter jsonWriter = new JsonStreamWriter(filename);
+            jsonWriter.write(simulation);
+            jsonWriter.close();
+
+            JsonReader jsonReader = new JsonReader(filename);
+            assertTrue(jsonReader.read().similar(simulation.toJson()));
+            jsonReader.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testRandomWorldMatchesToJson() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.setBoundaryMode(BoundaryMode.WRAP);
+            simulation.generateRandomWorld(500);
+            simulation.update();
+            String filename = JsonStreamReaderTest.tempFile("");
+            JsonStreamWriter jsonWriter = new JsonStreamWriter(filename);
+            jsonWriter.write(simulation);
+            jsonWriter.close();
+
+            JsonReader jsonReader = new JsonReader(filename);
+            assertTrue(jsonReader.read().similar(simulation.toJson()));
+            jsonReader.close();
+
+            JsonStreamReader jsonStreamReader = new JsonStreamReader(filename);
+            assertTrue(jsonStreamReader.read().toJson().similar(simulation.toJson()));
+            jsonStreamReader.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    @Test
+    public void testNonFiniteNumber() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            ParticleType type = simulation.addParticleType();
+            simulation.addParticle(new Particle(new Vector(Double.NaN, 0), type));
+            JsonStreamWriter jsonWriter = new JsonStreamWriter(JsonStreamReaderTest.tempFile(""));
+            assertThrows(JSONException.class, () -> jsonWriter.write(simulation));
+            jsonWriter.close();
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+}
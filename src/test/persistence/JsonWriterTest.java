@@ -25,7 +25,7 @@ public class JsonWriterTest {
     @Test
     public void testEmptySimulation() {
         try {
-            Simulation simulation = new Simulation(800, 600);
+            Simulation simulation = new Simulation(800, 600, 0);
             JsonWriter jsonWriter = new JsonWriter("./data/emptyExample.json");
             jsonWriter.write(simulation.toJson());
             jsonWriter.close();
@@ -50,7 +50,7 @@ public class JsonWriterTest {
     @Test
     public void testTypicalSimulation() {
         try {
-            Simulation simulation = new Simulation(1280, 720);
+            Simulation simulation = new Simulation(1280, 720, 0);
             simulation.getAttractionMatrix().setFriction(0.9);
             simulation.getAttractionMatrix().setBeta(0.3);
             simulation.getAttractionMatrix().setRange(100);
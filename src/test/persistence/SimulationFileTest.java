@@ -0,0 +1,43 @@
+package persistence;
+
+import model.Simulation;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationFileTest {
+    @Test
+    public void testIsBinary() {
+        assertTrue(new SimulationFile("./data/world.plb").isBinary());
+        assertTrue(new SimulationFile("./data/WORLD.PLB").isBinary());
+        assertFalse(new SimulationFile("./data/world.json").isBinary());
+        assertEquals(new SimulationFile("./data/world.json").getFilename(), "./data/world.json");
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        try {
+            Simulation simulation = new Simulation(800, 600);
+            simulation.generateRandomWorld(50);
+            for (String extension : new String[]{".json", ".plb"}) {
+                String filename = tempFilename(extension);
+                SimulationFile file = new SimulationFile(filename);
+                file.save(simulation);
+                Simulation loaded = file.load();
+                assertTrue(loaded.toJson().similar(simulation.toJson()));
+            }
+        } catch (IOException e) {
+            fail("Unexpected IOException");
+        }
+    }
+
+    // EFFECTS: returns the name of a new temporary file with the given extension, deleted when the tests exit
+    private static String tempFilename(String extension) throws IOException {
+        File file = File.createTempFile("SimulationFileTest", extension);
+        file.deleteOnExit();
+        return file.getPath();
+    }
+}
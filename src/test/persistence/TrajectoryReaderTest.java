@@ -0,0 +1,87 @@
+package persistence;
+
+import model.Simulation;
+import model.TrajectoryFrame;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectoryReaderTest {
+    @Test
+    public void testFileNotFound() {
+        try {
+            new TrajectoryReader("./data/noSuchFile.plt");
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testNotATrajectory() {
+        assertThrows(IOException.class, () -> new TrajectoryReader("./data/typicalExample.plb"));
+        assertThrows(IOException.class, () -> new TrajectoryReader("./data/typicalExample.json"));
+    }
+
+    @Test
+    public void testTruncatedFrameIgnored() throws IOException {
+        String filename = record(5);
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        assertEquals(reader.getFrameCount(), 4);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        reader.read(3, frame);
+        assertEquals(frame.size(), 100);
+        assertEquals(frame.getStep(), 4);
+        reader.close();
+    }
+
+    @Test
+    public void testCorruptFrame() throws IOException {
+        String filename = record(2);
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            // Overwrites the particle count of the second frame, a delta frame, with another count
+            file.seek(findFrame(filename, 1) + Integer.BYTES + Long.BYTES + 1);
+            file.write(7);
+        }
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        reader.read(0, frame);
+        assertThrows(IOException.class, () -> reader.read(1, frame));
+        // The reader recovers by decoding from the key frame again
+        reader.read(0, frame);
+        assertEquals(frame.size(), 100);
+        reader.close();
+    }
+
+    // EFFECTS: records the given number of steps of a random world and returns the file name
+    private static String record(int steps) throws IOException {
+        String filename = TrajectoryWriterTest.tempFile();
+        Simulation simulation = new Simulation(200, 200, 5);
+        simulation.generateRandomWorld(100);
+        TrajectoryWriter writer = new TrajectoryWriter(filename);
+        for (int step = 0; step < steps; step++) {
+            simulation.update();
+            writer.write(simulation);
+        }
+        writer.close();
+        return filename;
+    }
+
+    // EFFECTS: returns the offset of the frame with the given index in the file
+    private static long findFrame(String filename, int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            long offset = TrajectoryWriter.HEADER_SIZE;
+            for (int f = 0; f < index; f++) {
+                file.seek(offset);
+                offset += Integer.BYTES + Integer.reverseBytes(file.readInt());
+            }
+            return offset;
+        }
+    }
+}
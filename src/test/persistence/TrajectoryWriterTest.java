@@ -0,0 +1,189 @@
+package persistence;
+
+import model.BoundaryMode;
+import model.Particle;
+import model.ParticleStore;
+import model.ParticleType;
+import model.Simulation;
+import model.TrajectoryFrame;
+import model.Vector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectoryWriterTest {
+    private Simulation simulation;
+
+    @BeforeEach
+    public void runBefore() {
+        this.simulation = new Simulation(800, 600, 20);
+        this.simulation.setBoundaryMode(BoundaryMode.WRAP);
+        this.simulation.generateRandomWorld(300);
+    }
+
+    @Test
+    public void testFileNotFound() {
+        try {
+            new TrajectoryWriter("./data/noSuchDirectory/file.plt");
+            fail("Should throw IOException");
+        } catch (IOException e) {
+            // fallthrough
+        }
+    }
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        String filename = tempFile();
+        TrajectoryWriter writer = new TrajectoryWriter(filename, 64, true, 10);
+        Simulation[] expected = new Simulation[25];
+        for (int f = 0; f < expected.length; f++) {
+            this.simulation.update();
+            writer.write(this.simulation);
+            expected[f] = this.simulation.snapshot();
+        }
+        writer.close();
+        assertEquals(writer.getFrames(), 25);
+
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        assertEquals(reader.getFrameCount(), 25);
+        assertEquals(reader.getWidth(), 800);
+        assertEquals(reader.getHeight(), 600);
+        assertEquals(reader.getScale(), 64);
+        assertTrue(reader.hasVelocities());
+        TrajectoryFrame frame = new TrajectoryFrame();
+        // In order, then jumping around both ways
+        for (int f : new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 24, 3, 17, 16, 9, 10, 0}) {
+            reader.read(f, frame);
+            assertEquals(reader.getStep(f), f + 1);
+            assertFrame(expected[f], frame, 64, true);
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testDeltaFramesAreSmaller() throws IOException {
+        String deltas = tempFile();
+        String keys = tempFile();
+        TrajectoryWriter deltaWriter = new TrajectoryWriter(deltas);
+        TrajectoryWriter keyWriter = new TrajectoryWriter(keys, TrajectoryWriter.DEFAULT_SCALE, false, 1);
+        for (int f = 0; f < 20; f++) {
+            this.simulation.update();
+            deltaWriter.write(this.simulation);
+            keyWriter.write(this.simulation);
+        }
+        deltaWriter.close();
+        keyWriter.close();
+        long rawSize = 20L * 300 * 2 * Double.BYTES;
+        assertTrue(new File(deltas).length() < new File(keys).length());
+        assertTrue(new File(deltas).length() < rawSize / 4);
+    }
+
+    @Test
+    public void testParticlesChange() throws IOException {
+        String filename = tempFile();
+        TrajectoryWriter writer = new TrajectoryWriter(filename);
+        writer.write(this.simulation);
+        ParticleType type = this.simulation.addParticleType();
+        type.setColor(Color.MAGENTA);
+        this.simulation.addParticle(new Particle(new Vector(-3.5, 700.25), type));
+        writer.write(this.simulation);
+        Simulation expected = this.simulation.snapshot();
+        this.simulation.getParticleTypes().get(0).setColor(Color.ORANGE);
+        writer.write(this.simulation);
+        this.simulation.removeParticles(p -> p.getType() == type);
+        writer.write(this.simulation);
+        writer.close();
+
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        reader.read(1, frame);
+        assertFrame(expected, frame, TrajectoryWriter.DEFAULT_SCALE, false);
+        reader.read(2, frame);
+        assertEquals(frame.getColors()[frame.size() - 1], Color.MAGENTA.getRGB());
+        assertTrue(contains(frame.getColors(), frame.size(), Color.ORANGE.getRGB()));
+        reader.read(3, frame);
+        assertFrame(this.simulation, frame, TrajectoryWriter.DEFAULT_SCALE, false);
+        reader.close();
+    }
+
+    @Test
+    public void testReorderedParticles() throws IOException {
+        String filename = tempFile();
+        TrajectoryWriter writer = new TrajectoryWriter(filename, 64, true, 10);
+        this.simulation.setReorderInterval(2);
+        Simulation[] expected = new Simulation[5];
+        for (int f = 0; f < expected.length; f++) {
+            this.simulation.update();
+            writer.write(this.simulation);
+            expected[f] = this.simulation.snapshot();
+        }
+        writer.close();
+
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        for (int f = 0; f < expected.length; f++) {
+            reader.read(f, frame);
+            assertFrame(expected[f], frame, 64, true);
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testEmptySimulation() throws IOException {
+        String filename = tempFile();
+        TrajectoryWriter writer = new TrajectoryWriter(filename);
+        Simulation empty = new Simulation(100, 50);
+        writer.write(empty);
+        writer.write(empty);
+        writer.close();
+
+        TrajectoryReader reader = new TrajectoryReader(filename);
+        assertEquals(reader.getFrameCount(), 2);
+        TrajectoryFrame frame = new TrajectoryFrame();
+        reader.read(1, frame);
+        assertEquals(frame.size(), 0);
+        assertEquals(frame.getWidth(), 100);
+        assertFalse(frame.hasVelocities());
+        reader.close();
+    }
+
+    // EFFECTS: asserts that the frame holds the particles of the simulation, up to the quantization
+    static void assertFrame(Simulation expected, TrajectoryFrame frame, double scale, boolean velocities) {
+        ParticleStore store = expected.getParticleStore();
+        assertEquals(frame.size(), store.size());
+        assertEquals(frame.hasVelocities(), velocities);
+        assertEquals(frame.getWidth(), expected.getWidth());
+        double tolerance = 0.5 / scale;
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(frame.getPosX()[i], store.getPosX()[i], tolerance);
+            assertEquals(frame.getPosY()[i], store.getPosY()[i], tolerance);
+            if (velocities) {
+                assertEquals(frame.getVelX()[i], store.getVelX()[i], tolerance);
+                assertEquals(frame.getVelY()[i], store.getVelY()[i], tolerance);
+            }
+            assertEquals(frame.getColors()[i], store.getType(i).getColor().getRGB());
+        }
+    }
+
+    // EFFECTS: returns true if the first n entries of the array contain the value
+    private static boolean contains(int[] array, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // EFFECTS: returns the name of a new temporary file, deleted when the tests exit
+    static String tempFile() throws IOException {
+        File file = File.createTempFile("TrajectoryTest", TrajectoryWriter.EXTENSION);
+        file.deleteOnExit();
+        return file.getPath();
+    }
+}